@@ -73,3 +73,39 @@ JNIEXPORT jlong JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeGetDirectB
 {
     return (jlong)env->GetDirectBufferAddress(buf);
 }
+
+JNIEXPORT void JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeCopyMemoryNT
+  (JNIEnv *env, jobject obj, jlong srcAddress, jlong dstAddress, jlong length, jboolean drain)
+{
+    unsigned flags = drain ? PMEM_F_MEM_NONTEMPORAL : PMEM_F_MEM_NONTEMPORAL | PMEM_F_MEM_NODRAIN;
+    pmem_memcpy((void *)dstAddress, (const void *)srcAddress, (size_t)length, flags);
+}
+
+JNIEXPORT void JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeCopyFromArrayNT
+  (JNIEnv *env, jobject obj, jbyteArray srcArray, jint srcIndex, jlong dstAddress, jlong length, jboolean drain)
+{
+    unsigned flags = drain ? PMEM_F_MEM_NONTEMPORAL : PMEM_F_MEM_NONTEMPORAL | PMEM_F_MEM_NODRAIN;
+    jbyte* src = (jbyte*)env->GetPrimitiveArrayCritical(srcArray, NULL);
+    if (src == NULL) return;
+    pmem_memcpy((void *)dstAddress, src + srcIndex, (size_t)length, flags);
+    env->ReleasePrimitiveArrayCritical(srcArray, src, JNI_ABORT);
+}
+
+JNIEXPORT void JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeSetMemoryNT
+  (JNIEnv *env, jobject obj, jlong address, jlong length, jbyte value, jboolean drain)
+{
+    unsigned flags = drain ? PMEM_F_MEM_NONTEMPORAL : PMEM_F_MEM_NONTEMPORAL | PMEM_F_MEM_NODRAIN;
+    pmem_memset((void *)address, (int)value, (size_t)length, flags);
+}
+
+JNIEXPORT void JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeDrain
+  (JNIEnv *env, jobject obj)
+{
+    pmem_drain();
+}
+
+JNIEXPORT jobject JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeNewDirectByteBuffer
+  (JNIEnv *env, jobject obj, jlong address, jlong length)
+{
+    return env->NewDirectByteBuffer((void *)address, length);
+}
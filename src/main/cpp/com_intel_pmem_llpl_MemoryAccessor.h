@@ -30,6 +30,21 @@ JNIEXPORT jint JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeHasAutoFlus
 
 JNIEXPORT jlong JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeGetDirectByteBufferAddress
   (JNIEnv *env, jobject obj, jobject buf);
+
+JNIEXPORT void JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeCopyMemoryNT
+  (JNIEnv *env, jobject obj, jlong srcAddress, jlong dstAddress, jlong length, jboolean drain);
+
+JNIEXPORT void JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeCopyFromArrayNT
+  (JNIEnv *env, jobject obj, jbyteArray srcArray, jint srcIndex, jlong dstAddress, jlong length, jboolean drain);
+
+JNIEXPORT void JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeSetMemoryNT
+  (JNIEnv *env, jobject obj, jlong address, jlong length, jbyte value, jboolean drain);
+
+JNIEXPORT void JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeDrain
+  (JNIEnv *env, jobject obj);
+
+JNIEXPORT jobject JNICALL Java_com_intel_pmem_llpl_MemoryAccessor_nativeNewDirectByteBuffer
+  (JNIEnv *env, jobject obj, jlong address, jlong length);
 #ifdef __cplusplus
 }
 #endif
@@ -58,3 +58,20 @@ JNIEXPORT int JNICALL Java_com_intel_pmem_llpl_Transaction_nativeTransactionStat
     }
 }
 
+JNIEXPORT jint JNICALL Java_com_intel_pmem_llpl_Transaction_nativeAppendLogBuffer
+  (JNIEnv *env, jobject obj, jlong address, jlong size)
+{
+    if (pmemobj_tx_stage() != TX_STAGE_WORK) return -1;
+    return pmemobj_tx_log_append_buffer(TX_LOG_TYPE_SNAPSHOT, (void*)address, (size_t)size);
+}
+
+JNIEXPORT void JNICALL Java_com_intel_pmem_llpl_Transaction_nativeRunPinned
+  (JNIEnv *env, jobject obj, jobject body)
+{
+    // a pending exception thrown by body propagates to the caller on return
+    jclass cls = env->FindClass("java/lang/Runnable");
+    if (cls == NULL) return;
+    jmethodID run = env->GetMethodID(cls, "run", "()V");
+    if (run == NULL) return;
+    env->CallVoidMethod(body, run);
+}
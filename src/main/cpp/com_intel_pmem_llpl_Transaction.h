@@ -25,6 +25,12 @@ JNIEXPORT void JNICALL Java_com_intel_pmem_llpl_Transaction_nativeAbortTransacti
 JNIEXPORT int JNICALL Java_com_intel_pmem_llpl_Transaction_nativeTransactionState
   (JNIEnv *env, jobject obj);
 
+JNIEXPORT jint JNICALL Java_com_intel_pmem_llpl_Transaction_nativeAppendLogBuffer
+  (JNIEnv *, jobject, jlong, jlong);
+
+JNIEXPORT void JNICALL Java_com_intel_pmem_llpl_Transaction_nativeRunPinned
+  (JNIEnv *, jobject, jobject);
+
 #ifdef __cplusplus
 }
 #endif
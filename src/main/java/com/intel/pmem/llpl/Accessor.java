@@ -7,6 +7,7 @@
 
 package com.intel.pmem.llpl;
 
+import java.nio.ByteBuffer;
 import java.util.function.Function;
 import java.util.function.Consumer;
 
@@ -84,6 +85,25 @@ public final class Accessor extends AnyAccessor {
         super.flush(0, size());
     }
 
+    /**
+    * Returns a writable direct {@code ByteBuffer} whose content is the {@code length} bytes of this accessor's 
+    * memory starting at {@code offset}.  No bytes are copied and writes to the buffer are not flushed; 
+    * use {@link #flush(long, long)} to make them durable.  The buffer uses native byte order.<br><br>
+    * <b>The buffer is unchecked.</b>  It is not tied to the lifetime of this accessor's memory and cannot be 
+    * invalidated: using it after the memory is freed or the heap is closed reads or writes whatever now occupies 
+    * that address, and may corrupt other allocations or crash the JVM.  Where possible, prefer 
+    * {@link #withByteBuffer(long, int, Function)}, which limits the buffer to the scope of a function.  
+    * @param offset the starting offset in this accessor's memory
+    * @param length the number of bytes in the view
+    * @return a writable view of the specified bytes
+    * @throws IndexOutOfBoundsException if the view would include data outside of accessor bounds 
+    * @throws IllegalStateException if the accessor is not in a valid state for use
+    * @since 1.3
+    */
+    public ByteBuffer asByteBuffer(long offset, int length) {
+        return super.byteBufferView(offset, length);
+    }
+
     /**
     * Adds the specified range of of bytes within this accessor's memory to the current transaction.
     * Any modifications to this range of bytes will be committed on successful completion of the current
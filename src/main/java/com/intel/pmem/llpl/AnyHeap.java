@@ -11,6 +11,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.SortedMap;
 import java.util.concurrent.ConcurrentSkipListMap; 
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.Arrays;
 import java.util.MissingResourceException;
 import java.io.File;
@@ -85,6 +86,12 @@ public abstract class AnyHeap {
         MINIMUM_HEAP_SIZE = nativeMinHeapSize();
     }
 
+    static final long LONG_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(long[].class);
+    static final long INT_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(int[].class);
+    static final long SHORT_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(short[].class);
+    static final long DOUBLE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(double[].class);
+    static final long FLOAT_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(float[].class);
+
     private boolean open;
     private final String path;
     private boolean valid;
@@ -93,6 +100,8 @@ public abstract class AnyHeap {
     private SortedMap<Long, Integer> userSizes;
     private long[] allocationClasses;
     private Metadata metadata;
+    private volatile LogReservation logReservation;
+    private final TransactionCounters counters = new TransactionCounters();
     static final String POOL_SET_FILE = "myobjpool.set";
 
     AnyHeap(String path, long requestedSize) {
@@ -118,6 +127,8 @@ public abstract class AnyHeap {
         metadata = Metadata.open(this);
         long currentVersion = metadata.getVersion();
         if (currentVersion < MIN_HEAP_VERSION || currentVersion > HEAP_VERSION ) throw new HeapException("Failed to open heap. Incompatible heap version."); 
+        long logsHandle = metadata.getTransactionLogsHandle();
+        if (logsHandle != 0) logReservation = new LogReservation(poolHandle, logsHandle, (int)metadata.getTransactionLogCount(), metadata.getTransactionLogSize());
         open = true;
     }
 
@@ -125,6 +136,9 @@ public abstract class AnyHeap {
         static final long METADATA_SIZE = 64;
         private static final long USER_ROOT_OFFSET = 0;
         private static final long HEAP_VERSION_OFFSET = 8;
+        private static final long TX_LOGS_HANDLE_OFFSET = 16;
+        private static final long TX_LOG_SIZE_OFFSET = 24;
+        private static final long TX_LOG_COUNT_OFFSET = 32;
         private AnyMemoryBlock metaBlock;
 
         private Metadata(AnyHeap heap) {
@@ -145,6 +159,68 @@ public abstract class AnyHeap {
         public long getUserRoot() {return metaBlock.getLong(USER_ROOT_OFFSET);}
         public void setUserRoot(long value) {metaBlock.transactionalSetLong(USER_ROOT_OFFSET, value);}
         public long getVersion() {return metaBlock.getLong(HEAP_VERSION_OFFSET);}
+        public long getTransactionLogsHandle() {return metaBlock.getLong(TX_LOGS_HANDLE_OFFSET);}
+        public long getTransactionLogSize() {return metaBlock.getLong(TX_LOG_SIZE_OFFSET);}
+        public long getTransactionLogCount() {return metaBlock.getLong(TX_LOG_COUNT_OFFSET);}
+
+        // must be called within an active transaction
+        void setTransactionLogs(long handle, long size, long count) {
+            metaBlock.transactionalSetLong(TX_LOGS_HANDLE_OFFSET, handle);
+            metaBlock.transactionalSetLong(TX_LOG_SIZE_OFFSET, size);
+            metaBlock.transactionalSetLong(TX_LOG_COUNT_OFFSET, count);
+        }
+    }
+
+    // a persistent set of equally-sized undo log buffers lent to transactions, at most one per running transaction 
+    static final class LogReservation {
+        private final long handle;
+        private final long address;
+        private final long bufferSize;
+        private final AtomicIntegerArray inUse;
+
+        LogReservation(long poolHandle, long handle, int count, long bufferSize) {
+            this.handle = handle;
+            this.address = Transaction.alignLog(poolHandle + handle);
+            this.bufferSize = bufferSize;
+            this.inUse = new AtomicIntegerArray(count);
+        }
+
+        static long allocationSize(int count, long bufferSize) {
+            return count * bufferSize + Transaction.LOG_ALIGNMENT;
+        }
+
+        long handle() {return handle;}
+        int count() {return inUse.length();}
+        long bufferSize() {return bufferSize;}
+        long bufferAddress(int index) {return address + index * bufferSize;}
+
+        int acquire() {
+            int count = inUse.length();
+            int start = (int)(Thread.currentThread().getId() % count);
+            for (int i = 0; i < count; i++) {
+                int index = (start + i) % count;
+                if (inUse.get(index) == 0 && inUse.compareAndSet(index, 0, 1)) return index;
+            }
+            return -1;
+        }
+
+        void release(int index) {
+            inUse.set(index, 0);
+        }
+
+        boolean acquireAll() {
+            for (int i = 0; i < inUse.length(); i++) {
+                if (!inUse.compareAndSet(i, 0, 1)) {
+                    for (int j = 0; j < i; j++) inUse.set(j, 0);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void releaseAll() {
+            for (int i = 0; i < inUse.length(); i++) inUse.set(i, 0);
+        }
     }
     
     static boolean getHeap(String path) {
@@ -313,6 +389,113 @@ public abstract class AnyHeap {
         metadata.setUserRoot(value);
     }
 
+    /**
+     * [EXPERIMENTAL] Reserves {@code count} undo log buffers of {@code size} bytes each for use by transactions on 
+     * this heap.  Each outermost transaction started with {@code Transaction.create()} borrows a free reserved 
+     * buffer for its duration so that snapshots beyond the default log capacity do not require dynamic log allocation. 
+     * When more than {@code count} transactions run concurrently, the extra transactions use the default logs.  The 
+     * reservation is stored in the heap and remains in effect when the heap is re-opened.  A {@code count} of zero 
+     * releases any existing reservation.  Calling this method with the current reservation's values has no effect.
+     * @param count the number of log buffers to reserve
+     * @param size the size, in bytes, of each log buffer
+     * @throws IllegalArgumentException if {@code count} is negative or {@code size} is smaller than 
+     * {@code Transaction.MINIMUM_LOG_BUFFER_SIZE}
+     * @throws IllegalStateException if the current reservation is in use by a running transaction
+     * @throws HeapException if the log buffers could not be allocated
+     * @since 1.3
+     */
+    public synchronized void reserveTransactionLogs(int count, long size) {
+        if (count < 0) throw new IllegalArgumentException("Log count must not be negative.");
+        if (count > 0 && size < Transaction.MINIMUM_LOG_BUFFER_SIZE) throw new IllegalArgumentException("Log size is smaller than Transaction.MINIMUM_LOG_BUFFER_SIZE.");
+        long bufferSize = count == 0 ? 0 : Transaction.alignLog(size);
+        LogReservation current = logReservation;
+        if (current == null ? count == 0 : (current.count() == count && current.bufferSize() == bufferSize)) return;
+        if (current != null && !current.acquireAll()) throw new IllegalStateException("Reserved transaction logs are in use.");
+        try {
+            long handle = Transaction.create(this, () -> {
+                if (current != null) freeMemory(poolHandle + current.handle(), true);
+                long h = 0;
+                if (count > 0) {
+                    h = allocateTransactional(LogReservation.allocationSize(count, bufferSize));
+                    if (h == 0) throw new HeapException("Failed to reserve transaction logs.");
+                }
+                metadata.setTransactionLogs(h, bufferSize, count);
+                return h;
+            });
+            logReservation = (count == 0) ? null : new LogReservation(poolHandle, handle, count, bufferSize);
+        }
+        catch (RuntimeException e) {
+            if (current != null) current.releaseAll();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of undo log buffers reserved for transactions on this heap.
+     * @return the number of reserved log buffers
+     * @since 1.3
+     */
+    public int reservedTransactionLogCount() {
+        LogReservation logs = logReservation;
+        return logs == null ? 0 : logs.count();
+    }
+
+    /**
+     * Returns the size, in bytes, of each undo log buffer reserved for transactions on this heap.
+     * @return the size of each reserved log buffer, or zero if no logs are reserved
+     * @since 1.3
+     */
+    public long reservedTransactionLogSize() {
+        LogReservation logs = logReservation;
+        return logs == null ? 0 : logs.bufferSize();
+    }
+
+    /**
+     * Returns the number of transactions on this heap whose snapshots are estimated to have exceeded the 
+     * default and supplied undo log space, requiring log space to be allocated dynamically.  The estimate 
+     * assumes snapshotted ranges do not overlap.
+     * @return the number of transactions that overflowed their undo logs
+     * @since 1.3
+     */
+    public long getTransactionLogOverflowCount() {
+        return counters.logOverflows.sum();
+    }
+
+    /**
+     * Waits for preceding non-temporal writes issued by the calling thread, such as those done by 
+     * {@link MemoryAccessor#copyFromArrayNoDrain}, to reach persistent memory media.
+     * @since 1.3
+     */
+    public void drain() {
+        MemoryAccessor.nativeDrain();
+    }
+
+    /**
+     * Returns a snapshot of the transaction counters for this heap.  Counters are kept in memory only and 
+     * start at zero each time the heap is created or opened.
+     * @return the transaction statistics for this heap
+     * @since 1.3
+     */
+    public TransactionStats getStats() {
+        return counters.snapshot();
+    }
+
+    /**
+     * Resets the transaction counters for this heap to zero.
+     * @since 1.3
+     */
+    public void resetStats() {
+        counters.reset();
+    }
+
+    TransactionCounters counters() {
+        return counters;
+    }
+
+    LogReservation logReservation() {
+        return logReservation;
+    }
+
     /**
     * Allocates memory of {@code size} bytes. For {@code TransactionalHeap}s, the allocation will be done transactionally.
     * @param size the number of bytes to allocate
@@ -406,7 +589,10 @@ public abstract class AnyHeap {
     abstract AnyMemoryBlock internalMemoryBlockFromHandle(long handle);
 
     void freeMemory(long directAddress, boolean transactional) {
+        Object event = Events.beginFree();
+        long size = event == null ? 0 : nativeUsableSize(directAddress);
         int result = transactional ? nativeFree(poolHandle, directAddress) : nativeFreeAtomic(directAddress);
+        Events.endFree(event, this, size, transactional);
         if (result < 0) {
             throw new HeapException("Failed to free memory.");
         }
@@ -422,12 +608,23 @@ public abstract class AnyHeap {
         return poolHandle;
     }
 
+    String path() {
+        return path;
+    }
+
     long allocateTransactional(long size) {
-        return nativeAllocateTransactional(poolHandle, size, getAllocationClassIndex(size));
+        counters.allocations.increment();
+        Object event = Events.beginAllocation();
+        long handle = nativeAllocateTransactional(poolHandle, size, getAllocationClassIndex(size));
+        Events.endAllocation(event, this, size, true);
+        return handle;
     }
 
     long allocateAtomic(long size) {
-        return nativeAllocateAtomic(poolHandle, size, getAllocationClassIndex(size));
+        Object event = Events.beginAllocation();
+        long handle = nativeAllocateAtomic(poolHandle, size, getAllocationClassIndex(size));
+        Events.endAllocation(event, this, size, false);
+        return handle;
     }
 
     int getAllocationClassIndex(long size) {
@@ -0,0 +1,62 @@
+/* 
+ * Copyright (C) 2018-2019 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ * 
+ */
+
+package com.intel.pmem.llpl;
+
+// Flight Recorder instrumentation points.  Events are only recorded when the JVM provides jdk.jfr and the 
+// corresponding com.intel.pmem.llpl.* event is enabled in a recording; all events are disabled by default.  
+// Call sites hold events as plain Objects so that jdk.jfr classes are never loaded when unavailable.
+final class Events {
+    static final boolean AVAILABLE = isAvailable();
+    static final long LARGE_FLUSH_SIZE = Long.getLong("llpl.jfr.largeFlushSize", 1024 * 1024);
+
+    private Events() {
+        // no instances
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, Events.class.getClassLoader());
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    static Object beginAllocation() {
+        return AVAILABLE ? JfrEvents.beginAllocation() : null;
+    }
+
+    static void endAllocation(Object event, AnyHeap heap, long size, boolean transactional) {
+        if (event != null) JfrEvents.endAllocation(event, heap.path(), size, transactional);
+    }
+
+    static Object beginFree() {
+        return AVAILABLE ? JfrEvents.beginFree() : null;
+    }
+
+    static void endFree(Object event, AnyHeap heap, long size, boolean transactional) {
+        if (event != null) JfrEvents.endFree(event, heap.path(), size, transactional);
+    }
+
+    static Object beginTransaction() {
+        return AVAILABLE ? JfrEvents.beginTransaction() : null;
+    }
+
+    static void endTransaction(Object event, AnyHeap heap, boolean committed, long logBytes, int nesting) {
+        if (event != null) JfrEvents.endTransaction(event, heap.path(), committed, logBytes, nesting);
+    }
+
+    static Object beginFlush(long size) {
+        return (AVAILABLE && size >= LARGE_FLUSH_SIZE) ? JfrEvents.beginFlush() : null;
+    }
+
+    static void endFlush(Object event, String path, long size) {
+        if (event != null) JfrEvents.endFlush(event, path, size);
+    }
+}
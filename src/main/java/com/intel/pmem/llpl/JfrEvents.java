@@ -0,0 +1,141 @@
+/* 
+ * Copyright (C) 2018-2019 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ * 
+ */
+
+package com.intel.pmem.llpl;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// only loaded when Events.AVAILABLE is true
+final class JfrEvents {
+    private JfrEvents() {
+        // no instances
+    }
+
+    @Name("com.intel.pmem.llpl.Allocation")
+    @Label("Heap Allocation")
+    @Category({"LLPL", "Heap"})
+    @Description("Allocation of persistent memory from a heap")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class AllocationEvent extends Event {
+        @Label("Heap") String heap;
+        @Label("Size") @DataAmount long size;
+        @Label("Transactional") boolean transactional;
+    }
+
+    @Name("com.intel.pmem.llpl.Free")
+    @Label("Heap Free")
+    @Category({"LLPL", "Heap"})
+    @Description("Deallocation of persistent memory from a heap")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class FreeEvent extends Event {
+        @Label("Heap") String heap;
+        @Label("Size") @DataAmount long size;
+        @Label("Transactional") boolean transactional;
+    }
+
+    @Name("com.intel.pmem.llpl.Transaction")
+    @Label("Transaction")
+    @Category({"LLPL", "Transaction"})
+    @Description("An outermost transaction, from start to commit or abort")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class TransactionEvent extends Event {
+        @Label("Heap") String heap;
+        @Label("Committed") boolean committed;
+        @Label("Estimated Undo Log Size") @DataAmount long logBytes;
+        @Label("Maximum Nesting Depth") int nesting;
+    }
+
+    @Name("com.intel.pmem.llpl.Flush")
+    @Label("Large Flush")
+    @Category({"LLPL", "Flush"})
+    @Description("A flush of at least llpl.jfr.largeFlushSize bytes to persistent memory")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class FlushEvent extends Event {
+        @Label("Path") String path;
+        @Label("Size") @DataAmount long size;
+    }
+
+    // event types are looked up once; EventType.isEnabled() tracks the settings of running recordings, 
+    // so a disabled event costs a field read rather than an allocation
+    private static final EventType ALLOCATION = EventType.getEventType(AllocationEvent.class);
+    private static final EventType FREE = EventType.getEventType(FreeEvent.class);
+    private static final EventType TRANSACTION = EventType.getEventType(TransactionEvent.class);
+    private static final EventType FLUSH = EventType.getEventType(FlushEvent.class);
+
+    private static <E extends Event> E begin(E event) {
+        event.begin();
+        return event;
+    }
+
+    static Object beginAllocation() {
+        return ALLOCATION.isEnabled() ? begin(new AllocationEvent()) : null;
+    }
+
+    static void endAllocation(Object e, String heap, long size, boolean transactional) {
+        AllocationEvent event = (AllocationEvent)e;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.heap = heap;
+        event.size = size;
+        event.transactional = transactional;
+        event.commit();
+    }
+
+    static Object beginFree() {
+        return FREE.isEnabled() ? begin(new FreeEvent()) : null;
+    }
+
+    static void endFree(Object e, String heap, long size, boolean transactional) {
+        FreeEvent event = (FreeEvent)e;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.heap = heap;
+        event.size = size;
+        event.transactional = transactional;
+        event.commit();
+    }
+
+    static Object beginTransaction() {
+        return TRANSACTION.isEnabled() ? begin(new TransactionEvent()) : null;
+    }
+
+    static void endTransaction(Object e, String heap, boolean committed, long logBytes, int nesting) {
+        TransactionEvent event = (TransactionEvent)e;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.heap = heap;
+        event.committed = committed;
+        event.logBytes = logBytes;
+        event.nesting = nesting;
+        event.commit();
+    }
+
+    static Object beginFlush() {
+        return FLUSH.isEnabled() ? begin(new FlushEvent()) : null;
+    }
+
+    static void endFlush(Object e, String path, long size) {
+        FlushEvent event = (FlushEvent)e;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.path = path;
+        event.size = size;
+        event.commit();
+    }
+}
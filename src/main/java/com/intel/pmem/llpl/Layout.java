@@ -0,0 +1,560 @@
+/*
+ * Copyright (C) 2018-2019 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Describes the layout of a fixed-size record stored in an accessor's memory as a list of named, typed fields.
+ * A layout is defined once with a {@link Layout.Builder}, which assigns each field an offset and returns a typed
+ * field handle used to read and write the field:
+ <pre>
+
+  Layout.Builder builder = Layout.builder();
+  Layout.LongField KEY = builder.addLong("key");
+  Layout.IntField COUNT = builder.addInt("count");
+  Layout.BytesField NAME = builder.addBytes("name", 16);
+  Layout NODE = builder.build();
+
+  long count = COUNT.get(block, recordOffset);
+  NODE.update(block, recordOffset, (Layout.Writer w) -> {
+      w.setLong(KEY, 12345L);
+      w.setInt(COUNT, 1);
+  });
+
+ </pre>
+ * Fields are placed in the order they are added, each at its natural alignment.  The builder can also pad to a
+ * boundary and keep fields from straddling cache lines.<br><br>
+ * Writes done together through {@link #update(MemoryAccessor, long, Consumer)} share a single {@link Range}.  The
+ * record's bounds are checked once, and on persistent and transactional memory the record is flushed or
+ * added to the transaction once, rather than once per field.
+ *
+ * @since 1.3
+ */
+public final class Layout {
+    static final int CACHE_LINE_SIZE = 64;
+
+    private final Map<String, Field> fields;
+    private final long size;
+
+    private Layout(Map<String, Field> fields, long size) {
+        this.fields = Collections.unmodifiableMap(fields);
+        this.size = size;
+    }
+
+    /**
+     * Creates a new, empty layout builder.
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the size, in bytes, of a record with this layout, including any trailing padding.
+     * @return the record size
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the field with the supplied name.
+     * @param name the field name
+     * @return the field, or {@code null} if this layout has no field with that name
+     */
+    public Field field(String name) {
+        return fields.get(name);
+    }
+
+    /**
+     * Returns the fields of this layout, in offset order.
+     * @return an unmodifiable list of fields
+     */
+    public List<Field> fields() {
+        return Collections.unmodifiableList(new ArrayList<>(fields.values()));
+    }
+
+    /**
+     * Executes the supplied function, passing in a {@link Writer} for the record at {@code recordOffset} in
+     * {@code accessor}'s memory.  All writes share one range covering the whole record, so the record
+     * is checked, flushed or added to a transaction once, following the semantics of the accessor's
+     * {@code withRange} method.
+     * @param accessor the accessor whose memory holds the record
+     * @param recordOffset the offset of the record in the accessor's memory
+     * @param op the function that writes fields
+     * @throws IndexOutOfBoundsException if the record would lie outside of accessor bounds
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     */
+    public void update(MemoryAccessor accessor, long recordOffset, Consumer<Writer> op) {
+        update(accessor, recordOffset, 0, size, op);
+    }
+
+    /**
+     * Executes the supplied function, passing in a {@link Writer} for the fields {@code first} through
+     * {@code last}, inclusive, of the record at {@code recordOffset}.  The range covers only those fields,
+     * which keeps the flush or snapshot small when a few adjacent fields of a large record change.
+     * @param accessor the accessor whose memory holds the record
+     * @param recordOffset the offset of the record in the accessor's memory
+     * @param first the field with the lowest offset to be written
+     * @param last the field with the highest offset to be written
+     * @param op the function that writes fields
+     * @throws IllegalArgumentException if either field is not part of this layout or {@code last} precedes {@code first}
+     * @throws IndexOutOfBoundsException if the fields would lie outside of accessor bounds
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     */
+    public void update(MemoryAccessor accessor, long recordOffset, Field first, Field last, Consumer<Writer> op) {
+        if (fields.get(first.name) != first || fields.get(last.name) != last) throw new IllegalArgumentException("Field is not part of this layout");
+        if (last.offset < first.offset) throw new IllegalArgumentException("Last field precedes first field");
+        update(accessor, recordOffset, first.offset, last.offset + last.size - first.offset, op);
+    }
+
+    private void update(MemoryAccessor accessor, long recordOffset, long start, long length, Consumer<Writer> op) {
+        accessor.withRange(recordOffset + start, length, (Range range) -> {
+            op.accept(new Writer(range, recordOffset));
+        });
+    }
+
+    /**
+     * Writes fields of a record within a single {@link Range}.  A writer is only valid within the function
+     * to which it is supplied.
+     *
+     * @since 1.3
+     */
+    public static final class Writer {
+        private final Range range;
+        private final long recordOffset;
+
+        Writer(Range range, long recordOffset) {
+            this.range = range;
+            this.recordOffset = recordOffset;
+        }
+
+        /**
+         * Stores the supplied value in the given field.
+         * @param field the field to write
+         * @param value the value to store
+         * @throws IndexOutOfBoundsException if the field is outside of this writer's range
+         */
+        public void setByte(ByteField field, byte value) {
+            range.setByte(recordOffset + field.offset, value);
+        }
+
+        /**
+         * Stores the supplied value in the given field.
+         * @param field the field to write
+         * @param value the value to store
+         * @throws IndexOutOfBoundsException if the field is outside of this writer's range
+         */
+        public void setShort(ShortField field, short value) {
+            range.setShort(recordOffset + field.offset, value);
+        }
+
+        /**
+         * Stores the supplied value in the given field.
+         * @param field the field to write
+         * @param value the value to store
+         * @throws IndexOutOfBoundsException if the field is outside of this writer's range
+         */
+        public void setInt(IntField field, int value) {
+            range.setInt(recordOffset + field.offset, value);
+        }
+
+        /**
+         * Stores the supplied value in the given field.
+         * @param field the field to write
+         * @param value the value to store
+         * @throws IndexOutOfBoundsException if the field is outside of this writer's range
+         */
+        public void setLong(LongField field, long value) {
+            range.setLong(recordOffset + field.offset, value);
+        }
+
+        /**
+         * Copies {@code field.size()} bytes from {@code srcArray}, starting at {@code srcIndex}, into the given field.
+         * @param field the field to write
+         * @param srcArray the array from which to copy bytes
+         * @param srcIndex the starting index in the source array
+         * @throws IndexOutOfBoundsException if the field is outside of this writer's range or the copy would
+         * read outside of array bounds
+         */
+        public void setBytes(BytesField field, byte[] srcArray, int srcIndex) {
+            range.copyFromArray(srcArray, srcIndex, recordOffset + field.offset, (int)field.size);
+        }
+    }
+
+    /**
+     * A named field within a layout.
+     *
+     * @since 1.3
+     */
+    public static abstract class Field {
+        final String name;
+        final long offset;
+        final long size;
+
+        Field(String name, long offset, long size) {
+            this.name = name;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        /**
+         * Returns the name of this field.
+         * @return the field name
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns the offset of this field from the start of its record.
+         * @return the field offset
+         */
+        public long offset() {
+            return offset;
+        }
+
+        /**
+         * Returns the size of this field in bytes.
+         * @return the field size
+         */
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return name + "@" + offset + "[" + size + "]";
+        }
+    }
+
+    /**
+     * A {@code byte} field.
+     *
+     * @since 1.3
+     */
+    public static final class ByteField extends Field {
+        ByteField(String name, long offset) {
+            super(name, offset, 1);
+        }
+
+        /**
+         * Retrieves this field's value from the record at {@code recordOffset}.
+         * @param accessor the accessor whose memory holds the record
+         * @param recordOffset the offset of the record in the accessor's memory
+         * @return the field value
+         */
+        public byte get(MemoryAccessor accessor, long recordOffset) {
+            return accessor.getByte(recordOffset + offset);
+        }
+
+        /**
+         * Stores a value in this field of the record at {@code recordOffset}, with the semantics of the accessor's
+         * {@code setByte} method.
+         * @param accessor the accessor whose memory holds the record
+         * @param recordOffset the offset of the record in the accessor's memory
+         * @param value the value to store
+         */
+        public void set(MemoryAccessor accessor, long recordOffset, byte value) {
+            accessor.setByte(recordOffset + offset, value);
+        }
+    }
+
+    /**
+     * A {@code short} field.
+     *
+     * @since 1.3
+     */
+    public static final class ShortField extends Field {
+        ShortField(String name, long offset) {
+            super(name, offset, 2);
+        }
+
+        /**
+         * Retrieves this field's value from the record at {@code recordOffset}.
+         * @param accessor the accessor whose memory holds the record
+         * @param recordOffset the offset of the record in the accessor's memory
+         * @return the field value
+         */
+        public short get(MemoryAccessor accessor, long recordOffset) {
+            return accessor.getShort(recordOffset + offset);
+        }
+
+        /**
+         * Stores a value in this field of the record at {@code recordOffset}, with the semantics of the accessor's
+         * {@code setShort} method.
+         * @param accessor the accessor whose memory holds the record
+         * @param recordOffset the offset of the record in the accessor's memory
+         * @param value the value to store
+         */
+        public void set(MemoryAccessor accessor, long recordOffset, short value) {
+            accessor.setShort(recordOffset + offset, value);
+        }
+    }
+
+    /**
+     * An {@code int} field.
+     *
+     * @since 1.3
+     */
+    public static final class IntField extends Field {
+        IntField(String name, long offset) {
+            super(name, offset, 4);
+        }
+
+        /**
+         * Retrieves this field's value from the record at {@code recordOffset}.
+         * @param accessor the accessor whose memory holds the record
+         * @param recordOffset the offset of the record in the accessor's memory
+         * @return the field value
+         */
+        public int get(MemoryAccessor accessor, long recordOffset) {
+            return accessor.getInt(recordOffset + offset);
+        }
+
+        /**
+         * Stores a value in this field of the record at {@code recordOffset}, with the semantics of the accessor's
+         * {@code setInt} method.
+         * @param accessor the accessor whose memory holds the record
+         * @param recordOffset the offset of the record in the accessor's memory
+         * @param value the value to store
+         */
+        public void set(MemoryAccessor accessor, long recordOffset, int value) {
+            accessor.setInt(recordOffset + offset, value);
+        }
+    }
+
+    /**
+     * A {@code long} field.
+     *
+     * @since 1.3
+     */
+    public static final class LongField extends Field {
+        LongField(String name, long offset) {
+            super(name, offset, 8);
+        }
+
+        /**
+         * Retrieves this field's value from the record at {@code recordOffset}.
+         * @param accessor the accessor whose memory holds the record
+         * @param recordOffset the offset of the record in the accessor's memory
+         * @return the field value
+         */
+        public long get(MemoryAccessor accessor, long recordOffset) {
+            return accessor.getLong(recordOffset + offset);
+        }
+
+        /**
+         * Stores a value in this field of the record at {@code recordOffset}, with the semantics of the accessor's
+         * {@code setLong} method.
+         * @param accessor the accessor whose memory holds the record
+         * @param recordOffset the offset of the record in the accessor's memory
+         * @param value the value to store
+         */
+        public void set(MemoryAccessor accessor, long recordOffset, long value) {
+            accessor.setLong(recordOffset + offset, value);
+        }
+    }
+
+    /**
+     * A fixed-length byte array field.
+     *
+     * @since 1.3
+     */
+    public static final class BytesField extends Field {
+        BytesField(String name, long offset, long size) {
+            super(name, offset, size);
+        }
+
+        /**
+         * Copies this field's bytes from the record at {@code recordOffset} into {@code dstArray}, starting at
+         * {@code dstIndex}.
+         * @param accessor the accessor whose memory holds the record
+         * @param recordOffset the offset of the record in the accessor's memory
+         * @param dstArray the destination array
+         * @param dstIndex the starting index in the destination array
+         */
+        public void get(MemoryAccessor accessor, long recordOffset, byte[] dstArray, int dstIndex) {
+            accessor.copyToArray(recordOffset + offset, dstArray, dstIndex, (int)size);
+        }
+
+        /**
+         * Copies {@code size()} bytes from {@code srcArray}, starting at {@code srcIndex}, into this field of the
+         * record at {@code recordOffset}, with the semantics of the accessor's {@code copyFromArray} method.
+         * @param accessor the accessor whose memory holds the record
+         * @param recordOffset the offset of the record in the accessor's memory
+         * @param srcArray the array from which to copy bytes
+         * @param srcIndex the starting index in the source array
+         */
+        public void set(MemoryAccessor accessor, long recordOffset, byte[] srcArray, int srcIndex) {
+            accessor.copyFromArray(srcArray, srcIndex, recordOffset + offset, (int)size);
+        }
+    }
+
+    /**
+     * Builds a {@link Layout}, assigning each added field the next offset at its natural alignment.
+     *
+     * @since 1.3
+     */
+    public static final class Builder {
+        private final LinkedHashMap<String, Field> fields = new LinkedHashMap<>();
+        private long offset;
+        private boolean noStraddle;
+        private boolean built;
+
+        Builder() {}
+
+        /**
+         * Adds a {@code byte} field.
+         * @param name the field name
+         * @return the new field
+         * @throws IllegalArgumentException if a field with the same name was already added
+         */
+        public ByteField addByte(String name) {
+            return add(new ByteField(name, place(name, 1, 1)));
+        }
+
+        /**
+         * Adds a {@code short} field, aligned to 2 bytes.
+         * @param name the field name
+         * @return the new field
+         * @throws IllegalArgumentException if a field with the same name was already added
+         */
+        public ShortField addShort(String name) {
+            return add(new ShortField(name, place(name, 2, 2)));
+        }
+
+        /**
+         * Adds an {@code int} field, aligned to 4 bytes.
+         * @param name the field name
+         * @return the new field
+         * @throws IllegalArgumentException if a field with the same name was already added
+         */
+        public IntField addInt(String name) {
+            return add(new IntField(name, place(name, 4, 4)));
+        }
+
+        /**
+         * Adds a {@code long} field, aligned to 8 bytes.
+         * @param name the field name
+         * @return the new field
+         * @throws IllegalArgumentException if a field with the same name was already added
+         */
+        public LongField addLong(String name) {
+            return add(new LongField(name, place(name, 8, 8)));
+        }
+
+        /**
+         * Adds a fixed-length byte array field.
+         * @param name the field name
+         * @param length the number of bytes in the field
+         * @return the new field
+         * @throws IllegalArgumentException if {@code length} is not positive or a field with the same name was
+         * already added
+         */
+        public BytesField addBytes(String name, int length) {
+            if (length <= 0) throw new IllegalArgumentException("length must be greater than zero");
+            return add(new BytesField(name, place(name, length, 1), length));
+        }
+
+        /**
+         * Pads so that the next field starts on a multiple of {@code boundary} bytes.
+         * @param boundary the alignment, a power of two
+         * @return this builder
+         * @throws IllegalArgumentException if {@code boundary} is not a power of two
+         */
+        public Builder alignTo(int boundary) {
+            checkState();
+            offset = align(offset, boundary);
+            return this;
+        }
+
+        /**
+         * Adds {@code length} bytes of unnamed padding.
+         * @param length the number of bytes of padding
+         * @return this builder
+         * @throws IllegalArgumentException if {@code length} is negative
+         */
+        public Builder pad(int length) {
+            checkState();
+            if (length < 0) throw new IllegalArgumentException("length must not be negative");
+            offset += length;
+            return this;
+        }
+
+        /**
+         * Sets whether fields added afterwards that would straddle a 64-byte cache line boundary are moved to
+         * the start of the next line.  Fields larger than a cache line are unaffected.
+         * @param value true to keep fields within cache lines
+         * @return this builder
+         */
+        public Builder avoidCacheLineStraddle(boolean value) {
+            checkState();
+            noStraddle = value;
+            return this;
+        }
+
+        /**
+         * Builds the layout.  The record size is rounded up to the largest alignment among its fields.
+         * @return the layout
+         */
+        public Layout build() {
+            long alignment = 1;
+            for (Field f : fields.values()) {
+                if (!(f instanceof BytesField)) alignment = Math.max(alignment, f.size);
+            }
+            return build((int)alignment);
+        }
+
+        /**
+         * Builds the layout, rounding the record size up to a multiple of {@code alignment} bytes so that
+         * consecutive records keep their fields aligned.
+         * @param alignment the record alignment, a power of two
+         * @return the layout
+         * @throws IllegalArgumentException if {@code alignment} is not a power of two
+         */
+        public Layout build(int alignment) {
+            checkState();
+            built = true;
+            return new Layout(fields, Math.max(align(offset, alignment), 1));
+        }
+
+        private long place(String name, long size, long alignment) {
+            checkState();
+            if (fields.containsKey(name)) throw new IllegalArgumentException("Duplicate field name: " + name);
+            long start = align(offset, alignment);
+            if (noStraddle && size <= CACHE_LINE_SIZE && start / CACHE_LINE_SIZE != (start + size - 1) / CACHE_LINE_SIZE) {
+                start = align(start, CACHE_LINE_SIZE);
+            }
+            offset = start + size;
+            return start;
+        }
+
+        private <F extends Field> F add(F field) {
+            fields.put(field.name, field);
+            return field;
+        }
+
+        private void checkState() {
+            if (built) throw new IllegalStateException("Layout already built");
+        }
+
+        private static long align(long value, long boundary) {
+            if (boundary <= 0 || (boundary & (boundary - 1)) != 0) throw new IllegalArgumentException("alignment must be a power of two");
+            return (value + boundary - 1) & ~(boundary - 1);
+        }
+    }
+}
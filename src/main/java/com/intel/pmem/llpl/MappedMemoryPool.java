@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// A MemoryPool backed by a JDK file mapping rather than libpmem, so no native library is loaded.
+// On JDK 14+ the file is mapped with ExtendedMapMode.READ_WRITE_SYNC where the file system supports
+// it, and on JDK 13+ flushes use MappedByteBuffer.force(index, length).
+class MappedMemoryPool extends MemoryPoolImpl {
+    private static final FileChannel.MapMode SYNC_MODE;
+    private static final MethodHandle FORCE_RANGE;
+    private static final long ADDRESS_OFFSET;
+
+    static {
+        FileChannel.MapMode mode = null;
+        try {
+            mode = (FileChannel.MapMode)Class.forName("jdk.nio.mapmode.ExtendedMapMode").getField("READ_WRITE_SYNC").get(null);
+        }
+        catch (ReflectiveOperationException e) {
+            // JDK 13 or earlier
+        }
+        SYNC_MODE = mode;
+        MethodHandle force = null;
+        try {
+            force = MethodHandles.publicLookup().findVirtual(MappedByteBuffer.class, "force", MethodType.methodType(MappedByteBuffer.class, int.class, int.class));
+        }
+        catch (ReflectiveOperationException e) {
+            // JDK 12 or earlier
+        }
+        FORCE_RANGE = force;
+        try {
+            ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+        }
+        catch (NoSuchFieldException e) {
+            throw new RuntimeException("Unable to initialize MappedMemoryPool.");
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+
+    private MappedMemoryPool(String path, RandomAccessFile file, MappedByteBuffer buffer) {
+        super(path, UNSAFE.getLong(buffer, ADDRESS_OFFSET), buffer.capacity());
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    static MappedMemoryPool create(String path, long byteCount) {
+        if (byteCount <= 0) throw new IllegalArgumentException("byteCount must be greater than zero");
+        if (byteCount > Integer.MAX_VALUE) throw new IllegalArgumentException("byteCount must not exceed " + Integer.MAX_VALUE + " for a mapped pool");
+        if (path.startsWith("/dev/dax")) throw new IllegalArgumentException("Device paths are not supported by a mapped pool");
+        if (new File(path).exists()) throw new MemoryPoolException("Unable to create pool, path already exists:" + path);
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(path, "rw");
+            file.setLength(byteCount);
+            return map(path, file, byteCount);
+        }
+        catch (IOException e) {
+            closeQuietly(file);
+            new File(path).delete();
+            throw new MemoryPoolException("Unable to create pool: " + e.getMessage());
+        }
+    }
+
+    static MappedMemoryPool open(String path) {
+        File f = new File(path);
+        if (path.startsWith("/dev/dax")) throw new IllegalArgumentException("Device paths are not supported by a mapped pool");
+        if (!(f.exists() && f.isFile())) throw new IllegalArgumentException("path supplied must be an existing file");
+        long byteCount = f.length();
+        if (byteCount <= 0 || byteCount > Integer.MAX_VALUE) throw new MemoryPoolException("Unable to open pool, unsupported size for a mapped pool: " + byteCount);
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(path, "rw");
+            return map(path, file, byteCount);
+        }
+        catch (IOException e) {
+            closeQuietly(file);
+            throw new MemoryPoolException("Unable to open pool: " + e.getMessage());
+        }
+    }
+
+    private static MappedMemoryPool map(String path, RandomAccessFile file, long byteCount) throws IOException {
+        FileChannel channel = file.getChannel();
+        if (SYNC_MODE != null) {
+            try {
+                MappedByteBuffer buf = channel.map(SYNC_MODE, 0, byteCount);
+                return new MappedMemoryPool(path, file, buf);
+            }
+            catch (IOException | UnsupportedOperationException e) {
+                // file system does not support MAP_SYNC, fall back to msync-based flushing
+            }
+        }
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, byteCount);
+        return new MappedMemoryPool(path, file, buf);
+    }
+
+    @Override
+    void persist(long offset, long byteCount) {
+        if (byteCount == 0) return;
+        if (FORCE_RANGE != null) {
+            try {
+                MappedByteBuffer unused = (MappedByteBuffer)FORCE_RANGE.invokeExact(buffer, (int)offset, (int)byteCount);
+                return;
+            }
+            catch (RuntimeException | Error e) {
+                throw e;
+            }
+            catch (Throwable t) {
+                throw new MemoryPoolException("Unable to flush pool: " + t.getMessage());
+            }
+        }
+        buffer.force();
+    }
+
+    @Override
+    long bufferAddress(ByteBuffer buf) {
+        return UNSAFE.getLong(buf, ADDRESS_OFFSET);
+    }
+
+    @Override
+    ByteBuffer newByteBuffer(long offset, int byteCount) {
+        ByteBuffer dup = buffer.duplicate();
+        ((Buffer)dup).limit((int)offset + byteCount);
+        ((Buffer)dup).position((int)offset);
+        return dup.slice().order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    void close() {
+        unmap(buffer);
+        try {
+            file.close();
+        }
+        catch (IOException e) {
+            throw new MemoryPoolException("Unable to close pool");
+        }
+    }
+
+    // non-temporal stores are not available without libpmem so these copy through the cache and flush
+
+    @Override
+    public void copyFromPoolNT(long srcOffset, long dstOffset, long byteCount) {
+        copyFromPool(srcOffset, dstOffset, byteCount);
+        persist(dstOffset, byteCount);
+    }
+
+    @Override
+    public void copyFromPoolNT(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount) {
+        copyFromPool(srcPool, srcOffset, dstOffset, byteCount);
+        persist(dstOffset, byteCount);
+    }
+
+    @Override
+    public void copyFromByteArrayNT(byte[] srcArray, int srcIndex, long dstOffset, int byteCount) {
+        copyFromByteArray(srcArray, srcIndex, dstOffset, byteCount);
+        persist(dstOffset, byteCount);
+    }
+
+    @Override
+    public void copyFromByteBufferNT(ByteBuffer srcBuf, long dstOffset) {
+        int size = srcBuf.remaining();
+        copyFromByteBuffer(srcBuf, dstOffset);
+        persist(dstOffset, size);
+    }
+
+    @Override
+    public void setMemoryNT(byte value, long offset, long byteCount) {
+        setMemory(value, offset, byteCount);
+        persist(offset, byteCount);
+    }
+
+    private static void unmap(MappedByteBuffer buf) {
+        try {
+            Method invokeCleaner = UNSAFE.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(UNSAFE, buf);
+        }
+        catch (NoSuchMethodException e) {
+            // JDK 8, the mapping is released when the buffer is collected
+        }
+        catch (ReflectiveOperationException e) {
+            throw new MemoryPoolException("Unable to close pool");
+        }
+    }
+
+    private static void closeQuietly(RandomAccessFile file) {
+        if (file == null) return;
+        try {
+            file.close();
+        }
+        catch (IOException e) {
+            // ignore, already reporting a failure
+        }
+    }
+}
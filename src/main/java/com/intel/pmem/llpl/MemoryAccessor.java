@@ -12,6 +12,11 @@ import java.util.function.Supplier;
 import java.util.function.Function;
 import java.util.function.Consumer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ReadOnlyBufferException;
 
 /**
@@ -260,6 +265,238 @@ public abstract class MemoryAccessor {
         }
     }
 
+    /**
+     * Returns a read-only direct {@code ByteBuffer} whose content is the {@code length} bytes of this accessor's 
+     * memory starting at {@code offset}.  No bytes are copied; the buffer reads persistent memory directly and 
+     * uses native byte order, the same as {@link #getLong(long)}.  
+     * <b>The buffer is unchecked.</b>  It is not tied to the lifetime of this accessor's memory and cannot be 
+     * invalidated: using it after the memory is freed, the accessor's handle is changed, or the heap is closed 
+     * reads whatever now occupies that address, and may crash the JVM.  
+     * @param offset the starting offset in this accessor's memory
+     * @param length the number of bytes in the view
+     * @return a read-only view of the specified bytes
+     * @throws IndexOutOfBoundsException if the view would include data outside of accessor bounds 
+     * or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @since 1.3
+     */
+    public ByteBuffer asReadOnlyByteBuffer(long offset, int length) {
+        return byteBufferView(offset, length).asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Executes the supplied {@code Function}, passing in a writable direct {@code ByteBuffer} whose content is 
+     * the {@code length} bytes of this accessor's memory starting at {@code offset}.  No bytes are copied.  
+     * The semantics of writes to the buffer follow those of {@link #withRange(long, long, Function)}.  
+     * Persistent accessor classes flush the bytes once the function completes and transactional accessor 
+     * classes add the bytes to a transaction before the function runs.  
+     * The buffer must not be used after the function completes.  
+     * @param <T> the return type of the supplied function
+     * @param offset the starting offset in this accessor's memory
+     * @param length the number of bytes in the view
+     * @param op the function to execute
+     * @return the object returned from the supplied function
+     * @throws IndexOutOfBoundsException if the view would include data outside of accessor bounds 
+     * or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public <T> T withByteBuffer(long offset, int length, Function<ByteBuffer, T> op) {
+        ByteBuffer buf = byteBufferView(offset, length);
+        Function<Range, T> rangeOp = (Range range) -> op.apply(buf);
+        if (heap instanceof PersistentHeap) return durableWithRange(offset, length, rangeOp);
+        else if (heap instanceof TransactionalHeap) return transactionalWithRange(offset, length, rangeOp);
+        else return rawWithRange(offset, length, rangeOp);
+    }
+
+    /**
+     * Writes up to {@code length} bytes of this accessor's memory, starting at {@code offset}, to the supplied 
+     * channel.  Bytes are written straight from persistent memory through direct buffer views, in chunks, 
+     * without intermediate copies.  Fewer than {@code length} bytes are written if a non-blocking channel 
+     * accepts no more bytes.  
+     * @param channel the channel to which to write bytes
+     * @param offset the starting offset in this accessor's memory
+     * @param length the number of bytes to write
+     * @return the number of bytes written
+     * @throws IOException if an I/O error occurs while writing to the channel
+     * @throws IndexOutOfBoundsException if the transfer would cause access of data outside of accessor 
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @since 1.3
+     */
+    public long transferTo(WritableByteChannel channel, long offset, long length) throws IOException {
+        checkValid();
+        checkBoundsAndLength(offset, length);
+        long done = 0;
+        while (done < length) {
+            ByteBuffer buf = byteBufferView(offset + done, (int)Math.min(length - done, Util.TRANSFER_CHUNK_SIZE));
+            int written = Util.writeChunk(channel, buf);
+            done += written;
+            if (buf.hasRemaining()) break;
+        }
+        return done;
+    }
+
+    /**
+     * Reads up to {@code length} bytes from the supplied channel into this accessor's memory, starting at 
+     * {@code offset}.  Bytes are read straight into persistent memory through direct buffer views, in chunks, 
+     * without intermediate copies.  Fewer than {@code length} bytes are read if the channel reaches end-of-stream 
+     * or, for a non-blocking channel, has no more bytes available.  
+     * The semantics of the method depend on the implementing subclass. Persistent accessor classes flush each 
+     * chunk as it is read.  Transactional accessor classes read each chunk into a staging buffer, outside of any 
+     * transaction this method starts, and then copy it transactionally, so a blocking read never holds a 
+     * transaction open.  The transfer as a whole is not atomic: each chunk commits separately and, if reading 
+     * fails partway, chunks already copied remain.  Calling this method within a transaction makes the transfer 
+     * atomic, at the cost of keeping that transaction open across the channel reads.  
+     * @param channel the channel from which to read bytes
+     * @param offset the starting offset in this accessor's memory
+     * @param length the maximum number of bytes to read
+     * @return the number of bytes read
+     * @throws IOException if an I/O error occurs while reading from the channel
+     * @throws IndexOutOfBoundsException if the transfer would cause access of data outside of accessor 
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public long transferFrom(ReadableByteChannel channel, long offset, long length) throws IOException {
+        checkValid();
+        checkBoundsAndLength(offset, length);
+        long done = 0;
+        if (heap instanceof TransactionalHeap) {
+            byte[] staging = new byte[(int)Math.min(length, Util.TRANSFER_CHUNK_SIZE)];
+            while (done < length) {
+                int size = (int)Math.min(length - done, staging.length);
+                int read = Util.readChunk(channel, ByteBuffer.wrap(staging, 0, size));
+                if (read > 0) copyFromArray(staging, 0, offset + done, read);
+                done += read;
+                if (read < size) break;
+            }
+            return done;
+        }
+        try {
+            while (done < length) {
+                int size = (int)Math.min(length - done, Util.TRANSFER_CHUNK_SIZE);
+                int read = withByteBuffer(offset + done, size, (ByteBuffer buf) -> {
+                    try {
+                        return Util.readChunk(channel, buf);
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                done += read;
+                if (read < size) break;
+            }
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return done;
+    }
+
+    ByteBuffer byteBufferView(long offset, int length) {
+        checkValid();
+        checkBoundsAndLength(offset, length);
+        ByteBuffer buf = nativeNewDirectByteBuffer(directAddress() + metadataSize() + offset, length);
+        if (buf == null) throw new IllegalStateException("Unable to create ByteBuffer view");
+        return buf.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Copies {@code count} {@code long} values from this accessor's memory, starting at {@code srcOffset}, to the
+     * {@code dstArray} array starting at array index {@code dstIndex}.  Values are read in native byte order, 
+     * the same as {@link #getLong(long)}.  
+     * @param srcOffset the starting offset in this accessor's memory
+     * @param dstArray the destination array
+     * @param dstIndex the starting index in the destination array
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyToLongArray(long srcOffset, long[] dstArray, int dstIndex, int count) {
+        copyToPrimitiveArray(srcOffset, dstArray, dstArray.length, AnyHeap.LONG_ARRAY_BASE_OFFSET, 3, dstIndex, count);
+    }
+
+    /**
+     * Copies {@code count} {@code int} values from this accessor's memory, starting at {@code srcOffset}, to the
+     * {@code dstArray} array starting at array index {@code dstIndex}.  Values are read in native byte order, 
+     * the same as {@link #getInt(long)}.  
+     * @param srcOffset the starting offset in this accessor's memory
+     * @param dstArray the destination array
+     * @param dstIndex the starting index in the destination array
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyToIntArray(long srcOffset, int[] dstArray, int dstIndex, int count) {
+        copyToPrimitiveArray(srcOffset, dstArray, dstArray.length, AnyHeap.INT_ARRAY_BASE_OFFSET, 2, dstIndex, count);
+    }
+
+    /**
+     * Copies {@code count} {@code short} values from this accessor's memory, starting at {@code srcOffset}, to the
+     * {@code dstArray} array starting at array index {@code dstIndex}.  Values are read in native byte order, 
+     * the same as {@link #getShort(long)}.  
+     * @param srcOffset the starting offset in this accessor's memory
+     * @param dstArray the destination array
+     * @param dstIndex the starting index in the destination array
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyToShortArray(long srcOffset, short[] dstArray, int dstIndex, int count) {
+        copyToPrimitiveArray(srcOffset, dstArray, dstArray.length, AnyHeap.SHORT_ARRAY_BASE_OFFSET, 1, dstIndex, count);
+    }
+
+    /**
+     * Copies {@code count} {@code double} values from this accessor's memory, starting at {@code srcOffset}, to the
+     * {@code dstArray} array starting at array index {@code dstIndex}.  Values are read in native byte order, 
+     * the same as {@link #getDouble(long)}.  
+     * @param srcOffset the starting offset in this accessor's memory
+     * @param dstArray the destination array
+     * @param dstIndex the starting index in the destination array
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyToDoubleArray(long srcOffset, double[] dstArray, int dstIndex, int count) {
+        copyToPrimitiveArray(srcOffset, dstArray, dstArray.length, AnyHeap.DOUBLE_ARRAY_BASE_OFFSET, 3, dstIndex, count);
+    }
+
+    /**
+     * Copies {@code count} {@code float} values from this accessor's memory, starting at {@code srcOffset}, to the
+     * {@code dstArray} array starting at array index {@code dstIndex}.  Values are read in native byte order, 
+     * the same as {@link #getFloat(long)}.  
+     * @param srcOffset the starting offset in this accessor's memory
+     * @param dstArray the destination array
+     * @param dstIndex the starting index in the destination array
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyToFloatArray(long srcOffset, float[] dstArray, int dstIndex, int count) {
+        copyToPrimitiveArray(srcOffset, dstArray, dstArray.length, AnyHeap.FLOAT_ARRAY_BASE_OFFSET, 2, dstIndex, count);
+    }
+
+    private void copyToPrimitiveArray(long srcOffset, Object dstArray, int arrayLength, long arrayBase, int shift, int dstIndex, int count) {
+        checkValid();
+        checkArrayBounds(dstIndex, count, arrayLength);
+        long length = (long)count << shift;
+        checkBoundsAndLength(srcOffset, length);
+        AnyHeap.UNSAFE.copyMemory(null, directAddress() + metadataSize() + srcOffset, dstArray, arrayBase + ((long)dstIndex << shift), length);
+    }
+
     /**
      * Stores the supplied {@code byte} value at {@code offset} within this accessor's memory.
      * The semantics of the method depend on the implementing subclass. Persistent accessor classes 
@@ -312,6 +549,307 @@ public abstract class MemoryAccessor {
      */
     public abstract void setLong(long offset, long value);
 
+    /**
+     * Atomically sets the {@code long} value at {@code offset} within this accessor's memory to {@code value}
+     * if the current value equals {@code expected}.  The location must be 8-byte aligned.  
+     * Atomic updates follow the semantics of the implementing subclass.  Persistent accessor classes flush 
+     * the updated bytes after a successful update; the new value is visible to other threads before it is 
+     * durable, so a thread acting on a value written by another thread should not assume it has been persisted.  
+     * Transactional accessor classes add the bytes to a transaction before the update, so it is rolled back 
+     * if the transaction aborts.  The rollback restores the value the bytes held when they were added and 
+     * so would overwrite an update made since by another thread; on a {@link TransactionalHeap}, concurrent 
+     * atomic updates of the same location are only safe when callers exclude one another, for example with a 
+     * lock held until their transactions end.  
+     * @param offset the location of the value
+     * @param expected the expected current value
+     * @param value the new value
+     * @return true if the value was updated
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public boolean compareAndSetLong(long offset, long expected, long value) {
+        long address = atomicAddress(offset, 8);
+        if (heap instanceof TransactionalHeap) {
+            // a comparison that would fail needs no snapshot
+            if (AnyHeap.UNSAFE.getLongVolatile(null, address) != expected) return false;
+            return transactionalWithRange(offset, 8, (Range range) -> AnyHeap.UNSAFE.compareAndSwapLong(null, address, expected, value));
+        }
+        boolean result = AnyHeap.UNSAFE.compareAndSwapLong(null, address, expected, value);
+        if (result && heap instanceof PersistentHeap) internalFlush(offset, 8);
+        return result;
+    }
+
+    /**
+     * Atomically sets the {@code int} value at {@code offset} within this accessor's memory to {@code value}
+     * if the current value equals {@code expected}.  The location must be 4-byte aligned.  
+     * Atomic updates follow the semantics of the implementing subclass.  Persistent accessor classes flush 
+     * the updated bytes after a successful update; the new value is visible to other threads before it is 
+     * durable, so a thread acting on a value written by another thread should not assume it has been persisted.  
+     * Transactional accessor classes add the bytes to a transaction before the update, so it is rolled back 
+     * if the transaction aborts.  The rollback restores the value the bytes held when they were added and 
+     * so would overwrite an update made since by another thread; on a {@link TransactionalHeap}, concurrent 
+     * atomic updates of the same location are only safe when callers exclude one another, for example with a 
+     * lock held until their transactions end.  
+     * @param offset the location of the value
+     * @param expected the expected current value
+     * @param value the new value
+     * @return true if the value was updated
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public boolean compareAndSetInt(long offset, int expected, int value) {
+        long address = atomicAddress(offset, 4);
+        if (heap instanceof TransactionalHeap) {
+            if (AnyHeap.UNSAFE.getIntVolatile(null, address) != expected) return false;
+            return transactionalWithRange(offset, 4, (Range range) -> AnyHeap.UNSAFE.compareAndSwapInt(null, address, expected, value));
+        }
+        boolean result = AnyHeap.UNSAFE.compareAndSwapInt(null, address, expected, value);
+        if (result && heap instanceof PersistentHeap) internalFlush(offset, 4);
+        return result;
+    }
+
+    /**
+     * Atomically adds {@code delta} to the {@code long} value at {@code offset} within this accessor's memory.  
+     * The location must be 8-byte aligned.  
+     * Atomic updates follow the semantics of the implementing subclass.  Persistent accessor classes flush 
+     * the updated bytes after a successful update; the new value is visible to other threads before it is 
+     * durable, so a thread acting on a value written by another thread should not assume it has been persisted.  
+     * Transactional accessor classes add the bytes to a transaction before the update, so it is rolled back 
+     * if the transaction aborts.  The rollback restores the value the bytes held when they were added and 
+     * so would overwrite an update made since by another thread; on a {@link TransactionalHeap}, concurrent 
+     * atomic updates of the same location are only safe when callers exclude one another, for example with a 
+     * lock held until their transactions end.  
+     * @param offset the location of the value
+     * @param delta the value to add
+     * @return the value before the addition
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public long getAndAddLong(long offset, long delta) {
+        long address = atomicAddress(offset, 8);
+        if (heap instanceof TransactionalHeap) return transactionalWithRange(offset, 8, (Range range) -> AnyHeap.UNSAFE.getAndAddLong(null, address, delta));
+        long result = AnyHeap.UNSAFE.getAndAddLong(null, address, delta);
+        if (heap instanceof PersistentHeap) internalFlush(offset, 8);
+        return result;
+    }
+
+    /**
+     * Atomically sets the {@code long} value at {@code offset} within this accessor's memory to {@code value}.  
+     * The location must be 8-byte aligned.  
+     * Atomic updates follow the semantics of the implementing subclass.  Persistent accessor classes flush 
+     * the updated bytes after a successful update; the new value is visible to other threads before it is 
+     * durable, so a thread acting on a value written by another thread should not assume it has been persisted.  
+     * Transactional accessor classes add the bytes to a transaction before the update, so it is rolled back 
+     * if the transaction aborts.  The rollback restores the value the bytes held when they were added and 
+     * so would overwrite an update made since by another thread; on a {@link TransactionalHeap}, concurrent 
+     * atomic updates of the same location are only safe when callers exclude one another, for example with a 
+     * lock held until their transactions end.  
+     * @param offset the location of the value
+     * @param value the new value
+     * @return the previous value
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public long getAndSetLong(long offset, long value) {
+        long address = atomicAddress(offset, 8);
+        if (heap instanceof TransactionalHeap) return transactionalWithRange(offset, 8, (Range range) -> AnyHeap.UNSAFE.getAndSetLong(null, address, value));
+        long result = AnyHeap.UNSAFE.getAndSetLong(null, address, value);
+        if (heap instanceof PersistentHeap) internalFlush(offset, 8);
+        return result;
+    }
+
+    /**
+     * Retrieves the {@code long} value at {@code offset} within this accessor's memory with volatile memory ordering.  
+     * The location must be 8-byte aligned.  
+     * @param offset the location from which to retrieve data
+     * @return the {@code long} value stored at {@code offset}
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @since 1.3
+     */
+    public long getLongVolatile(long offset) {
+        return AnyHeap.UNSAFE.getLongVolatile(null, atomicAddress(offset, 8));
+    }
+
+    /**
+     * Retrieves the {@code long} value at {@code offset} within this accessor's memory with acquire memory ordering;
+     * subsequent reads and writes are not reordered before this read.  The location must be 8-byte aligned.  
+     * @param offset the location from which to retrieve data
+     * @return the {@code long} value stored at {@code offset}
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @since 1.3
+     */
+    public long getLongAcquire(long offset) {
+        long value = AnyHeap.UNSAFE.getLong(atomicAddress(offset, 8));
+        AnyHeap.UNSAFE.loadFence();
+        return value;
+    }
+
+    /**
+     * Stores the supplied {@code long} value at {@code offset} within this accessor's memory with volatile memory ordering.  
+     * The location must be 8-byte aligned.  
+     * Atomic updates follow the semantics of the implementing subclass.  Persistent accessor classes flush 
+     * the updated bytes after a successful update; the new value is visible to other threads before it is 
+     * durable, so a thread acting on a value written by another thread should not assume it has been persisted.  
+     * Transactional accessor classes add the bytes to a transaction before the update, so it is rolled back 
+     * if the transaction aborts.  
+     * @param offset the location at which to store the value
+     * @param value the value to store
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void setLongVolatile(long offset, long value) {
+        long address = atomicAddress(offset, 8);
+        if (heap instanceof TransactionalHeap) transactionalWithRange(offset, 8, (Range range) -> {AnyHeap.UNSAFE.putLongVolatile(null, address, value); return (Void)null;});
+        else {
+            AnyHeap.UNSAFE.putLongVolatile(null, address, value);
+            if (heap instanceof PersistentHeap) internalFlush(offset, 8);
+        }
+    }
+
+    /**
+     * Stores the supplied {@code long} value at {@code offset} within this accessor's memory with release memory ordering;
+     * preceding reads and writes are not reordered after this write.  The location must be 8-byte aligned.  
+     * Atomic updates follow the semantics of the implementing subclass.  Persistent accessor classes flush 
+     * the updated bytes after a successful update; the new value is visible to other threads before it is 
+     * durable, so a thread acting on a value written by another thread should not assume it has been persisted.  
+     * Transactional accessor classes add the bytes to a transaction before the update, so it is rolled back 
+     * if the transaction aborts.  
+     * @param offset the location at which to store the value
+     * @param value the value to store
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void setLongRelease(long offset, long value) {
+        long address = atomicAddress(offset, 8);
+        if (heap instanceof TransactionalHeap) transactionalWithRange(offset, 8, (Range range) -> {AnyHeap.UNSAFE.putOrderedLong(null, address, value); return (Void)null;});
+        else {
+            AnyHeap.UNSAFE.putOrderedLong(null, address, value);
+            if (heap instanceof PersistentHeap) internalFlush(offset, 8);
+        }
+    }
+
+    /**
+     * Retrieves the {@code int} value at {@code offset} within this accessor's memory with volatile memory ordering.  
+     * The location must be 4-byte aligned.  
+     * @param offset the location from which to retrieve data
+     * @return the {@code int} value stored at {@code offset}
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @since 1.3
+     */
+    public int getIntVolatile(long offset) {
+        return AnyHeap.UNSAFE.getIntVolatile(null, atomicAddress(offset, 4));
+    }
+
+    /**
+     * Retrieves the {@code int} value at {@code offset} within this accessor's memory with acquire memory ordering;
+     * subsequent reads and writes are not reordered before this read.  The location must be 4-byte aligned.  
+     * @param offset the location from which to retrieve data
+     * @return the {@code int} value stored at {@code offset}
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @since 1.3
+     */
+    public int getIntAcquire(long offset) {
+        int value = AnyHeap.UNSAFE.getInt(atomicAddress(offset, 4));
+        AnyHeap.UNSAFE.loadFence();
+        return value;
+    }
+
+    /**
+     * Stores the supplied {@code int} value at {@code offset} within this accessor's memory with volatile memory ordering.  
+     * The location must be 4-byte aligned.  
+     * Atomic updates follow the semantics of the implementing subclass.  Persistent accessor classes flush 
+     * the updated bytes after a successful update; the new value is visible to other threads before it is 
+     * durable, so a thread acting on a value written by another thread should not assume it has been persisted.  
+     * Transactional accessor classes add the bytes to a transaction before the update, so it is rolled back 
+     * if the transaction aborts.  
+     * @param offset the location at which to store the value
+     * @param value the value to store
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void setIntVolatile(long offset, int value) {
+        long address = atomicAddress(offset, 4);
+        if (heap instanceof TransactionalHeap) transactionalWithRange(offset, 4, (Range range) -> {AnyHeap.UNSAFE.putIntVolatile(null, address, value); return (Void)null;});
+        else {
+            AnyHeap.UNSAFE.putIntVolatile(null, address, value);
+            if (heap instanceof PersistentHeap) internalFlush(offset, 4);
+        }
+    }
+
+    /**
+     * Stores the supplied {@code int} value at {@code offset} within this accessor's memory with release memory ordering;
+     * preceding reads and writes are not reordered after this write.  The location must be 4-byte aligned.  
+     * Atomic updates follow the semantics of the implementing subclass.  Persistent accessor classes flush 
+     * the updated bytes after a successful update; the new value is visible to other threads before it is 
+     * durable, so a thread acting on a value written by another thread should not assume it has been persisted.  
+     * Transactional accessor classes add the bytes to a transaction before the update, so it is rolled back 
+     * if the transaction aborts.  
+     * @param offset the location at which to store the value
+     * @param value the value to store
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of accessor
+     * bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws IllegalStateException if the accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void setIntRelease(long offset, int value) {
+        long address = atomicAddress(offset, 4);
+        if (heap instanceof TransactionalHeap) transactionalWithRange(offset, 4, (Range range) -> {AnyHeap.UNSAFE.putOrderedInt(null, address, value); return (Void)null;});
+        else {
+            AnyHeap.UNSAFE.putOrderedInt(null, address, value);
+            if (heap instanceof PersistentHeap) internalFlush(offset, 4);
+        }
+    }
+
+    long atomicAddress(long offset, int size) {
+        checkValid();
+        checkBounds(offset, size);
+        long address = payloadAddress(offset);
+        if ((address & (size - 1)) != 0) throw new IllegalArgumentException("Offset " + offset + " is not " + size + "-byte aligned");
+        return address;
+    }
+
     /**
      * Copies {@code length} bytes from the {@code srcAccessor}, starting at {@code srcOffset}, to  
      * this accessor's memory starting at {@code dstOffset}.  
@@ -401,6 +939,355 @@ public abstract class MemoryAccessor {
         }
     }
 
+    /**
+     * Copies {@code count} {@code long} values from {@code srcArray}, starting at {@code srcIndex}, to this 
+     * accessor's memory starting at {@code dstOffset}.  Values are stored in native byte order, the same as 
+     * {@code setLong}.  
+     * The semantics of the method depend on the implementing subclass. Persistent accessor classes 
+     * will flush the copied range once and transactional accessor classes will add the copied range to 
+     * the transaction once, rather than once per value.  
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void copyFromLongArray(long[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, AnyHeap.LONG_ARRAY_BASE_OFFSET, 3, srcIndex, dstOffset, count);
+    }
+
+    /**
+     * Copies {@code count} {@code int} values from {@code srcArray}, starting at {@code srcIndex}, to this 
+     * accessor's memory starting at {@code dstOffset}.  Values are stored in native byte order, the same as 
+     * {@code setInt}.  
+     * The semantics of the method depend on the implementing subclass. Persistent accessor classes 
+     * will flush the copied range once and transactional accessor classes will add the copied range to 
+     * the transaction once, rather than once per value.  
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void copyFromIntArray(int[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, AnyHeap.INT_ARRAY_BASE_OFFSET, 2, srcIndex, dstOffset, count);
+    }
+
+    /**
+     * Copies {@code count} {@code short} values from {@code srcArray}, starting at {@code srcIndex}, to this 
+     * accessor's memory starting at {@code dstOffset}.  Values are stored in native byte order, the same as 
+     * {@code setShort}.  
+     * The semantics of the method depend on the implementing subclass. Persistent accessor classes 
+     * will flush the copied range once and transactional accessor classes will add the copied range to 
+     * the transaction once, rather than once per value.  
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void copyFromShortArray(short[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, AnyHeap.SHORT_ARRAY_BASE_OFFSET, 1, srcIndex, dstOffset, count);
+    }
+
+    /**
+     * Copies {@code count} {@code double} values from {@code srcArray}, starting at {@code srcIndex}, to this 
+     * accessor's memory starting at {@code dstOffset}.  Values are stored in native byte order, the same as 
+     * {@code setDouble}.  
+     * The semantics of the method depend on the implementing subclass. Persistent accessor classes 
+     * will flush the copied range once and transactional accessor classes will add the copied range to 
+     * the transaction once, rather than once per value.  
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void copyFromDoubleArray(double[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, AnyHeap.DOUBLE_ARRAY_BASE_OFFSET, 3, srcIndex, dstOffset, count);
+    }
+
+    /**
+     * Copies {@code count} {@code float} values from {@code srcArray}, starting at {@code srcIndex}, to this 
+     * accessor's memory starting at {@code dstOffset}.  Values are stored in native byte order, the same as 
+     * {@code setFloat}.  
+     * The semantics of the method depend on the implementing subclass. Persistent accessor classes 
+     * will flush the copied range once and transactional accessor classes will add the copied range to 
+     * the transaction once, rather than once per value.  
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void copyFromFloatArray(float[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, AnyHeap.FLOAT_ARRAY_BASE_OFFSET, 2, srcIndex, dstOffset, count);
+    }
+
+    private void copyFromPrimitiveArray(Object srcArray, int arrayLength, long arrayBase, int shift, int srcIndex, long dstOffset, int count) {
+        checkValid();
+        checkArrayBounds(srcIndex, count, arrayLength);
+        long length = (long)count << shift;
+        long srcAddress = arrayBase + ((long)srcIndex << shift);
+        Function<Range, Object> op = (Range range) -> {
+            uncheckedCopyFromPrimitiveArray(srcArray, srcAddress, directAddress() + metadataSize() + dstOffset, length);
+            return null;
+        };
+        if (heap instanceof Heap) rawWithRange(dstOffset, length, op);
+        else if (heap instanceof PersistentHeap) durableWithRange(dstOffset, length, op);
+        else if (heap instanceof TransactionalHeap) transactionalWithRange(dstOffset, length, op);
+    }
+
+    /**
+     * Copies {@code length} bytes from {@code srcArray}, starting at {@code srcIndex}, to this accessor's memory 
+     * starting at {@code dstOffset}, using non-temporal stores that bypass the CPU cache.  
+     * For persistent accessor classes the copied bytes are durable when this method returns, without a 
+     * separate flush.  Transactional accessor classes add the range to the transaction before copying.  
+     * Non-temporal copies are best suited to large writes that will not be read again soon.  
+     * @param srcArray the array from which to copy bytes
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which bytes are to be copied
+     * @param length the number of bytes to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void copyFromArrayNT(byte[] srcArray, int srcIndex, long dstOffset, int length) {
+        copyFromArrayNT(srcArray, srcIndex, dstOffset, length, true);
+    }
+
+    /**
+     * Copies {@code length} bytes from {@code srcArray} using non-temporal stores, like {@link #copyFromArrayNT}, 
+     * but without waiting for the stores to drain.  The copied bytes are durable only after a subsequent 
+     * call to {@link AnyHeap#drain()}, which allows a series of large writes to share a single drain.  
+     * @param srcArray the array from which to copy bytes
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which bytes are to be copied
+     * @param length the number of bytes to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or 
+     * outside of accessor bounds or, for compact allocations, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void copyFromArrayNoDrain(byte[] srcArray, int srcIndex, long dstOffset, int length) {
+        copyFromArrayNT(srcArray, srcIndex, dstOffset, length, false);
+    }
+
+    /**
+     * Copies {@code length} bytes from {@code srcAccessor}'s memory, starting at {@code srcOffset}, to this 
+     * accessor's memory starting at {@code dstOffset}, using non-temporal stores that bypass the CPU cache.  
+     * For persistent accessor classes the copied bytes are durable when this method returns, without a 
+     * separate flush.  Transactional accessor classes add the range to the transaction before copying.  
+     * @param srcAccessor the accessor from whose memory to copy bytes
+     * @param srcOffset the starting offset in the source accessor's memory
+     * @param dstOffset the starting offset to which bytes are to be copied
+     * @param length the number of bytes to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of accessor 
+     * bounds or, for compact accessors, outside of heap bounds
+     * @throws IllegalStateException if either accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void copyFromNT(MemoryAccessor srcAccessor, long srcOffset, long dstOffset, long length) {
+        copyFromNT(srcAccessor, srcOffset, dstOffset, length, true);
+    }
+
+    /**
+     * Copies {@code length} bytes from {@code srcAccessor}'s memory using non-temporal stores, like 
+     * {@link #copyFromNT}, but without waiting for the stores to drain.  The copied bytes are durable only 
+     * after a subsequent call to {@link AnyHeap#drain()}.  
+     * @param srcAccessor the accessor from whose memory to copy bytes
+     * @param srcOffset the starting offset in the source accessor's memory
+     * @param dstOffset the starting offset to which bytes are to be copied
+     * @param length the number of bytes to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of accessor 
+     * bounds or, for compact accessors, outside of heap bounds
+     * @throws IllegalStateException if either accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void copyFromNoDrain(MemoryAccessor srcAccessor, long srcOffset, long dstOffset, long length) {
+        copyFromNT(srcAccessor, srcOffset, dstOffset, length, false);
+    }
+
+    /**
+     * Copies {@code srcBuf.remaining()} bytes from {@code srcBuf} to this accessor's memory starting at 
+     * {@code dstOffset}, using non-temporal stores that bypass the CPU cache.  
+     * For persistent accessor classes the copied bytes are durable when this method returns, without a 
+     * separate flush.  Transactional accessor classes add the range to the transaction before copying.  
+     * @param srcBuf the {@code ByteBuffer} from which to copy bytes
+     * @param dstOffset the starting offset to which bytes are to be copied
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of accessor 
+     * bounds or, for compact accessors, outside of heap bounds
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void copyFromByteBufferNT(ByteBuffer srcBuf, long dstOffset) {
+        int size;
+        if ((size = srcBuf.remaining()) == 0) return;
+        if (srcBuf.isDirect()) {
+            checkValid();
+            checkBoundsAndLength(dstOffset, size);
+            long srcAddress = nativeGetDirectByteBufferAddress(srcBuf);
+            if (srcAddress == 0) throw new IllegalArgumentException("Invalid ByteBuffer");
+            ntWithRange(dstOffset, size, (Range range) -> {
+                nativeCopyMemoryNT(srcAddress + srcBuf.position(), directAddress() + metadataSize() + dstOffset, size, true);
+                return null;
+            });
+        }
+        else if (srcBuf.hasArray()) {
+            copyFromArrayNT(srcBuf.array(), srcBuf.arrayOffset() + srcBuf.position(), dstOffset, size);
+        }
+        else {
+            byte[] tmp = new byte[size];
+            srcBuf.duplicate().get(tmp);
+            copyFromArrayNT(tmp, 0, dstOffset, size);
+        }
+    }
+
+    /**
+     * Sets {@code length} bytes in this accessor's memory, starting at {@code offset}, to the supplied {@code byte}  
+     * value, using non-temporal stores that bypass the CPU cache.  
+     * For persistent accessor classes the bytes are durable when this method returns, without a 
+     * separate flush.  Transactional accessor classes add the range to the transaction before setting.  
+     * @param value the value to set
+     * @param offset the starting offset in this accessor's memory
+     * @param length the number of bytes to set
+     * @throws IndexOutOfBoundsException if setting would cause access of data outside of accessor bounds 
+     * or, for compact allocations, outside of heap bounds 
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void setMemoryNT(byte value, long offset, long length) {
+        setMemoryNT(value, offset, length, true);
+    }
+
+    /**
+     * Sets {@code length} bytes using non-temporal stores, like {@link #setMemoryNT}, but without waiting 
+     * for the stores to drain.  The bytes are durable only after a subsequent call to {@link AnyHeap#drain()}.  
+     * @param value the value to set
+     * @param offset the starting offset in this accessor's memory
+     * @param length the number of bytes to set
+     * @throws IndexOutOfBoundsException if setting would cause access of data outside of accessor bounds 
+     * or, for compact allocations, outside of heap bounds 
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void setMemoryNoDrain(byte value, long offset, long length) {
+        setMemoryNT(value, offset, length, false);
+    }
+
+    /**
+     * Copies {@code length} bytes from {@code srcAccessor}'s memory, starting at {@code srcOffset}, to this 
+     * accessor's memory starting at {@code dstOffset}, like {@link #copyFromNT}, but splits large ranges into 
+     * chunks that are copied concurrently on the common {@code ForkJoinPool}.  Ranges smaller than a few 
+     * megabytes, and overlapping ranges, are copied on the calling thread.  Transactional accessor classes add 
+     * the whole range to the transaction on the calling thread before copying.  
+     * @param srcAccessor the accessor from whose memory to copy bytes
+     * @param srcOffset the starting offset in the source accessor's memory
+     * @param dstOffset the starting offset to which bytes are to be copied
+     * @param length the number of bytes to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of accessor 
+     * bounds or, for compact accessors, outside of heap bounds
+     * @throws IllegalStateException if either accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void parallelCopyFrom(MemoryAccessor srcAccessor, long srcOffset, long dstOffset, long length) {
+        checkValid();
+        srcAccessor.checkValid();
+        srcAccessor.checkBoundsAndLength(srcOffset, length);
+        ntWithRange(dstOffset, length, (Range range) -> {
+            long srcAddress = srcAccessor.directAddress() + srcAccessor.metadataSize() + srcOffset;
+            long dstAddress = directAddress() + metadataSize() + dstOffset;
+            if (ParallelMemory.overlaps(srcAddress, dstAddress, length)) nativeCopyMemoryNT(srcAddress, dstAddress, length, true);
+            else ParallelMemory.forEachChunk(dstAddress, length, (offset, size) -> nativeCopyMemoryNT(srcAddress + offset, dstAddress + offset, size, true));
+            return null;
+        });
+    }
+
+    /**
+     * Sets {@code length} bytes in this accessor's memory, starting at {@code offset}, to the supplied 
+     * {@code byte} value, like {@link #setMemoryNT}, but splits large ranges into chunks that are set 
+     * concurrently on the common {@code ForkJoinPool}.  
+     * @param value the value to set
+     * @param offset the starting offset in this accessor's memory
+     * @param length the number of bytes to set
+     * @throws IndexOutOfBoundsException if setting would cause access of data outside of accessor bounds 
+     * or, for compact allocations, outside of heap bounds 
+     * @throws IllegalStateException if this accessor is not in a valid state for use
+     * @throws TransactionException for transactional operations, if a transaction was not active and a new transaction could not be created
+     * @since 1.3
+     */
+    public void parallelSetMemory(byte value, long offset, long length) {
+        checkValid();
+        ntWithRange(offset, length, (Range range) -> {
+            long address = directAddress() + metadataSize() + offset;
+            ParallelMemory.forEachChunk(address, length, (chunkOffset, size) -> nativeSetMemoryNT(address + chunkOffset, size, value, true));
+            return null;
+        });
+    }
+
+    private void copyFromArrayNT(byte[] srcArray, int srcIndex, long dstOffset, int length, boolean drain) {
+        checkValid();
+        checkArrayBounds(srcIndex, length, srcArray.length);
+        ntWithRange(dstOffset, length, (Range range) -> {
+            nativeCopyFromArrayNT(srcArray, srcIndex, directAddress() + metadataSize() + dstOffset, length, drain);
+            return null;
+        });
+    }
+
+    private void copyFromNT(MemoryAccessor srcAccessor, long srcOffset, long dstOffset, long length, boolean drain) {
+        checkValid();
+        srcAccessor.checkValid();
+        srcAccessor.checkBoundsAndLength(srcOffset, length);
+        ntWithRange(dstOffset, length, (Range range) -> {
+            nativeCopyMemoryNT(srcAccessor.directAddress() + srcAccessor.metadataSize() + srcOffset, directAddress() + metadataSize() + dstOffset, length, drain);
+            return null;
+        });
+    }
+
+    private void setMemoryNT(byte value, long offset, long length, boolean drain) {
+        checkValid();
+        ntWithRange(offset, length, (Range range) -> {
+            nativeSetMemoryNT(directAddress() + metadataSize() + offset, length, value, drain);
+            return null;
+        });
+    }
+
+    // non-temporal stores are flushed as they are written so only transactional 
+    // writes need more than a range check
+    private <T> T ntWithRange(long startOffset, long length, Function<Range, T> op) {
+        if (heap instanceof TransactionalHeap) return transactionalWithRange(startOffset, length, op);
+        return rawWithRange(startOffset, length, op);
+    }
+
     /**
      * Sets {@code length} bytes in this accessor's memory, starting at {@code offset}, to the supplied {@code byte}  
      * value.  
@@ -630,7 +1517,10 @@ public abstract class MemoryAccessor {
     }
 
     void internalFlush(long offset, long size) {
-        if (!ELIDE_FLUSHES) nativeFlush(payloadAddress(offset), size);
+        if (ELIDE_FLUSHES) return;
+        Object event = Events.beginFlush(size);
+        nativeFlush(payloadAddress(offset), size);
+        Events.endFlush(event, heap().path(), size);
     }
 
     void addToTransaction(long offset, long size) {
@@ -638,6 +1528,7 @@ public abstract class MemoryAccessor {
         checkBoundsAndLength(offset, size);
         int result = nativeAddToTransaction(heap().poolHandle(), payloadAddress(offset), size);
         if (result != 2) throw new IllegalStateException("No transaction active.");
+        Transaction.recordSnapshot(heap(), size);
     }
 
     long getPersistentSize() {
@@ -685,6 +1576,14 @@ public abstract class MemoryAccessor {
         AnyHeap.UNSAFE.copyMemory(null, srcAddress, dstArray, dstAddress, length);
     }
 
+    static void uncheckedCopyFromPrimitiveArray(Object srcArray, long srcArrayOffset, long dstAddress, long length) {
+        AnyHeap.UNSAFE.copyMemory(srcArray, srcArrayOffset, null, dstAddress, length);
+    }
+
+    static void checkArrayBounds(int index, int count, int arrayLength) {
+        if (index < 0 || count < 0 || index > arrayLength - count) throw new IndexOutOfBoundsException(outOfBoundsMessage(index, count));
+    }
+
     static void uncheckedCopyBlockToBlock(long srcAddress, long dstAddress, long length) {
         AnyHeap.UNSAFE.copyMemory(srcAddress, dstAddress, length);
     } 
@@ -711,4 +1610,9 @@ public abstract class MemoryAccessor {
     native static int nativeAddToTransactionNoCheck(long address, long size);
     native static int nativeAddRangeToTransaction(long poolHandle, long address, long size);
     static native long nativeGetDirectByteBufferAddress(ByteBuffer buf);
+    static native void nativeCopyMemoryNT(long srcAddress, long dstAddress, long length, boolean drain);
+    static native void nativeCopyFromArrayNT(byte[] srcArray, int srcIndex, long dstAddress, long length, boolean drain);
+    static native void nativeSetMemoryNT(long address, long length, byte value, boolean drain);
+    static native void nativeDrain();
+    static native ByteBuffer nativeNewDirectByteBuffer(long address, long length);
 }
@@ -9,6 +9,9 @@ package com.intel.pmem.llpl;
 
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.io.IOException;
 
 /**
  * Defines a read and write interface for accessing a pool of persistent memory.
@@ -64,6 +67,56 @@ public interface MemoryPool {
         return new MemoryPoolImpl(filePath);
     }
 
+    /**
+     * Selects the implementation used to map a pool.
+     *
+     * @since 1.3
+     */
+    public enum Backend {
+        /**
+         * Maps the pool with libpmem through the LLPL native library.  Supports pools of any size, 
+         * Device DAX devices and non-temporal copies.
+         */
+        NATIVE,
+
+        /**
+         * Maps the pool with the JDK's {@code FileChannel.map}, without loading a native library.  On JDK 14 and 
+         * later the file is mapped with {@code ExtendedMapMode.READ_WRITE_SYNC} when the file system supports it, 
+         * and on JDK 13 and later {@code flush} writes back only the requested range.  Pools are limited to 
+         * {@code Integer.MAX_VALUE} bytes, Device DAX paths are not supported, and non-temporal methods copy 
+         * and then flush.
+         */
+        MAPPED
+    }
+
+    /**
+     * Creates a new pool using the specified backend.
+     * @param filePath a path to the new pool
+     * @param byteCount the number of bytes to provision for the pool
+     * @param backend the implementation used to map the pool
+     * @return a pool at the specified file path
+     * @throws MemoryPoolException if the pool already exists or otherwise could not be created
+     * @since 1.3
+     */
+    public static MemoryPool createPool(String filePath, long byteCount, Backend backend) {
+        if (backend == Backend.MAPPED) return MappedMemoryPool.create(filePath, byteCount);
+        return createPool(filePath, byteCount);
+    }
+
+    /**
+     * Opens an existing pool using the specified backend.  Pools created with either backend can be opened 
+     * with either backend.
+     * @param filePath the path to the pool
+     * @param backend the implementation used to map the pool
+     * @return the pool at the specified file path
+     * @throws MemoryPoolException if the pool could not be opened
+     * @since 1.3
+     */
+    public static MemoryPool openPool(String filePath, Backend backend) {
+        if (backend == Backend.MAPPED) return MappedMemoryPool.open(filePath);
+        return openPool(filePath);
+    }
+
     /**
      * Returns a MemoryPool that provides access to all of the memory of a specified Device DAX device.
      * Multiple calls to {@code mapDevice} using the same path, either within a process or
@@ -158,6 +211,266 @@ public interface MemoryPool {
      */
     public void setLong(long offset, long value);
 
+    /**
+     * Atomically sets the {@code long} value at {@code offset} to {@code value} if the current value equals
+     * {@code expected}.  The location must be 8-byte aligned.  Atomic operations are visible to other
+     * processes sharing this pool.  As with other writes, the update is not flushed.
+     * @param offset the location of the value
+     * @param expected the expected current value
+     * @param value the new value
+     * @return true if the value was updated
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default boolean compareAndSetLong(long offset, long expected, long value) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
+    /**
+     * Atomically sets the {@code long} value at {@code offset} to {@code value} if the current value equals
+     * {@code expected} and, if the value was updated, flushes it.  The new value is visible to other threads
+     * and processes before it is durable; a reader that must only act on durable values should flush the
+     * location itself before acting on it.
+     * @param offset the location of the value
+     * @param expected the expected current value
+     * @param value the new value
+     * @return true if the value was updated
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation calls {@code compareAndSetLong} and then flushes the value
+     * @since 1.3
+     */
+    public default boolean compareAndSetLongDurable(long offset, long expected, long value) {
+        if (!compareAndSetLong(offset, expected, value)) return false;
+        flush(offset, Long.BYTES);
+        return true;
+    }
+
+    /**
+     * Atomically sets the {@code int} value at {@code offset} to {@code value} if the current value equals
+     * {@code expected}.  The location must be 4-byte aligned.  Atomic operations are visible to other
+     * processes sharing this pool.  As with other writes, the update is not flushed.
+     * @param offset the location of the value
+     * @param expected the expected current value
+     * @param value the new value
+     * @return true if the value was updated
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default boolean compareAndSetInt(long offset, int expected, int value) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
+    /**
+     * Atomically sets the {@code int} value at {@code offset} to {@code value} if the current value equals
+     * {@code expected} and, if the value was updated, flushes it.  The new value is visible to other threads
+     * and processes before it is durable; a reader that must only act on durable values should flush the
+     * location itself before acting on it.
+     * @param offset the location of the value
+     * @param expected the expected current value
+     * @param value the new value
+     * @return true if the value was updated
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation calls {@code compareAndSetInt} and then flushes the value
+     * @since 1.3
+     */
+    public default boolean compareAndSetIntDurable(long offset, int expected, int value) {
+        if (!compareAndSetInt(offset, expected, value)) return false;
+        flush(offset, Integer.BYTES);
+        return true;
+    }
+
+    /**
+     * Atomically adds {@code delta} to the {@code long} value at {@code offset}.  The location must be 8-byte aligned.  As with other writes, the update is not flushed.
+     * @param offset the location of the value
+     * @param delta the value to add
+     * @return the value before the addition
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default long getAndAddLong(long offset, long delta) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
+    /**
+     * Atomically adds {@code delta} to the {@code long} value at {@code offset}.  The update is flushed before this method returns; it is visible to other threads and
+     * processes before it is durable.
+     * @param offset the location of the value
+     * @param delta the value to add
+     * @return the value before the addition
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation calls {@code getAndAddLong} and then flushes the value
+     * @since 1.3
+     */
+    public default long getAndAddLongDurable(long offset, long delta) {
+        long old = getAndAddLong(offset, delta);
+        flush(offset, Long.BYTES);
+        return old;
+    }
+
+    /**
+     * Atomically sets the {@code long} value at {@code offset} to {@code value}.  The location must be 8-byte aligned.  As with other writes, the update is not flushed.
+     * @param offset the location of the value
+     * @param value the new value
+     * @return the previous value
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default long getAndSetLong(long offset, long value) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
+    /**
+     * Atomically sets the {@code long} value at {@code offset} to {@code value}.  The update is flushed before this method returns; it is visible to other threads and
+     * processes before it is durable.
+     * @param offset the location of the value
+     * @param value the new value
+     * @return the previous value
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation calls {@code getAndSetLong} and then flushes the value
+     * @since 1.3
+     */
+    public default long getAndSetLongDurable(long offset, long value) {
+        long old = getAndSetLong(offset, value);
+        flush(offset, Long.BYTES);
+        return old;
+    }
+
+    /**
+     * Retrieves the {@code long} value at {@code offset} with volatile memory ordering.  The location must be 8-byte aligned.
+     * @param offset the location from which to retrieve data
+     * @return the {@code long} value stored at {@code offset}
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default long getLongVolatile(long offset) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
+    /**
+     * Stores the supplied {@code long} value at {@code offset} with volatile memory ordering.  The location must be 8-byte aligned.
+     * @param offset the location at which to store the value
+     * @param value the value to store
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default void setLongVolatile(long offset, long value) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
+    /**
+     * Retrieves the {@code long} value at {@code offset} with acquire memory ordering; subsequent reads and writes
+     * are not reordered before this read.  The location must be 8-byte aligned.
+     * @param offset the location from which to retrieve data
+     * @return the {@code long} value stored at {@code offset}
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default long getLongAcquire(long offset) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
+    /**
+     * Stores the supplied {@code long} value at {@code offset} with release memory ordering; preceding reads and writes
+     * are not reordered after this write.  The location must be 8-byte aligned.
+     * @param offset the location at which to store the value
+     * @param value the value to store
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default void setLongRelease(long offset, long value) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
+    /**
+     * Retrieves the {@code int} value at {@code offset} with volatile memory ordering.  The location must be 4-byte aligned.
+     * @param offset the location from which to retrieve data
+     * @return the {@code int} value stored at {@code offset}
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default int getIntVolatile(long offset) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
+    /**
+     * Stores the supplied {@code int} value at {@code offset} with volatile memory ordering.  The location must be 4-byte aligned.
+     * @param offset the location at which to store the value
+     * @param value the value to store
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default void setIntVolatile(long offset, int value) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
+    /**
+     * Retrieves the {@code int} value at {@code offset} with acquire memory ordering; subsequent reads and writes
+     * are not reordered before this read.  The location must be 4-byte aligned.
+     * @param offset the location from which to retrieve data
+     * @return the {@code int} value stored at {@code offset}
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default int getIntAcquire(long offset) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
+    /**
+     * Stores the supplied {@code int} value at {@code offset} with release memory ordering; preceding reads and writes
+     * are not reordered after this write.  The location must be 4-byte aligned.
+     * @param offset the location at which to store the value
+     * @param value the value to store
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @throws IllegalArgumentException if the location is not naturally aligned for the value's size
+     * @throws UnsupportedOperationException if this pool does not support atomic operations; the default 
+     * implementation always throws this exception
+     * @since 1.3
+     */
+    public default void setIntRelease(long offset, int value) {
+        throw new UnsupportedOperationException("Atomic operations are not supported by this pool");
+    }
+
     /**
      * Copies {@code byteCount} bytes from this pool, starting at {@code srcOffset}, to
      * this pool's memory starting at {@code dstOffset}.
@@ -234,6 +547,191 @@ public interface MemoryPool {
      */
     public void copyToByteBuffer(long srcOffset, ByteBuffer dstBuf, int byteCount);
 
+    /**
+     * Copies {@code count} {@code long} values from {@code srcArray}, starting at {@code srcIndex}, to
+     * this pool's memory starting at {@code dstOffset}.  Values are stored in native byte order, the same 
+     * as {@code setLong}.  As with other writes, a single call to {@code flush} will persist the copied range.  
+     * The default implementation copies one value at a time.
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or
+     * outside of pool bounds
+     * @since 1.3
+     */
+    public default void copyFromLongArray(long[] srcArray, int srcIndex, long dstOffset, int count) {
+        MemoryAccessor.checkArrayBounds(srcIndex, count, srcArray.length);
+        Util.checkPoolBounds(this, dstOffset, (long)count << 3);
+        for (int i = 0; i < count; i++) setLong(dstOffset + ((long)i << 3), srcArray[srcIndex + i]);
+    }
+
+    /**
+     * Copies {@code count} {@code long} values from this pool's memory, starting at {@code srcOffset}, to the
+     * {@code dstArray} array starting at array index {@code dstIndex}.  The default implementation copies one 
+     * value at a time.
+     * @param srcOffset the starting offset in this pool's memory
+     * @param dstArray the destination array
+     * @param dstIndex the starting index in the destination array
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or
+     * outside of pool bounds
+     * @since 1.3
+     */
+    public default void copyToLongArray(long srcOffset, long[] dstArray, int dstIndex, int count) {
+        MemoryAccessor.checkArrayBounds(dstIndex, count, dstArray.length);
+        Util.checkPoolBounds(this, srcOffset, (long)count << 3);
+        for (int i = 0; i < count; i++) dstArray[dstIndex + i] = getLong(srcOffset + ((long)i << 3));
+    }
+
+    /**
+     * Copies {@code count} {@code int} values from {@code srcArray}, starting at {@code srcIndex}, to
+     * this pool's memory starting at {@code dstOffset}.  Values are stored in native byte order, the same 
+     * as {@code setInt}.  As with other writes, a single call to {@code flush} will persist the copied range.  
+     * The default implementation copies one value at a time.
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or
+     * outside of pool bounds
+     * @since 1.3
+     */
+    public default void copyFromIntArray(int[] srcArray, int srcIndex, long dstOffset, int count) {
+        MemoryAccessor.checkArrayBounds(srcIndex, count, srcArray.length);
+        Util.checkPoolBounds(this, dstOffset, (long)count << 2);
+        for (int i = 0; i < count; i++) setInt(dstOffset + ((long)i << 2), srcArray[srcIndex + i]);
+    }
+
+    /**
+     * Copies {@code count} {@code int} values from this pool's memory, starting at {@code srcOffset}, to the
+     * {@code dstArray} array starting at array index {@code dstIndex}.  The default implementation copies one 
+     * value at a time.
+     * @param srcOffset the starting offset in this pool's memory
+     * @param dstArray the destination array
+     * @param dstIndex the starting index in the destination array
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or
+     * outside of pool bounds
+     * @since 1.3
+     */
+    public default void copyToIntArray(long srcOffset, int[] dstArray, int dstIndex, int count) {
+        MemoryAccessor.checkArrayBounds(dstIndex, count, dstArray.length);
+        Util.checkPoolBounds(this, srcOffset, (long)count << 2);
+        for (int i = 0; i < count; i++) dstArray[dstIndex + i] = getInt(srcOffset + ((long)i << 2));
+    }
+
+    /**
+     * Copies {@code count} {@code short} values from {@code srcArray}, starting at {@code srcIndex}, to
+     * this pool's memory starting at {@code dstOffset}.  Values are stored in native byte order, the same 
+     * as {@code setShort}.  As with other writes, a single call to {@code flush} will persist the copied range.  
+     * The default implementation copies one value at a time.
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or
+     * outside of pool bounds
+     * @since 1.3
+     */
+    public default void copyFromShortArray(short[] srcArray, int srcIndex, long dstOffset, int count) {
+        MemoryAccessor.checkArrayBounds(srcIndex, count, srcArray.length);
+        Util.checkPoolBounds(this, dstOffset, (long)count << 1);
+        for (int i = 0; i < count; i++) setShort(dstOffset + ((long)i << 1), srcArray[srcIndex + i]);
+    }
+
+    /**
+     * Copies {@code count} {@code short} values from this pool's memory, starting at {@code srcOffset}, to the
+     * {@code dstArray} array starting at array index {@code dstIndex}.  The default implementation copies one 
+     * value at a time.
+     * @param srcOffset the starting offset in this pool's memory
+     * @param dstArray the destination array
+     * @param dstIndex the starting index in the destination array
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or
+     * outside of pool bounds
+     * @since 1.3
+     */
+    public default void copyToShortArray(long srcOffset, short[] dstArray, int dstIndex, int count) {
+        MemoryAccessor.checkArrayBounds(dstIndex, count, dstArray.length);
+        Util.checkPoolBounds(this, srcOffset, (long)count << 1);
+        for (int i = 0; i < count; i++) dstArray[dstIndex + i] = getShort(srcOffset + ((long)i << 1));
+    }
+
+    /**
+     * Copies {@code count} {@code double} values from {@code srcArray}, starting at {@code srcIndex}, to
+     * this pool's memory starting at {@code dstOffset}.  Values are stored in native byte order, the same 
+     * as {@code setDouble}.  As with other writes, a single call to {@code flush} will persist the copied range.  
+     * The default implementation copies one value at a time.
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or
+     * outside of pool bounds
+     * @since 1.3
+     */
+    public default void copyFromDoubleArray(double[] srcArray, int srcIndex, long dstOffset, int count) {
+        MemoryAccessor.checkArrayBounds(srcIndex, count, srcArray.length);
+        Util.checkPoolBounds(this, dstOffset, (long)count << 3);
+        for (int i = 0; i < count; i++) setLong(dstOffset + ((long)i << 3), Double.doubleToRawLongBits(srcArray[srcIndex + i]));
+    }
+
+    /**
+     * Copies {@code count} {@code double} values from this pool's memory, starting at {@code srcOffset}, to the
+     * {@code dstArray} array starting at array index {@code dstIndex}.  The default implementation copies one 
+     * value at a time.
+     * @param srcOffset the starting offset in this pool's memory
+     * @param dstArray the destination array
+     * @param dstIndex the starting index in the destination array
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or
+     * outside of pool bounds
+     * @since 1.3
+     */
+    public default void copyToDoubleArray(long srcOffset, double[] dstArray, int dstIndex, int count) {
+        MemoryAccessor.checkArrayBounds(dstIndex, count, dstArray.length);
+        Util.checkPoolBounds(this, srcOffset, (long)count << 3);
+        for (int i = 0; i < count; i++) dstArray[dstIndex + i] = Double.longBitsToDouble(getLong(srcOffset + ((long)i << 3)));
+    }
+
+    /**
+     * Copies {@code count} {@code float} values from {@code srcArray}, starting at {@code srcIndex}, to
+     * this pool's memory starting at {@code dstOffset}.  Values are stored in native byte order, the same 
+     * as {@code setFloat}.  As with other writes, a single call to {@code flush} will persist the copied range.  
+     * The default implementation copies one value at a time.
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or
+     * outside of pool bounds
+     * @since 1.3
+     */
+    public default void copyFromFloatArray(float[] srcArray, int srcIndex, long dstOffset, int count) {
+        MemoryAccessor.checkArrayBounds(srcIndex, count, srcArray.length);
+        Util.checkPoolBounds(this, dstOffset, (long)count << 2);
+        for (int i = 0; i < count; i++) setInt(dstOffset + ((long)i << 2), Float.floatToRawIntBits(srcArray[srcIndex + i]));
+    }
+
+    /**
+     * Copies {@code count} {@code float} values from this pool's memory, starting at {@code srcOffset}, to the
+     * {@code dstArray} array starting at array index {@code dstIndex}.  The default implementation copies one 
+     * value at a time.
+     * @param srcOffset the starting offset in this pool's memory
+     * @param dstArray the destination array
+     * @param dstIndex the starting index in the destination array
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of array bounds or
+     * outside of pool bounds
+     * @since 1.3
+     */
+    public default void copyToFloatArray(long srcOffset, float[] dstArray, int dstIndex, int count) {
+        MemoryAccessor.checkArrayBounds(dstIndex, count, dstArray.length);
+        Util.checkPoolBounds(this, srcOffset, (long)count << 2);
+        for (int i = 0; i < count; i++) dstArray[dstIndex + i] = Float.intBitsToFloat(getInt(srcOffset + ((long)i << 2)));
+    }
+
     /**
      * Sets {@code byteCount} bytes in this pool's memory, starting at {@code offset}, to the specified {@code value}.
      * @param value the value to set
@@ -288,6 +786,180 @@ public interface MemoryPool {
      */
     public void setMemoryNT(byte value, long offset, long byteCount);
 
+    /**
+     * Copies {@code byteCount} bytes within this pool, from {@code srcOffset} to {@code dstOffset}, 
+     * splitting large ranges into chunks that are copied concurrently with non-temporal stores on the common 
+     * {@code ForkJoinPool}.  The copied bytes are durable when this method returns.  Ranges smaller than a few 
+     * megabytes, and overlapping ranges, are copied on the calling thread.  The default implementation calls 
+     * {@link #parallelCopyFromPool(MemoryPool, long, long, long)}.
+     * @param srcOffset the starting offset in the pool's memory
+     * @param dstOffset the starting offset to which bytes are to be copied
+     * @param byteCount the number of bytes to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of pool bounds
+     * @since 1.3
+     */
+    public default void parallelCopyFromPool(long srcOffset, long dstOffset, long byteCount) {
+        parallelCopyFromPool(this, srcOffset, dstOffset, byteCount);
+    }
+
+    /**
+     * Copies {@code byteCount} bytes from {@code srcPool}, starting at {@code srcOffset}, to this pool's 
+     * memory starting at {@code dstOffset}, like {@link #parallelCopyFromPool(long, long, long)}.  The default 
+     * implementation copies on the calling thread and then flushes the copied range.
+     * @param srcPool the pool from which to copy bytes
+     * @param srcOffset the starting offset in the source pool's memory
+     * @param dstOffset the starting offset to which bytes are to be copied
+     * @param byteCount the number of bytes to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of pool bounds
+     * @since 1.3
+     */
+    public default void parallelCopyFromPool(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount) {
+        copyFromPool(srcPool, srcOffset, dstOffset, byteCount);
+        flush(dstOffset, byteCount);
+    }
+
+    /**
+     * Sets {@code byteCount} bytes in this pool's memory, starting at {@code offset}, to the specified 
+     * {@code value}, splitting large ranges into chunks that are set concurrently with non-temporal stores.  
+     * The bytes are durable when this method returns.  The default implementation sets the bytes on the calling 
+     * thread and then flushes them.
+     * @param value the value to set
+     * @param offset the starting offset in this pool's memory
+     * @param byteCount the number of bytes to set
+     * @throws IndexOutOfBoundsException if setting would cause access of data outside of pool bounds
+     * @since 1.3
+     */
+    public default void parallelSetMemory(byte value, long offset, long byteCount) {
+        setMemory(value, offset, byteCount);
+        flush(offset, byteCount);
+    }
+
+    /**
+     * Ensures that the specified range of bytes within this pool are written to persistent memory media, 
+     * splitting large ranges into chunks that are flushed concurrently.  The default implementation calls 
+     * {@link #flush(long, long)}.
+     * @param offset the starting location from which to flush bytes
+     * @param byteCount the number of bytes to flush
+     * @throws IndexOutOfBoundsException if the operation would cause access of data outside of pool bounds
+     * @since 1.3
+     */
+    public default void parallelFlush(long offset, long byteCount) {
+        flush(offset, byteCount);
+    }
+
+    /**
+     * Returns a read-only direct {@code ByteBuffer} whose content is the {@code byteCount} bytes of this pool's 
+     * memory starting at {@code offset}.  No bytes are copied and the buffer uses native byte order.<br><br>
+     * <b>The buffer is unchecked.</b>  It is not tied to the lifetime of this pool and cannot be invalidated: 
+     * using it after this pool is closed accesses unmapped memory and may crash the JVM.
+     * @param offset the starting offset in this pool's memory
+     * @param byteCount the number of bytes in the view
+     * @return a read-only view of the specified bytes
+     * @throws IndexOutOfBoundsException if the view would include data outside of pool bounds
+     * @throws UnsupportedOperationException if this pool does not support views; the default implementation
+     * always throws this exception
+     * @since 1.3
+     */
+    public default ByteBuffer asReadOnlyByteBuffer(long offset, int byteCount) {
+        throw new UnsupportedOperationException("ByteBuffer views are not supported by this pool");
+    }
+
+    /**
+     * Returns a writable direct {@code ByteBuffer} whose content is the {@code byteCount} bytes of this pool's 
+     * memory starting at {@code offset}.  No bytes are copied and the buffer uses native byte order.  
+     * As with other writes, writes through the buffer are made durable by calling {@link #flush(long, long)}.<br><br>
+     * <b>The buffer is unchecked.</b>  It is not tied to the lifetime of this pool and cannot be invalidated: 
+     * using it after this pool is closed accesses unmapped memory and may crash the JVM.
+     * @param offset the starting offset in this pool's memory
+     * @param byteCount the number of bytes in the view
+     * @return a writable view of the specified bytes
+     * @throws IndexOutOfBoundsException if the view would include data outside of pool bounds
+     * @throws UnsupportedOperationException if this pool does not support views; the default implementation
+     * always throws this exception
+     * @since 1.3
+     */
+    public default ByteBuffer asByteBuffer(long offset, int byteCount) {
+        throw new UnsupportedOperationException("ByteBuffer views are not supported by this pool");
+    }
+
+    /**
+     * Writes up to {@code byteCount} bytes of this pool's memory, starting at {@code offset}, to the supplied 
+     * channel, in chunks, without intermediate copies.  Fewer than {@code byteCount} bytes are written if a 
+     * non-blocking channel accepts no more bytes.  The default implementation copies each chunk through a heap buffer.
+     * @param channel the channel to which to write bytes
+     * @param offset the starting offset in this pool's memory
+     * @param byteCount the number of bytes to write
+     * @return the number of bytes written
+     * @throws IOException if an I/O error occurs while writing to the channel
+     * @throws IndexOutOfBoundsException if the transfer would cause access of data outside of pool bounds
+     * @since 1.3
+     */
+    public default long transferTo(WritableByteChannel channel, long offset, long byteCount) throws IOException {
+        Util.checkPoolBounds(this, offset, byteCount);
+        ByteBuffer buf = ByteBuffer.allocate((int)Math.min(byteCount, Util.TRANSFER_CHUNK_SIZE));
+        long done = 0;
+        while (done < byteCount) {
+            int size = (int)Math.min(byteCount - done, buf.capacity());
+            buf.clear();
+            copyToByteBuffer(offset + done, buf, size);
+            buf.flip();
+            done += Util.writeChunk(channel, buf);
+            if (buf.hasRemaining()) break;
+        }
+        return done;
+    }
+
+    /**
+     * Reads up to {@code byteCount} bytes from the supplied channel into this pool's memory, starting at 
+     * {@code offset}, in chunks, without intermediate copies.  Each chunk is flushed as it is read.  
+     * Fewer than {@code byteCount} bytes are read if the channel reaches end-of-stream or, for a 
+     * non-blocking channel, has no more bytes available.  The default implementation copies each chunk through a 
+     * heap buffer.
+     * @param channel the channel from which to read bytes
+     * @param offset the starting offset in this pool's memory
+     * @param byteCount the maximum number of bytes to read
+     * @return the number of bytes read
+     * @throws IOException if an I/O error occurs while reading from the channel
+     * @throws IndexOutOfBoundsException if the transfer would cause access of data outside of pool bounds
+     * @since 1.3
+     */
+    public default long transferFrom(ReadableByteChannel channel, long offset, long byteCount) throws IOException {
+        Util.checkPoolBounds(this, offset, byteCount);
+        ByteBuffer buf = ByteBuffer.allocate((int)Math.min(byteCount, Util.TRANSFER_CHUNK_SIZE));
+        long done = 0;
+        while (done < byteCount) {
+            int size = (int)Math.min(byteCount - done, buf.capacity());
+            buf.clear();
+            buf.limit(size);
+            int read = Util.readChunk(channel, buf);
+            if (read > 0) {
+                buf.flip();
+                copyFromByteBuffer(buf, offset + done);
+                flush(offset + done, read);
+            }
+            done += read;
+            if (read < size) break;
+        }
+        return done;
+    }
+
+    /**
+     * Returns a pool that provides access to {@code byteCount} bytes of this pool's memory starting at 
+     * {@code offset}.  Offsets into the returned pool are relative to {@code offset} and are bounds-checked 
+     * against the slice rather than this pool.  The slice shares this pool's memory and backend; it remains 
+     * valid only while this pool is open.
+     * @param offset the location of the slice within this pool
+     * @param byteCount the size, in bytes, of the slice
+     * @return a pool view of the specified range
+     * @throws IndexOutOfBoundsException if the slice would extend outside of pool bounds
+     * @throws UnsupportedOperationException if this pool does not support slices; the default implementation
+     * always throws this exception
+     * @since 1.3
+     */
+    public default MemoryPool slice(long offset, long byteCount) {
+        throw new UnsupportedOperationException("Slices are not supported by this pool");
+    }
+
     /**
      * Returns the provisioned size, in bytes, of this memory pool.
      * @return the provisioned size, in bytes, of this memory pool
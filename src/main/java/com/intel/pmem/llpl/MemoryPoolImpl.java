@@ -9,6 +9,10 @@ package com.intel.pmem.llpl;
 
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.io.IOException;
 import java.nio.ReadOnlyBufferException;
 import sun.misc.Unsafe;
 
@@ -17,7 +21,6 @@ class MemoryPoolImpl implements MemoryPool {
     static Unsafe UNSAFE;
 
     static {
-        Util.loadLibrary();
         try {
             java.lang.reflect.Field f = Unsafe.class.getDeclaredField("theUnsafe");
             f.setAccessible(true);
@@ -28,11 +31,18 @@ class MemoryPoolImpl implements MemoryPool {
         }
     }
 
+    private static final long LONG_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(long[].class);
+    private static final long INT_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(int[].class);
+    private static final long SHORT_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(short[].class);
+    private static final long DOUBLE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(double[].class);
+    private static final long FLOAT_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(float[].class);
+
     private long poolAddress;
     private final long poolSize;
     private final String poolPath;
 
     MemoryPoolImpl(String path, long byteCount) {
+        Util.loadLibrary();
         if (byteCount <= 0) throw new IllegalArgumentException("byteCount must be greater than zero");
         File file = new File(path);
         if (file.exists()) throw new MemoryPoolException("Unable to create pool, path already exists:" + path);
@@ -46,6 +56,7 @@ class MemoryPoolImpl implements MemoryPool {
     }
 
     MemoryPoolImpl(String path) {
+        Util.loadLibrary();
         File file = new File(path);
         if (path.startsWith("/dev/dax")) {
             try {
@@ -68,7 +79,14 @@ class MemoryPoolImpl implements MemoryPool {
         }
     }
 
-    private void checkBounds(long offset, long byteCount) {
+    // used by backends that map the pool without the native library
+    MemoryPoolImpl(String path, long address, long byteCount) {
+        this.poolAddress = address;
+        this.poolSize = byteCount;
+        this.poolPath = path;
+    }
+
+    void checkBounds(long offset, long byteCount) {
         if (offset < 0 || byteCount < 0 || offset + byteCount > poolSize) {
             StringBuilder errorMessage = new StringBuilder("MemoryPool");
             if (offset < 0) errorMessage.append("negative offset: " + offset);
@@ -78,10 +96,26 @@ class MemoryPoolImpl implements MemoryPool {
         }
     }
 
-    private long dataAddress(long offset) {
+    long dataAddress(long offset) {
         return poolAddress + offset;
     }
 
+    void persist(long offset, long byteCount) {
+        nativeFlush(dataAddress(offset), byteCount);
+    }
+
+    long bufferAddress(ByteBuffer buf) {
+        return MemoryAccessor.nativeGetDirectByteBufferAddress(buf);
+    }
+
+    ByteBuffer newByteBuffer(long offset, int byteCount) {
+        return MemoryAccessor.nativeNewDirectByteBuffer(dataAddress(offset), byteCount);
+    }
+
+    String path() {
+        return poolPath;
+    }
+
     void close() {
         int result = nativeClosePool(poolAddress, poolSize);
         if (result == -1) throw new MemoryPoolException("Unable to close pool");
@@ -140,6 +174,105 @@ class MemoryPoolImpl implements MemoryPool {
         UNSAFE.putLong(dataAddress(offset), value);
     }
 
+    @Override
+    public boolean compareAndSetLong(long offset, long expected, long value) {
+        return UNSAFE.compareAndSwapLong(null, atomicAddress(offset, 8), expected, value);
+    }
+
+    @Override
+    public boolean compareAndSetLongDurable(long offset, long expected, long value) {
+        boolean result = compareAndSetLong(offset, expected, value);
+        if (result) persist(offset, 8);
+        return result;
+    }
+
+    @Override
+    public boolean compareAndSetInt(long offset, int expected, int value) {
+        return UNSAFE.compareAndSwapInt(null, atomicAddress(offset, 4), expected, value);
+    }
+
+    @Override
+    public boolean compareAndSetIntDurable(long offset, int expected, int value) {
+        boolean result = compareAndSetInt(offset, expected, value);
+        if (result) persist(offset, 4);
+        return result;
+    }
+
+    @Override
+    public long getAndAddLong(long offset, long delta) {
+        return UNSAFE.getAndAddLong(null, atomicAddress(offset, 8), delta);
+    }
+
+    @Override
+    public long getAndAddLongDurable(long offset, long delta) {
+        long result = getAndAddLong(offset, delta);
+        persist(offset, 8);
+        return result;
+    }
+
+    @Override
+    public long getAndSetLong(long offset, long value) {
+        return UNSAFE.getAndSetLong(null, atomicAddress(offset, 8), value);
+    }
+
+    @Override
+    public long getAndSetLongDurable(long offset, long value) {
+        long result = getAndSetLong(offset, value);
+        persist(offset, 8);
+        return result;
+    }
+
+    @Override
+    public long getLongVolatile(long offset) {
+        return UNSAFE.getLongVolatile(null, atomicAddress(offset, 8));
+    }
+
+    @Override
+    public void setLongVolatile(long offset, long value) {
+        UNSAFE.putLongVolatile(null, atomicAddress(offset, 8), value);
+    }
+
+    @Override
+    public long getLongAcquire(long offset) {
+        long value = UNSAFE.getLong(atomicAddress(offset, 8));
+        UNSAFE.loadFence();
+        return value;
+    }
+
+    @Override
+    public void setLongRelease(long offset, long value) {
+        UNSAFE.putOrderedLong(null, atomicAddress(offset, 8), value);
+    }
+
+    @Override
+    public int getIntVolatile(long offset) {
+        return UNSAFE.getIntVolatile(null, atomicAddress(offset, 4));
+    }
+
+    @Override
+    public void setIntVolatile(long offset, int value) {
+        UNSAFE.putIntVolatile(null, atomicAddress(offset, 4), value);
+    }
+
+    @Override
+    public int getIntAcquire(long offset) {
+        int value = UNSAFE.getInt(atomicAddress(offset, 4));
+        UNSAFE.loadFence();
+        return value;
+    }
+
+    @Override
+    public void setIntRelease(long offset, int value) {
+        UNSAFE.putOrderedInt(null, atomicAddress(offset, 4), value);
+    }
+
+    private long atomicAddress(long offset, int size) {
+        checkBounds(offset, size);
+        long address = dataAddress(offset);
+        if ((address & (size - 1)) != 0) throw new IllegalArgumentException("Offset " + offset + " is not " + size + "-byte aligned");
+        return address;
+    }
+
     @Override
     public void copyFromPool(long srcOffset, long dstOffset, long byteCount) {
         checkBounds(srcOffset, byteCount);
@@ -149,6 +282,10 @@ class MemoryPoolImpl implements MemoryPool {
 
     @Override
     public void copyFromPool(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount) {
+        if (srcPool instanceof SegmentedMemoryPool) {
+            ((SegmentedMemoryPool)srcPool).copyInto(this, srcOffset, dstOffset, byteCount, SegmentedMemoryPool.COPY);
+            return;
+        }
         ((MemoryPoolImpl)srcPool).checkBounds(srcOffset, byteCount);
         checkBounds(dstOffset, byteCount);
         UNSAFE.copyMemory(((MemoryPoolImpl)srcPool).dataAddress(srcOffset), dataAddress(dstOffset), byteCount);
@@ -180,7 +317,7 @@ class MemoryPoolImpl implements MemoryPool {
         if ((size = srcBuf.remaining()) == 0) return;
         if (srcBuf.isDirect()) {
             checkBounds(dstOffset, size);
-            long srcAddress = MemoryAccessor.nativeGetDirectByteBufferAddress(srcBuf);
+            long srcAddress = bufferAddress(srcBuf);
             if (srcAddress == 0) throw new IllegalArgumentException("Invalid ByteBuffer");
             UNSAFE.copyMemory(srcAddress + srcBuf.position(), dataAddress(dstOffset), size);
         }
@@ -218,7 +355,7 @@ class MemoryPoolImpl implements MemoryPool {
         int size;
         if ((size = dstBuf.remaining()) < byteCount) throw new IndexOutOfBoundsException("Insufficient space remaining in destination buffer");
         if (dstBuf.isDirect()) {
-            long dstAddress = MemoryAccessor.nativeGetDirectByteBufferAddress(dstBuf);
+            long dstAddress = bufferAddress(dstBuf);
             if (dstAddress == 0) throw new IllegalArgumentException("Invalid ByteBuffer");
             checkBounds(srcOffset, byteCount);
             UNSAFE.copyMemory(dataAddress(srcOffset), dstAddress + dstBuf.position(), size);
@@ -235,6 +372,74 @@ class MemoryPoolImpl implements MemoryPool {
         }
     }
 
+    @Override
+    public void copyFromLongArray(long[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, LONG_ARRAY_BASE_OFFSET, 3, srcIndex, dstOffset, count);
+    }
+
+    @Override
+    public void copyToLongArray(long srcOffset, long[] dstArray, int dstIndex, int count) {
+        copyToPrimitiveArray(srcOffset, dstArray, dstArray.length, LONG_ARRAY_BASE_OFFSET, 3, dstIndex, count);
+    }
+
+    @Override
+    public void copyFromIntArray(int[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, INT_ARRAY_BASE_OFFSET, 2, srcIndex, dstOffset, count);
+    }
+
+    @Override
+    public void copyToIntArray(long srcOffset, int[] dstArray, int dstIndex, int count) {
+        copyToPrimitiveArray(srcOffset, dstArray, dstArray.length, INT_ARRAY_BASE_OFFSET, 2, dstIndex, count);
+    }
+
+    @Override
+    public void copyFromShortArray(short[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, SHORT_ARRAY_BASE_OFFSET, 1, srcIndex, dstOffset, count);
+    }
+
+    @Override
+    public void copyToShortArray(long srcOffset, short[] dstArray, int dstIndex, int count) {
+        copyToPrimitiveArray(srcOffset, dstArray, dstArray.length, SHORT_ARRAY_BASE_OFFSET, 1, dstIndex, count);
+    }
+
+    @Override
+    public void copyFromDoubleArray(double[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, DOUBLE_ARRAY_BASE_OFFSET, 3, srcIndex, dstOffset, count);
+    }
+
+    @Override
+    public void copyToDoubleArray(long srcOffset, double[] dstArray, int dstIndex, int count) {
+        copyToPrimitiveArray(srcOffset, dstArray, dstArray.length, DOUBLE_ARRAY_BASE_OFFSET, 3, dstIndex, count);
+    }
+
+    @Override
+    public void copyFromFloatArray(float[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, FLOAT_ARRAY_BASE_OFFSET, 2, srcIndex, dstOffset, count);
+    }
+
+    @Override
+    public void copyToFloatArray(long srcOffset, float[] dstArray, int dstIndex, int count) {
+        copyToPrimitiveArray(srcOffset, dstArray, dstArray.length, FLOAT_ARRAY_BASE_OFFSET, 2, dstIndex, count);
+    }
+
+    private void copyFromPrimitiveArray(Object srcArray, int arrayLength, long arrayBase, int shift, int srcIndex, long dstOffset, int count) {
+        if (srcIndex < 0 || count < 0 || srcIndex > arrayLength - count) {
+            throw new IndexOutOfBoundsException(indexOutOfBoundsMessage(srcIndex, count));
+        }
+        long byteCount = (long)count << shift;
+        checkBounds(dstOffset, byteCount);
+        UNSAFE.copyMemory(srcArray, arrayBase + ((long)srcIndex << shift), null, dataAddress(dstOffset), byteCount);
+    }
+
+    private void copyToPrimitiveArray(long srcOffset, Object dstArray, int arrayLength, long arrayBase, int shift, int dstIndex, int count) {
+        if (dstIndex < 0 || count < 0 || dstIndex > arrayLength - count) {
+            throw new IndexOutOfBoundsException(indexOutOfBoundsMessage(dstIndex, count));
+        }
+        long byteCount = (long)count << shift;
+        checkBounds(srcOffset, byteCount);
+        UNSAFE.copyMemory(null, dataAddress(srcOffset), dstArray, arrayBase + ((long)dstIndex << shift), byteCount);
+    }
+
     @Override
     public void setMemory(byte value, long offset, long byteCount) {
         checkBounds(offset, byteCount);
@@ -250,6 +455,10 @@ class MemoryPoolImpl implements MemoryPool {
 
     @Override
     public void copyFromPoolNT(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount) {
+        if (srcPool instanceof SegmentedMemoryPool) {
+            ((SegmentedMemoryPool)srcPool).copyInto(this, srcOffset, dstOffset, byteCount, SegmentedMemoryPool.COPY_NT);
+            return;
+        }
         ((MemoryPoolImpl)srcPool).checkBounds(srcOffset, byteCount);
         checkBounds(dstOffset, byteCount);
         nativeCopyMemoryNT(((MemoryPoolImpl)srcPool).dataAddress(srcOffset), dataAddress(dstOffset), byteCount);
@@ -270,10 +479,92 @@ class MemoryPoolImpl implements MemoryPool {
         nativeSetMemoryNT(dataAddress(offset), byteCount, value);
     }
 
+    @Override
+    public void parallelCopyFromPool(long srcOffset, long dstOffset, long byteCount) {
+        parallelCopyFromPool(this, srcOffset, dstOffset, byteCount);
+    }
+
+    @Override
+    public void parallelCopyFromPool(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount) {
+        if (srcPool instanceof SegmentedMemoryPool) {
+            ((SegmentedMemoryPool)srcPool).copyInto(this, srcOffset, dstOffset, byteCount, SegmentedMemoryPool.COPY_PARALLEL);
+            return;
+        }
+        MemoryPoolImpl src = (MemoryPoolImpl)srcPool;
+        src.checkBounds(srcOffset, byteCount);
+        checkBounds(dstOffset, byteCount);
+        if (ParallelMemory.overlaps(src.dataAddress(srcOffset), dataAddress(dstOffset), byteCount)) {
+            copyFromPoolNT(srcPool, srcOffset, dstOffset, byteCount);
+            return;
+        }
+        ParallelMemory.forEachChunk(dataAddress(dstOffset), byteCount, (offset, length) -> copyFromPoolNT(srcPool, srcOffset + offset, dstOffset + offset, length));
+    }
+
+    @Override
+    public void parallelSetMemory(byte value, long offset, long byteCount) {
+        checkBounds(offset, byteCount);
+        ParallelMemory.forEachChunk(dataAddress(offset), byteCount, (chunkOffset, length) -> setMemoryNT(value, offset + chunkOffset, length));
+    }
+
+    @Override
+    public void parallelFlush(long offset, long byteCount) {
+        checkBounds(offset, byteCount);
+        Object event = Events.beginFlush(byteCount);
+        ParallelMemory.forEachChunk(dataAddress(offset), byteCount, (chunkOffset, length) -> persist(offset + chunkOffset, length));
+        Events.endFlush(event, poolPath, byteCount);
+    }
+
+    @Override
+    public ByteBuffer asReadOnlyByteBuffer(long offset, int byteCount) {
+        return asByteBuffer(offset, byteCount).asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public ByteBuffer asByteBuffer(long offset, int byteCount) {
+        checkBounds(offset, byteCount);
+        ByteBuffer buf = newByteBuffer(offset, byteCount);
+        if (buf == null) throw new MemoryPoolException("Unable to create ByteBuffer view");
+        return buf.order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel channel, long offset, long byteCount) throws IOException {
+        checkBounds(offset, byteCount);
+        long done = 0;
+        while (done < byteCount) {
+            ByteBuffer buf = asByteBuffer(offset + done, (int)Math.min(byteCount - done, Util.TRANSFER_CHUNK_SIZE));
+            done += Util.writeChunk(channel, buf);
+            if (buf.hasRemaining()) break;
+        }
+        return done;
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel channel, long offset, long byteCount) throws IOException {
+        checkBounds(offset, byteCount);
+        long done = 0;
+        while (done < byteCount) {
+            int size = (int)Math.min(byteCount - done, Util.TRANSFER_CHUNK_SIZE);
+            int read = Util.readChunk(channel, asByteBuffer(offset + done, size));
+            if (read > 0) flush(offset + done, read);
+            done += read;
+            if (read < size) break;
+        }
+        return done;
+    }
+
+    @Override
+    public MemoryPool slice(long offset, long byteCount) {
+        checkBounds(offset, byteCount);
+        return new MemoryPoolSlice(this, offset, byteCount);
+    }
+
     @Override
     public void flush(long offset, long byteCount) {
         checkBounds(offset, byteCount);
-        nativeFlush(dataAddress(offset), byteCount);
+        Object event = Events.beginFlush(byteCount);
+        persist(offset, byteCount);
+        Events.endFlush(event, poolPath, byteCount);
     }
 
     @Override
@@ -283,7 +574,7 @@ class MemoryPoolImpl implements MemoryPool {
 
     @Override
     public boolean equals(Object obj) {
-        if (!(obj instanceof MemoryPool)) return false;
+        if (!(obj instanceof MemoryPoolImpl) || obj instanceof MemoryPoolSlice) return false;
         MemoryPoolImpl other = (MemoryPoolImpl)obj;
         return this.poolPath.equals(other.poolPath);
     }
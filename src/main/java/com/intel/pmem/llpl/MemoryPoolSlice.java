@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import java.nio.ByteBuffer;
+
+// A view of a range of another pool, as returned by MemoryPool.slice.  Accesses are bounds-checked
+// against the slice; flushes, buffer views and non-temporal copies are delegated to the parent pool
+// so that they use the parent's backend.
+class MemoryPoolSlice extends MemoryPoolImpl {
+    private final MemoryPoolImpl parent;
+    private final long base;
+
+    MemoryPoolSlice(MemoryPoolImpl parent, long offset, long byteCount) {
+        super(parent.path(), parent.dataAddress(offset), byteCount);
+        this.parent = parent;
+        this.base = offset;
+    }
+
+    @Override
+    void persist(long offset, long byteCount) {
+        parent.persist(base + offset, byteCount);
+    }
+
+    @Override
+    long bufferAddress(ByteBuffer buf) {
+        return parent.bufferAddress(buf);
+    }
+
+    @Override
+    ByteBuffer newByteBuffer(long offset, int byteCount) {
+        return parent.newByteBuffer(base + offset, byteCount);
+    }
+
+    @Override
+    void close() {
+        // the parent pool owns the mapping
+    }
+
+    @Override
+    public void copyFromPoolNT(long srcOffset, long dstOffset, long byteCount) {
+        checkBounds(srcOffset, byteCount);
+        checkBounds(dstOffset, byteCount);
+        parent.copyFromPoolNT(base + srcOffset, base + dstOffset, byteCount);
+    }
+
+    @Override
+    public void copyFromPoolNT(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount) {
+        checkBounds(dstOffset, byteCount);
+        parent.copyFromPoolNT(srcPool, srcOffset, base + dstOffset, byteCount);
+    }
+
+    @Override
+    public void copyFromByteArrayNT(byte[] srcArray, int srcIndex, long dstOffset, int byteCount) {
+        checkBounds(dstOffset, byteCount);
+        parent.copyFromByteArrayNT(srcArray, srcIndex, base + dstOffset, byteCount);
+    }
+
+    @Override
+    public void copyFromByteBufferNT(ByteBuffer srcBuf, long dstOffset) {
+        checkBounds(dstOffset, srcBuf.remaining());
+        parent.copyFromByteBufferNT(srcBuf, base + dstOffset);
+    }
+
+    @Override
+    public void setMemoryNT(byte value, long offset, long byteCount) {
+        checkBounds(offset, byteCount);
+        parent.setMemoryNT(value, base + offset, byteCount);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * parent.hashCode() + Long.hashCode(base);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof MemoryPoolSlice)) return false;
+        MemoryPoolSlice other = (MemoryPoolSlice)obj;
+        return parent.equals(other.parent) && base == other.base && size() == other.size();
+    }
+}
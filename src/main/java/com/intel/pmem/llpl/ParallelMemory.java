@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Splits large memory operations into cache-line aligned chunks processed on the common ForkJoinPool.
+// Each chunk drains its own stores, since a drain only orders stores issued by the executing core.
+final class ParallelMemory {
+    static final long PARALLEL_THRESHOLD = 4L << 20;
+    static final long CHUNK_SIZE = 1L << 20;
+    private static final long CACHE_LINE_SIZE = 64;
+
+    interface ChunkOperation {
+        void apply(long offset, long length);
+    }
+
+    private ParallelMemory() {
+        // no instances
+    }
+
+    // offsets passed to op are relative to the start of the range; chunk boundaries are aligned
+    // relative to dstAddress so that no two chunks share a destination cache line
+    static void forEachChunk(long dstAddress, long length, ChunkOperation op) {
+        if (length < PARALLEL_THRESHOLD) op.apply(0, length);
+        else ForkJoinPool.commonPool().invoke(new ChunkTask(dstAddress, 0, length, op));
+    }
+
+    static boolean overlaps(long srcAddress, long dstAddress, long length) {
+        return srcAddress < dstAddress + length && dstAddress < srcAddress + length;
+    }
+
+    @SuppressWarnings("serial")
+    private static class ChunkTask extends RecursiveAction {
+        private final long dstAddress;
+        private final long offset;
+        private final long length;
+        private final ChunkOperation op;
+
+        ChunkTask(long dstAddress, long offset, long length, ChunkOperation op) {
+            this.dstAddress = dstAddress;
+            this.offset = offset;
+            this.length = length;
+            this.op = op;
+        }
+
+        @Override
+        protected void compute() {
+            if (length <= CHUNK_SIZE) {
+                op.apply(offset, length);
+                return;
+            }
+            long middle = dstAddress + offset + length / 2;
+            long split = ((middle + CACHE_LINE_SIZE - 1) & ~(CACHE_LINE_SIZE - 1)) - dstAddress - offset;
+            invokeAll(new ChunkTask(dstAddress, offset, split, op), new ChunkTask(dstAddress, offset + split, length - split, op));
+        }
+    }
+}
@@ -21,6 +21,12 @@ public final class Range {
     private long startOffset;
     private final long endOffset;
     private final long rangeLength;
+    private int writes;
+
+    // write tracking lets a durable range whose writes were all non-temporal skip its flush pass
+    private static final int NO_WRITES = 0;
+    private static final int NT_WRITES = 1;
+    private static final int CACHED_WRITES = 2;
 
     Range(MemoryAccessor accessor, long startOffset, long length) {
         accessor.checkBoundsAndLength(startOffset, length);
@@ -83,6 +89,7 @@ public final class Range {
     public void setByte(long offset, byte value) {
         checkValid();
         checkBounds(offset, 1);
+        writes = CACHED_WRITES;
         accessor.setRawByte(offset, value);
     }
 
@@ -97,6 +104,7 @@ public final class Range {
     public void setShort(long offset, short value) {
         checkValid();
         checkBounds(offset, 2);
+        writes = CACHED_WRITES;
         accessor.setRawShort(offset, value);
     }
 
@@ -111,6 +119,7 @@ public final class Range {
     public void setInt(long offset, int value) {
         checkValid();
         checkBounds(offset, 4);
+        writes = CACHED_WRITES;
         accessor.setRawInt(offset, value);
     }
 
@@ -125,6 +134,7 @@ public final class Range {
     public void setLong(long offset, long value) {
         checkValid();
         checkBounds(offset, 8);
+        writes = CACHED_WRITES;
         accessor.setRawLong(offset, value);
     }
 
@@ -143,6 +153,7 @@ public final class Range {
         srcAccessor.checkValid();
         srcAccessor.checkBoundsAndLength(srcOffset, length);
         checkBoundsAndLength(dstOffset, length);
+        writes = CACHED_WRITES;
         MemoryAccessor.uncheckedCopyBlockToBlock(srcAccessor.directAddress() + srcAccessor.metadataSize() + srcOffset, accessor.directAddress() + accessor.metadataSize() + dstOffset, length);
     }
 
@@ -174,9 +185,94 @@ public final class Range {
         checkValid();
         if (srcIndex < 0 || srcIndex + length > srcArray.length) throw new IndexOutOfBoundsException(MemoryAccessor.outOfBoundsMessage(srcIndex, length));
         checkBoundsAndLength(dstOffset, length);
+        writes = CACHED_WRITES;
         MemoryAccessor.uncheckedCopyFromArray(srcArray, srcIndex, accessor.directAddress() + accessor.metadataSize() + dstOffset, length);
     }
 
+    /**
+     * Copies {@code count} {@code long} values from {@code srcArray}, starting at {@code srcIndex}, to  
+     * the block of memory associated with this range, starting at {@code dstOffset}.  
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of this range's bounds 
+     * @throws IllegalStateException if this range is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyFromLongArray(long[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, AnyHeap.LONG_ARRAY_BASE_OFFSET, 3, srcIndex, dstOffset, count);
+    }
+
+    /**
+     * Copies {@code count} {@code int} values from {@code srcArray}, starting at {@code srcIndex}, to  
+     * the block of memory associated with this range, starting at {@code dstOffset}.  
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of this range's bounds 
+     * @throws IllegalStateException if this range is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyFromIntArray(int[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, AnyHeap.INT_ARRAY_BASE_OFFSET, 2, srcIndex, dstOffset, count);
+    }
+
+    /**
+     * Copies {@code count} {@code short} values from {@code srcArray}, starting at {@code srcIndex}, to  
+     * the block of memory associated with this range, starting at {@code dstOffset}.  
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of this range's bounds 
+     * @throws IllegalStateException if this range is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyFromShortArray(short[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, AnyHeap.SHORT_ARRAY_BASE_OFFSET, 1, srcIndex, dstOffset, count);
+    }
+
+    /**
+     * Copies {@code count} {@code double} values from {@code srcArray}, starting at {@code srcIndex}, to  
+     * the block of memory associated with this range, starting at {@code dstOffset}.  
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of this range's bounds 
+     * @throws IllegalStateException if this range is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyFromDoubleArray(double[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, AnyHeap.DOUBLE_ARRAY_BASE_OFFSET, 3, srcIndex, dstOffset, count);
+    }
+
+    /**
+     * Copies {@code count} {@code float} values from {@code srcArray}, starting at {@code srcIndex}, to  
+     * the block of memory associated with this range, starting at {@code dstOffset}.  
+     * @param srcArray the array from which to copy values
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which values are to be copied
+     * @param count the number of values to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of this range's bounds 
+     * @throws IllegalStateException if this range is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyFromFloatArray(float[] srcArray, int srcIndex, long dstOffset, int count) {
+        copyFromPrimitiveArray(srcArray, srcArray.length, AnyHeap.FLOAT_ARRAY_BASE_OFFSET, 2, srcIndex, dstOffset, count);
+    }
+
+    private void copyFromPrimitiveArray(Object srcArray, int arrayLength, long arrayBase, int shift, int srcIndex, long dstOffset, int count) {
+        checkValid();
+        MemoryAccessor.checkArrayBounds(srcIndex, count, arrayLength);
+        long length = (long)count << shift;
+        checkBoundsAndLength(dstOffset, length);
+        writes = CACHED_WRITES;
+        MemoryAccessor.uncheckedCopyFromPrimitiveArray(srcArray, arrayBase + ((long)srcIndex << shift), accessor.directAddress() + accessor.metadataSize() + dstOffset, length);
+    }
+
     /**
      * Sets {@code length} bytes in the block of memory associted with this range, starting at {@code offset}, to the supplied {@code byte}  
      * value.  
@@ -189,6 +285,7 @@ public final class Range {
     public void setMemory(byte value, long offset, long length) {
         checkValid();
         checkBoundsAndLength(offset, length);
+        writes = CACHED_WRITES;
         MemoryAccessor.uncheckedSetMemory(accessor.directAddress() + accessor.metadataSize() + offset, value, length);
     }
 
@@ -208,6 +305,7 @@ public final class Range {
             checkBoundsAndLength(dstOffset, size);
             long srcAddress = MemoryAccessor.nativeGetDirectByteBufferAddress(srcBuf);
             if (srcAddress <= 0) throw new IllegalArgumentException("Invalid ByteBuffer");
+            writes = CACHED_WRITES;
             MemoryAccessor.uncheckedCopyBlockToBlock(srcAddress + srcBuf.position(), accessor.directAddress() + accessor.metadataSize() + dstOffset, size);
         }
         else if (srcBuf.hasArray()) {
@@ -220,23 +318,90 @@ public final class Range {
         }
     }
 
+    /**
+     * Copies {@code length} bytes from {@code srcArray}, starting at {@code srcIndex}, to the block of memory 
+     * associated with this range, starting at {@code dstOffset}, using non-temporal stores that bypass the CPU cache.  
+     * If all writes to a durable range are non-temporal, the range is drained rather than flushed when the 
+     * operation completes.  
+     * @param srcArray the array from which to copy bytes
+     * @param srcIndex the starting index in the source array
+     * @param dstOffset the starting offset to which bytes are to be copied
+     * @param length the number of bytes to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of this range's bounds 
+     * @throws IllegalStateException if this range is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyFromArrayNT(byte[] srcArray, int srcIndex, long dstOffset, int length) {
+        checkValid();
+        MemoryAccessor.checkArrayBounds(srcIndex, length, srcArray.length);
+        checkBoundsAndLength(dstOffset, length);
+        ntWrite();
+        MemoryAccessor.nativeCopyFromArrayNT(srcArray, srcIndex, accessor.directAddress() + accessor.metadataSize() + dstOffset, length, false);
+    }
+
+    /**
+     * Copies {@code length} bytes from {@code srcAccessor}, starting at {@code srcOffset}, to the block of memory 
+     * associated with this range, starting at {@code dstOffset}, using non-temporal stores that bypass the CPU cache.  
+     * @param srcAccessor the accessor from whose memory to copy bytes
+     * @param srcOffset the starting offset in the source accessor's memory
+     * @param dstOffset the starting offset to which bytes are to be copied
+     * @param length the number of bytes to copy
+     * @throws IndexOutOfBoundsException if copying would cause access of data outside of this range's bounds 
+     * @throws IllegalStateException if this range is not in a valid state for use
+     * @since 1.3
+     */
+    public void copyFromNT(MemoryAccessor srcAccessor, long srcOffset, long dstOffset, long length) {
+        checkValid();
+        srcAccessor.checkValid();
+        srcAccessor.checkBoundsAndLength(srcOffset, length);
+        checkBoundsAndLength(dstOffset, length);
+        ntWrite();
+        MemoryAccessor.nativeCopyMemoryNT(srcAccessor.directAddress() + srcAccessor.metadataSize() + srcOffset, accessor.directAddress() + accessor.metadataSize() + dstOffset, length, false);
+    }
+
+    /**
+     * Sets {@code length} bytes in the block of memory associated with this range, starting at {@code offset}, to the 
+     * supplied {@code byte} value, using non-temporal stores that bypass the CPU cache.  
+     * @param value the value to set
+     * @param offset the starting offset in the block of memory associated with this range
+     * @param length the number of bytes to set
+     * @throws IndexOutOfBoundsException if setting would cause access of data outside of this range's bounds 
+     * @throws IllegalStateException if this range is not in a valid state for use
+     * @since 1.3
+     */
+    public void setMemoryNT(byte value, long offset, long length) {
+        checkValid();
+        checkBoundsAndLength(offset, length);
+        ntWrite();
+        MemoryAccessor.nativeSetMemoryNT(accessor.directAddress() + accessor.metadataSize() + offset, length, value, false);
+    }
+
+    private void ntWrite() {
+        if (writes == NO_WRITES) writes = NT_WRITES;
+    }
+
     void rawCopyFromDirectByteBuffer(long srcAddress, long dstOffset, long length) {
+        writes = CACHED_WRITES;
         MemoryAccessor.uncheckedCopyBlockToBlock(srcAddress, dstOffset, length);
     }
 
     void flush() {
         checkValid();
-        accessor.internalFlush(startOffset, rangeLength);
+        if (writes == NT_WRITES) MemoryAccessor.nativeDrain();
+        else accessor.internalFlush(startOffset, rangeLength);
     }
 
     int addToTransaction() {
         checkValid();
-        return MemoryAccessor.nativeAddRangeToTransaction(accessor.heap().poolHandle(), accessor.payloadAddress(startOffset), rangeLength);
+        int result = MemoryAccessor.nativeAddRangeToTransaction(accessor.heap().poolHandle(), accessor.payloadAddress(startOffset), rangeLength);
+        if (result == 2) Transaction.recordSnapshot(accessor.heap(), rangeLength);
+        return result;
     }
 
     void addToTransactionNoCheck() {
         checkValid();
         int res = MemoryAccessor.nativeAddToTransactionNoCheck(accessor.payloadAddress(startOffset), rangeLength);
         if (res != 0) throw new TransactionException("Failed to add range to transaction.");
+        Transaction.recordSnapshot(accessor.heap(), rangeLength);
     }
 }
@@ -0,0 +1,655 @@
+/*
+ * Copyright (C) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A {@link MemoryPool} whose memory is a sequence of equally-sized segments, each a separate pool file in one
+ * directory, that together form a single range of offsets.  The pool can grow while in use by adding
+ * segments; existing offsets, and data at those offsets, are unaffected.<br><br>
+ * Segment sizes are powers of two, so translating an offset to its segment is a shift and a mask.  Operations on
+ * ranges that span segment boundaries are split into one operation per segment, with these exceptions:
+ * {@code ByteBuffer} views and slices must lie within one segment, and atomic operations must be naturally
+ * aligned, which guarantees that they do.<br><br>
+ * Segment files are named {@code segment-0}, {@code segment-1}, and so on; the files present in the directory
+ * determine the size of the pool when it is reopened.
+ *
+ * @since 1.3
+ */
+public final class SegmentedMemoryPool implements MemoryPool {
+    private static final String SEGMENT_PREFIX = "segment-";
+    static final int COPY = 0;
+    static final int COPY_NT = 1;
+    static final int COPY_PARALLEL = 2;
+    private static final int STAGING_BYTES = 1 << 20;
+
+    private final String directory;
+    private final long segmentSize;
+    private final int shift;
+    private final long mask;
+    private final Backend backend;
+    private volatile MemoryPoolImpl[] segments;
+
+    private interface Piece {
+        void apply(MemoryPoolImpl segment, long localOffset, long relativeOffset, long length);
+    }
+
+    private interface Stage {
+        void apply(ByteBuffer buf, int index, int count);
+    }
+
+    private SegmentedMemoryPool(String directory, long segmentSize, Backend backend, MemoryPoolImpl[] segments) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.shift = Long.numberOfTrailingZeros(segmentSize);
+        this.mask = segmentSize - 1;
+        this.backend = backend;
+        this.segments = segments;
+    }
+
+    /**
+     * Creates a new segmented pool in {@code directory} with {@code segmentCount} segments of {@code segmentSize}
+     * bytes each.  The directory is created if it does not exist.
+     * @param directory the directory in which to store segment files
+     * @param segmentSize the size, in bytes, of each segment; a power of two no smaller than 4096
+     * @param segmentCount the initial number of segments, at least 1
+     * @param backend the implementation used to map each segment
+     * @return the new pool
+     * @throws IllegalArgumentException if {@code segmentSize} or {@code segmentCount} is invalid
+     * @throws MemoryPoolException if the directory already contains a pool or the pool could not be created
+     */
+    public static SegmentedMemoryPool create(String directory, long segmentSize, int segmentCount, Backend backend) {
+        if (segmentSize < 4096 || Long.bitCount(segmentSize) != 1) throw new IllegalArgumentException("segmentSize must be a power of two no smaller than 4096");
+        if (segmentCount < 1) throw new IllegalArgumentException("segmentCount must be greater than zero");
+        File dir = new File(directory);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new MemoryPoolException("Unable to create directory " + directory);
+        if (new File(dir, SEGMENT_PREFIX + 0).exists()) throw new MemoryPoolException("Unable to create pool, a pool already exists in " + directory);
+        SegmentedMemoryPool pool = new SegmentedMemoryPool(directory, segmentSize, backend, new MemoryPoolImpl[0]);
+        pool.grow(segmentCount);
+        return pool;
+    }
+
+    /**
+     * Opens an existing segmented pool.
+     * @param directory the directory containing the pool's segment files
+     * @param backend the implementation used to map each segment
+     * @return the pool
+     * @throws MemoryPoolException if the directory does not contain a valid pool or the pool could not be opened
+     */
+    public static SegmentedMemoryPool open(String directory, Backend backend) {
+        File dir = new File(directory);
+        File first = new File(dir, SEGMENT_PREFIX + 0);
+        if (!first.isFile()) throw new MemoryPoolException("Unable to open pool, no segments found in " + directory);
+        long segmentSize = first.length();
+        if (Long.bitCount(segmentSize) != 1) throw new MemoryPoolException("Unable to open pool, invalid segment size " + segmentSize);
+        ArrayList<MemoryPoolImpl> list = new ArrayList<>();
+        File file;
+        while ((file = new File(dir, SEGMENT_PREFIX + list.size())).isFile()) {
+            if (file.length() != segmentSize) throw new MemoryPoolException("Unable to open pool, segment " + list.size() + " has size " + file.length());
+            list.add((MemoryPoolImpl)MemoryPool.openPool(file.getPath(), backend));
+        }
+        return new SegmentedMemoryPool(directory, segmentSize, backend, list.toArray(new MemoryPoolImpl[0]));
+    }
+
+    /**
+     * Adds {@code count} segments to the end of this pool.  Other threads may use the pool concurrently;
+     * offsets beyond the previous size become valid once this method returns.
+     * @param count the number of segments to add
+     * @return the new size of this pool
+     * @throws IllegalArgumentException if {@code count} is negative
+     * @throws MemoryPoolException if a segment could not be created
+     */
+    public synchronized long grow(int count) {
+        if (count < 0) throw new IllegalArgumentException("count must not be negative");
+        MemoryPoolImpl[] current = segments;
+        MemoryPoolImpl[] next = Arrays.copyOf(current, current.length + count);
+        for (int i = current.length; i < next.length; i++) {
+            next[i] = (MemoryPoolImpl)MemoryPool.createPool(new File(directory, SEGMENT_PREFIX + i).getPath(), segmentSize, backend);
+            // publish each segment as it is created so that a failure part way leaves a consistent pool
+            segments = Arrays.copyOf(next, i + 1);
+        }
+        return size();
+    }
+
+    /**
+     * Grows this pool, if necessary, to at least {@code byteCount} bytes.
+     * @param byteCount the minimum size of the pool
+     * @return the size of this pool
+     * @throws IllegalArgumentException if {@code byteCount} would require more than {@code Integer.MAX_VALUE} segments
+     * @throws MemoryPoolException if a segment could not be created
+     */
+    public synchronized long ensureCapacity(long byteCount) {
+        long needed = (byteCount >>> shift) + ((byteCount & mask) == 0 ? 0 : 1);
+        if (needed > Integer.MAX_VALUE) throw new IllegalArgumentException("Capacity too large: " + byteCount);
+        if (needed > segments.length) grow((int)(needed - segments.length));
+        return size();
+    }
+
+    /**
+     * Returns the size, in bytes, of each segment.
+     * @return the segment size
+     */
+    public long segmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Returns the number of segments in this pool.
+     * @return the segment count
+     */
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    void close() {
+        for (MemoryPoolImpl segment : segments) segment.close();
+    }
+
+    private void checkBounds(long offset, long byteCount) {
+        if (offset < 0 || byteCount < 0 || offset + byteCount > size()) {
+            StringBuilder errorMessage = new StringBuilder("MemoryPool");
+            if (offset < 0) errorMessage.append("negative offset: " + offset);
+            else if (byteCount < 0) errorMessage.append("negative length: " + byteCount);
+            else errorMessage.append(String.format("offset + length is out of bounds: %s + %s", offset, byteCount));
+            throw new IndexOutOfBoundsException(errorMessage.toString());
+        }
+    }
+
+    private MemoryPoolImpl segment(long offset) {
+        MemoryPoolImpl[] current = segments;
+        long index = offset >>> shift;
+        if (offset < 0 || index >= current.length) checkBounds(offset, 1);
+        return current[(int)index];
+    }
+
+    private boolean withinSegment(long offset, long byteCount) {
+        return (offset & mask) + byteCount <= segmentSize;
+    }
+
+    private void forEachPiece(long offset, long byteCount, Piece piece) {
+        checkBounds(offset, byteCount);
+        MemoryPoolImpl[] current = segments;
+        long done = 0;
+        while (done < byteCount) {
+            long position = offset + done;
+            long length = Math.min(byteCount - done, segmentSize - (position & mask));
+            piece.apply(current[(int)(position >>> shift)], position & mask, done, length);
+            done += length;
+        }
+    }
+
+    private MemoryPoolImpl atomicSegment(long offset, int size) {
+        if ((offset & (size - 1)) != 0) throw new IllegalArgumentException("Offset " + offset + " is not " + size + "-byte aligned");
+        return segment(offset);
+    }
+
+    private MemoryPoolImpl viewSegment(long offset, long byteCount) {
+        checkBounds(offset, byteCount);
+        if (!withinSegment(offset, byteCount)) throw new IllegalArgumentException("Range spans a segment boundary: " + offset + " + " + byteCount);
+        return segment(offset);
+    }
+
+    // primitive accesses that straddle a segment boundary go through a native-order byte array
+
+    private ByteBuffer read(long offset, int size) {
+        byte[] bytes = new byte[size];
+        copyToByteArray(offset, bytes, 0, size);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.nativeOrder());
+    }
+
+    private void write(long offset, ByteBuffer buf) {
+        copyFromByteArray(buf.array(), 0, offset, buf.capacity());
+    }
+
+    // typed array copies are staged in bounded chunks so that count * size never overflows an int
+
+    private void writeStaged(long offset, int count, int size, Stage stage) {
+        checkBounds(offset, (long)count * size);
+        int chunk = STAGING_BYTES / size;
+        for (int done = 0, n; done < count; done += n) {
+            n = Math.min(chunk, count - done);
+            ByteBuffer buf = buffer(n * size);
+            stage.apply(buf, done, n);
+            write(offset + (long)done * size, buf);
+        }
+    }
+
+    private void readStaged(long offset, int count, int size, Stage stage) {
+        checkBounds(offset, (long)count * size);
+        int chunk = STAGING_BYTES / size;
+        for (int done = 0, n; done < count; done += n) {
+            n = Math.min(chunk, count - done);
+            stage.apply(read(offset + (long)done * size, n * size), done, n);
+        }
+    }
+
+    @Override
+    public long size() {
+        return (long)segments.length << shift;
+    }
+
+    @Override
+    public byte getByte(long offset) {
+        return segment(offset).getByte(offset & mask);
+    }
+
+    @Override
+    public short getShort(long offset) {
+        if (withinSegment(offset, Short.BYTES)) return segment(offset).getShort(offset & mask);
+        return read(offset, Short.BYTES).getShort(0);
+    }
+
+    @Override
+    public int getInt(long offset) {
+        if (withinSegment(offset, Integer.BYTES)) return segment(offset).getInt(offset & mask);
+        return read(offset, Integer.BYTES).getInt(0);
+    }
+
+    @Override
+    public long getLong(long offset) {
+        if (withinSegment(offset, Long.BYTES)) return segment(offset).getLong(offset & mask);
+        return read(offset, Long.BYTES).getLong(0);
+    }
+
+    @Override
+    public void setByte(long offset, byte value) {
+        segment(offset).setByte(offset & mask, value);
+    }
+
+    @Override
+    public void setShort(long offset, short value) {
+        if (withinSegment(offset, Short.BYTES)) segment(offset).setShort(offset & mask, value);
+        else write(offset, buffer(Short.BYTES).putShort(0, value));
+    }
+
+    @Override
+    public void setInt(long offset, int value) {
+        if (withinSegment(offset, Integer.BYTES)) segment(offset).setInt(offset & mask, value);
+        else write(offset, buffer(Integer.BYTES).putInt(0, value));
+    }
+
+    @Override
+    public void setLong(long offset, long value) {
+        if (withinSegment(offset, Long.BYTES)) segment(offset).setLong(offset & mask, value);
+        else write(offset, buffer(Long.BYTES).putLong(0, value));
+    }
+
+    @Override
+    public boolean compareAndSetLong(long offset, long expected, long value) {
+        return atomicSegment(offset, Long.BYTES).compareAndSetLong(offset & mask, expected, value);
+    }
+
+    @Override
+    public boolean compareAndSetLongDurable(long offset, long expected, long value) {
+        return atomicSegment(offset, Long.BYTES).compareAndSetLongDurable(offset & mask, expected, value);
+    }
+
+    @Override
+    public boolean compareAndSetInt(long offset, int expected, int value) {
+        return atomicSegment(offset, Integer.BYTES).compareAndSetInt(offset & mask, expected, value);
+    }
+
+    @Override
+    public boolean compareAndSetIntDurable(long offset, int expected, int value) {
+        return atomicSegment(offset, Integer.BYTES).compareAndSetIntDurable(offset & mask, expected, value);
+    }
+
+    @Override
+    public long getAndAddLong(long offset, long delta) {
+        return atomicSegment(offset, Long.BYTES).getAndAddLong(offset & mask, delta);
+    }
+
+    @Override
+    public long getAndAddLongDurable(long offset, long delta) {
+        return atomicSegment(offset, Long.BYTES).getAndAddLongDurable(offset & mask, delta);
+    }
+
+    @Override
+    public long getAndSetLong(long offset, long value) {
+        return atomicSegment(offset, Long.BYTES).getAndSetLong(offset & mask, value);
+    }
+
+    @Override
+    public long getAndSetLongDurable(long offset, long value) {
+        return atomicSegment(offset, Long.BYTES).getAndSetLongDurable(offset & mask, value);
+    }
+
+    @Override
+    public long getLongVolatile(long offset) {
+        return atomicSegment(offset, Long.BYTES).getLongVolatile(offset & mask);
+    }
+
+    @Override
+    public void setLongVolatile(long offset, long value) {
+        atomicSegment(offset, Long.BYTES).setLongVolatile(offset & mask, value);
+    }
+
+    @Override
+    public long getLongAcquire(long offset) {
+        return atomicSegment(offset, Long.BYTES).getLongAcquire(offset & mask);
+    }
+
+    @Override
+    public void setLongRelease(long offset, long value) {
+        atomicSegment(offset, Long.BYTES).setLongRelease(offset & mask, value);
+    }
+
+    @Override
+    public int getIntVolatile(long offset) {
+        return atomicSegment(offset, Integer.BYTES).getIntVolatile(offset & mask);
+    }
+
+    @Override
+    public void setIntVolatile(long offset, int value) {
+        atomicSegment(offset, Integer.BYTES).setIntVolatile(offset & mask, value);
+    }
+
+    @Override
+    public int getIntAcquire(long offset) {
+        return atomicSegment(offset, Integer.BYTES).getIntAcquire(offset & mask);
+    }
+
+    @Override
+    public void setIntRelease(long offset, int value) {
+        atomicSegment(offset, Integer.BYTES).setIntRelease(offset & mask, value);
+    }
+
+    @Override
+    public void copyFromPool(long srcOffset, long dstOffset, long byteCount) {
+        copyWithin(srcOffset, dstOffset, byteCount, COPY);
+    }
+
+    @Override
+    public void copyFromPool(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount) {
+        copyFrom(srcPool, srcOffset, dstOffset, byteCount, COPY);
+    }
+
+    @Override
+    public void copyFromPoolNT(long srcOffset, long dstOffset, long byteCount) {
+        copyWithin(srcOffset, dstOffset, byteCount, COPY_NT);
+    }
+
+    @Override
+    public void copyFromPoolNT(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount) {
+        copyFrom(srcPool, srcOffset, dstOffset, byteCount, COPY_NT);
+    }
+
+    @Override
+    public void parallelCopyFromPool(long srcOffset, long dstOffset, long byteCount) {
+        copyWithin(srcOffset, dstOffset, byteCount, COPY_PARALLEL);
+    }
+
+    @Override
+    public void parallelCopyFromPool(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount) {
+        copyFrom(srcPool, srcOffset, dstOffset, byteCount, COPY_PARALLEL);
+    }
+
+    private static void copyPiece(MemoryPool dst, MemoryPool src, long srcOffset, long dstOffset, long byteCount, int mode) {
+        if (mode == COPY_NT) dst.copyFromPoolNT(src, srcOffset, dstOffset, byteCount);
+        else if (mode == COPY_PARALLEL) dst.parallelCopyFromPool(src, srcOffset, dstOffset, byteCount);
+        else dst.copyFromPool(src, srcOffset, dstOffset, byteCount);
+    }
+
+    private void copyFrom(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount, int mode) {
+        if (srcPool == this) copyWithin(srcOffset, dstOffset, byteCount, mode);
+        else if (srcPool instanceof SegmentedMemoryPool) ((SegmentedMemoryPool)srcPool).copyInto(this, srcOffset, dstOffset, byteCount, mode);
+        else {
+            ((MemoryPoolImpl)srcPool).checkBounds(srcOffset, byteCount);
+            forEachPiece(dstOffset, byteCount, (segment, local, relative, length) -> copyPiece(segment, srcPool, srcOffset + relative, local, length, mode));
+        }
+    }
+
+    // copies from this pool into dst, one piece per source segment
+    void copyInto(MemoryPool dst, long srcOffset, long dstOffset, long byteCount, int mode) {
+        if (dst instanceof MemoryPoolImpl) ((MemoryPoolImpl)dst).checkBounds(dstOffset, byteCount);
+        forEachPiece(srcOffset, byteCount, (segment, local, relative, length) -> copyPiece(dst, segment, local, dstOffset + relative, length, mode));
+    }
+
+    // copies within this pool; when an overlapping range moves forward the pieces are copied last to first
+    private void copyWithin(long srcOffset, long dstOffset, long byteCount, int mode) {
+        checkBounds(srcOffset, byteCount);
+        checkBounds(dstOffset, byteCount);
+        ArrayList<long[]> pieces = new ArrayList<>();
+        long done = 0;
+        while (done < byteCount) {
+            long src = srcOffset + done;
+            long dst = dstOffset + done;
+            long length = Math.min(byteCount - done, Math.min(segmentSize - (src & mask), segmentSize - (dst & mask)));
+            pieces.add(new long[] {src, dst, length});
+            done += length;
+        }
+        boolean backward = dstOffset > srcOffset && dstOffset < srcOffset + byteCount;
+        for (int i = 0; i < pieces.size(); i++) {
+            long[] p = pieces.get(backward ? pieces.size() - 1 - i : i);
+            copyPiece(segment(p[1]), segment(p[0]), p[0] & mask, p[1] & mask, p[2], mode);
+        }
+    }
+
+    @Override
+    public void copyFromByteArray(byte[] srcArray, int srcIndex, long dstOffset, int byteCount) {
+        if (srcIndex < 0 || srcIndex + byteCount > srcArray.length) {
+            throw new IndexOutOfBoundsException(MemoryPoolImpl.indexOutOfBoundsMessage(srcIndex, byteCount));
+        }
+        forEachPiece(dstOffset, byteCount, (segment, local, relative, length) -> segment.copyFromByteArray(srcArray, srcIndex + (int)relative, local, (int)length));
+    }
+
+    @Override
+    public void copyFromByteArrayNT(byte[] srcArray, int srcIndex, long dstOffset, int byteCount) {
+        if (srcIndex < 0 || srcIndex + byteCount > srcArray.length) {
+            throw new IndexOutOfBoundsException(MemoryPoolImpl.indexOutOfBoundsMessage(srcIndex, byteCount));
+        }
+        forEachPiece(dstOffset, byteCount, (segment, local, relative, length) -> segment.copyFromByteArrayNT(srcArray, srcIndex + (int)relative, local, (int)length));
+    }
+
+    @Override
+    public void copyToByteArray(long srcOffset, byte[] dstArray, int dstIndex, int byteCount) {
+        if (dstIndex < 0 || dstIndex + byteCount > dstArray.length) {
+            throw new IndexOutOfBoundsException(MemoryPoolImpl.indexOutOfBoundsMessage(dstIndex, byteCount));
+        }
+        forEachPiece(srcOffset, byteCount, (segment, local, relative, length) -> segment.copyToByteArray(local, dstArray, dstIndex + (int)relative, (int)length));
+    }
+
+    @Override
+    public void copyFromByteBuffer(ByteBuffer srcBuf, long dstOffset) {
+        ByteBuffer src = srcBuf.duplicate();
+        forEachPiece(dstOffset, srcBuf.remaining(), (segment, local, relative, length) -> {
+            ByteBuffer piece = src.duplicate();
+            ((Buffer)piece).limit(piece.position() + (int)length);
+            segment.copyFromByteBuffer(piece, local);
+            ((Buffer)src).position(src.position() + (int)length);
+        });
+    }
+
+    @Override
+    public void copyFromByteBufferNT(ByteBuffer srcBuf, long dstOffset) {
+        ByteBuffer src = srcBuf.duplicate();
+        forEachPiece(dstOffset, srcBuf.remaining(), (segment, local, relative, length) -> {
+            ByteBuffer piece = src.duplicate();
+            ((Buffer)piece).limit(piece.position() + (int)length);
+            segment.copyFromByteBufferNT(piece, local);
+            ((Buffer)src).position(src.position() + (int)length);
+        });
+    }
+
+    @Override
+    public void copyToByteBuffer(long srcOffset, ByteBuffer dstBuf, int byteCount) {
+        if (dstBuf.remaining() < byteCount) throw new IndexOutOfBoundsException("Insufficient space remaining in destination buffer");
+        forEachPiece(srcOffset, byteCount, (segment, local, relative, length) -> segment.copyToByteBuffer(local, dstBuf, (int)length));
+    }
+
+    private static void checkArrayBounds(int index, int count, int arrayLength) {
+        if (index < 0 || count < 0 || index > arrayLength - count) {
+            throw new IndexOutOfBoundsException(MemoryPoolImpl.indexOutOfBoundsMessage(index, count));
+        }
+    }
+
+    // typed array copies that span a segment boundary are staged through native-order byte arrays
+
+    @Override
+    public void copyFromLongArray(long[] srcArray, int srcIndex, long dstOffset, int count) {
+        checkArrayBounds(srcIndex, count, srcArray.length);
+        if (withinSegment(dstOffset, (long)count * Long.BYTES)) segment(dstOffset).copyFromLongArray(srcArray, srcIndex, dstOffset & mask, count);
+        else writeStaged(dstOffset, count, Long.BYTES, (buf, index, n) -> buf.asLongBuffer().put(srcArray, srcIndex + index, n));
+    }
+
+    @Override
+    public void copyToLongArray(long srcOffset, long[] dstArray, int dstIndex, int count) {
+        checkArrayBounds(dstIndex, count, dstArray.length);
+        if (withinSegment(srcOffset, (long)count * Long.BYTES)) segment(srcOffset).copyToLongArray(srcOffset & mask, dstArray, dstIndex, count);
+        else readStaged(srcOffset, count, Long.BYTES, (buf, index, n) -> buf.asLongBuffer().get(dstArray, dstIndex + index, n));
+    }
+
+    @Override
+    public void copyFromIntArray(int[] srcArray, int srcIndex, long dstOffset, int count) {
+        checkArrayBounds(srcIndex, count, srcArray.length);
+        if (withinSegment(dstOffset, (long)count * Integer.BYTES)) segment(dstOffset).copyFromIntArray(srcArray, srcIndex, dstOffset & mask, count);
+        else writeStaged(dstOffset, count, Integer.BYTES, (buf, index, n) -> buf.asIntBuffer().put(srcArray, srcIndex + index, n));
+    }
+
+    @Override
+    public void copyToIntArray(long srcOffset, int[] dstArray, int dstIndex, int count) {
+        checkArrayBounds(dstIndex, count, dstArray.length);
+        if (withinSegment(srcOffset, (long)count * Integer.BYTES)) segment(srcOffset).copyToIntArray(srcOffset & mask, dstArray, dstIndex, count);
+        else readStaged(srcOffset, count, Integer.BYTES, (buf, index, n) -> buf.asIntBuffer().get(dstArray, dstIndex + index, n));
+    }
+
+    @Override
+    public void copyFromShortArray(short[] srcArray, int srcIndex, long dstOffset, int count) {
+        checkArrayBounds(srcIndex, count, srcArray.length);
+        if (withinSegment(dstOffset, (long)count * Short.BYTES)) segment(dstOffset).copyFromShortArray(srcArray, srcIndex, dstOffset & mask, count);
+        else writeStaged(dstOffset, count, Short.BYTES, (buf, index, n) -> buf.asShortBuffer().put(srcArray, srcIndex + index, n));
+    }
+
+    @Override
+    public void copyToShortArray(long srcOffset, short[] dstArray, int dstIndex, int count) {
+        checkArrayBounds(dstIndex, count, dstArray.length);
+        if (withinSegment(srcOffset, (long)count * Short.BYTES)) segment(srcOffset).copyToShortArray(srcOffset & mask, dstArray, dstIndex, count);
+        else readStaged(srcOffset, count, Short.BYTES, (buf, index, n) -> buf.asShortBuffer().get(dstArray, dstIndex + index, n));
+    }
+
+    @Override
+    public void copyFromDoubleArray(double[] srcArray, int srcIndex, long dstOffset, int count) {
+        checkArrayBounds(srcIndex, count, srcArray.length);
+        if (withinSegment(dstOffset, (long)count * Double.BYTES)) segment(dstOffset).copyFromDoubleArray(srcArray, srcIndex, dstOffset & mask, count);
+        else writeStaged(dstOffset, count, Double.BYTES, (buf, index, n) -> buf.asDoubleBuffer().put(srcArray, srcIndex + index, n));
+    }
+
+    @Override
+    public void copyToDoubleArray(long srcOffset, double[] dstArray, int dstIndex, int count) {
+        checkArrayBounds(dstIndex, count, dstArray.length);
+        if (withinSegment(srcOffset, (long)count * Double.BYTES)) segment(srcOffset).copyToDoubleArray(srcOffset & mask, dstArray, dstIndex, count);
+        else readStaged(srcOffset, count, Double.BYTES, (buf, index, n) -> buf.asDoubleBuffer().get(dstArray, dstIndex + index, n));
+    }
+
+    @Override
+    public void copyFromFloatArray(float[] srcArray, int srcIndex, long dstOffset, int count) {
+        checkArrayBounds(srcIndex, count, srcArray.length);
+        if (withinSegment(dstOffset, (long)count * Float.BYTES)) segment(dstOffset).copyFromFloatArray(srcArray, srcIndex, dstOffset & mask, count);
+        else writeStaged(dstOffset, count, Float.BYTES, (buf, index, n) -> buf.asFloatBuffer().put(srcArray, srcIndex + index, n));
+    }
+
+    @Override
+    public void copyToFloatArray(long srcOffset, float[] dstArray, int dstIndex, int count) {
+        checkArrayBounds(dstIndex, count, dstArray.length);
+        if (withinSegment(srcOffset, (long)count * Float.BYTES)) segment(srcOffset).copyToFloatArray(srcOffset & mask, dstArray, dstIndex, count);
+        else readStaged(srcOffset, count, Float.BYTES, (buf, index, n) -> buf.asFloatBuffer().get(dstArray, dstIndex + index, n));
+    }
+
+    @Override
+    public void setMemory(byte value, long offset, long byteCount) {
+        forEachPiece(offset, byteCount, (segment, local, relative, length) -> segment.setMemory(value, local, length));
+    }
+
+    @Override
+    public void setMemoryNT(byte value, long offset, long byteCount) {
+        forEachPiece(offset, byteCount, (segment, local, relative, length) -> segment.setMemoryNT(value, local, length));
+    }
+
+    @Override
+    public void parallelSetMemory(byte value, long offset, long byteCount) {
+        forEachPiece(offset, byteCount, (segment, local, relative, length) -> segment.parallelSetMemory(value, local, length));
+    }
+
+    @Override
+    public void parallelFlush(long offset, long byteCount) {
+        forEachPiece(offset, byteCount, (segment, local, relative, length) -> segment.parallelFlush(local, length));
+    }
+
+    @Override
+    public void flush(long offset, long byteCount) {
+        forEachPiece(offset, byteCount, (segment, local, relative, length) -> segment.flush(local, length));
+    }
+
+    @Override
+    public ByteBuffer asReadOnlyByteBuffer(long offset, int byteCount) {
+        return viewSegment(offset, byteCount).asReadOnlyByteBuffer(offset & mask, byteCount);
+    }
+
+    @Override
+    public ByteBuffer asByteBuffer(long offset, int byteCount) {
+        return viewSegment(offset, byteCount).asByteBuffer(offset & mask, byteCount);
+    }
+
+    @Override
+    public MemoryPool slice(long offset, long byteCount) {
+        return viewSegment(offset, byteCount).slice(offset & mask, byteCount);
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel channel, long offset, long byteCount) throws IOException {
+        checkBounds(offset, byteCount);
+        long done = 0;
+        while (done < byteCount) {
+            long position = offset + done;
+            long length = Math.min(byteCount - done, segmentSize - (position & mask));
+            long written = segment(position).transferTo(channel, position & mask, length);
+            done += written;
+            if (written < length) break;
+        }
+        return done;
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel channel, long offset, long byteCount) throws IOException {
+        checkBounds(offset, byteCount);
+        long done = 0;
+        while (done < byteCount) {
+            long position = offset + done;
+            long length = Math.min(byteCount - done, segmentSize - (position & mask));
+            long read = segment(position).transferFrom(channel, position & mask, length);
+            done += read;
+            if (read < length) break;
+        }
+        return done;
+    }
+
+    @Override
+    public int hashCode() {
+        return new File(directory).getAbsolutePath().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof SegmentedMemoryPool)) return false;
+        SegmentedMemoryPool other = (SegmentedMemoryPool)obj;
+        return new File(directory).getAbsolutePath().equals(new File(other.directory).getAbsolutePath());
+    }
+}
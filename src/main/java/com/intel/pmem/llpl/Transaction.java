@@ -10,6 +10,7 @@ package com.intel.pmem.llpl;
 import java.util.function.Supplier;
 import java.util.function.Function;
 import java.util.function.Consumer;
+import java.util.ArrayList;
 
 /*
                                         Committed
@@ -22,7 +23,14 @@ import java.util.function.Consumer;
  * operation.  A single transaction is restricted to a single heap.  Semantically, nested transactions are flattened into
  * a single, thread-local transaction.  Any uncaught exceptions thrown from a transaction body will cause the 
  * transaction to abort and to roll-back any transactional memory modifications already made during execution of
- * the transaction body.
+ * the transaction body.<br><br>
+ * 
+ * Transaction state is kept per operating system thread.  When a transaction is started on a virtual thread 
+ * (Java 21 and later), the virtual thread is pinned to its carrier thread until the outermost transaction commits 
+ * or aborts, so a transaction body that blocks will also block its carrier.  For high concurrency on virtual threads, 
+ * keep transaction bodies short and non-blocking: do any I/O or waiting before or after the transaction, and 
+ * use onCommit actions to publish results.  The number of virtual threads that can be inside a transaction 
+ * at once is bounded by the number of carrier threads.
  * 
  * @since 1.0
  */
@@ -36,6 +44,29 @@ public final class Transaction {
     private final boolean doStart;
     private final AnyHeap heap;
     private boolean isValid;
+    private boolean pinned;
+    private ArrayList<AnyMemoryBlock> logBuffers;
+    private AnyHeap.LogReservation reservation;
+    private int reservedLog = -1;
+    private long logBytes;
+    private long logCapacity;
+    private int nesting;
+    private int maxNesting;
+    private Object event;
+    private ArrayList<Runnable> commitActions;
+    private ArrayList<Runnable> abortActions;
+    private static final ThreadLocal<Transaction> outermost = new ThreadLocal<>();
+
+    // undo log geometry, mirrors the TX_SNAPSHOT_LOG_* definitions in libpmemobj
+    static final long LOG_ALIGNMENT = 64;
+    static final long LOG_BUFFER_OVERHEAD = 64;
+    static final long LOG_ENTRY_OVERHEAD = 24;
+    static final long DEFAULT_UNDO_LOG_CAPACITY = 2048;
+
+    /**
+     * The smallest log buffer, in bytes, that can be supplied to {@link #appendLogBuffer(AnyMemoryBlock)}.
+     */
+    public static final long MINIMUM_LOG_BUFFER_SIZE = LOG_BUFFER_OVERHEAD + 2 * LOG_ALIGNMENT;
 
     /**
      * The states through which a transaction can move.  Successful transactions traverse New - Active - Committed.
@@ -75,6 +106,190 @@ public final class Transaction {
         return state;
     }
 
+    /**
+     * Registers an action to be run after the outermost transaction containing this transaction commits.  
+     * Commit actions are useful for keeping volatile structures, such as caches or indexes, consistent with 
+     * persistent data: they run only once transactional modifications are durable, and never if the transaction 
+     * aborts.  Actions run on the committing thread, outside of any transaction, in the order they were registered.
+     * If an action throws an exception, the remaining actions are still run and the first exception is rethrown 
+     * from the transaction's {@code run} or {@code create} method.
+     * @param action the action to run after commit
+     * @throws TransactionException if this transaction has already committed or aborted
+     * @since 1.3
+     */
+    public void onCommit(Runnable action) {
+        if (action == null) throw new NullPointerException("Action is null.");
+        Transaction owner = actionOwner();
+        if (owner.commitActions == null) owner.commitActions = new ArrayList<>();
+        owner.commitActions.add(action);
+    }
+
+    /**
+     * Registers an action to be run after the outermost transaction containing this transaction aborts, 
+     * once all transactional modifications have been rolled back.  Actions run on the aborting thread, outside 
+     * of any transaction, in the order they were registered.  Exceptions thrown by abort actions are added as 
+     * suppressed exceptions to the exception that caused the abort.
+     * @param action the action to run after abort
+     * @throws TransactionException if this transaction has already committed or aborted
+     * @since 1.3
+     */
+    public void onAbort(Runnable action) {
+        if (action == null) throw new NullPointerException("Action is null.");
+        Transaction owner = actionOwner();
+        if (owner.abortActions == null) owner.abortActions = new ArrayList<>();
+        owner.abortActions.add(action);
+    }
+
+    // actions registered on a nested transaction are deferred to the outermost transaction
+    private Transaction actionOwner() {
+        if (state == State.New) return this;
+        if (state != State.Active) throw new TransactionException("Transaction not active");
+        Transaction root = outermost.get();
+        return root != null ? root : this;
+    }
+
+    private static void runActions(ArrayList<Runnable> actions) {
+        RuntimeException first = null;
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            }
+            catch (RuntimeException e) {
+                if (first == null) first = e;
+                else first.addSuppressed(e);
+            }
+        }
+        if (first != null) throw first;
+    }
+
+    /**
+     * [EXPERIMENTAL] Supplies a pre-allocated undo log buffer to this transaction.  Snapshots taken during the 
+     * transaction are written to the default log and then to supplied buffers before any log space is allocated 
+     * dynamically from the heap, which avoids repeated log allocations in transactions that modify large amounts 
+     * of memory.  The buffer must be a regular (non-compact) memory block allocated on this transaction's heap; its 
+     * contents are overwritten and it must not be freed or otherwise modified until the transaction has ended.  
+     * A buffer supplied to a new transaction is attached when the transaction starts; a buffer supplied to an active 
+     * transaction is attached immediately.  Use {@link #logBufferSize(long...)} to size a buffer for a known 
+     * set of modifications.
+     * @param buffer the memory block to use as undo log space
+     * @throws IllegalArgumentException if the buffer does not belong to this transaction's heap or is smaller than 
+     * {@code MINIMUM_LOG_BUFFER_SIZE}
+     * @throws TransactionException if this transaction has already committed or aborted, or the buffer could not be attached
+     * @since 1.3
+     */
+    public void appendLogBuffer(AnyMemoryBlock buffer) {
+        if (buffer.heap() != heap) throw new IllegalArgumentException("Log buffer must be allocated on the transaction's heap.");
+        buffer.checkValid();
+        if (buffer.size() < MINIMUM_LOG_BUFFER_SIZE) throw new IllegalArgumentException("Log buffer is smaller than MINIMUM_LOG_BUFFER_SIZE.");
+        if (state == State.New) {
+            if (logBuffers == null) logBuffers = new ArrayList<>();
+            logBuffers.add(buffer);
+        }
+        else if (state == State.Active) attachLogBuffer(buffer.payloadAddress(0), buffer.size());
+        else throw new TransactionException("Transaction not active");
+    }
+
+    /**
+     * [EXPERIMENTAL] Returns the size, in bytes, of a log buffer large enough to hold snapshots of ranges of the 
+     * supplied sizes without any dynamic log allocation.  
+     * @param rangeSizes the sizes, in bytes, of the ranges that will be added to a transaction
+     * @return the size of log buffer needed for the supplied ranges
+     * @since 1.3
+     */
+    public static long logBufferSize(long... rangeSizes) {
+        long size = LOG_BUFFER_OVERHEAD + LOG_ALIGNMENT;
+        for (long rangeSize : rangeSizes) size += logEntrySize(rangeSize);
+        return size;
+    }
+
+    static long logEntrySize(long rangeSize) {
+        return alignLog(LOG_ENTRY_OVERHEAD + rangeSize);
+    }
+
+    static long alignLog(long value) {
+        return (value + LOG_ALIGNMENT - 1) & ~(LOG_ALIGNMENT - 1);
+    }
+
+    // counts a snapshot and records its estimated undo log footprint in the calling thread's outermost transaction
+    static void recordSnapshot(AnyHeap heap, long size) {
+        heap.counters().recordSnapshot(size);
+        Transaction transaction = outermost.get();
+        if (transaction != null) transaction.logBytes += logEntrySize(size);
+    }
+
+    private void attachLogBuffer(long address, long size) {
+        long start = alignLog(address);
+        long usable = (address + size - start) & ~(LOG_ALIGNMENT - 1);
+        if (usable <= LOG_BUFFER_OVERHEAD) return;
+        if (nativeAppendLogBuffer(start, usable) != 0) throw new TransactionException("Failed to append log buffer to transaction.");
+        Transaction root = outermost.get();
+        if (root != null) root.logCapacity += usable - LOG_BUFFER_OVERHEAD;
+    }
+
+    private void begin() {
+        Transaction root = outermost.get();
+        if (root != null && root != this) {
+            heap.counters().nestedBegins.increment();
+            root.nesting++;
+            if (root.nesting > root.maxNesting) root.maxNesting = root.nesting;
+            if (commitActions != null) {
+                if (root.commitActions == null) root.commitActions = new ArrayList<>();
+                root.commitActions.addAll(commitActions);
+                commitActions = null;
+            }
+            if (abortActions != null) {
+                if (root.abortActions == null) root.abortActions = new ArrayList<>();
+                root.abortActions.addAll(abortActions);
+                abortActions = null;
+            }
+        }
+        if (root == null) {
+            heap.counters().begins.increment();
+            event = Events.beginTransaction();
+            nesting = maxNesting = 1;
+            outermost.set(this);
+            logCapacity = DEFAULT_UNDO_LOG_CAPACITY;
+            AnyHeap.LogReservation logs = heap.logReservation();
+            if (doStart && logs != null) {
+                int index = logs.acquire();
+                if (index != -1) {
+                    reservation = logs;
+                    reservedLog = index;
+                    attachLogBuffer(logs.bufferAddress(index), logs.bufferSize());
+                }
+            }
+        }
+        if (logBuffers != null) {
+            for (AnyMemoryBlock buffer : logBuffers) attachLogBuffer(buffer.payloadAddress(0), buffer.size());
+            logBuffers = null;
+        }
+    }
+
+    private void end(boolean committed) {
+        Transaction root = outermost.get();
+        if (root != this) {
+            if (root != null) root.nesting--;
+            return;
+        }
+        outermost.remove();
+        TransactionCounters counters = heap.counters();
+        if (committed) counters.commits.increment();
+        else counters.aborts.increment();
+        counters.maxNestingDepth.accumulate(maxNesting);
+        if (reservedLog != -1) {
+            reservation.release(reservedLog);
+            reservation = null;
+            reservedLog = -1;
+        }
+        if (logBytes > logCapacity) counters.logOverflows.increment();
+        Events.endTransaction(event, heap, committed, logBytes, maxNesting);
+        event = null;
+        ArrayList<Runnable> actions = committed ? commitActions : abortActions;
+        commitActions = null;
+        abortActions = null;
+        if (actions != null) runActions(actions);
+    }
+
     /**
     * Creates a new transaction and executes the supplied body function within the transaction. Transactional 
     * modifications are limited to specified heap.
@@ -126,37 +341,76 @@ public final class Transaction {
     }
 
     private static <T> T internalRun(Transaction transaction, Range range, Function<Range, T> body) {
+        if (transaction.state == State.New && transaction.doStart && !transaction.pinned && outermost.get() == null && Util.isVirtualThread()) {
+            return runPinned(transaction, range, body);
+        }
+        boolean starting = false;
         if (transaction.state == State.New) {
             if (transaction.doStart) {
                 int result = nativeStartTransaction(transaction.heap.poolHandle());
                 if (result == -1) throw new IllegalStateException("Error starting transaction.");
             }
             transaction.state = State.Active;
+            starting = true;
         }
         if (transaction.state != State.Active) throw new TransactionException("Transaction not active");
         transaction.depth++;
         T result;
         try {
+            if (starting) transaction.begin();
             if (range != null) range.addToTransactionNoCheck();
             result = body.apply(range);
         }
         catch (Throwable t) {
-            if (transaction.state == State.Active) nativeAbortTransaction();
+            if (transaction.state == State.Active) {
+                nativeAbortTransaction();
+                try {
+                    transaction.end(false);
+                }
+                catch (RuntimeException e) {
+                    t.addSuppressed(e);
+                }
+            }
             transaction.state = State.Aborted;
             transaction.isValid = false;
             throw t;
         }
         finally {
-            if (transaction.state == Transaction.State.Active && transaction.depth == 1) {
-                nativeCommitTransaction();
-                transaction.state = State.Committed;
-                transaction.isValid = false;
-            }
             transaction.depth--;
+            if (transaction.state == Transaction.State.Active && transaction.depth == 0) {
+                boolean committed = false;
+                try {
+                    nativeCommitTransaction();
+                    committed = true;
+                    transaction.state = State.Committed;
+                    transaction.isValid = false;
+                }
+                finally {
+                    transaction.end(committed);
+                }
+            }
         }
         return result;
     }
 
+    // a native frame on the stack keeps a virtual thread mounted on its current carrier thread
+    @SuppressWarnings("unchecked")
+    private static <T> T runPinned(Transaction transaction, Range range, Function<Range, T> body) {
+        Object[] result = new Object[1];
+        transaction.pinned = true;
+        nativeRunPinned(() -> {result[0] = internalRun(transaction, range, body);});
+        return (T)result[0];
+    }
+
+    /**
+     * Checks whether the calling thread is executing within a transaction.
+     * @return true if the calling thread is executing within a transaction
+     * @since 1.3
+     */
+    public static boolean inTransaction() {
+        return outermost.get() != null;
+    }
+
     static void checkTransactionActive(boolean expected) {
         boolean active = isTransactionActive();
         if (active != expected) throw new IllegalStateException(expected ? "Expected active transaction." : "Unexpected active transaction.");
@@ -170,4 +424,6 @@ public final class Transaction {
     private static native void nativeCommitTransaction();
     private static native void nativeAbortTransaction();
     private static native int nativeTransactionState();
+    private static native int nativeAppendLogBuffer(long address, long size);
+    private static native void nativeRunPinned(Runnable body);
 }
@@ -0,0 +1,46 @@
+/* 
+ * Copyright (C) 2018-2019 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ * 
+ */
+
+package com.intel.pmem.llpl;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// striped per-heap counters; updated on transaction paths, summed only when stats are requested
+final class TransactionCounters {
+    final LongAdder begins = new LongAdder();
+    final LongAdder commits = new LongAdder();
+    final LongAdder aborts = new LongAdder();
+    final LongAdder nestedBegins = new LongAdder();
+    final LongAccumulator maxNestingDepth = new LongAccumulator(Math::max, 0);
+    final LongAdder snapshots = new LongAdder();
+    final LongAdder snapshotBytes = new LongAdder();
+    final LongAdder allocations = new LongAdder();
+    final LongAdder logOverflows = new LongAdder();
+
+    void recordSnapshot(long size) {
+        snapshots.increment();
+        snapshotBytes.add(size);
+    }
+
+    TransactionStats snapshot() {
+        return new TransactionStats(begins.sum(), commits.sum(), aborts.sum(), nestedBegins.sum(), maxNestingDepth.get(), 
+                                    snapshots.sum(), snapshotBytes.sum(), allocations.sum(), logOverflows.sum());
+    }
+
+    void reset() {
+        begins.reset();
+        commits.reset();
+        aborts.reset();
+        nestedBegins.reset();
+        maxNestingDepth.reset();
+        snapshots.reset();
+        snapshotBytes.reset();
+        allocations.reset();
+        logOverflows.reset();
+    }
+}
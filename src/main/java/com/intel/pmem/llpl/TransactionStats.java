@@ -0,0 +1,130 @@
+/* 
+ * Copyright (C) 2018-2019 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ * 
+ */
+
+package com.intel.pmem.llpl;
+
+/**
+ * A point-in-time snapshot of the transaction counters for a heap, as returned by {@link AnyHeap#getStats()}.
+ * Counts cover all transactions on the heap since it was created or opened in this process, or since the
+ * counters were last reset.  Nested transactions are flattened into their outermost transaction, so begins, 
+ * commits, and aborts count outermost transactions only.
+ * 
+ * @since 1.3
+ */
+public final class TransactionStats {
+    private final long begins;
+    private final long commits;
+    private final long aborts;
+    private final long nestedBegins;
+    private final long maxNestingDepth;
+    private final long snapshots;
+    private final long snapshotBytes;
+    private final long allocations;
+    private final long logOverflows;
+
+    TransactionStats(long begins, long commits, long aborts, long nestedBegins, long maxNestingDepth, long snapshots, long snapshotBytes, long allocations, long logOverflows) {
+        this.begins = begins;
+        this.commits = commits;
+        this.aborts = aborts;
+        this.nestedBegins = nestedBegins;
+        this.maxNestingDepth = maxNestingDepth;
+        this.snapshots = snapshots;
+        this.snapshotBytes = snapshotBytes;
+        this.allocations = allocations;
+        this.logOverflows = logOverflows;
+    }
+
+    /**
+     * Returns the number of outermost transactions started.
+     * @return the number of transactions started
+     */
+    public long begins() {
+        return begins;
+    }
+
+    /**
+     * Returns the number of outermost transactions that committed.
+     * @return the number of transactions that committed
+     */
+    public long commits() {
+        return commits;
+    }
+
+    /**
+     * Returns the number of outermost transactions that aborted.
+     * @return the number of transactions that aborted
+     */
+    public long aborts() {
+        return aborts;
+    }
+
+    /**
+     * Returns the number of transactions started within another transaction.
+     * @return the number of nested transactions started
+     */
+    public long nestedBegins() {
+        return nestedBegins;
+    }
+
+    /**
+     * Returns the greatest nesting depth reached by any transaction.  An outermost transaction with no 
+     * nested transactions has a depth of one.
+     * @return the maximum nesting depth
+     */
+    public long maxNestingDepth() {
+        return maxNestingDepth;
+    }
+
+    /**
+     * Returns the number of ranges of memory added to transactions.
+     * @return the number of snapshots taken
+     */
+    public long snapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Returns the total number of bytes added to transactions.
+     * @return the number of bytes snapshotted
+     */
+    public long snapshotBytes() {
+        return snapshotBytes;
+    }
+
+    /**
+     * Returns the number of allocations made within transactions.
+     * @return the number of transactional allocations
+     */
+    public long allocations() {
+        return allocations;
+    }
+
+    /**
+     * Returns the number of transactions estimated to have needed dynamically allocated undo log space.
+     * @return the number of transactions that overflowed their undo logs
+     * @see AnyHeap#getTransactionLogOverflowCount()
+     */
+    public long logOverflows() {
+        return logOverflows;
+    }
+
+    /**
+     * Returns the average number of bytes added to each outermost transaction.
+     * @return the average number of bytes snapshotted per transaction, or zero if no transactions have started
+     */
+    public double snapshotBytesPerTransaction() {
+        return begins == 0 ? 0 : (double)snapshotBytes / begins;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionStats(begins=" + begins + ", commits=" + commits + ", aborts=" + aborts + 
+               ", nestedBegins=" + nestedBegins + ", maxNestingDepth=" + maxNestingDepth + 
+               ", snapshots=" + snapshots + ", snapshotBytes=" + snapshotBytes + 
+               ", allocations=" + allocations + ", logOverflows=" + logOverflows + ")";
+    }
+}
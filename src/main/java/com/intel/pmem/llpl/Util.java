@@ -11,7 +11,13 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * A collection of utility methods.  
@@ -22,6 +28,8 @@ public class Util {
     private static boolean loaded = false;
     private static String extension = "";
     private static String tempDirectory;
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+    static final int TRANSFER_CHUNK_SIZE = 1 << 20;
 
     private Util() {
         // no instances
@@ -75,6 +83,52 @@ public class Util {
         else throw new IllegalArgumentException("Path is not a valid directory");
     }
 
+    // Thread.isVirtual() exists only on Java 21 and later
+    private static MethodHandle isVirtualHandle() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    static boolean isVirtualThread() {
+        if (IS_VIRTUAL == null) return false;
+        try {
+            return (boolean)IS_VIRTUAL.invokeExact(Thread.currentThread());
+        }
+        catch (Throwable t) {
+            return false;
+        }
+    }
+
+    static void checkPoolBounds(MemoryPool pool, long offset, long byteCount) {
+        if (offset < 0 || byteCount < 0 || offset > pool.size() - byteCount) {
+            StringBuilder errorMessage = new StringBuilder("MemoryPool");
+            if (offset < 0) errorMessage.append("negative offset: " + offset);
+            else if (byteCount < 0) errorMessage.append("negative length: " + byteCount);
+            else errorMessage.append(String.format("offset + length is out of bounds: %s + %s", offset, byteCount));
+            throw new IndexOutOfBoundsException(errorMessage.toString());
+        }
+    }
+
+    static int writeChunk(WritableByteChannel channel, ByteBuffer buf) throws IOException {
+        int start = buf.position();
+        while (buf.hasRemaining()) {
+            if (channel.write(buf) == 0) break;
+        }
+        return buf.position() - start;
+    }
+
+    static int readChunk(ReadableByteChannel channel, ByteBuffer buf) throws IOException {
+        int start = buf.position();
+        while (buf.hasRemaining()) {
+            if (channel.read(buf) <= 0) break;
+        }
+        return buf.position() - start;
+    }
+
     static void loadLibrary() {
         if (isLoaded()) return;
         String libName = getLibName();
@@ -20,4 +20,7 @@ abstract class AbstractSharded<K> {
     abstract DynamicShardable<K> createDynamicShard(); 
 
     abstract DynamicShardable<K> recreateDynamicShard(long handle); 
+
+    // re-reads state that the shard caches outside the heap, after a transaction that modified the shard aborts
+    abstract void reloadShard(Shardable<K> shard);
 }
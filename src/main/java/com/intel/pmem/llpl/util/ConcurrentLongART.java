@@ -10,11 +10,16 @@ package com.intel.pmem.llpl.util;
 import com.intel.pmem.llpl.AnyHeap;
 import com.intel.pmem.llpl.AnyMemoryBlock;
 import com.intel.pmem.llpl.HeapException;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
 
 /**
  * A concurrent implementation of an Adaptive Radix Tree that uses {@code byte[]} for keys and {@code long} for values.
@@ -27,6 +32,7 @@ import java.util.NoSuchElementException;
 public class ConcurrentLongART extends AbstractSharded<byte[]> {
     private final AnyHeap heap;
     private final Sharder<byte[]> sharder;
+    private volatile boolean combining;
     final Comparator<byte[]> comparator = ConcurrentLongART::compare;
 
     enum Mode {
@@ -68,6 +74,96 @@ public class ConcurrentLongART extends AbstractSharded<byte[]> {
         return new ConcurrentLongART(heap, handle);
     }
 
+    private ConcurrentLongART(AnyHeap heap, int maxShards, List<LongART> shards) {
+        this.heap = heap;
+        this.sharder = new DynamicSharder<byte[]>(heap, maxShards, this, shards);
+    }
+
+    /**
+     * Creates a new radix tree containing the entries supplied by {@code sortedRanges}.  Each iterator 
+     * must supply keys in strictly ascending order, and all keys supplied by an iterator must be lower 
+     * than the keys supplied by the iterators that follow it.  Each range is loaded in parallel into a 
+     * separate shard using {@link LongART#bulkLoad(AnyHeap, Iterator)}.
+     * @param heap the heap on which to allocate the radix tree
+     * @param concurrencyLevel the estimated number of concurrently accessing threads. This value may
+     * be used as a sizing hint
+     * @param sortedRanges the entries to load, as ascending and non-overlapping ranges of keys
+     * @return the radix tree
+     * @throws IllegalArgumentException if a key is null or has zero length, or if the keys are not in 
+     * strictly ascending order
+     * @throws HeapException if the radix tree could not be created
+     * @since 1.3
+     */
+    public static ConcurrentLongART bulkLoad(AnyHeap heap, int concurrencyLevel, List<? extends Iterator<LongART.Entry>> sortedRanges) {
+        LongART[] trees = new LongART[sortedRanges.size()];
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        IntStream.range(0, trees.length).parallel().forEach((int i) -> {
+            try {
+                trees[i] = LongART.bulkLoad(heap, sortedRanges.get(i));
+            }
+            catch (RuntimeException | Error e) {
+                failures.add(e);
+            }
+        });
+        List<LongART> shards = new ArrayList<>();
+        byte[] previous = null;
+        for (int i = 0; i < trees.length; i++) {
+            LongART tree = trees[i];
+            if (tree == null || !failures.isEmpty()) continue;
+            if (tree.size() == 0) {
+                tree.free();
+                trees[i] = null;
+                continue;
+            }
+            if (previous != null && LongART.compareKeys(previous, tree.firstKey()) >= 0) {
+                failures.add(new IllegalArgumentException("Key ranges are not in ascending order"));
+                continue;
+            }
+            previous = tree.lastKey();
+            shards.add(tree);
+        }
+        if (!failures.isEmpty()) {
+            for (LongART tree : trees) if (tree != null) tree.free();
+            Throwable failure = failures.poll();
+            for (Throwable t : failures) failure.addSuppressed(t);
+            if (failure instanceof Error) throw (Error)failure;
+            throw (RuntimeException)failure;
+        }
+        if (shards.isEmpty()) shards.add(new LongART(heap));
+        return new ConcurrentLongART(heap, Math.max(concurrencyLevel, shards.size()), shards);
+    }
+
+    /**
+     * [EXPERIMENTAL] Enables or disables combining of concurrent writes.  When enabled, threads that write 
+     * to the same part of the radix tree at the same time queue their {@code put} and {@code remove} operations, 
+     * and one of the writers applies a batch of queued operations on behalf of the others.  Given a 
+     * transactional heap, each batch is applied in a single transaction, amortizing transaction costs across 
+     * writers; this can substantially increase write throughput under contention on a small set of keys. 
+     * Merge and cleaner functions may be called on a thread other than the calling thread.  If an operation in 
+     * a batch fails, only that operation's caller receives the exception; the operations that preceded it in the 
+     * batch are rolled back and applied again, so their merge and cleaner functions may be called more than 
+     * once and must not have side effects outside the heap.  Writes made while the calling thread is within a 
+     * transaction are never combined.  Combining is disabled by default and the setting is not persistent.
+     * @param enabled true to enable combining of concurrent writes
+     * @since 1.3
+     */
+    public void setWriteCombining(boolean enabled) {
+        this.combining = enabled;
+    }
+
+    /**
+     * Checks whether combining of concurrent writes is enabled.
+     * @return true if combining of concurrent writes is enabled
+     * @since 1.3
+     */
+    public boolean isWriteCombining() {
+        return combining;
+    }
+
+    private Object update(byte[] key, Function<Shardable<byte[]>, Object> f) {
+        return combining ? sharder.shardAndCombine(key, f, true) : sharder.shardAndPut(key, f);
+    }
+
     Comparator<byte[]> getComparator(){
         return comparator;
     }
@@ -82,6 +178,11 @@ public class ConcurrentLongART extends AbstractSharded<byte[]> {
         return LongART.fromHandle(heap, handle);
     }
     
+    @Override
+    void reloadShard(Shardable<byte[]> shard) {
+        ((LongART)shard).reload();
+    }
+
     @Override
     LongART createShard() {
         return new LongART(heap);
@@ -136,7 +237,7 @@ public class ConcurrentLongART extends AbstractSharded<byte[]> {
      */    
     public long put(byte[] key, long value) {
         if (key == null || key.length == 0) throw new IllegalArgumentException("Invalid key");
-        return (long)sharder.shardAndPut(key, (Shardable<byte[]> s) -> {
+        return (long)update(key, (Shardable<byte[]> s) -> {
             return ((LongART)s).put(key, value, (Object v, Long old) -> {return (Long)v;});
         });
     }
@@ -145,7 +246,8 @@ public class ConcurrentLongART extends AbstractSharded<byte[]> {
      * Maps the specified key to the specified value.
      * If a mapping already exists for the specified key, the value is replaced.
      * The supplied merge function will be called with the {@code newValue} and current 
-     * value. The value returned by the merge function will be stored.
+     * value. The value returned by the merge function will be stored.  If write combining is enabled, 
+     * the merge function may be called more than once; see {@link #setWriteCombining(boolean)}.
      * @param key the key to which the specified value is to be mapped
      * @param newValue the new value to be passed to the merge function
      * @param mergeFunction the merge function
@@ -157,11 +259,57 @@ public class ConcurrentLongART extends AbstractSharded<byte[]> {
     public long put(byte[] key, Object newValue, BiFunction<Object, Long, Long> mergeFunction) {
         if (key == null || key.length == 0) throw new IllegalArgumentException("Invalid key");
         if (newValue == null) throw new IllegalArgumentException("newValue cannot be null");
-        return (long)sharder.shardAndPut(key, (Shardable<byte[]> s) -> {
+        return (long)update(key, (Shardable<byte[]> s) -> {
             return ((LongART)s).put(key, newValue, mergeFunction);
         });
     }
 
+    /**
+     * Maps each of the specified keys to the value at the same index in {@code values}.
+     * The keys are sorted and grouped by shard, so that each shard is locked once for each run of keys 
+     * it holds, and within a shard each key resumes the descent from the root where it leaves the path 
+     * of the previous key.  Given a transactional heap, the keys are applied in a series of transactions 
+     * of at most 256 keys each; a failure may leave a prefix of the sorted batch applied.  If a key occurs 
+     * more than once, the value with the highest index is stored.  Batched writes are not combined with
+     * concurrent writes from other threads.
+     * @param keys the keys to which the specified values are to be mapped
+     * @param values the values to be mapped to the specified keys
+     * @throws IllegalArgumentException if any key is null or has zero length, or if {@code keys} and 
+     * {@code values} differ in length
+     * @since 1.3
+     */
+    public void putAll(byte[][] keys, long[] values) {
+        LongART.checkBatch(keys, values);
+        int[] order = LongART.sortedOrder(keys);
+        sharder.shardRunsAndPut(sortedKeys(keys, order), (Shardable<byte[]> s, int from, int to) -> {
+            ((LongART)s).putSorted(keys, values, order, from, to);
+        });
+    }
+
+    /**
+     * Retrieves the {@code long} values mapped to each of the specified keys.  The value mapped to 
+     * {@code keys[i]}, or zero if there is no mapping, is stored in {@code values[i]}.  The keys are 
+     * sorted and grouped by shard, so that each shard is locked once for each run of keys it holds.
+     * @param keys the keys whose mapped values are to be returned
+     * @param values the array into which the values are stored
+     * @throws IllegalArgumentException if any key is null or has zero length, or if {@code keys} and 
+     * {@code values} differ in length
+     * @since 1.3
+     */
+    public void getAll(byte[][] keys, long[] values) {
+        LongART.checkBatch(keys, values);
+        int[] order = LongART.sortedOrder(keys);
+        sharder.shardRunsAndGet(sortedKeys(keys, order), (Shardable<byte[]> s, int from, int to) -> {
+            ((LongART)s).getSorted(keys, values, order, from, to);
+        });
+    }
+
+    private static byte[][] sortedKeys(byte[][] keys, int[] order) {
+        byte[][] sorted = new byte[order.length][];
+        for (int i = 0; i < order.length; i++) sorted[i] = keys[order[i]];
+        return sorted;
+    }
+
     /**
      * Retrieves the {@code long} value mapped to the supplied key.
      * @param key the key whose mapped value is to be returned 
@@ -294,16 +442,18 @@ public class ConcurrentLongART extends AbstractSharded<byte[]> {
      * @param key the key whose mapping is to be removed.
      * @param cleanerFunction this function will be called once for each entry, passing the value of the 
      * entry being removed. This may be particularly useful for performing additional cleanup, in 
-     * the case where the values stored in this radix tree are handles
+     * the case where the values stored in this radix tree are handles.  If write combining is enabled, the
+     * cleaner function may be called more than once; see {@link #setWriteCombining(boolean)}.
      * @return the removed value or zero if not found
      * @throws IllegalArgumentException if the supplied key has zero length
      */
     public long remove(byte[] key, Consumer<Long> cleanerFunction) {
         if (cleanerFunction == null) throw new NullPointerException("cleaner function cannot be null");
         if (key.length == 0) throw new IllegalArgumentException("Invalid key");
-        return (long)sharder.shardAndGet(key, (Shardable<byte[]> s) -> {
+        Function<Shardable<byte[]>, Object> f = (Shardable<byte[]> s) -> {
             return ((LongART)s).remove(key, cleanerFunction);
-        });
+        };
+        return (long)(combining ? sharder.shardAndCombine(key, f, false) : sharder.shardAndGet(key, f));
     }
 
     /**
@@ -10,14 +10,20 @@ package com.intel.pmem.llpl.util;
 import com.intel.pmem.llpl.AnyHeap;
 import com.intel.pmem.llpl.AnyMemoryBlock;
 import com.intel.pmem.llpl.Transaction;
+import com.intel.pmem.llpl.TransactionalHeap;
 import com.intel.pmem.llpl.util.LongArray;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -29,6 +35,11 @@ class DynamicSharder<K> implements Sharder<K> {
 	private AnyHeap heap;
     private AbstractSharded<K> sharded;
     private final long SPLIT_THRESHOLD = 1000L;
+    private static final int MAX_COMBINED_BATCH = 64;
+    private static final int MAX_COMBINING_PASSES = 4;
+    private static final long COMBINING_WAIT_NANOS = 50_000L;
+    // shards to split once the calling thread's current outermost transaction commits, with a key in each
+    private final ThreadLocal<Map<Shard<K>, K>> deferredSplits = ThreadLocal.withInitial(LinkedHashMap::new);
     private long  handle;
     private LongArray shardArray;
     final String CLASSNAME = "com.intel.pmem.llpl.util.DynamicSharder"; 
@@ -91,6 +102,25 @@ class DynamicSharder<K> implements Sharder<K> {
         this.sharded = sharded;
 	}
 
+    // takes ownership of shards, which must be non-empty and hold disjoint key ranges in ascending order
+    public DynamicSharder(AnyHeap heap, int maxShards, AbstractSharded<K> sharded, List<? extends DynamicShardable<K>> shards) {
+        LongArray shardArray = new LongArray(heap, maxShards);
+        this.comparator = sharded.getComparator();
+        this.rangeToShardMap = new ConcurrentSkipListMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            DynamicShardable<K> shard = shards.get(i);
+            shardArray.set(i, shard.handle());
+            KeyRange<K> range = (i == shards.size() - 1) ? new KeyRange<>(this.comparator) : new KeyRange<>(shard.lastKey(), this.comparator);
+            rangeToShardMap.put(range, new Shard<>(shard));
+        }
+        this.nShards = shards.size();
+        this.maxShards = maxShards;
+        this.heap = heap;
+        this.shardArray = shardArray;
+        this.handle = encodeRootBlock(heap, shardArray);
+        this.sharded = sharded;
+    }
+
     @Override
     public long handle() {
         return handle;
@@ -171,6 +201,91 @@ class DynamicSharder<K> implements Sharder<K> {
         return ret;
     }
 
+    // Flat combining: a writer publishes its operation on the shard's queue; whichever writer holds the shard
+    // lock drains the queue and applies the operations, in a single transaction on a transactional heap.
+    @Override
+    public Object shardAndCombine(K key, Function<Shardable<K>, Object> f, boolean put) {
+        if (Transaction.inTransaction()) return put ? shardAndPut(key, f) : shardAndGet(key, f);
+        CombiningRequest<K> request = new CombiningRequest<K>(key, f);
+        while (true) {
+            ConcurrentMap.Entry<KeyRange<K>, Shard<K>> celEntry = rangeToShardMap.ceilingEntry(new KeyRange<K>(key, comparator));
+            Shard<K> shard = put ? maybeSplit(celEntry, key) : celEntry.getValue();
+            request.reset();
+            shard.pending.add(request);
+            while (!request.done) {
+                if (shard.tryLock()) {
+                    try {
+                        if (!request.done) combine(shard);
+                    }
+                    finally { shard.unlock(); }
+                }
+                else LockSupport.parkNanos(this, COMBINING_WAIT_NANOS);
+            }
+            if (request.rerouted) continue;
+            if (request.failure instanceof RuntimeException) throw (RuntimeException)request.failure;
+            if (request.failure instanceof Error) throw (Error)request.failure;
+            return request.result;
+        }
+    }
+
+    // called with the shard lock held
+    private void combine(Shard<K> shard) {
+        ArrayList<CombiningRequest<K>> batch = new ArrayList<>();
+        for (int pass = 0; pass < MAX_COMBINING_PASSES; pass++) {
+            CombiningRequest<K> request;
+            while (batch.size() < MAX_COMBINED_BATCH && (request = shard.pending.poll()) != null) {
+                // the shard may have been split since the request was queued
+                if (rangeToShardMap.ceilingEntry(new KeyRange<K>(request.key, comparator)).getValue() != shard) {
+                    request.rerouted = true;
+                    request.complete();
+                }
+                else batch.add(request);
+            }
+            if (batch.isEmpty()) return;
+            applyBatch(shard, batch);
+            batch.clear();
+        }
+    }
+
+    private void applyBatch(Shard<K> shard, ArrayList<CombiningRequest<K>> batch) {
+        if (batch.size() > 1 && heap instanceof TransactionalHeap) {
+            int[] applied = new int[1];
+            try {
+                Transaction.create(heap, () -> {
+                    for (CombiningRequest<K> request : batch) {
+                        request.result = request.f.apply(shard.shard());
+                        applied[0]++;
+                    }
+                });
+                for (CombiningRequest<K> request : batch) request.complete();
+                return;
+            }
+            catch (RuntimeException | Error e) {
+                // the whole batch was rolled back, including changes to state the shard caches outside the heap
+                sharded.reloadShard(shard.shard());
+                if (applied[0] < batch.size()) {
+                    // fail only the operation that threw and apply the rest again as a batch
+                    CombiningRequest<K> request = batch.remove(applied[0]);
+                    request.failure = e;
+                    request.complete();
+                    applyBatch(shard, batch);
+                    return;
+                }
+                // the commit itself failed; apply operations one at a time
+            }
+        }
+        for (CombiningRequest<K> request : batch) {
+            try {
+                request.result = request.f.apply(shard.shard());
+            }
+            catch (RuntimeException | Error e) {
+                sharded.reloadShard(shard.shard());
+                request.failure = e;
+            }
+            request.complete();
+        }
+    }
+
     @Override
     public Object shardAndGet(K key, Function<Shardable<K>, Object> f) {
         Shard<K> shard;
@@ -193,6 +308,44 @@ class DynamicSharder<K> implements Sharder<K> {
         return ret;
     }
 
+    @Override
+    public void shardRunsAndPut(K[] keys, ShardRunFunction<K> f) {
+        shardRuns(keys, f, true);
+    }
+
+    @Override
+    public void shardRunsAndGet(K[] keys, ShardRunFunction<K> f) {
+        shardRuns(keys, f, false);
+    }
+
+    // keys must be in ascending order. Write runs are capped at SPLIT_THRESHOLD keys so that a large batch
+    // cannot grow a shard far past the split threshold before the shard is next considered for splitting.
+    private void shardRuns(K[] keys, ShardRunFunction<K> f, boolean put) {
+        int from = 0;
+        while (from < keys.length) {
+            K key = keys[from];
+            ConcurrentMap.Entry<KeyRange<K>, Shard<K>> celEntry = rangeToShardMap.ceilingEntry(new KeyRange<K>(key, comparator));
+            Shard<K> shard = put ? maybeSplit(celEntry, key) : celEntry.getValue();
+            shard.lock();
+            // recheck condition
+            Shard<K> newShard;
+            while((newShard = rangeToShardMap.get(celEntry.getKey())) != null && !newShard.equals(shard)) {
+                shard.unlock();
+                celEntry = rangeToShardMap.ceilingEntry(new KeyRange<K>(key, comparator));
+                shard = celEntry.getValue(); shard.lock();
+            }
+            try {
+                // the shard cannot be split while its lock is held
+                long limit = put ? Math.min(keys.length, from + SPLIT_THRESHOLD) : keys.length;
+                int to = from + 1;
+                while (to < limit && rangeToShardMap.ceilingEntry(new KeyRange<K>(keys[to], comparator)).getValue() == shard) to++;
+                f.apply(shard.shard(), from, to);
+                from = to;
+            }
+            finally { shard.unlock(); }
+        }
+    }
+
     @Override
     public <E> SequentialShardIterator<E> shardsAndExecute(K fromKey, K toKey, Function<Shardable<K>, Iterator<E>> f, boolean reversed) {
         Iterator<Shard<K>> it;
@@ -263,27 +416,36 @@ class DynamicSharder<K> implements Sharder<K> {
     }
 
     private Shard<K> splitKeyRange(Map.Entry<KeyRange<K>, Shard<K>> entry, K bytes) {
-        KeyRange<K> oldRange = entry.getKey();
+        KeyRange<K> right = entry.getKey();
         KeyRange<K> left;
         Shard<K> oldShard = entry.getValue();
         Shard<K> newShard;
-        
+
         synchronized(shardArray) {
             oldShard.lock();
             try {
-                if (nShards == maxShards || entry.getValue().shard().size() < SPLIT_THRESHOLD) return entry.getValue();
-                KeyRange<K> right = oldRange; 
+                long entries = oldShard.shard().size();
+                if (nShards == maxShards || entries < SPLIT_THRESHOLD) return oldShard;
+                Object event = SplitEvents.beginSplit();
                 //persistent stuff
-                newShard = Transaction.create(heap, ()-> {
-                    Shard<K> tempShard = new Shard<K>(oldShard.shard().split());
-                    shardArray.set(nShards, tempShard.shard().handle());
-                    return tempShard;
-                });
+                try {
+                    newShard = Transaction.create(heap, ()-> {
+                        Shard<K> tempShard = new Shard<K>(oldShard.shard().split());
+                        shardArray.set(nShards, tempShard.shard().handle());
+                        return tempShard;
+                    });
+                }
+                catch (RuntimeException | Error e) {
+                    // the split was rolled back, including state the old shard caches outside the heap
+                    sharded.reloadShard(oldShard.shard());
+                    throw e;
+                }
                 //volatile stuff
                 nShards++;
                 left = createKeyRange(oldShard.shard().lastKey());
                 rangeToShardMap.put(left, oldShard);
                 rangeToShardMap.put(right, newShard);
+                SplitEvents.endSplit(event, heap, entries, nShards);
             } finally {
                 oldShard.unlock();
             }
@@ -291,7 +453,26 @@ class DynamicSharder<K> implements Sharder<K> {
         if (left.contains(bytes)) return oldShard;
         else return newShard;
     }
-    
+
+    // Splits are never made inside a caller's transaction: a split that might still roll back would have to
+    // keep both shards locked until the transaction ends.  Instead the shard is split after the outermost
+    // transaction commits.
+    private void deferSplit(Shard<K> shard, K key) {
+        Map<Shard<K>, K> pending = deferredSplits.get();
+        if (pending.isEmpty()) {
+            Transaction transaction = Transaction.create(heap);
+            transaction.run(() -> {
+                transaction.onCommit(() -> {
+                    ArrayList<K> keys = new ArrayList<>(pending.values());
+                    pending.clear();
+                    for (K k : keys) maybeSplit(rangeToShardMap.ceilingEntry(new KeyRange<K>(k, comparator)), k);
+                });
+                transaction.onAbort(pending::clear);
+            });
+        }
+        pending.putIfAbsent(shard, key);
+    }
+
     private KeyRange<K> createKeyRange(K high) {
         return new KeyRange<K>(high, comparator);
     }
@@ -317,7 +498,11 @@ class DynamicSharder<K> implements Sharder<K> {
 
     private Shard<K> maybeSplit(Map.Entry<KeyRange<K>, Shard<K>> entry, K key){
         if (nShards == maxShards || entry.getValue().shard().size() < SPLIT_THRESHOLD) return entry.getValue();
-        else return splitKeyRange(entry, key);
+        if (Transaction.inTransaction()) {
+            deferSplit(entry.getValue(), key);
+            return entry.getValue();
+        }
+        return splitKeyRange(entry, key);
     }
 
     static class KeyRange<K> implements Comparable<KeyRange<K>> {
@@ -384,18 +569,49 @@ class DynamicSharder<K> implements Sharder<K> {
     class Shard<K> {
         DynamicShardable<K> shard;
         ReentrantLock lock;
+        final ConcurrentLinkedQueue<CombiningRequest<K>> pending;
         
         Shard (DynamicShardable<K> shard) {
             this.shard = shard;
             lock = new ReentrantLock(false);
+            pending = new ConcurrentLinkedQueue<>();
         }
 
         public DynamicShardable<K> shard() { return shard; }
         public void lock() { this.lock.lock(); }
+        public boolean tryLock() { return this.lock.tryLock(); }
         public void unlock() { this.lock.unlock(); }
         public boolean isLocked() { return lock.isLocked(); }
     }
 
+    static final class CombiningRequest<K> {
+        final K key;
+        final Function<Shardable<K>, Object> f;
+        final Thread waiter;
+        Object result;
+        Throwable failure;
+        boolean rerouted;
+        volatile boolean done;
+
+        CombiningRequest(K key, Function<Shardable<K>, Object> f) {
+            this.key = key;
+            this.f = f;
+            this.waiter = Thread.currentThread();
+        }
+
+        void reset() {
+            result = null;
+            failure = null;
+            rerouted = false;
+            done = false;
+        }
+
+        void complete() {
+            done = true;
+            LockSupport.unpark(waiter);
+        }
+    }
+
     public class SequentialShardIterator<E> implements AutoCloseableIterator<E> { 
         Iterator<Shard<K>> shardIterator;
         Function<Shardable<K>, Iterator<E>> f;
@@ -0,0 +1,49 @@
+/* 
+ * Copyright (C) 2019-2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ * 
+ */
+
+package com.intel.pmem.llpl.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// only loaded when SplitEvents.AVAILABLE is true
+@Name("com.intel.pmem.llpl.ShardSplit")
+@Label("Shard Split")
+@Category({"LLPL", "Sharding"})
+@Description("Split of a dynamic shard's key range into two shards")
+@Enabled(false)
+@StackTrace(false)
+final class JfrSplitEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(JfrSplitEvent.class);
+
+    @Label("Heap") String heap;
+    @Label("Entries in Split Shard") long entries;
+    @Label("Shards After Split") int shards;
+
+    static Object beginSplit() {
+        if (!TYPE.isEnabled()) return null;
+        JfrSplitEvent event = new JfrSplitEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endSplit(Object e, String heap, long entries, int shards) {
+        JfrSplitEvent event = (JfrSplitEvent)e;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.heap = heap;
+        event.entries = entries;
+        event.shards = shards;
+        event.commit();
+    }
+}
@@ -10,9 +10,13 @@ package com.intel.pmem.llpl.util;
 import com.intel.pmem.llpl.AnyHeap;
 import com.intel.pmem.llpl.AnyMemoryBlock;
 import com.intel.pmem.llpl.HeapException;
+import com.intel.pmem.llpl.PersistentHeap;
 import com.intel.pmem.llpl.Range;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.function.*;
 import java.util.Optional;
@@ -34,7 +38,13 @@ public class LongART implements DynamicShardable<byte[]> {
     private int maxKeyLen;
     private long count = 0;
     private byte[] lastKey;
-    private static final short VERSION = 100;
+    private static final short VERSION = 101;
+    // the first version whose nodes may hold prefixes longer than Node.MAX_PREFIX_LENGTH
+    private static final short LONG_PREFIX_VERSION = 101;
+    private static final int MAX_BATCH_TRANSACTION_SIZE = 256;
+    private static final BiFunction<Object, Long, Long> REPLACE = (Object newValue, Long oldValue) -> (Long)newValue;
+    private final LeafFactory leafFactory;
+    private final boolean longPrefixes;
 
     /**
      * Creates a new radix tree.
@@ -46,10 +56,17 @@ public class LongART implements DynamicShardable<byte[]> {
      * @throws HeapException if the radix tree could not be created
      */
     public LongART(AnyHeap heap) {
+        this(heap, (LeafFactory)null);
+    }
+
+    // a tree whose leaves are created by leafFactory, or SimpleLeaf nodes if leafFactory is null
+    LongART(AnyHeap heap, LeafFactory leafFactory) {
         registerAllocationClasses(heap);
         this.heap = heap;   
+        this.leafFactory = leafFactory;
         this.root = new Root(heap);
         root.setVersion(VERSION);
+        this.longPrefixes = true;
     }
     
     static void registerAllocationClasses(AnyHeap heap) {
@@ -62,10 +79,18 @@ public class LongART implements DynamicShardable<byte[]> {
     
     @SuppressWarnings("unchecked")
     private LongART(AnyHeap heap, long handle) {
+        this(heap, handle, null);
+    }
+
+    LongART(AnyHeap heap, long handle, LeafFactory leafFactory) {
         if (handle <= 0) throw new IllegalArgumentException("Invalid artree handle: "+handle);
         registerAllocationClasses(heap);
         this.heap = heap;
+        this.leafFactory = leafFactory;
         root = (Root)Node.rebuild(heap, handle);
+        // trees created before version 101 keep splitting long paths into chains of nodes, so that 
+        // they remain readable by earlier releases
+        longPrefixes = root.getVersion() >= LONG_PREFIX_VERSION;
         count = root.getCount();
         maxKeyLen = this.root.getMaxKeyLength(); 
     }
@@ -83,6 +108,34 @@ public class LongART implements DynamicShardable<byte[]> {
         return new LongART(heap, handle);
     }
 
+    /**
+     * Creates a new radix tree containing the entries supplied by {@code sortedEntries}, which must supply 
+     * keys in strictly ascending order.  The tree is built bottom-up: each node is written once, at its 
+     * final size, when the iterator moves past the keys it covers, and the tree becomes reachable through 
+     * its root with a single write at the end of the load.  Given a transactional heap, nodes are written 
+     * in a series of transactions, each covering the nodes completed by up to 1024 keys.  If the load 
+     * fails, the memory used by the partially built tree is freed, except for nodes written by a failed 
+     * write on a non-transactional heap.
+     * @param heap the heap on which to allocate the radix tree
+     * @param sortedEntries the entries to load, in ascending key order
+     * @return the radix tree
+     * @throws IllegalArgumentException if a key is null or has zero length, or if the keys are not in 
+     * strictly ascending order
+     * @throws HeapException if the radix tree could not be created
+     * @since 1.3
+     */
+    public static LongART bulkLoad(AnyHeap heap, Iterator<Entry> sortedEntries) {
+        LongART tree = new LongART(heap);
+        try {
+            new BulkLoader(tree).load(sortedEntries);
+        }
+        catch (RuntimeException | Error e) {
+            tree.free();
+            throw e;
+        }
+        return tree;
+    }
+
     /**
      * Returns a handle to this radix tree. This stable value can be stored and used later to regain
      * access to the radix tree.
@@ -150,6 +203,12 @@ public class LongART implements DynamicShardable<byte[]> {
         root.setMaxKeyLength(maxKeyLen = length); 
     }
 
+    // re-reads the cached count and maximum key length, e.g. after a transaction that changed them aborts
+    void reload() {
+        count = root.getCount();
+        maxKeyLen = root.getMaxKeyLength();
+    }
+
     /**
      * Retrieves the lowest key in this radix tree.
      * @return the lowest key 
@@ -221,32 +280,53 @@ public class LongART implements DynamicShardable<byte[]> {
         if (newValue == null) throw new IllegalArgumentException("value cannot be null");
         if (key.length > maxKeyLen) setMaxKeyLength(key.length);
         return heap.execute(() -> {
-            return insert(root, root.getChild(), key, newValue, 0, 0, mergeFunction);
+            return insert(root, root.getChild(), key, newValue, 0, 0, mergeFunction, null);
         });
     }
 
+    // creates the leaf for the key bytes from start, preceded by single-child nodes if they exceed the
+    // maximum prefix length of a version 100 tree
+    private Node createLeaf(byte[] key, int start, int length, Object value, long leafValue) {
+        if (length <= Node.MAX_PREFIX_LENGTH || longPrefixes) {
+            return (leafFactory == null) ? new SimpleLeaf(this.heap, key, start, length, leafValue) : leafFactory.create(this.heap, key, start, length, value);
+        }
+        if (leafFactory == null) return SimpleLeaf.create(this.heap, key, start, length, leafValue);
+        Leaf leaf = leafFactory.create(this.heap, key, key.length - Node.MAX_PREFIX_LENGTH, Node.MAX_PREFIX_LENGTH, value);
+        return Leaf.prependNodes(this.heap, key, start, length, leaf);
+    }
+
     @SuppressWarnings("unchecked")
-    private long insert(Node parent, Node node, byte[] key, Object value, int depth, int replaceIndex, BiFunction<Object, Long, Long> merge) {
+    private long insert(Node parent, Node node, byte[] key, Object value, int depth, int replaceIndex, BiFunction<Object, Long, Long> merge, BatchPath path) {
         if (node == null) {    // empty tree
             long leafValue = merge.apply(value, 0L);
 
             Root rt = (Root)parent;    // if tree is empty, parent is guaranteed to be root
-            Node leaf = SimpleLeaf.create(this.heap, key, 0, key.length, leafValue);
+            Node leaf = createLeaf(key, 0, key.length, value, leafValue);
             rt.addChild(leaf);
             incrementCount();
             return 0L;
         }
 
-        byte[] newPrefix = new byte[8];
         byte[] prefix = node.getPrefix();
+        byte[] newPrefix = new byte[prefix.length];
 
         if (node.isLeaf()) {
             int matchedLength = node.checkPrefix(key, depth);
             if (matchedLength == node.getPrefixLength() && matchedLength + depth == key.length) {
                 //replacement
                 long old = ((Leaf)node).getValue();
+                if (leafFactory != null) {
+                    Leaf updated = leafFactory.update(this.heap, (Leaf)node, value);
+                    if (updated != node) {
+                        if (parent == root) ((Root)parent).addChild(updated);
+                        else ((InternalNode)parent).putChildAtIndex(replaceIndex, updated);
+                        node.free();
+                    }
+                    return old;
+                }
+                // without a leaf factory every leaf holds its value as a long
                 long newVal = merge.apply(value,old);
-                if (newVal != old) ((Leaf)node).setValue(newVal);
+                if (newVal != old) ((SimpleLeaf)node).setValue(newVal);
                 return old;
             }
             long newVal = merge.apply(value, 0L);
@@ -261,7 +341,7 @@ public class LongART implements DynamicShardable<byte[]> {
             node.updatePrefix(prefix, i + 1, node.getPrefixLength() - i - 1);
 
             int prefixLength = key.length - depth - i - 1;
-            Node newChild = SimpleLeaf.create(this.heap, key, depth + i + 1, prefixLength, newVal);
+            Node newChild = createLeaf(key, depth + i + 1, prefixLength, value, newVal);
 
             if (depth + i == key.length) newNode = new Node4(this.heap, newPrefix, i, true, newChild, (byte)0, node, prefix[i]);
             else if (i == prefix.length) {
@@ -291,7 +371,7 @@ public class LongART implements DynamicShardable<byte[]> {
             intNode.updatePrefix(prefix, i + 1, intNode.getPrefixLength() - i - 1);
 
             int prefixLength = key.length - depth - i - 1;
-            Node newChild = SimpleLeaf.create(this.heap, key, depth + i + 1, prefixLength, leafVal);
+            Node newChild = createLeaf(key, depth + i + 1, prefixLength, value, leafVal);
 
             if (depth + i == key.length) newNode = new Node4(this.heap, newPrefix, matchedLength, true, newChild, (byte)0, node, prefix[i]);
             else newNode = new Node4(this.heap, newPrefix, matchedLength, false, newChild, key[depth + i], node, prefix[i]);
@@ -303,6 +383,7 @@ public class LongART implements DynamicShardable<byte[]> {
         }
 
         // prefix is a subset of the key
+        if (path != null) path.push(parent, node, depth, replaceIndex);
         depth += intNode.getPrefixLength(); // or just += matchedLength;
         if (depth == key.length) {
             //this insertion will be a blankradix child to this internal node
@@ -310,16 +391,26 @@ public class LongART implements DynamicShardable<byte[]> {
             long old = 0L;
             if ((child = intNode.findBlankRadixChild()) != null) {
                 old = child.getValue();
+                if (leafFactory != null) {
+                    Leaf updated = leafFactory.update(this.heap, child, value);
+                    if (updated != child) {
+                        intNode.replaceBlankRadixChild(updated);
+                        child.free();
+                    }
+                    return old;
+                }
                 long newVal = merge.apply(value, old);
-                if (old != newVal) child.setValue(newVal);
+                if (old != newVal) ((SimpleLeaf)child).setValue(newVal);
             }
             else{
                 long newVal = merge.apply(value, 0L);
-                child = new SimpleLeaf(this.heap, newVal);
+                child = (Leaf)createLeaf(key, key.length, 0, value, newVal);
                 if (!intNode.addBlankRadixChild(child)) {
                     InternalNode newNode = intNode.grow(child, Optional.empty());
-                    ((InternalNode)parent).putChildAtIndex(replaceIndex, newNode);
-                    intNode.free();
+                    if (parent == root) { ((Root)parent).addChild(newNode); }
+                    else ((InternalNode)parent).putChildAtIndex(replaceIndex, newNode);
+                    intNode.freeBlock();
+                    if (path != null) path.pop();
                 }
                 incrementCount();
             }
@@ -331,20 +422,21 @@ public class LongART implements DynamicShardable<byte[]> {
         Node next = intNode.getChildAtIndex(childIndex);
         long oldValue;
         if (next != null) {
-            oldValue = insert(node, next, key, value, depth + 1, childIndex, merge);
+            oldValue = insert(node, next, key, value, depth + 1, childIndex, merge, path);
         } else {
             // found insertion point. insert leaf
             int prefixLength = key.length - depth - 1;
             oldValue = 0L;
             long leafVal = merge.apply(value, 0L);
-            Node newChild = SimpleLeaf.create(this.heap, key, depth + 1, prefixLength, leafVal);
+            Node newChild = createLeaf(key, depth + 1, prefixLength, value, leafVal);
             if (!intNode.addChild(key[depth], newChild)) {
                 InternalNode newNode = intNode.grow(newChild, Optional.of(key[depth]));
                 if (parent == root) { ((Root)parent).addChild(newNode); }
                 else {
                     ((InternalNode)parent).putChildAtIndex(replaceIndex, newNode);
                 }
-                intNode.free();
+                intNode.freeBlock();
+                if (path != null) path.pop();
             }
         incrementCount();
         }
@@ -366,9 +458,349 @@ public class LongART implements DynamicShardable<byte[]> {
         return 0;
     }
 
+    /**
+     * Maps each of the specified keys to the value at the same index in {@code values}.
+     * The keys are applied in ascending order, so that each key resumes the descent from the root 
+     * where it leaves the path of the previous key.  Given a transactional heap, the keys are applied
+     * in a series of transactions of at most 256 keys each; a failure may leave a prefix of the sorted 
+     * batch applied.  If a key occurs more than once, the value with the highest index is stored.
+     * @param keys the keys to which the specified values are to be mapped
+     * @param values the values to be mapped to the specified keys
+     * @throws IllegalArgumentException if any key is null or has zero length, or if {@code keys} and 
+     * {@code values} differ in length
+     * @since 1.3
+     */
+    public void putAll(byte[][] keys, long[] values) {
+        checkBatch(keys, values);
+        putSorted(keys, values, sortedOrder(keys), 0, keys.length);
+    }
+
+    /**
+     * Retrieves the {@code long} values mapped to each of the specified keys.  The value mapped to 
+     * {@code keys[i]}, or zero if there is no mapping, is stored in {@code values[i]}.  The keys are 
+     * looked up in ascending order, so that each key resumes the descent from the root where it leaves 
+     * the path of the previous key.
+     * @param keys the keys whose mapped values are to be returned
+     * @param values the array into which the values are stored
+     * @throws IllegalArgumentException if any key is null or has zero length, or if {@code keys} and 
+     * {@code values} differ in length
+     * @since 1.3
+     */
+    public void getAll(byte[][] keys, long[] values) {
+        checkBatch(keys, values);
+        getSorted(keys, values, sortedOrder(keys), 0, keys.length);
+    }
+
+    static void checkBatch(byte[][] keys, long[] values) {
+        if (keys == null || values == null || keys.length != values.length) throw new IllegalArgumentException("keys and values must have the same length");
+        for (byte[] key : keys) {
+            if (key == null || key.length == 0) throw new IllegalArgumentException("Invalid key");
+        }
+    }
+
+    // indexes of keys in ascending key order; indexes of equal keys stay in ascending order
+    static int[] sortedOrder(byte[][] keys) {
+        Integer[] boxed = new Integer[keys.length];
+        for (int i = 0; i < boxed.length; i++) boxed[i] = i;
+        Arrays.sort(boxed, (Integer a, Integer b) -> compareKeys(keys[a], keys[b]));
+        int[] order = new int[boxed.length];
+        for (int i = 0; i < order.length; i++) order[i] = boxed[i];
+        return order;
+    }
+
+    static int compareKeys(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int c = compareUnsigned(a[i], b[i]);
+            if (c != 0) return c;
+        }
+        return a.length - b.length;
+    }
+
+    private static int commonPrefixLength(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < length && a[i] == b[i]) i++;
+        return i;
+    }
+
+    // applies keys[order[from]] through keys[order[to - 1]], which must be in ascending order
+    void putSorted(byte[][] keys, long[] values, int[] order, int from, int to) {
+        int maxLength = maxKeyLen;
+        for (int i = from; i < to; i++) maxLength = Math.max(maxLength, keys[order[i]].length);
+        if (maxLength > maxKeyLen) setMaxKeyLength(maxLength);
+        BatchPath path = new BatchPath();
+        for (int start = from; start < to; start += MAX_BATCH_TRANSACTION_SIZE) {
+            int first = start;
+            int last = Math.min(to, start + MAX_BATCH_TRANSACTION_SIZE);
+            heap.execute(() -> {
+                for (int i = first; i < last; i++) {
+                    byte[] key = keys[order[i]];
+                    path.retain(i == from ? -1 : commonPrefixLength(keys[order[i - 1]], key));
+                    if (path.isEmpty()) insert(root, root.getChild(), key, values[order[i]], 0, 0, REPLACE, path);
+                    else {
+                        int top = path.pop();
+                        insert(path.parents[top], path.nodes[top], key, values[order[i]], path.depths[top], path.indexes[top], REPLACE, path);
+                    }
+                }
+            });
+        }
+    }
+
+    // looks up keys[order[from]] through keys[order[to - 1]], which must be in ascending order
+    void getSorted(byte[][] keys, long[] values, int[] order, int from, int to) {
+        BatchPath path = new BatchPath();
+        for (int i = from; i < to; i++) {
+            byte[] key = keys[order[i]];
+            path.retain(i == from ? -1 : commonPrefixLength(keys[order[i - 1]], key));
+            if (path.isEmpty()) values[order[i]] = lookup(root.getChild(), key, 0, path);
+            else {
+                int top = path.pop();
+                values[order[i]] = lookup(path.nodes[top], key, path.depths[top], path);
+            }
+        }
+    }
+
+    private long lookup(Node node, byte[] key, int depth, BatchPath path) {
+        while (node != null) {
+            int matchedLength = node.checkPrefix(key, depth);
+            if (matchedLength != node.getPrefixLength()) return 0;
+            if (node.isLeaf()) return (depth + matchedLength == key.length) ? ((Leaf)node).getValue() : 0;
+            path.push(null, node, depth, 0);
+            depth += matchedLength;
+            InternalNode intNode = (InternalNode)node;
+            if (depth == key.length) {
+                Leaf child = intNode.findBlankRadixChild();
+                return child == null ? 0 : child.getValue();
+            }
+            node = intNode.findChild(key[depth++]);
+        }
+        return 0;
+    }
+
+    // Builds a tree bottom-up from keys in ascending order.  The open nodes are the internal nodes on the path
+    // of the previous key, deepest last, each holding the handles of its completed children.  When the next
+    // key leaves the subtree of an open node, the node is written at its final size and type, and becomes a
+    // child of the open node below it.  All open nodes cover a prefix of the previous key, so node prefixes
+    // are read from that key.
+    static final class BulkLoader {
+        private static final int KEYS_PER_TRANSACTION = 1024;
+        private final LongART tree;
+        private final AnyHeap heap;
+        private ArrayList<OpenNode> open = new ArrayList<>();
+        private byte[] lastKey;
+        private long lastValue;
+        private long count;
+        private int maxKeyLength;
+
+        BulkLoader(LongART tree) {
+            this.tree = tree;
+            this.heap = tree.heap;
+        }
+
+        void load(Iterator<Entry> sortedEntries) {
+            byte[][] keys = new byte[KEYS_PER_TRANSACTION][];
+            long[] values = new long[KEYS_PER_TRANSACTION];
+            byte[] previous = null;
+            try {
+                while (sortedEntries.hasNext()) {
+                    int n = 0;
+                    while (n < keys.length && sortedEntries.hasNext()) {
+                        Entry entry = sortedEntries.next();
+                        byte[] key = entry.getKey();
+                        if (key == null || key.length == 0) throw new IllegalArgumentException("Invalid key");
+                        if (previous != null && compareKeys(previous, key) >= 0) throw new IllegalArgumentException("Keys are not in strictly ascending order");
+                        keys[n] = previous = key;
+                        values[n++] = entry.getValue();
+                    }
+                    int batchSize = n;
+                    execute(() -> {
+                        for (int i = 0; i < batchSize; i++) add(keys[i], values[i]);
+                    });
+                }
+                execute(() -> {
+                    Node top = finish();
+                    if (top != null) tree.root.addChild(top);
+                    tree.root.setCount(count);
+                    tree.setMaxKeyLength(maxKeyLength);
+                });
+                tree.count = count;
+            }
+            catch (RuntimeException | Error e) {
+                discard();
+                throw e;
+            }
+        }
+
+        // a failed transaction rolls back the nodes it wrote, so the open nodes are restored to their 
+        // state before the transaction
+        private void execute(Runnable body) {
+            ArrayList<OpenNode> saved = snapshot();
+            byte[] savedKey = lastKey;
+            long savedValue = lastValue;
+            try {
+                heap.execute(body);
+            }
+            catch (RuntimeException | Error e) {
+                open = saved;
+                lastKey = savedKey;
+                lastValue = savedValue;
+                throw e;
+            }
+        }
+
+        private void add(byte[] key, long value) {
+            if (lastKey != null) {
+                int shared = commonPrefixLength(lastKey, key);
+                OpenNode completed = null;
+                while (!open.isEmpty() && open.get(open.size() - 1).depth > shared) {
+                    OpenNode node = open.remove(open.size() - 1);
+                    attach(node, completed);
+                    completed = node;
+                }
+                OpenNode parent = open.isEmpty() ? null : open.get(open.size() - 1);
+                if (parent == null || parent.depth < shared) {
+                    parent = new OpenNode(shared);
+                    open.add(parent);
+                }
+                attach(parent, completed);
+            }
+            lastKey = key;
+            lastValue = value;
+            count++;
+            maxKeyLength = Math.max(maxKeyLength, key.length);
+        }
+
+        private Node finish() {
+            if (lastKey == null) return null;
+            OpenNode completed = null;
+            while (!open.isEmpty()) {
+                OpenNode node = open.remove(open.size() - 1);
+                attach(node, completed);
+                completed = node;
+            }
+            return write(completed, 0);
+        }
+
+        // adds the completed node, or the leaf for the previous key if completed is null, to parent
+        private void attach(OpenNode parent, OpenNode completed) {
+            if (completed == null && lastKey.length == parent.depth) parent.blankChild = new SimpleLeaf(heap, lastKey, parent.depth, 0, lastValue).handle();
+            else parent.addChild(lastKey[parent.depth], write(completed, parent.depth + 1).handle());
+        }
+
+        // writes the completed node, or the leaf for the previous key if completed is null, given that its 
+        // parent covers the first start bytes of the key; in a version 100 tree, paths longer than the 
+        // maximum prefix length get single-child Node4 parents
+        private Node write(OpenNode completed, int start) {
+            int end = (completed == null) ? lastKey.length : completed.depth;
+            int prefixStart = tree.longPrefixes ? start : Math.max(start, end - Node.MAX_PREFIX_LENGTH);
+            Node node = (completed == null) 
+                ? new SimpleLeaf(heap, lastKey, prefixStart, end - prefixStart, lastValue)
+                : InternalNode.create(heap, lastKey, prefixStart, end - prefixStart, completed.radices, completed.children, completed.childCount, completed.blankChild);
+            while (prefixStart > start) {
+                int radixIndex = prefixStart - 1;
+                prefixStart = Math.max(start, radixIndex - Node.MAX_PREFIX_LENGTH);
+                node = new Node4(heap, lastKey, prefixStart, radixIndex - prefixStart, node, lastKey[radixIndex]);
+            }
+            return node;
+        }
+
+        private ArrayList<OpenNode> snapshot() {
+            ArrayList<OpenNode> copy = new ArrayList<>(open.size());
+            for (OpenNode node : open) copy.add(node.copy());
+            return copy;
+        }
+
+        private void discard() {
+            heap.execute(() -> {
+                for (OpenNode node : open) {
+                    if (node.blankChild != 0) freeSubtree(node.blankChild);
+                    for (int i = 0; i < node.childCount; i++) freeSubtree(node.children[i]);
+                }
+            });
+            open.clear();
+        }
+
+        private void freeSubtree(long handle) {
+            Node node = Node.rebuild(heap, handle);
+            node.destroy((Long value) -> {});
+            node.free();
+        }
+    }
+
+    // an internal node under construction by a BulkLoader; its radices are added in ascending order
+    static final class OpenNode {
+        final int depth;
+        byte[] radices = new byte[4];
+        long[] children = new long[4];
+        int childCount;
+        long blankChild;
+
+        OpenNode(int depth) {
+            this.depth = depth;
+        }
+
+        void addChild(byte radix, long child) {
+            if (childCount == radices.length) {
+                radices = Arrays.copyOf(radices, childCount * 4);
+                children = Arrays.copyOf(children, childCount * 4);
+            }
+            radices[childCount] = radix;
+            children[childCount++] = child;
+        }
+
+        OpenNode copy() {
+            OpenNode copy = new OpenNode(depth);
+            copy.radices = radices.clone();
+            copy.children = children.clone();
+            copy.childCount = childCount;
+            copy.blankChild = blankChild;
+            return copy;
+        }
+    }
+
+    // the internal nodes on the path of the previous key of a sorted batch, each with its parent, its index 
+    // in the parent and the key depth at which it was entered; a node entered at a depth no greater than 
+    // the length of the prefix shared with the next key is also on the path of the next key
+    static final class BatchPath {
+        private Node[] parents = new Node[16];
+        private Node[] nodes = new Node[16];
+        private int[] depths = new int[16];
+        private int[] indexes = new int[16];
+        private int size;
+
+        void push(Node parent, Node node, int depth, int index) {
+            if (size == nodes.length) {
+                parents = Arrays.copyOf(parents, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+                depths = Arrays.copyOf(depths, size * 2);
+                indexes = Arrays.copyOf(indexes, size * 2);
+            }
+            parents[size] = parent;
+            nodes[size] = node;
+            depths[size] = depth;
+            indexes[size] = index;
+            size++;
+        }
+
+        // removes the deepest node and returns its position, which stays readable until the next push
+        int pop() {
+            return --size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void retain(int sharedLength) {
+            while (size > 0 && depths[size - 1] > sharedLength) size--;
+        }
+    }
+
     byte[] splitKey() {
         EntryIterator it = new EntryIterator();
-        long midPos = count / 2;
+        // the cached count is stale if a transaction that changed this tree aborted
+        long midPos = root.getCount() / 2;
         int i = 0;
         byte[] splitKey = null;
         while(it.hasNext()) {
@@ -392,7 +824,8 @@ public class LongART implements DynamicShardable<byte[]> {
     @Override
     public LongART split() {
         EntryIterator it = new EntryIterator();
-        long midPos = count / 2;
+        // the cached count is stale if a transaction that changed this tree aborted
+        long midPos = root.getCount() / 2;
         int i = 0;
         byte[] splitKey = null;
         while(it.hasNext()) {
@@ -439,11 +872,12 @@ public class LongART implements DynamicShardable<byte[]> {
             }
         };
         search(root.getChild(), splitKey, 0, splitFunc, null);  
-        long newcount = 1 + (root.getCount() / 2);
+        long total = root.getCount();
+        long newcount = 1 + (total / 2);
         count = newcount;
         root.setCount(newcount);
-        newRoot.setCount(newcount - 2);
-        newTree.count = newcount - 2;
+        newRoot.setCount(total - newcount);
+        newTree.count = total - newcount;
         newTree.setMaxKeyLength(maxKeyLen);
         return newTree;
     }
@@ -464,7 +898,7 @@ public class LongART implements DynamicShardable<byte[]> {
                 if(!to.addChild(children[i].radix, children[i].child)) {
                     InternalNode newNode = to.grow(children[i].child, Optional.of(children[i].radix));
                     root.addChild(newNode);
-                    to.free();
+                    to.freeBlock();
                     to = newNode;
                 }
             }
@@ -482,7 +916,7 @@ public class LongART implements DynamicShardable<byte[]> {
             return -1;
         }
         if (node.isLeaf())
-            return ((depth + matchedLength) == key.length) ? ((SimpleLeaf)node).getValue() : 0;
+            return ((depth + matchedLength) == key.length) ? ((Leaf)node).getValue() : 0;
         else {
             depth += matchedLength;
             boolean blank;
@@ -528,7 +962,7 @@ public class LongART implements DynamicShardable<byte[]> {
             return 0;
         }
         if (node.isLeaf())
-            return ((depth + matchedLength) == key.length) ? ((SimpleLeaf)node).getValue() : 0;
+            return ((depth + matchedLength) == key.length) ? ((Leaf)node).getValue() : 0;
         else {
             depth += matchedLength;
             boolean blank = (depth == key.length);
@@ -584,7 +1018,7 @@ public class LongART implements DynamicShardable<byte[]> {
         heap.execute(()->{
             if (child == null) return;
             if (child.isLeaf()) {
-                if (cleanerFunction != null) cleanerFunction.accept(((SimpleLeaf)child).getValue());
+                if (cleanerFunction != null) cleanerFunction.accept(((Leaf)child).getValue());
                 child.free();
                 ((InternalNode)parent).deleteChild(radix);
                 decrementCount();
@@ -616,7 +1050,7 @@ public class LongART implements DynamicShardable<byte[]> {
                 root.setCount(0);
                 count = 0;
             });
-            return ((SimpleLeaf)n).getValue();
+            return ((Leaf)n).getValue();
         }
         else {
             long ret = search(n, key, 0, this::deleteNodes , cleanerFunction);
@@ -798,7 +1232,14 @@ public class LongART implements DynamicShardable<byte[]> {
         byte[] key;
         long value;
 
-        Entry(byte[] key, long value) {
+        /**
+         * Creates an entry with the given key and value, for example to supply entries to 
+         * {@link LongART#bulkLoad(AnyHeap, Iterator)}.
+         * @param key the key
+         * @param value the value
+         * @since 1.3
+         */
+        public Entry(byte[] key, long value) {
             this.key = key;
             this.value = value;
         }
@@ -841,7 +1282,7 @@ public class LongART implements DynamicShardable<byte[]> {
             if (first != null)
             {
                 if (first.isLeaf()) {
-                    SimpleLeaf leaf = (SimpleLeaf)first;
+                    Leaf leaf = (Leaf)first;
                     next = new Entry(first.getPrefix(), leaf.getValue());
                 }
                 else {
@@ -904,7 +1345,7 @@ public class LongART implements DynamicShardable<byte[]> {
             
             if (first != null) {
                 if (first.isLeaf()) {
-                    SimpleLeaf leaf = (SimpleLeaf)first;
+                    Leaf leaf = (Leaf)first;
                     int x = keyCompare(firstKey, first.getPrefix());
                     next = ((firstInclusive && x == 0) || x < 0) ? new Entry(first.getPrefix(), leaf.getValue()) : null;
                 }
@@ -974,7 +1415,7 @@ public class LongART implements DynamicShardable<byte[]> {
                 cursor = cache.getFirst();
                 ne = cursor.entryAtIndex();
             }
-            SimpleLeaf leaf = (SimpleLeaf)ne.child;
+            Leaf leaf = (Leaf)ne.child;
             keyBuf.mark();
             if (!cursor.currentIsBlank()) keyBuf.put(ne.radix); 
             cursor.next();
@@ -1020,7 +1461,7 @@ public class LongART implements DynamicShardable<byte[]> {
             if (first != null)
             {
                 if (first.isLeaf()) {
-                    SimpleLeaf leaf = (SimpleLeaf)first;
+                    Leaf leaf = (Leaf)first;
                     next = leaf.getValue();
                 }
                 else {
@@ -1064,7 +1505,7 @@ public class LongART implements DynamicShardable<byte[]> {
                 search2(cursor.entryAtIndex().child, new byte[]{}, 0, this::buildCache, null, false);
                 cursor = cache.getFirst();
             }
-            next = ((SimpleLeaf)cursor.entryAtIndex().child).getValue();
+            next = ((Leaf)cursor.entryAtIndex().child).getValue();
             cursor.next();
         }
 
@@ -1084,6 +1525,7 @@ public class LongART implements DynamicShardable<byte[]> {
         static final byte SIMPLE_LEAF_TYPE = 4;
         static final byte COMPLEX_LEAF_TYPE = 5;
         static final byte ROOT_TYPE = 6;
+        static final byte BYTES_LEAF_TYPE = 8;
         //static final byte FREED = (byte)0xff;
 
         protected static final long HEADER_SIZE = 16L;
@@ -1118,6 +1560,7 @@ public class LongART implements DynamicShardable<byte[]> {
                 case NODE48_TYPE: ret = new Node48(heap, mb); break;
                 case NODE256_TYPE: ret = new Node256(heap, mb); break;
                 case SIMPLE_LEAF_TYPE: ret = new SimpleLeaf(heap, mb); break;
+                case BYTES_LEAF_TYPE: ret = new BytesLeaf(heap, mb); break;
                 case ROOT_TYPE: ret = new Root(heap, mb); break;
                 default: throw new HeapException("Failed to reaccess tree with supplied handle");
             }
@@ -1125,6 +1568,12 @@ public class LongART implements DynamicShardable<byte[]> {
         }
 
         void free() {
+            if (getPrefixLength() > MAX_PREFIX_LENGTH) prefixBlock().freeMemory();
+            mb.freeMemory();
+        }
+
+        // frees this node after its header, including any prefix block handle, was copied to a new node
+        void freeBlock() {
             mb.freeMemory();
         }
 
@@ -1148,40 +1597,60 @@ public class LongART implements DynamicShardable<byte[]> {
             mb.setInt(PREFIX_LENGTH_OFFSET, length);
         }
 
+        // Prefixes of up to MAX_PREFIX_LENGTH bytes are stored in the node header.  A longer prefix is stored
+        // in a separate compact block, owned by the node, whose handle takes the place of the header bytes.
         byte[] getPrefix() {
             byte[] prefix = new byte[getPrefixLength()];
             if (prefix.length == 0) return prefix;
-            mb.copyToArray(COMPRESSED_PATH_OFFSET, prefix, 0, prefix.length);
+            if (prefix.length <= MAX_PREFIX_LENGTH) mb.copyToArray(COMPRESSED_PATH_OFFSET, prefix, 0, prefix.length);
+            else prefixBlock().copyToArray(0, prefix, 0, prefix.length);
             return prefix;
         }
 
+        private AnyMemoryBlock prefixBlock() {
+            return heap.compactMemoryBlockFromHandle(mb.getLong(COMPRESSED_PATH_OFFSET));
+        }
+
+        static long allocatePrefixBlock(AnyHeap heap, byte[] prefix, int start, int length) {
+            return heap.allocateCompactMemoryBlock(length, (Range range) -> {
+                range.copyFromArray(prefix, start, 0, length);
+            }).handle();
+        }
+
         void initPrefix(byte[] prefix) {
-            if (prefix.length <= 8) {
-                mb.copyFromArray(prefix, 0, COMPRESSED_PATH_OFFSET, prefix.length);
-            } else {
-                throw new IllegalArgumentException("Prefix more than 8 bytes");
-            }
+            setPrefix(prefix);
         }
 
+        // the prefix length must already be set; a prefix of at most MAX_PREFIX_LENGTH bytes may be 
+        // padded to that length
         protected void setPrefix(byte[] prefix) {
-            if (prefix.length <= 8) {
+            if (prefix.length <= MAX_PREFIX_LENGTH) {
                 mb.copyFromArray(prefix, 0, COMPRESSED_PATH_OFFSET, prefix.length);
             } else {
-                throw new IllegalArgumentException("Prefix more than 8 bytes");
+                mb.setLong(COMPRESSED_PATH_OFFSET, allocatePrefixBlock(heap, prefix, 0, prefix.length));
+            }
+        }
+
+        static void writePrefix(AnyHeap heap, Range range, byte[] prefix, int start, int prefixLen) {
+            if (prefixLen > 0) {
+                range.setInt(Node.PREFIX_LENGTH_OFFSET, prefixLen);
+                if (prefixLen <= MAX_PREFIX_LENGTH) range.copyFromArray(prefix, start, Node.COMPRESSED_PATH_OFFSET, prefixLen);
+                else range.setLong(Node.COMPRESSED_PATH_OFFSET, allocatePrefixBlock(heap, prefix, start, prefixLen));
             }
         }
 
         void updatePrefix(byte[] prefix, int start, int updatedLength) {
+            AnyMemoryBlock oldBlock = (getPrefixLength() > MAX_PREFIX_LENGTH) ? prefixBlock() : null;
             if (updatedLength <= 0) {
                 setPrefixLength(0);
-                return;
             }
-            byte[] updatedPrefix = new byte[8];
-            for (int i = 0; i < updatedLength; i++) {
-                updatedPrefix[i] = prefix[start + i];
+            else {
+                byte[] updatedPrefix = new byte[Math.max(updatedLength, MAX_PREFIX_LENGTH)];
+                System.arraycopy(prefix, start, updatedPrefix, 0, updatedLength);
+                setPrefixLength(updatedLength);
+                setPrefix(updatedPrefix);
             }
-            setPrefixLength(updatedLength);
-            setPrefix(updatedPrefix);
+            if (oldBlock != null) oldBlock.freeMemory();
         }
 
         // compares the given key to the prefix of this node starting from depth
@@ -1240,7 +1709,7 @@ public class LongART implements DynamicShardable<byte[]> {
                 }
                 intNode.printChildren(start, depth);
             } else {
-                SimpleLeaf leaf = (SimpleLeaf)this;
+                Leaf leaf = (Leaf)this;
                 System.out.println(start + "Value: " + Long.toHexString(leaf.getValue()));
             }
         }
@@ -1348,6 +1817,31 @@ public class LongART implements DynamicShardable<byte[]> {
             );
         }
 
+        // creates the smallest node type that holds childCount children, with radices in ascending order,
+        // and a blank radix child if blankChild is not 0
+        static InternalNode create(AnyHeap heap, byte[] prefix, int start, int prefixLen, byte[] radices, long[] children, int childCount, long blankChild) {
+            int total = childCount + (blankChild != 0 ? 1 : 0);
+            if (total <= Node4.MAX_CAPACITY) return new Node4(heap, prefix, start, prefixLen, radices, children, childCount, blankChild);
+            if (total <= Node16.MAX_CAPACITY) return new Node16(heap, prefix, start, prefixLen, radices, children, childCount, blankChild);
+            if (total <= Node48.MAX_CAPACITY) return new Node48(heap, prefix, start, prefixLen, radices, children, childCount, blankChild);
+            return new Node256(heap, prefix, start, prefixLen, radices, children, childCount, blankChild);
+        }
+
+        // writes the radix and child arrays of a Node4 or Node16, placing a blank radix child first
+        static void writeChildren(Range range, long radixOffset, long childrenOffset, byte[] radices, long[] children, int childCount, long blankChild) {
+            int index = 0;
+            if (blankChild != 0) {
+                range.setByte(Node.BLANK_RADIX_INDEX_OFFSET, (byte)0);
+                range.setLong(childrenOffset, blankChild);
+                index++;
+            }
+            for (int i = 0; i < childCount; i++, index++) {
+                range.setByte(radixOffset + index, radices[i]);
+                range.setLong(childrenOffset + index * Long.BYTES, children[i]);
+            }
+            range.setShort(Node.CHILDREN_COUNT_OFFSET, (short)index);
+        }
+
         // Node256 needs to override this to just check if the address for blank radix child is 0
         boolean hasBlankRadixChild() {
             return getBlankRadixIndex() != (byte)0xff;
@@ -1381,6 +1875,11 @@ public class LongART implements DynamicShardable<byte[]> {
         Leaf findBlankRadixChild() {
             return (Leaf)getChildAtIndex(getBlankRadixIndex());
         }
+
+        // replaces an existing blank radix child
+        void replaceBlankRadixChild(Leaf child) {
+            putChildAtIndex(getBlankRadixIndex(), child);
+        }
         
         /*
          * Node256 needs to override to avoid overflowing
@@ -1515,7 +2014,6 @@ public class LongART implements DynamicShardable<byte[]> {
             super(heap, size);
         }
 
-        abstract void setValue(long value);
         abstract long getValue();
 
         @Override
@@ -1524,11 +2022,15 @@ public class LongART implements DynamicShardable<byte[]> {
         }
         
         static Node prependNodes(AnyHeap heap, byte[] key, int start, int length, long value) {
+            return prependNodes(heap, key, start, length, new SimpleLeaf(heap, key, key.length - 8, Node.MAX_PREFIX_LENGTH, value));
+        }
+
+        // leaf holds the last MAX_PREFIX_LENGTH bytes of the key as its prefix
+        static Node prependNodes(AnyHeap heap, byte[] key, int start, int length, Leaf leaf) {
             int curStart = key.length - 8;
             int curLength = length;
 
-            //first create leaf
-            Node child = new SimpleLeaf(heap, key, curStart, Node.MAX_PREFIX_LENGTH, value); 
+            Node child = leaf; 
             curLength -= (Node.MAX_PREFIX_LENGTH + 1);
             curStart -= (Node.MAX_PREFIX_LENGTH + 1);
 
@@ -1547,6 +2049,116 @@ public class LongART implements DynamicShardable<byte[]> {
         }
     }
 
+    // creates and updates the leaves of a tree whose values are not stored as a long, such as LongBytesART;
+    // the long value of such a leaf identifies the leaf
+    interface LeafFactory {
+        Leaf create(AnyHeap heap, byte[] prefix, int start, int length, Object value);
+
+        // stores value in leaf, or returns a new leaf with the same prefix holding value
+        Leaf update(AnyHeap heap, Leaf leaf, Object value);
+    }
+
+    // A leaf holding a byte[] value.  Values of at most maxInlineLength bytes are stored in the leaf, in
+    // space rounded up to 8 bytes; longer values are stored in a separate compact memory block whose handle
+    // is stored in place of the data.  Given a persistent heap, updates always write a new leaf so that the
+    // old value stays intact until the parent's child pointer is switched.
+    static final class BytesLeaf extends Leaf {
+        private static final long LENGTH_OFFSET = Node.HEADER_SIZE;
+        private static final long CAPACITY_OFFSET = LENGTH_OFFSET + 4;
+        private static final long DATA_OFFSET = CAPACITY_OFFSET + 4;
+        private static final int SPILLED = -1;
+
+        BytesLeaf(AnyHeap heap, AnyMemoryBlock mb) {
+            super(heap, mb);
+        }
+
+        static BytesLeaf create(AnyHeap heap, byte[] prefix, int start, int length, byte[] value, int maxInlineLength) {
+            boolean inline = value.length <= maxInlineLength;
+            long spill = inline ? 0L : heap.allocateCompactMemoryBlock(value.length, (Range range) -> {
+                range.copyFromArray(value, 0, 0, value.length);
+            }).handle();
+            int capacity = inline ? (value.length + 7) & ~7 : SPILLED;
+            AnyMemoryBlock mb = heap.allocateCompactMemoryBlock(DATA_OFFSET + (inline ? capacity : Long.BYTES), (Range range) -> {
+                range.setByte(Node.NODE_TYPE_OFFSET, Node.BYTES_LEAF_TYPE);
+                Node.writePrefix(heap, range, prefix, start, length);
+                range.setInt(LENGTH_OFFSET, value.length);
+                range.setInt(CAPACITY_OFFSET, capacity);
+                if (!inline) range.setLong(DATA_OFFSET, spill);
+                else if (value.length > 0) range.copyFromArray(value, 0, DATA_OFFSET, value.length);
+            });
+            return new BytesLeaf(heap, mb);
+        }
+
+        int length() {
+            return mb.getInt(LENGTH_OFFSET);
+        }
+
+        boolean isInline() {
+            return mb.getInt(CAPACITY_OFFSET) != SPILLED;
+        }
+
+        private AnyMemoryBlock spillBlock() {
+            return heap.compactMemoryBlockFromHandle(mb.getLong(DATA_OFFSET));
+        }
+
+        // copies the value to dst, advancing its position
+        void copyTo(ByteBuffer dst) {
+            int length = length();
+            if (length > dst.remaining()) throw new BufferOverflowException();
+            if (length == 0) return;
+            AnyMemoryBlock block = isInline() ? mb : spillBlock();
+            long offset = isInline() ? DATA_OFFSET : 0;
+            if (dst.hasArray()) {
+                block.copyToArray(offset, dst.array(), dst.arrayOffset() + dst.position(), length);
+                dst.position(dst.position() + length);
+            }
+            else dst.put(block.asReadOnlyByteBuffer(offset, length));
+        }
+
+        ByteBuffer asReadOnlyByteBuffer() {
+            int length = length();
+            if (length == 0) return ByteBuffer.allocate(0).asReadOnlyBuffer();
+            return isInline() ? mb.asReadOnlyByteBuffer(DATA_OFFSET, length) : spillBlock().asReadOnlyByteBuffer(0, length);
+        }
+
+        // returns false if value must be stored in a new leaf
+        boolean update(byte[] value, int maxInlineLength) {
+            if (heap instanceof PersistentHeap) return false;
+            int capacity = mb.getInt(CAPACITY_OFFSET);
+            if (capacity != SPILLED) {
+                if (value.length > maxInlineLength || value.length > capacity) return false;
+                mb.withRange(LENGTH_OFFSET, DATA_OFFSET - LENGTH_OFFSET + value.length, (Range range) -> {
+                    range.setInt(LENGTH_OFFSET, value.length);
+                    if (value.length > 0) range.copyFromArray(value, 0, DATA_OFFSET, value.length);
+                });
+                return true;
+            }
+            // a spill block is reused for a value no longer than the one it holds
+            if (value.length <= maxInlineLength || value.length > length()) return false;
+            spillBlock().withRange(0, value.length, (Range range) -> {
+                range.copyFromArray(value, 0, 0, value.length);
+            });
+            mb.setInt(LENGTH_OFFSET, value.length);
+            return true;
+        }
+
+        @Override
+        long getValue() {
+            return handle();
+        }
+
+        @Override
+        void destroy(Consumer<Long> cleanerFunction) {
+            cleanerFunction.accept(getValue());
+        }
+
+        @Override
+        void free() {
+            if (!isInline()) spillBlock().freeMemory();
+            super.free();
+        }
+    }
+
     static class SimpleLeaf extends Leaf {
         protected static final long SIZE = Node.HEADER_SIZE + 8L;
         private static final long VALUE_OFFSET = Node.HEADER_SIZE;
@@ -1565,10 +2177,7 @@ public class LongART implements DynamicShardable<byte[]> {
                 //set type
                 range.setByte(Node.NODE_TYPE_OFFSET, Node.SIMPLE_LEAF_TYPE);
                 //set prefix
-                if (length > 0) {
-                    range.setInt(Node.PREFIX_LENGTH_OFFSET, length);
-                    range.copyFromArray(prefix, start, Node.COMPRESSED_PATH_OFFSET, length);
-                }
+                Node.writePrefix(heap, range, prefix, start, length);
                 range.setLong(VALUE_OFFSET, value);
             }));
         }
@@ -1590,7 +2199,6 @@ public class LongART implements DynamicShardable<byte[]> {
             return mb.getLong(VALUE_OFFSET);
         }
 
-        @Override
         void setValue(long value) {
             mb.setLong(VALUE_OFFSET, value);
         }
@@ -1618,11 +2226,7 @@ public class LongART implements DynamicShardable<byte[]> {
                 //set type
                 range.setByte(Node.NODE_TYPE_OFFSET, Node.NODE4_TYPE);
                 //set prefix
-                if (prefixLen > 0) {
-                    if (prefixLen > 8) throw new IllegalArgumentException("Prefix more than 8 bytes");
-                    range.setInt(Node.PREFIX_LENGTH_OFFSET, prefixLen);
-                    range.copyFromArray(prefix, start, Node.COMPRESSED_PATH_OFFSET, prefixLen);
-                }
+                Node.writePrefix(heap, range, prefix, start, prefixLen);
                 //set radix
                 range.setByte(RADIX_OFFSET, radix);
                 //set value
@@ -1637,11 +2241,7 @@ public class LongART implements DynamicShardable<byte[]> {
                 //set type
                 range.setByte(Node.NODE_TYPE_OFFSET, Node.NODE4_TYPE);
                 //set prefix
-                if (prefixLen > 0) {
-                    if (prefixLen > 8) throw new IllegalArgumentException("Prefix more than 8 bytes");
-                    range.setInt(Node.PREFIX_LENGTH_OFFSET, prefixLen);
-                    range.copyFromArray(prefix, 0, Node.COMPRESSED_PATH_OFFSET, prefixLen);
-                }
+                Node.writePrefix(heap, range, prefix, 0, prefixLen);
                 //set radix
                 if (blank) range.setByte(Node.BLANK_RADIX_INDEX_OFFSET, (byte)0);
                 else range.setByte(RADIX_OFFSET, radix1);
@@ -1654,6 +2254,14 @@ public class LongART implements DynamicShardable<byte[]> {
             });
         }
 
+        Node4(AnyHeap heap, byte[] prefix, int start, int prefixLen, byte[] radices, long[] children, int childCount, long blankChild) {
+            super(heap, SIZE, (Range range) -> {
+                range.setByte(Node.NODE_TYPE_OFFSET, Node.NODE4_TYPE);
+                Node.writePrefix(heap, range, prefix, start, prefixLen);
+                InternalNode.writeChildren(range, RADIX_OFFSET, CHILDREN_OFFSET, radices, children, childCount, blankChild);
+            });
+        }
+
         Node4 (AnyHeap heap, AnyMemoryBlock mb) {
             super(heap, mb);
         }
@@ -1726,6 +2334,8 @@ public class LongART implements DynamicShardable<byte[]> {
                         range.setLong(CHILDREN_OFFSET + index * Long.BYTES, mb.getLong(CHILDREN_OFFSET + childrenCount * Long.BYTES));
                         range.setLong(CHILDREN_OFFSET + childrenCount * Long.BYTES, 0L);
                         range.setByte(RADIX_OFFSET + index, mb.getByte(RADIX_OFFSET + childrenCount));
+                        // the moved child may be the blank radix child
+                        if (getBlankRadixIndex() == childrenCount) setBlankRadixIndex((byte)index);
                     }
                     range.setByte(RADIX_OFFSET + childrenCount, (byte)0);
                 });
@@ -1795,6 +2405,10 @@ public class LongART implements DynamicShardable<byte[]> {
         private static final long RADIX_OFFSET = Node.HEADER_SIZE;
         static final long CHILDREN_OFFSET = Node.HEADER_SIZE + 16L;
         private static final int  MAX_CAPACITY = 16;
+        // the 16 radix bytes are matched eight lanes at a time; lane i of a word is radix byte i
+        private static final boolean BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+        private static final long LANE_ONES = 0x0101010101010101L;
+        private static final long LANE_LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
 
         Node16(AnyHeap heap, AnyMemoryBlock mb) {
             super(heap, mb);
@@ -1806,24 +2420,47 @@ public class LongART implements DynamicShardable<byte[]> {
             });
         }
 
+        Node16(AnyHeap heap, byte[] prefix, int start, int prefixLen, byte[] radices, long[] children, int childCount, long blankChild) {
+            super(heap, SIZE, (Range range) -> {
+                range.setByte(Node.NODE_TYPE_OFFSET, Node.NODE16_TYPE);
+                Node.writePrefix(heap, range, prefix, start, prefixLen);
+                InternalNode.writeChildren(range, RADIX_OFFSET, CHILDREN_OFFSET, radices, children, childCount, blankChild);
+            });
+        }
+
         Node16(AnyHeap heap, Node4 oldNode, Node newNode, Optional<Byte> radix) {
             super(heap, SIZE, (Range range) -> {
             // offset is 1 to skip the TYPE field that's already set
                 range.setByte(NODE_TYPE_OFFSET, Node.NODE16_TYPE);
                 range.copyFromMemoryBlock(oldNode.mb, 1, 1, Node.HEADER_SIZE - 1);
-                range.copyFromMemoryBlock(oldNode.mb, Node4.RADIX_OFFSET, RADIX_OFFSET, oldNode.capacity());
-                range.copyFromMemoryBlock(oldNode.mb, Node4.CHILDREN_OFFSET, Node16.CHILDREN_OFFSET, oldNode.capacity() * Long.BYTES);
-
-                //set radix
-                if (radix.isPresent()) range.setByte(RADIX_OFFSET + 4, radix.get());
-                else range.setByte(Node.BLANK_RADIX_INDEX_OFFSET, (byte)4);
-                //set value
-                range.setLong(CHILDREN_OFFSET + 4 * Long.BYTES, newNode.handle()); 
-                //set childrencount
-                range.setShort(InternalNode.CHILDREN_COUNT_OFFSET, (short)(4 + 1));
+                // Node4 radices are unordered; write the children in radix order, with any blank child first
+                byte[] oldRadices = oldNode.getRadices();
+                int blankIndex = oldNode.getBlankRadixIndex();
+                byte[] radices = new byte[oldRadices.length + 1];
+                long[] children = new long[oldRadices.length + 1];
+                long blankChild = radix.isPresent() ? 0 : newNode.handle();
+                int count = 0;
+                for (int i = 0; i < oldRadices.length; i++) {
+                    if (i == blankIndex) blankChild = oldNode.findValueAtIndex(i);
+                    else count = insertSorted(radices, children, count, oldRadices[i], oldNode.findValueAtIndex(i));
+                }
+                if (radix.isPresent()) count = insertSorted(radices, children, count, radix.get(), newNode.handle());
+                InternalNode.writeChildren(range, RADIX_OFFSET, CHILDREN_OFFSET, radices, children, count, blankChild);
             });
         }
 
+        // inserts radix and child into the first count elements of the arrays, keeping them in radix order
+        private static int insertSorted(byte[] radices, long[] children, int count, byte radix, long child) {
+            int i = count;
+            for (; i > 0 && LongART.compareUnsigned(radices[i - 1], radix) > 0; i--) {
+                radices[i] = radices[i - 1];
+                children[i] = children[i - 1];
+            }
+            radices[i] = radix;
+            children[i] = child;
+            return count + 1;
+        }
+
         Node16 duplicate() {
             AnyMemoryBlock dmb = heap.allocateCompactMemoryBlock(SIZE, (Range rng) -> {
                 rng.copyFromMemoryBlock(this.mb, 0, 0, SIZE);
@@ -1847,30 +2484,43 @@ public class LongART implements DynamicShardable<byte[]> {
             if (blankIndex != -1) {
                 entries[index++] = new NodeEntry((byte)0, getChildAtIndex(blankIndex));
             }
+            int first = index;
+            boolean sorted = true;
             for (int i=0; i < entries.length; i++) {
-                if (i != blankIndex) entries[index++] = new NodeEntry(radices[i], getChildAtIndex(i));
+                if (i == blankIndex) continue;
+                if (index > first && LongART.compareUnsigned(entries[index - 1].radix, radices[i]) > 0) sorted = false;
+                entries[index++] = new NodeEntry(radices[i], getChildAtIndex(i));
             }
-            Arrays.sort(entries, (blankIndex != -1) ? 1 : 0, entries.length, (x, y)-> LongART.compareUnsigned(x.radix, y.radix));
+            // radices are kept in order as children are added, but nodes written by earlier versions may be unordered
+            if (!sorted) Arrays.sort(entries, first, entries.length, (x, y)-> LongART.compareUnsigned(x.radix, y.radix));
             return entries;
         }
 
-        void addRadix(byte radix, int index) {
-            mb.setByte(RADIX_OFFSET + index, radix);
-        }
-
         @Override
         boolean addChild(byte radix, Node node) {
             int index = findChildIndex(radix);
-            if (index == -1) {
-                if (getChildrenCount() >= MAX_CAPACITY) {
-                    return false;   // need to grow, out of capacity
-                } else {
-                    index = getChildrenCount();
-                    incChildrenCount();
-                    addRadix(radix, index);
-                }
+            if (index != -1) {
+                putChildAtIndex(index, node);
+                return true;
             }
-            putChildAtIndex(index, node);
+            int childrenCount = getChildrenCount();
+            if (childrenCount >= MAX_CAPACITY) return false;   // need to grow, out of capacity
+            byte[] radices = getRadices();
+            int blankIndex = getBlankRadixIndex();
+            int position = 0;
+            while (position < childrenCount && (position == blankIndex || LongART.compareUnsigned(radices[position], radix) < 0)) position++;
+            final int insertAt = position;
+            mb.withRange(0, SIZE, (Range range) -> {
+                // shift the following children up one slot to keep the radices in order
+                for (int i = childrenCount; i > insertAt; i--) {
+                    range.setByte(RADIX_OFFSET + i, radices[i - 1]);
+                    range.setLong(CHILDREN_OFFSET + i * Long.BYTES, mb.getLong(CHILDREN_OFFSET + (i - 1) * Long.BYTES));
+                }
+                if (blankIndex >= insertAt) range.setByte(Node.BLANK_RADIX_INDEX_OFFSET, (byte)(blankIndex + 1));
+                range.setByte(RADIX_OFFSET + insertAt, radix);
+                range.setLong(CHILDREN_OFFSET + insertAt * Long.BYTES, node.handle());
+                range.setShort(InternalNode.CHILDREN_COUNT_OFFSET, (short)(childrenCount + 1));
+            });
             return true;
         }
 
@@ -1883,34 +2533,51 @@ public class LongART implements DynamicShardable<byte[]> {
             else index = findChildIndex(radix);
 
             if (index != -1) {
-                mb.withRange(Node.HEADER_SIZE, this.SIZE - Node.HEADER_SIZE, (Range range) -> {
-                    decChildrenCount();
-                    int childrenCount = getChildrenCount();
-                    if (childrenCount == index) {
-                        range.setLong(CHILDREN_OFFSET + childrenCount * Long.BYTES, 0L);
-                    }
-                    else {
-                        range.setLong(CHILDREN_OFFSET + index * Long.BYTES, mb.getLong(CHILDREN_OFFSET + childrenCount * Long.BYTES));
-                        range.setLong(CHILDREN_OFFSET + childrenCount * Long.BYTES, 0L);
-                        range.setByte(RADIX_OFFSET + index, mb.getByte(RADIX_OFFSET + childrenCount));
+                int childrenCount = getChildrenCount() - 1;
+                int blankIndex = getBlankRadixIndex();
+                mb.withRange(0, SIZE, (Range range) -> {
+                    // shift the following children down one slot to keep the radices in order
+                    for (int i = index; i < childrenCount; i++) {
+                        range.setByte(RADIX_OFFSET + i, mb.getByte(RADIX_OFFSET + i + 1));
+                        range.setLong(CHILDREN_OFFSET + i * Long.BYTES, mb.getLong(CHILDREN_OFFSET + (i + 1) * Long.BYTES));
                     }
+                    if (blankIndex > index) range.setByte(Node.BLANK_RADIX_INDEX_OFFSET, (byte)(blankIndex - 1));
                     range.setByte(RADIX_OFFSET + childrenCount, (byte)0);
+                    range.setLong(CHILDREN_OFFSET + childrenCount * Long.BYTES, 0L);
+                    range.setShort(InternalNode.CHILDREN_COUNT_OFFSET, (short)childrenCount);
                 });
             }
         }
-     
+
         // returns -1 if no valid child found at given index
         @Override
         int findChildIndex(byte radix) { // ignores blankRadixIndex
-            byte[] radices = getRadices();
-            int blankIndex = (int)getBlankRadixIndex();
-            for (int i = 0; i < radices.length; i++) {
-                if (i == blankIndex) continue;
-                if (radices[i] == radix) return i;
-            }
+            int childrenCount = getChildrenCount();
+            if (childrenCount == 0) return -1;
+            long pattern = LANE_ONES * Byte.toUnsignedLong(radix);
+            long low = zeroLanes(radixWord(RADIX_OFFSET) ^ pattern);
+            long high = childrenCount > 8 ? zeroLanes(radixWord(RADIX_OFFSET + Long.BYTES) ^ pattern) : 0L;
+            // ignore the lanes past the children count and the lane of the blank radix child
+            if (childrenCount < 8) low &= (1L << (childrenCount * 8)) - 1;
+            else if (childrenCount < 16) high &= (1L << ((childrenCount - 8) * 8)) - 1;
+            int blankIndex = getBlankRadixIndex();
+            if (blankIndex >= 8) high &= ~(0xffL << ((blankIndex - 8) * 8));
+            else if (blankIndex >= 0) low &= ~(0xffL << (blankIndex * 8));
+            if (low != 0) return Long.numberOfTrailingZeros(low) >>> 3;
+            if (high != 0) return 8 + (Long.numberOfTrailingZeros(high) >>> 3);
             return -1;
         }
 
+        private long radixWord(long offset) {
+            long word = mb.getLong(offset);
+            return BIG_ENDIAN ? Long.reverseBytes(word) : word;
+        }
+
+        // sets the high bit of each lane of word whose byte is zero, and clears all other bits
+        private static long zeroLanes(long word) {
+            return ~(((word & LANE_LOW_BITS) + LANE_LOW_BITS) | word | LANE_LOW_BITS);
+        }
+
         // returns 0 if index is -1 or no valid value exists at given index
         @Override
         protected long findValueAtIndex(int index) {
@@ -1977,6 +2644,24 @@ public class LongART implements DynamicShardable<byte[]> {
             });
         }
 
+        Node48(AnyHeap heap, byte[] prefix, int start, int prefixLen, byte[] radices, long[] children, int childCount, long blankChild) {
+            super(heap, SIZE, (Range range) -> {
+                range.setByte(Node.NODE_TYPE_OFFSET, Node.NODE48_TYPE);
+                Node.writePrefix(heap, range, prefix, start, prefixLen);
+                int index = 0;
+                if (blankChild != 0) {
+                    range.setByte(Node.BLANK_RADIX_INDEX_OFFSET, (byte)0);
+                    range.setLong(CHILDREN_OFFSET, blankChild);
+                    index++;
+                }
+                for (int i = 0; i < childCount; i++, index++) {
+                    range.setByte(RADIX_OFFSET + Byte.toUnsignedInt(radices[i]), (byte)(index + 1));
+                    range.setLong(CHILDREN_OFFSET + index * Long.BYTES, children[i]);
+                }
+                range.setShort(InternalNode.CHILDREN_COUNT_OFFSET, (short)index);
+            });
+        }
+
         Node48(AnyHeap heap, Node16 oldNode, Node newNode, Optional<Byte> radix) {
             super(heap, SIZE, (Range range) -> {
             // offset is 1 to skip the TYPE field that's already set
@@ -2082,6 +2767,8 @@ public class LongART implements DynamicShardable<byte[]> {
                     else {
                         range.setLong(CHILDREN_OFFSET + index * Long.BYTES, mb.getLong(CHILDREN_OFFSET + childrenCount * Long.BYTES));
                         range.setLong(CHILDREN_OFFSET + childrenCount * Long.BYTES, 0L);
+                        // the moved child may be the blank radix child
+                        if (getBlankRadixIndex() == childrenCount) range.setByte(BLANK_RADIX_INDEX_OFFSET, (byte)index);
                         //update radix of most recent child
                         byte[] radices = getRadices();
                         for (int i = 0; i < radices.length; i++) {
@@ -2208,6 +2895,18 @@ public class LongART implements DynamicShardable<byte[]> {
             });
         }
 
+        Node256(AnyHeap heap, byte[] prefix, int start, int prefixLen, byte[] radices, long[] children, int childCount, long blankChild) {
+            super(heap, SIZE, (Range range) -> {
+                range.setByte(Node.NODE_TYPE_OFFSET, Node.NODE256_TYPE);
+                Node.writePrefix(heap, range, prefix, start, prefixLen);
+                for (int i = 0; i < childCount; i++) {
+                    range.setLong(CHILDREN_OFFSET + Byte.toUnsignedInt(radices[i]) * Long.BYTES, children[i]);
+                }
+                if (blankChild != 0) range.setLong(CHILDREN_OFFSET + BLANK_RADIX_CHILD_INDEX * Long.BYTES, blankChild);
+                range.setShort(InternalNode.CHILDREN_COUNT_OFFSET, (short)(childCount + (blankChild != 0 ? 1 : 0)));
+            });
+        }
+
         Node256(AnyHeap heap, Node48 oldNode, Node newNode, Optional<Byte> radix) {
             super(heap, SIZE, (Range range) -> {
             // offset is 1 to skip the TYPE field that's already set
@@ -2251,6 +2950,11 @@ public class LongART implements DynamicShardable<byte[]> {
             return (val == 0) ? null : (Leaf)Node.rebuild(heap, val);
         }
 
+        @Override
+        void replaceBlankRadixChild(Leaf child) {
+            putChildAtIndex(BLANK_RADIX_CHILD_INDEX, child);
+        }
+
         @Override
         boolean addBlankRadixChild(Leaf child) {
             if (hasBlankRadixChild()) {
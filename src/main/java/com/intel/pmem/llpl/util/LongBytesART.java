@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl.util;
+
+import com.intel.pmem.llpl.AnyHeap;
+import com.intel.pmem.llpl.AnyMemoryBlock;
+import com.intel.pmem.llpl.HeapException;
+import com.intel.pmem.llpl.Range;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.function.BiFunction;
+
+/**
+ * An implementation of an Adaptive Radix Tree that uses {@code byte[]} for keys and {@code byte[]} for values.
+ * Values of up to a maximum inline length, fixed when the tree is created, are stored in the tree's leaves,
+ * so that reading such a value needs no access beyond the leaf and writing it needs no separate allocation.
+ * Longer values are stored in a separate memory block owned by the leaf.  Values can be copied out or read
+ * in place through a read-only {@code ByteBuffer}.<br><br>
+ * The radix tree can be created using different heap types. Given a persistent heap, the radix tree will store
+ * values durably, and given a transactional heap, it will store values transactionally.<br><br>
+ * <b>This implementation is not thread-safe.</b> If multiple threads access a tree, and one or more of them modifies
+ * the tree, then it must be synchronized externally.
+ * @since 1.3
+ */
+public class LongBytesART {
+    private static final short VERSION = 100;
+    private static final long VERSION_OFFSET = 0;
+    private static final long MAX_INLINE_LENGTH_OFFSET = 4;
+    private static final long TREE_OFFSET = 8;
+    private static final long HEADER_SIZE = 16;
+    // leaf values are supplied by the leaf factory, so the merge result is not used
+    private static final BiFunction<Object, Long, Long> IGNORE = (Object newValue, Long oldValue) -> 0L;
+
+    private final AnyHeap heap;
+    private final AnyMemoryBlock header;
+    private final int maxInlineLength;
+    private final LongART tree;
+
+    /**
+     * Creates a new radix tree.
+     * The semantics of this method depend on the heap supplied.
+     * Given a persistent heap, the radix tree will store values durably, and given
+     * a transactional heap will store values transactionally. To reaccess this radix tree, for
+     * example after a restart, call {@link LongBytesART#fromHandle(AnyHeap, long)}
+     * @param heap the heap on which to allocate the radix tree
+     * @param maxInlineLength the maximum length of a value stored in a leaf; longer values are
+     * stored in a separate memory block
+     * @throws IllegalArgumentException if {@code maxInlineLength} is negative
+     * @throws HeapException if the radix tree could not be created
+     */
+    public LongBytesART(AnyHeap heap, int maxInlineLength) {
+        if (maxInlineLength < 0) throw new IllegalArgumentException("Invalid maximum inline length: " + maxInlineLength);
+        this.heap = heap;
+        this.maxInlineLength = maxInlineLength;
+        LongART[] t = new LongART[1];
+        this.header = heap.execute(() -> {
+            t[0] = new LongART(heap, new LeafFactory(maxInlineLength));
+            return heap.allocateCompactMemoryBlock(HEADER_SIZE, (Range range) -> {
+                range.setShort(VERSION_OFFSET, VERSION);
+                range.setInt(MAX_INLINE_LENGTH_OFFSET, maxInlineLength);
+                range.setLong(TREE_OFFSET, t[0].handle());
+            });
+        });
+        this.tree = t[0];
+    }
+
+    private LongBytesART(AnyHeap heap, long handle) {
+        if (handle <= 0) throw new IllegalArgumentException("Invalid artree handle: " + handle);
+        this.heap = heap;
+        this.header = heap.compactMemoryBlockFromHandle(handle);
+        if (header.getShort(VERSION_OFFSET) != VERSION) throw new HeapException("Failed to reaccess tree with supplied handle");
+        this.maxInlineLength = header.getInt(MAX_INLINE_LENGTH_OFFSET);
+        this.tree = new LongART(heap, header.getLong(TREE_OFFSET), new LeafFactory(maxInlineLength));
+    }
+
+    /**
+     * Returns a previously created radix tree that is associated with the supplied handle.
+     * The {@code handle} must be that of a radix tree created on the supplied heap.
+     * @param heap the heap from which to retrieve the radix tree
+     * @param handle the handle of a previously-created radix tree
+     * @return the radix tree
+     * @throws HeapException if the radix tree could not be reaccessed
+     * @throws IllegalArgumentException if {@code handle} is not valid
+     */
+    public static LongBytesART fromHandle(AnyHeap heap, long handle) {
+        return new LongBytesART(heap, handle);
+    }
+
+    /**
+     * Returns a handle to this radix tree. This stable value can be stored and used later to regain
+     * access to the radix tree.
+     * @return a handle to this radix tree
+     */
+    public long handle() {
+        return header.handle();
+    }
+
+    /**
+     * Returns the maximum length of a value stored in a leaf of this radix tree.
+     * @return the maximum inline value length
+     */
+    public int maxInlineLength() {
+        return maxInlineLength;
+    }
+
+    /**
+     * Returns the number of entries in this radix tree.
+     * @return the number of entries
+     */
+    public long size() {
+        return tree.size();
+    }
+
+    /**
+     * Maps the specified key to a copy of the specified value.
+     * If a mapping already exists for the specified key, the value is replaced.
+     * @param key the key to which the specified value is to be mapped
+     * @param value the value to be mapped to the specified key
+     * @return true if a mapping already existed for the specified key
+     * @throws IllegalArgumentException if the supplied value is null or the supplied key
+     * is null or has zero length
+     */
+    public boolean put(byte[] key, byte[] value) {
+        if (value == null) throw new IllegalArgumentException("value cannot be null");
+        return tree.put(key, value, IGNORE) != 0;
+    }
+
+    /**
+     * Copies the value to which the specified key is mapped into {@code dst}, starting at its current position.
+     * The position of {@code dst} is advanced by the length of the value.
+     * @param key the key whose value is to be copied
+     * @param dst the buffer into which the value is to be copied
+     * @return the length of the value, or -1 if there is no mapping for the key
+     * @throws IllegalArgumentException if the supplied key is null or has zero length
+     * @throws BufferOverflowException if the value is longer than the bytes remaining in {@code dst};
+     * no bytes are copied
+     */
+    public int get(byte[] key, ByteBuffer dst) {
+        LongART.BytesLeaf leaf = findLeaf(key);
+        if (leaf == null) return -1;
+        leaf.copyTo(dst);
+        return leaf.length();
+    }
+
+    /**
+     * Returns a read-only view of the value to which the specified key is mapped.  No bytes are copied;
+     * the buffer reads the heap directly.  The buffer must not be used after the mapping is replaced or
+     * removed, or after the heap is closed.
+     * @param key the key whose value is to be returned
+     * @return a read-only buffer holding the value, or null if there is no mapping for the key
+     * @throws IllegalArgumentException if the supplied key is null or has zero length
+     */
+    public ByteBuffer getBuffer(byte[] key) {
+        LongART.BytesLeaf leaf = findLeaf(key);
+        return leaf == null ? null : leaf.asReadOnlyByteBuffer();
+    }
+
+    private LongART.BytesLeaf findLeaf(byte[] key) {
+        long handle = tree.get(key);
+        return handle == 0 ? null : new LongART.BytesLeaf(heap, heap.compactMemoryBlockFromHandle(handle));
+    }
+
+    /**
+     * Removes the mapping for the specified key from this radix tree if present, freeing the value's memory.
+     * @param key the key whose mapping is to be removed
+     * @return true if a mapping was removed
+     * @throws IllegalArgumentException if the supplied key is null or has zero length
+     */
+    public boolean remove(byte[] key) {
+        // the value of a leaf is its handle, which is never zero
+        return tree.remove(key, (Long value) -> {}) != 0;
+    }
+
+    /**
+     * Removes all of the entries in this radix tree.
+     */
+    public void clear() {
+        tree.clear((Long value) -> {});
+    }
+
+    /**
+     * Deallocates the memory used by this radix tree, including the memory of all of its entries.
+     * @throws HeapException if the radix tree could not be freed
+     */
+    public void free() {
+        heap.execute(() -> {
+            tree.clear((Long value) -> {});
+            tree.free();
+            header.freeMemory();
+        });
+    }
+
+    private static final class LeafFactory implements LongART.LeafFactory {
+        private final int maxInlineLength;
+
+        LeafFactory(int maxInlineLength) {
+            this.maxInlineLength = maxInlineLength;
+        }
+
+        @Override
+        public LongART.Leaf create(AnyHeap heap, byte[] prefix, int start, int length, Object value) {
+            return LongART.BytesLeaf.create(heap, prefix, start, length, (byte[])value, maxInlineLength);
+        }
+
+        @Override
+        public LongART.Leaf update(AnyHeap heap, LongART.Leaf leaf, Object value) {
+            byte[] bytes = (byte[])value;
+            if (((LongART.BytesLeaf)leaf).update(bytes, maxInlineLength)) return leaf;
+            byte[] prefix = leaf.getPrefix();
+            return LongART.BytesLeaf.create(heap, prefix, 0, prefix.length, bytes, maxInlineLength);
+        }
+    }
+}
@@ -0,0 +1,800 @@
+/*
+ * Copyright (C) 2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl.util;
+
+import com.intel.pmem.llpl.AnyAccessor;
+import com.intel.pmem.llpl.AnyHeap;
+import com.intel.pmem.llpl.AnyMemoryBlock;
+import com.intel.pmem.llpl.HeapException;
+import com.intel.pmem.llpl.MemoryAccessor;
+import com.intel.pmem.llpl.Range;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An implementation of an Adaptive Radix Tree that uses {@code long} for keys and {@code long} for values.
+ * Keys are decomposed into their eight bytes, most significant first, with the sign bit flipped so that
+ * the tree's order is the numeric order of the keys; iteration and range scans therefore return keys
+ * in ascending numeric order.  Inner nodes store the key bytes above their depth, so that sparse key
+ * ranges are not expanded into chains of single-child nodes.<br><br>
+ * Unlike {@link LongART}, operations on this tree do not encode keys into {@code byte[]} objects, and
+ * iteration is done with primitive iterators or a {@link LongLongART.Cursor}, which do not create an
+ * object per entry.  Nodes are read through accessors that each thread reuses, so lookups, and updates
+ * that do not change the tree's structure, do not allocate.<br><br>
+ * The radix tree can be created using different heap types. Given a persistent heap, the radix tree will store
+ * values durably, and given a transactional heap, it will store values transactionally.<br><br>
+ * <b>This implementation is not thread-safe.</b> If multiple threads access a tree, and one or more of them modifies
+ * the tree, then it must be synchronized externally.
+ * @since 1.3
+ */
+public class LongLongART {
+    private static final short VERSION = 100;
+    private static final long VERSION_OFFSET = 0;
+    private static final long COUNT_OFFSET = 8;
+    private static final long ROOT_OFFSET = 16;
+    private static final long HEADER_SIZE = 24;
+
+    // common node layout
+    private static final long TYPE_OFFSET = 0;
+    private static final long DEPTH_OFFSET = 1;
+    private static final long CHILDREN_COUNT_OFFSET = 2;
+    private static final long PREFIX_OFFSET = 8;
+    private static final long RADICES_OFFSET = 16;
+
+    private static final byte LEAF = 1;
+    private static final byte NODE4 = 2;
+    private static final byte NODE16 = 3;
+    private static final byte NODE48 = 4;
+    private static final byte NODE256 = 5;
+
+    // leaves hold the full key, so they can be stored at any depth
+    private static final long LEAF_KEY_OFFSET = 8;
+    private static final long LEAF_VALUE_OFFSET = 16;
+    private static final long LEAF_SIZE = 24;
+    // Node4 and Node16 keep their radices sorted; Node48 maps each radix to a child slot plus one
+    private static final long NODE4_CHILDREN_OFFSET = 24;
+    private static final long NODE4_SIZE = NODE4_CHILDREN_OFFSET + 4 * Long.BYTES;
+    private static final long NODE16_CHILDREN_OFFSET = 32;
+    private static final long NODE16_SIZE = NODE16_CHILDREN_OFFSET + 16 * Long.BYTES;
+    private static final long NODE48_CHILDREN_OFFSET = RADICES_OFFSET + 256;
+    private static final long NODE48_SIZE = NODE48_CHILDREN_OFFSET + 48 * Long.BYTES;
+    private static final long NODE256_CHILDREN_OFFSET = RADICES_OFFSET;
+    private static final long NODE256_SIZE = NODE256_CHILDREN_OFFSET + 256 * Long.BYTES;
+    // a node is shrunk to the next smaller type when its child count falls to these values
+    private static final int NODE16_SHRINK_COUNT = 3;
+    private static final int NODE48_SHRINK_COUNT = 12;
+    private static final int NODE256_SHRINK_COUNT = 40;
+
+    private final AnyHeap heap;
+    private final AnyMemoryBlock header;
+    // an operation refers to at most three nodes at once: a node, its child, and the node whose slot holds it
+    private final ThreadLocal<AnyAccessor[]> accessors;
+
+    /**
+     * Creates a new radix tree.
+     * The semantics of this method depend on the heap supplied.
+     * Given a persistent heap, the radix tree will store values durably, and given
+     * a transactional heap will store values transactionally. To reaccess this radix tree, for
+     * example after a restart, call {@link LongLongART#fromHandle(AnyHeap, long)}
+     * @param heap the heap on which to allocate the radix tree
+     * @throws HeapException if the radix tree could not be created
+     */
+    public LongLongART(AnyHeap heap) {
+        registerAllocationClasses(heap);
+        this.heap = heap;
+        this.header = heap.allocateCompactMemoryBlock(HEADER_SIZE, (Range range) -> {
+            range.setShort(VERSION_OFFSET, VERSION);
+        });
+        this.accessors = createAccessors(heap);
+    }
+
+    private LongLongART(AnyHeap heap, long handle) {
+        if (handle <= 0) throw new IllegalArgumentException("Invalid artree handle: " + handle);
+        registerAllocationClasses(heap);
+        this.heap = heap;
+        this.header = heap.compactMemoryBlockFromHandle(handle);
+        if (header.getShort(VERSION_OFFSET) != VERSION) throw new HeapException("Failed to reaccess tree with supplied handle");
+        this.accessors = createAccessors(heap);
+    }
+
+    private static ThreadLocal<AnyAccessor[]> createAccessors(AnyHeap heap) {
+        return ThreadLocal.withInitial(() -> new AnyAccessor[] {heap.createCompactAccessor(), heap.createCompactAccessor(), heap.createCompactAccessor()});
+    }
+
+    private static void registerAllocationClasses(AnyHeap heap) {
+        heap.registerAllocationSize(LEAF_SIZE, true);
+        heap.registerAllocationSize(NODE4_SIZE, true);
+        heap.registerAllocationSize(NODE16_SIZE, true);
+        heap.registerAllocationSize(NODE48_SIZE, true);
+        heap.registerAllocationSize(NODE256_SIZE, true);
+    }
+
+    /**
+     * Returns a previously created radix tree that is associated with the supplied handle.
+     * The {@code handle} must be that of a radix tree created on the supplied heap.
+     * @param heap the heap from which to retrieve the radix tree
+     * @param handle the handle of a previously-created radix tree
+     * @return the radix tree
+     * @throws HeapException if the radix tree could not be reaccessed
+     * @throws IllegalArgumentException if {@code handle} is not valid
+     */
+    public static LongLongART fromHandle(AnyHeap heap, long handle) {
+        return new LongLongART(heap, handle);
+    }
+
+    /**
+     * Returns a handle to this radix tree. This stable value can be stored and used later to regain
+     * access to the radix tree.
+     * @return a handle to this radix tree
+     */
+    public long handle() {
+        return header.handle();
+    }
+
+    /**
+     * Returns the number of entries in this radix tree.
+     * @return the number of entries
+     */
+    public long size() {
+        return header.getLong(COUNT_OFFSET);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     * @param key the key whose value is to be returned
+     * @return the value to which the specified key is mapped, or zero if there is no mapping for the key
+     */
+    public long get(long key) {
+        AnyAccessor leaf = findLeaf(key ^ Long.MIN_VALUE);
+        return leaf == null ? 0 : leaf.getLong(LEAF_VALUE_OFFSET);
+    }
+
+    /**
+     * Returns true if this radix tree contains a mapping for the specified key.
+     * @param key the key whose presence is to be tested
+     * @return true if a mapping exists for the specified key
+     */
+    public boolean containsKey(long key) {
+        return findLeaf(key ^ Long.MIN_VALUE) != null;
+    }
+
+    // returns this thread's accessor positioned on the leaf holding k, or null if there is none
+    private AnyAccessor findLeaf(long k) {
+        AnyAccessor node = accessors.get()[0];
+        long handle = header.getLong(ROOT_OFFSET);
+        while (handle != 0) {
+            node.handle(handle);
+            if (node.getByte(TYPE_OFFSET) == LEAF) return node.getLong(LEAF_KEY_OFFSET) == k ? node : null;
+            int depth = node.getByte(DEPTH_OFFSET);
+            if ((k & prefixMask(depth)) != node.getLong(PREFIX_OFFSET)) return null;
+            long offset = childOffset(node, radix(k, depth));
+            if (offset < 0) return null;
+            handle = node.getLong(offset);
+        }
+        return null;
+    }
+
+    /**
+     * Maps the specified key to the specified value.
+     * If a mapping already exists for the specified key, the value is replaced.
+     * @param key the key to which the specified value is to be mapped
+     * @param value the value to be mapped to the specified key
+     * @return the previous value mapped to the specified key, or zero if there is no previous mapping
+     */
+    public long put(long key, long value) {
+        long k = key ^ Long.MIN_VALUE;
+        AnyAccessor[] a = accessors.get();
+        return heap.execute(() -> {
+            // the slot holding the handle of the current node
+            MemoryAccessor owner = header;
+            long slot = ROOT_OFFSET;
+            AnyAccessor node = a[0];
+            while (true) {
+                long handle = owner.getLong(slot);
+                if (handle == 0) {
+                    owner.setLong(slot, createLeaf(k, value));
+                    incrementCount();
+                    return 0L;
+                }
+                node.handle(handle);
+                // the leaf's key or the inner node's prefix, which differs from the key above the node's depth
+                long nodeKey;
+                if (node.getByte(TYPE_OFFSET) == LEAF) {
+                    nodeKey = node.getLong(LEAF_KEY_OFFSET);
+                    if (nodeKey == k) {
+                        long old = node.getLong(LEAF_VALUE_OFFSET);
+                        node.setLong(LEAF_VALUE_OFFSET, value);
+                        return old;
+                    }
+                }
+                else {
+                    nodeKey = node.getLong(PREFIX_OFFSET);
+                    int depth = node.getByte(DEPTH_OFFSET);
+                    long masked = k & prefixMask(depth);
+                    if (masked == nodeKey) {
+                        int radix = radix(k, depth);
+                        long offset = childOffset(node, radix);
+                        if (offset >= 0 && node.getLong(offset) != 0) {
+                            AnyAccessor next = node == a[0] ? a[1] : a[0];
+                            owner = node;
+                            slot = offset;
+                            node = next;
+                            continue;
+                        }
+                        long grown = addChild(node, radix, createLeaf(k, value));
+                        if (grown != handle) owner.setLong(slot, grown);
+                        incrementCount();
+                        return 0L;
+                    }
+                }
+                // the key leaves the path of this node at the first byte where they differ
+                int splitDepth = Long.numberOfLeadingZeros(nodeKey ^ k) / Byte.SIZE;
+                long leaf = createLeaf(k, value);
+                int oldRadix = radix(nodeKey, splitDepth);
+                int newRadix = radix(k, splitDepth);
+                int[] radices = oldRadix < newRadix ? new int[] {oldRadix, newRadix} : new int[] {newRadix, oldRadix};
+                long[] children = oldRadix < newRadix ? new long[] {handle, leaf} : new long[] {leaf, handle};
+                owner.setLong(slot, createNode(NODE4, splitDepth, k & prefixMask(splitDepth), radices, children, 2));
+                incrementCount();
+                return 0L;
+            }
+        });
+    }
+
+    /**
+     * Removes the mapping for the specified key from this radix tree if present.
+     * @param key the key whose mapping is to be removed
+     * @return the removed value, or zero if there was no mapping for the key
+     */
+    public long remove(long key) {
+        long k = key ^ Long.MIN_VALUE;
+        AnyAccessor[] a = accessors.get();
+        return heap.execute(() -> {
+            long handle = header.getLong(ROOT_OFFSET);
+            if (handle == 0) return 0L;
+            AnyAccessor node = a[0];
+            node.handle(handle);
+            if (node.getByte(TYPE_OFFSET) == LEAF) {
+                if (node.getLong(LEAF_KEY_OFFSET) != k) return 0L;
+                long value = node.getLong(LEAF_VALUE_OFFSET);
+                header.setLong(ROOT_OFFSET, 0L);
+                node.freeMemory();
+                decrementCount();
+                return value;
+            }
+            // the slot holding the handle of the current inner node
+            MemoryAccessor owner = header;
+            long slot = ROOT_OFFSET;
+            AnyAccessor child = a[1];
+            while (true) {
+                int depth = node.getByte(DEPTH_OFFSET);
+                if ((k & prefixMask(depth)) != node.getLong(PREFIX_OFFSET)) return 0L;
+                int radix = radix(k, depth);
+                long offset = childOffset(node, radix);
+                if (offset < 0) return 0L;
+                long childHandle = node.getLong(offset);
+                if (childHandle == 0) return 0L;
+                child.handle(childHandle);
+                if (child.getByte(TYPE_OFFSET) == LEAF) {
+                    if (child.getLong(LEAF_KEY_OFFSET) != k) return 0L;
+                    long value = child.getLong(LEAF_VALUE_OFFSET);
+                    child.freeMemory();
+                    removeChild(node, radix, owner, slot);
+                    decrementCount();
+                    return value;
+                }
+                AnyAccessor next = owner == header ? a[2] : (AnyAccessor)owner;
+                owner = node;
+                slot = offset;
+                node = child;
+                child = next;
+            }
+        });
+    }
+
+    /**
+     * Removes all of the entries in this radix tree.
+     * The semantics of this method depend on the heap supplied when constructed.
+     */
+    public void clear() {
+        heap.execute(() -> {
+            long handle = header.getLong(ROOT_OFFSET);
+            if (handle != 0) destroy(heap.compactMemoryBlockFromHandle(handle));
+            header.setLong(ROOT_OFFSET, 0L);
+            header.setLong(COUNT_OFFSET, 0L);
+        });
+    }
+
+    /**
+     * Deallocates the memory used by this radix tree, including the memory of all of its entries.
+     * @throws HeapException if the radix tree could not be freed
+     */
+    public void free() {
+        heap.execute(() -> {
+            clear();
+            header.freeMemory();
+        });
+    }
+
+    /**
+     * Returns a cursor over all of the entries in this radix tree, in ascending key order.
+     * @return the cursor
+     */
+    public Cursor cursor() {
+        return new Cursor(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a cursor over the entries in this radix tree whose keys are between {@code firstKey}
+     * and {@code lastKey}, inclusive, in ascending key order.
+     * @param firstKey the lowest key of the range
+     * @param lastKey the highest key of the range
+     * @return the cursor
+     */
+    public Cursor cursor(long firstKey, long lastKey) {
+        return new Cursor(firstKey, lastKey);
+    }
+
+    /**
+     * Returns an ascending-order iterator over the keys in this radix tree.
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfLong keyIterator() {
+        return new LongIterator(cursor(), true);
+    }
+
+    /**
+     * Returns an ascending-order iterator over the keys in this radix tree that are between
+     * {@code firstKey} and {@code lastKey}, inclusive.
+     * @param firstKey the lowest key of the range
+     * @param lastKey the highest key of the range
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfLong keyIterator(long firstKey, long lastKey) {
+        return new LongIterator(cursor(firstKey, lastKey), true);
+    }
+
+    /**
+     * Returns an iterator over the values in this radix tree, in ascending order of their keys.
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfLong valueIterator() {
+        return new LongIterator(cursor(), false);
+    }
+
+    /**
+     * Returns an iterator over the values in this radix tree whose keys are between {@code firstKey}
+     * and {@code lastKey}, inclusive, in ascending order of their keys.
+     * @param firstKey the lowest key of the range
+     * @param lastKey the highest key of the range
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfLong valueIterator(long firstKey, long lastKey) {
+        return new LongIterator(cursor(firstKey, lastKey), false);
+    }
+
+    private void incrementCount() {
+        header.setLong(COUNT_OFFSET, header.getLong(COUNT_OFFSET) + 1);
+    }
+
+    private void decrementCount() {
+        header.setLong(COUNT_OFFSET, header.getLong(COUNT_OFFSET) - 1);
+    }
+
+    // the key bytes above depth; keys are compared with their sign bit flipped, so unsigned order is numeric order
+    private static long prefixMask(int depth) {
+        return depth == 0 ? 0L : -1L << (Long.SIZE - depth * Byte.SIZE);
+    }
+
+    private static int radix(long k, int depth) {
+        return (int)(k >>> (Long.SIZE - (depth + 1) * Byte.SIZE)) & 0xff;
+    }
+
+    private static long childrenOffset(byte type) {
+        switch (type) {
+            case NODE4: return NODE4_CHILDREN_OFFSET;
+            case NODE16: return NODE16_CHILDREN_OFFSET;
+            case NODE48: return NODE48_CHILDREN_OFFSET;
+            default: return NODE256_CHILDREN_OFFSET;
+        }
+    }
+
+    private static long nodeSize(byte type) {
+        switch (type) {
+            case NODE4: return NODE4_SIZE;
+            case NODE16: return NODE16_SIZE;
+            case NODE48: return NODE48_SIZE;
+            default: return NODE256_SIZE;
+        }
+    }
+
+    private static int capacity(byte type) {
+        switch (type) {
+            case NODE4: return 4;
+            case NODE16: return 16;
+            case NODE48: return 48;
+            default: return 256;
+        }
+    }
+
+    // returns the offset of the slot for radix, or -1 if the node has no such slot; a Node256 slot may hold zero
+    private static long childOffset(MemoryAccessor node, int radix) {
+        byte type = node.getByte(TYPE_OFFSET);
+        switch (type) {
+            case NODE4:
+            case NODE16:
+                int count = node.getShort(CHILDREN_COUNT_OFFSET);
+                for (int i = 0; i < count; i++) {
+                    int r = Byte.toUnsignedInt(node.getByte(RADICES_OFFSET + i));
+                    if (r == radix) return childrenOffset(type) + i * Long.BYTES;
+                    if (r > radix) break;
+                }
+                return -1;
+            case NODE48:
+                int index = Byte.toUnsignedInt(node.getByte(RADICES_OFFSET + radix));
+                return index == 0 ? -1 : NODE48_CHILDREN_OFFSET + (index - 1) * Long.BYTES;
+            default:
+                return NODE256_CHILDREN_OFFSET + radix * Long.BYTES;
+        }
+    }
+
+    // copies the node's radices and children into the supplied arrays in ascending radix order, returning the count
+    private static int entries(MemoryAccessor node, int[] radices, long[] children) {
+        byte type = node.getByte(TYPE_OFFSET);
+        int count = 0;
+        switch (type) {
+            case NODE4:
+            case NODE16:
+                count = node.getShort(CHILDREN_COUNT_OFFSET);
+                for (int i = 0; i < count; i++) {
+                    radices[i] = Byte.toUnsignedInt(node.getByte(RADICES_OFFSET + i));
+                    children[i] = node.getLong(childrenOffset(type) + i * Long.BYTES);
+                }
+                return count;
+            case NODE48:
+                for (int r = 0; r < 256; r++) {
+                    int index = Byte.toUnsignedInt(node.getByte(RADICES_OFFSET + r));
+                    if (index == 0) continue;
+                    radices[count] = r;
+                    children[count++] = node.getLong(NODE48_CHILDREN_OFFSET + (index - 1) * Long.BYTES);
+                }
+                return count;
+            default:
+                for (int r = 0; r < 256; r++) {
+                    long child = node.getLong(NODE256_CHILDREN_OFFSET + r * Long.BYTES);
+                    if (child == 0) continue;
+                    radices[count] = r;
+                    children[count++] = child;
+                }
+                return count;
+        }
+    }
+
+    private long createLeaf(long k, long value) {
+        return heap.allocateCompactMemoryBlock(LEAF_SIZE, (Range range) -> {
+            range.setByte(TYPE_OFFSET, LEAF);
+            range.setLong(LEAF_KEY_OFFSET, k);
+            range.setLong(LEAF_VALUE_OFFSET, value);
+        }).handle();
+    }
+
+    private long createNode(byte type, int depth, long prefix, int[] radices, long[] children, int count) {
+        return heap.allocateCompactMemoryBlock(nodeSize(type), (Range range) -> {
+            range.setByte(TYPE_OFFSET, type);
+            range.setByte(DEPTH_OFFSET, (byte)depth);
+            range.setShort(CHILDREN_COUNT_OFFSET, (short)count);
+            range.setLong(PREFIX_OFFSET, prefix);
+            for (int i = 0; i < count; i++) {
+                switch (type) {
+                    case NODE4:
+                    case NODE16:
+                        range.setByte(RADICES_OFFSET + i, (byte)radices[i]);
+                        range.setLong(childrenOffset(type) + i * Long.BYTES, children[i]);
+                        break;
+                    case NODE48:
+                        range.setByte(RADICES_OFFSET + radices[i], (byte)(i + 1));
+                        range.setLong(NODE48_CHILDREN_OFFSET + i * Long.BYTES, children[i]);
+                        break;
+                    default:
+                        range.setLong(NODE256_CHILDREN_OFFSET + radices[i] * Long.BYTES, children[i]);
+                }
+            }
+        }).handle();
+    }
+
+    // adds child at radix, which must not be present; returns the handle of the node now holding the
+    // children, which differs from the node's own handle if the node was grown
+    private long addChild(MemoryAccessor node, int radix, long child) {
+        byte type = node.getByte(TYPE_OFFSET);
+        int count = node.getShort(CHILDREN_COUNT_OFFSET);
+        if (count == capacity(type)) {
+            int[] radices = new int[count + 1];
+            long[] children = new long[count + 1];
+            entries(node, radices, children);
+            int position = count;
+            while (position > 0 && radices[position - 1] > radix) {
+                radices[position] = radices[position - 1];
+                children[position] = children[position - 1];
+                position--;
+            }
+            radices[position] = radix;
+            children[position] = child;
+            long grown = createNode((byte)(type + 1), node.getByte(DEPTH_OFFSET), node.getLong(PREFIX_OFFSET), radices, children, count + 1);
+            node.freeMemory();
+            return grown;
+        }
+        switch (type) {
+            case NODE4:
+            case NODE16:
+                long childrenOffset = childrenOffset(type);
+                int position = count;
+                while (position > 0 && Byte.toUnsignedInt(node.getByte(RADICES_OFFSET + position - 1)) > radix) {
+                    node.setByte(RADICES_OFFSET + position, node.getByte(RADICES_OFFSET + position - 1));
+                    node.setLong(childrenOffset + position * Long.BYTES, node.getLong(childrenOffset + (position - 1) * Long.BYTES));
+                    position--;
+                }
+                node.setByte(RADICES_OFFSET + position, (byte)radix);
+                node.setLong(childrenOffset + position * Long.BYTES, child);
+                break;
+            case NODE48:
+                // child slots are kept dense, so the next free slot is at count
+                node.setLong(NODE48_CHILDREN_OFFSET + count * Long.BYTES, child);
+                node.setByte(RADICES_OFFSET + radix, (byte)(count + 1));
+                break;
+            default:
+                node.setLong(NODE256_CHILDREN_OFFSET + radix * Long.BYTES, child);
+        }
+        node.setShort(CHILDREN_COUNT_OFFSET, (short)(count + 1));
+        return node.handle();
+    }
+
+    // removes the child at radix, then replaces the node in the owner's slot with its only remaining
+    // child or with a smaller node if the child count has fallen far enough
+    private void removeChild(MemoryAccessor node, int radix, MemoryAccessor owner, long slot) {
+        byte type = node.getByte(TYPE_OFFSET);
+        int count = node.getShort(CHILDREN_COUNT_OFFSET) - 1;
+        switch (type) {
+            case NODE4:
+            case NODE16:
+                long childrenOffset = childrenOffset(type);
+                int position = 0;
+                while (Byte.toUnsignedInt(node.getByte(RADICES_OFFSET + position)) != radix) position++;
+                for (int i = position; i < count; i++) {
+                    node.setByte(RADICES_OFFSET + i, node.getByte(RADICES_OFFSET + i + 1));
+                    node.setLong(childrenOffset + i * Long.BYTES, node.getLong(childrenOffset + (i + 1) * Long.BYTES));
+                }
+                node.setLong(childrenOffset + count * Long.BYTES, 0L);
+                break;
+            case NODE48:
+                int index = Byte.toUnsignedInt(node.getByte(RADICES_OFFSET + radix)) - 1;
+                node.setByte(RADICES_OFFSET + radix, (byte)0);
+                if (index != count) {
+                    // move the last child slot into the freed one
+                    node.setLong(NODE48_CHILDREN_OFFSET + index * Long.BYTES, node.getLong(NODE48_CHILDREN_OFFSET + count * Long.BYTES));
+                    int r = 0;
+                    while (Byte.toUnsignedInt(node.getByte(RADICES_OFFSET + r)) != count + 1) r++;
+                    node.setByte(RADICES_OFFSET + r, (byte)(index + 1));
+                }
+                node.setLong(NODE48_CHILDREN_OFFSET + count * Long.BYTES, 0L);
+                break;
+            default:
+                node.setLong(NODE256_CHILDREN_OFFSET + radix * Long.BYTES, 0L);
+        }
+        node.setShort(CHILDREN_COUNT_OFFSET, (short)count);
+        if (count == 1) {
+            int[] radices = new int[1];
+            long[] children = new long[1];
+            entries(node, radices, children);
+            // the remaining child holds its own key bytes, so it can take the node's place
+            owner.setLong(slot, children[0]);
+            node.freeMemory();
+        }
+        else if ((type == NODE16 && count == NODE16_SHRINK_COUNT) || (type == NODE48 && count == NODE48_SHRINK_COUNT) || (type == NODE256 && count == NODE256_SHRINK_COUNT)) {
+            int[] radices = new int[count];
+            long[] children = new long[count];
+            entries(node, radices, children);
+            owner.setLong(slot, createNode((byte)(type - 1), node.getByte(DEPTH_OFFSET), node.getLong(PREFIX_OFFSET), radices, children, count));
+            node.freeMemory();
+        }
+    }
+
+    private void destroy(MemoryAccessor node) {
+        if (node.getByte(TYPE_OFFSET) != LEAF) {
+            int[] radices = new int[256];
+            long[] children = new long[256];
+            int count = entries(node, radices, children);
+            for (int i = 0; i < count; i++) destroy(heap.compactMemoryBlockFromHandle(children[i]));
+        }
+        node.freeMemory();
+    }
+
+    private static final class LongIterator implements PrimitiveIterator.OfLong {
+        private final Cursor cursor;
+        private final boolean keys;
+        private boolean advanced;
+        private boolean hasNext;
+
+        LongIterator(Cursor cursor, boolean keys) {
+            this.cursor = cursor;
+            this.keys = keys;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!advanced) {
+                hasNext = cursor.next();
+                advanced = true;
+            }
+            return hasNext;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) throw new NoSuchElementException();
+            advanced = false;
+            return keys ? cursor.key() : cursor.value();
+        }
+    }
+
+    /**
+     * A position in an ascending-order traversal of the entries in a radix tree.  A cursor is advanced
+     * with {@link Cursor#next()}, after which the current entry's key and value can be read.  Advancing a
+     * cursor does not allocate.  A cursor must not be used after the tree is modified.
+     * @since 1.3
+     */
+    public final class Cursor {
+        // inner nodes branch on increasing depths, so a path holds at most eight of them; their accessors
+        // are created as the path first grows and reused as it changes
+        private final AnyAccessor[] nodes = new AnyAccessor[Long.BYTES];
+        // for each node on the path, the position of its next child: an index in a Node4 or Node16, otherwise a radix
+        private final int[] positions = new int[Long.BYTES];
+        private final AnyAccessor leaf = heap.createCompactAccessor();
+        private final long last;
+        private int top = -1;
+        private boolean pending;
+        private boolean done;
+        private boolean positioned;
+        private long key;
+        private long value;
+
+        private Cursor(long firstKey, long lastKey) {
+            long first = firstKey ^ Long.MIN_VALUE;
+            this.last = lastKey ^ Long.MIN_VALUE;
+            if (Long.compareUnsigned(first, last) > 0) done = true;
+            else seek(first);
+        }
+
+        // positions the path just before the first key that is not less than first
+        private void seek(long first) {
+            long handle = header.getLong(ROOT_OFFSET);
+            while (handle != 0) {
+                leaf.handle(handle);
+                if (leaf.getByte(TYPE_OFFSET) == LEAF) {
+                    pending = Long.compareUnsigned(leaf.getLong(LEAF_KEY_OFFSET), first) >= 0;
+                    return;
+                }
+                push(handle, 0);
+                AnyAccessor node = nodes[top];
+                int depth = node.getByte(DEPTH_OFFSET);
+                int compare = Long.compareUnsigned(node.getLong(PREFIX_OFFSET), first & prefixMask(depth));
+                // a subtree whose prefix is less than first's holds no keys in the range
+                if (compare < 0) {
+                    top--;
+                    return;
+                }
+                if (compare > 0) return;
+                int radix = radix(first, depth);
+                positions[top] = positionAfter(node, radix);
+                long offset = childOffset(node, radix);
+                handle = offset < 0 ? 0 : node.getLong(offset);
+            }
+        }
+
+        private void push(long handle, int position) {
+            if (nodes[++top] == null) nodes[top] = heap.createCompactAccessor();
+            nodes[top].handle(handle);
+            positions[top] = position;
+        }
+
+        private int positionAfter(MemoryAccessor node, int radix) {
+            byte type = node.getByte(TYPE_OFFSET);
+            if (type != NODE4 && type != NODE16) return radix + 1;
+            int count = node.getShort(CHILDREN_COUNT_OFFSET);
+            int position = 0;
+            while (position < count && Byte.toUnsignedInt(node.getByte(RADICES_OFFSET + position)) <= radix) position++;
+            return position;
+        }
+
+        // returns the handle of the node's next child, advancing its position, or zero if there is none
+        private long nextChild(MemoryAccessor node) {
+            byte type = node.getByte(TYPE_OFFSET);
+            int position = positions[top];
+            switch (type) {
+                case NODE4:
+                case NODE16:
+                    if (position >= node.getShort(CHILDREN_COUNT_OFFSET)) return 0;
+                    positions[top] = position + 1;
+                    return node.getLong(childrenOffset(type) + position * Long.BYTES);
+                case NODE48:
+                    for (int r = position; r < 256; r++) {
+                        int index = Byte.toUnsignedInt(node.getByte(RADICES_OFFSET + r));
+                        if (index == 0) continue;
+                        positions[top] = r + 1;
+                        return node.getLong(NODE48_CHILDREN_OFFSET + (index - 1) * Long.BYTES);
+                    }
+                    return 0;
+                default:
+                    for (int r = position; r < 256; r++) {
+                        long child = node.getLong(NODE256_CHILDREN_OFFSET + r * Long.BYTES);
+                        if (child == 0) continue;
+                        positions[top] = r + 1;
+                        return child;
+                    }
+                    return 0;
+            }
+        }
+
+        /**
+         * Advances this cursor to the next entry.
+         * @return true if the cursor is positioned on an entry, or false if there are no more entries
+         */
+        public boolean next() {
+            positioned = false;
+            if (done) return false;
+            boolean found = pending;
+            pending = false;
+            while (!found) {
+                if (top < 0) {
+                    done = true;
+                    return false;
+                }
+                long handle = nextChild(nodes[top]);
+                if (handle == 0) {
+                    top--;
+                    continue;
+                }
+                leaf.handle(handle);
+                if (leaf.getByte(TYPE_OFFSET) == LEAF) found = true;
+                else push(handle, 0);
+            }
+            long k = leaf.getLong(LEAF_KEY_OFFSET);
+            if (Long.compareUnsigned(k, last) > 0) {
+                done = true;
+                return false;
+            }
+            key = k ^ Long.MIN_VALUE;
+            value = leaf.getLong(LEAF_VALUE_OFFSET);
+            positioned = true;
+            return true;
+        }
+
+        /**
+         * Returns the key of the current entry.
+         * @return the key
+         * @throws IllegalStateException if the cursor is not positioned on an entry
+         */
+        public long key() {
+            checkPositioned();
+            return key;
+        }
+
+        /**
+         * Returns the value of the current entry.
+         * @return the value
+         * @throws IllegalStateException if the cursor is not positioned on an entry
+         */
+        public long value() {
+            checkPositioned();
+            return value;
+        }
+
+        private void checkPositioned() {
+            if (!positioned) throw new IllegalStateException("Cursor is not positioned on an entry");
+        }
+    }
+}
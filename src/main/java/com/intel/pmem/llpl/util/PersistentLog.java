@@ -0,0 +1,461 @@
+/*
+ * Copyright (C) 2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl.util;
+
+import com.intel.pmem.llpl.MemoryPool;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of byte records stored in a region of a {@link MemoryPool}.<br><br>
+ * Any number of threads may append concurrently.  Appended records are not durable until a
+ * subsequent call to {@link #sync()}, or until they are appended with {@link #appendDurable(byte[], int, int)};
+ * a sync makes all previously appended records durable with one flush of the appended range, so threads
+ * appending durably at the same time share a single flush and drain (group commit).<br><br>
+ * The log region is divided into fixed-size segments that are reused in rotation.  Space is reclaimed
+ * by calling {@link #truncate(long)}; an append that would overwrite records not yet truncated throws
+ * {@code IllegalStateException}.  Each record is framed with its length, its position in the log, the epoch
+ * in which it was written and a CRC-32 checksum, so that {@link #open(MemoryPool, long)} can recover the
+ * durable end of the log after a crash by scanning forward from a checkpoint that is at most one segment
+ * behind.  Every open starts a new epoch at the recovered end; records beyond that end left from earlier
+ * epochs are never recovered later, even if they are intact.<br><br>
+ * Records are identified by their position, a {@code long} that increases monotonically for the life of
+ * the log.
+ *
+ * @since 1.3
+ */
+public class PersistentLog {
+    private static final long MAGIC = 0x4c4c504c4c4f4731L;
+    private static final long MAGIC_OFFSET = 0;
+    private static final long LOG_ID_OFFSET = 8;
+    private static final long SEGMENT_SIZE_OFFSET = 16;
+    private static final long SEGMENT_COUNT_OFFSET = 24;
+    private static final long HEAD_OFFSET = 32;
+    private static final long CHECKPOINT_OFFSET = 40;
+    private static final long EPOCH_OFFSET = 48;
+    private static final long EPOCH_START_OFFSET = 56;
+    private static final long HEADER_SIZE = 64;
+    private static final long LENGTH_OFFSET = 0;
+    private static final long CHECKSUM_OFFSET = 4;
+    private static final long POSITION_OFFSET = 8;
+    private static final long EPOCH_RECORD_OFFSET = 16;
+    private static final int RECORD_HEADER_SIZE = 24;
+    private static final int PAD = -1;
+
+    private final MemoryPool pool;
+    private final long baseOffset;
+    private final long dataOffset;
+    private final long logId;
+    private final long segmentSize;
+    private final long capacity;
+    private final long epoch;
+    private final AtomicLong tail;
+    private final ReentrantReadWriteLock appendLock = new ReentrantReadWriteLock();
+    private final Object syncLock = new Object();
+    private volatile long head;
+    private volatile long synced;
+    private long checkpoint;
+
+    /**
+     * Creates a new, empty log in a region of {@code pool} starting at {@code offset}.  The region occupies
+     * {@link #regionSize(long, int)} bytes.
+     * @param pool the pool in which to create the log
+     * @param offset the offset of the log region within the pool
+     * @param segmentSize the size, in bytes, of each segment; a multiple of 8 that bounds the size of a record
+     * @param segmentCount the number of segments, at least 2
+     * @return the new log
+     * @throws IllegalArgumentException if {@code segmentSize} or {@code segmentCount} is invalid
+     * @throws IndexOutOfBoundsException if the log region would extend outside of pool bounds
+     */
+    public static PersistentLog create(MemoryPool pool, long offset, long segmentSize, int segmentCount) {
+        if (segmentSize < 2 * RECORD_HEADER_SIZE || segmentSize % 8 != 0) throw new IllegalArgumentException("Invalid segment size: " + segmentSize);
+        if (segmentCount < 2) throw new IllegalArgumentException("Invalid segment count: " + segmentCount);
+        long size = regionSize(segmentSize, segmentCount);
+        if (offset < 0 || offset + size > pool.size()) throw new IndexOutOfBoundsException("Log region does not fit in pool");
+        pool.setLong(offset + MAGIC_OFFSET, 0L);
+        pool.setLong(offset + LOG_ID_OFFSET, new Random().nextLong());
+        pool.setLong(offset + SEGMENT_SIZE_OFFSET, segmentSize);
+        pool.setLong(offset + SEGMENT_COUNT_OFFSET, segmentCount);
+        pool.setLong(offset + HEAD_OFFSET, 0L);
+        pool.setLong(offset + CHECKPOINT_OFFSET, 0L);
+        pool.setLong(offset + EPOCH_OFFSET, 0L);
+        pool.setLong(offset + EPOCH_START_OFFSET, 0L);
+        pool.flush(offset, HEADER_SIZE);
+        pool.setLong(offset + MAGIC_OFFSET, MAGIC);
+        pool.flush(offset + MAGIC_OFFSET, Long.BYTES);
+        return new PersistentLog(pool, offset);
+    }
+
+    /**
+     * Opens a log previously created in {@code pool} at {@code offset}, recovering its durable end.
+     * Records that were appended but not synced before the log was last used may be lost; recovery
+     * stops at the first record that is incomplete, fails its checksum or was written in an earlier epoch 
+     * at or after the position where the last epoch started.  Opening the log starts a new epoch at the 
+     * recovered end, so unsynced records beyond it are discarded for good.
+     * @param pool the pool containing the log
+     * @param offset the offset of the log region within the pool
+     * @return the log
+     * @throws IllegalArgumentException if there is no log at {@code offset}
+     */
+    public static PersistentLog open(MemoryPool pool, long offset) {
+        if (offset < 0 || offset + HEADER_SIZE > pool.size() || pool.getLong(offset + MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalArgumentException("No log found at offset " + offset);
+        }
+        return new PersistentLog(pool, offset);
+    }
+
+    /**
+     * Returns the number of pool bytes occupied by a log with the given geometry.
+     * @param segmentSize the size, in bytes, of each segment
+     * @param segmentCount the number of segments
+     * @return the size of the log region
+     */
+    public static long regionSize(long segmentSize, int segmentCount) {
+        return HEADER_SIZE + segmentSize * segmentCount;
+    }
+
+    private PersistentLog(MemoryPool pool, long offset) {
+        this.pool = pool;
+        this.baseOffset = offset;
+        this.dataOffset = offset + HEADER_SIZE;
+        this.logId = pool.getLong(offset + LOG_ID_OFFSET);
+        this.segmentSize = pool.getLong(offset + SEGMENT_SIZE_OFFSET);
+        this.capacity = segmentSize * pool.getLong(offset + SEGMENT_COUNT_OFFSET);
+        this.head = pool.getLong(offset + HEAD_OFFSET);
+        this.checkpoint = pool.getLong(offset + CHECKPOINT_OFFSET);
+        long lastEpoch = pool.getLong(offset + EPOCH_OFFSET);
+        long end = recover(Math.max(head, checkpoint), lastEpoch, pool.getLong(offset + EPOCH_START_OFFSET));
+        // the new epoch's start is made durable before the epoch itself, so that a crash in between 
+        // never rejects records of the last epoch that were recovered here
+        pool.setLong(offset + EPOCH_START_OFFSET, end);
+        pool.flush(offset + EPOCH_START_OFFSET, Long.BYTES);
+        this.epoch = lastEpoch + 1;
+        pool.setLong(offset + EPOCH_OFFSET, epoch);
+        pool.flush(offset + EPOCH_OFFSET, Long.BYTES);
+        this.tail = new AtomicLong(end);
+        this.synced = end;
+    }
+
+    // scans forward from a position known to be durable, returning the end of the last valid record; 
+    // records at or after epochStart are only valid if written in lastEpoch
+    private long recover(long position, long lastEpoch, long epochStart) {
+        long limit = head + capacity;
+        while (position < limit) {
+            long segmentEnd = segmentEnd(position);
+            if (segmentEnd - position < RECORD_HEADER_SIZE) {
+                position = segmentEnd;
+                continue;
+            }
+            long offset = poolOffset(position);
+            int length = pool.getInt(offset + LENGTH_OFFSET);
+            if (pool.getLong(offset + POSITION_OFFSET) != position) break;
+            long recordEpoch = pool.getLong(offset + EPOCH_RECORD_OFFSET);
+            if (recordEpoch > lastEpoch || (position >= epochStart && recordEpoch != lastEpoch)) break;
+            if (length == PAD) {
+                if (pool.getInt(offset + CHECKSUM_OFFSET) != checksum(position, length, recordEpoch, null)) break;
+                position = segmentEnd;
+                continue;
+            }
+            if (length < 0 || position + recordSize(length) > segmentEnd) break;
+            int crc = checksum(position, length, recordEpoch, pool.asReadOnlyByteBuffer(offset + RECORD_HEADER_SIZE, length));
+            if (pool.getInt(offset + CHECKSUM_OFFSET) != crc) break;
+            position += recordSize(length);
+        }
+        return position;
+    }
+
+    /**
+     * Appends a record containing {@code length} bytes of {@code data} starting at {@code index}.
+     * The record is not durable until a subsequent sync.
+     * @param data the array containing the record's bytes
+     * @param index the starting index in {@code data}
+     * @param length the number of bytes to append
+     * @return the position of the new record
+     * @throws IndexOutOfBoundsException if {@code index} and {@code length} are outside of array bounds
+     * @throws IllegalArgumentException if the record would not fit in one segment
+     * @throws IllegalStateException if the log is full
+     */
+    public long append(byte[] data, int index, int length) {
+        if (index < 0 || length < 0 || index + length > data.length) throw new IndexOutOfBoundsException("Invalid array range");
+        long size = recordSize(length);
+        if (size > segmentSize) throw new IllegalArgumentException("Record of " + length + " bytes exceeds segment size");
+        appendLock.readLock().lock();
+        try {
+            long position = reserve(size);
+            long offset = poolOffset(position);
+            pool.copyFromByteArray(data, index, offset + RECORD_HEADER_SIZE, length);
+            pool.setInt(offset + LENGTH_OFFSET, length);
+            pool.setInt(offset + CHECKSUM_OFFSET, checksum(position, length, epoch, ByteBuffer.wrap(data, index, length)));
+            pool.setLong(offset + POSITION_OFFSET, position);
+            pool.setLong(offset + EPOCH_RECORD_OFFSET, epoch);
+            return position;
+        }
+        finally {
+            appendLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a record containing all of {@code data}.  The record is not durable until a subsequent sync.
+     * @param data the record's bytes
+     * @return the position of the new record
+     * @throws IllegalArgumentException if the record would not fit in one segment
+     * @throws IllegalStateException if the log is full
+     */
+    public long append(byte[] data) {
+        return append(data, 0, data.length);
+    }
+
+    /**
+     * Appends a record and waits until it is durable.  Concurrent durable appends are committed together
+     * with a single flush.
+     * @param data the array containing the record's bytes
+     * @param index the starting index in {@code data}
+     * @param length the number of bytes to append
+     * @return the position of the new record
+     * @throws IndexOutOfBoundsException if {@code index} and {@code length} are outside of array bounds
+     * @throws IllegalArgumentException if the record would not fit in one segment
+     * @throws IllegalStateException if the log is full
+     */
+    public long appendDurable(byte[] data, int index, int length) {
+        long position = append(data, index, length);
+        sync(position + recordSize(length));
+        return position;
+    }
+
+    // reserves space for a record, skipping to the next segment if the record would straddle one
+    private long reserve(long size) {
+        while (true) {
+            long current = tail.get();
+            long segmentEnd = segmentEnd(current);
+            long start = current + size > segmentEnd ? segmentEnd : current;
+            if (start + size - head > capacity) throw new IllegalStateException("Log is full");
+            if (tail.compareAndSet(current, start + size)) {
+                if (start != current && segmentEnd - current >= RECORD_HEADER_SIZE) writePad(current);
+                return start;
+            }
+        }
+    }
+
+    private void writePad(long position) {
+        long offset = poolOffset(position);
+        pool.setInt(offset + LENGTH_OFFSET, PAD);
+        pool.setInt(offset + CHECKSUM_OFFSET, checksum(position, PAD, epoch, null));
+        pool.setLong(offset + POSITION_OFFSET, position);
+        pool.setLong(offset + EPOCH_RECORD_OFFSET, epoch);
+    }
+
+    /**
+     * Makes all records appended before this call durable.
+     */
+    public void sync() {
+        sync(tail.get());
+    }
+
+    private void sync(long position) {
+        synchronized (syncLock) {
+            if (synced >= position) return;
+            long end;
+            appendLock.writeLock().lock();
+            try {
+                end = tail.get();
+            }
+            finally {
+                appendLock.writeLock().unlock();
+            }
+            flushRange(synced, end);
+            if (segmentStart(end) != segmentStart(checkpoint)) {
+                pool.setLong(baseOffset + CHECKPOINT_OFFSET, end);
+                pool.flush(baseOffset + CHECKPOINT_OFFSET, Long.BYTES);
+                checkpoint = end;
+            }
+            synced = end;
+        }
+    }
+
+    private void flushRange(long start, long end) {
+        if (start >= end) return;
+        long offset = start % capacity;
+        long length = end - start;
+        if (offset + length <= capacity) pool.flush(dataOffset + offset, length);
+        else {
+            pool.flush(dataOffset + offset, capacity - offset);
+            pool.flush(dataOffset, length - (capacity - offset));
+        }
+    }
+
+    /**
+     * Discards all records before {@code position}, making their space available for reuse.
+     * @param position the position of the first record to keep, or {@link #syncedPosition()} to discard all records
+     * @throws IllegalArgumentException if {@code position} is before the current head, after the synced position 
+     * or not the position of a record
+     */
+    public void truncate(long position) {
+        synchronized (syncLock) {
+            if (position < head || position > synced || !isRecordBoundary(position)) throw new IllegalArgumentException("Invalid truncation position: " + position);
+            pool.setLong(baseOffset + HEAD_OFFSET, position);
+            pool.flush(baseOffset + HEAD_OFFSET, Long.BYTES);
+            head = position;
+        }
+    }
+
+    // walks the durable records from the head; called with syncLock held
+    private boolean isRecordBoundary(long position) {
+        long next = head;
+        while (next < position) {
+            long segmentEnd = segmentEnd(next);
+            if (segmentEnd - next < RECORD_HEADER_SIZE) {
+                next = segmentEnd;
+                continue;
+            }
+            int len = pool.getInt(poolOffset(next) + LENGTH_OFFSET);
+            next = len == PAD ? segmentEnd : next + recordSize(len);
+        }
+        return next == position;
+    }
+
+    /**
+     * Returns the position of the first record in the log.
+     * @return the head position
+     */
+    public long headPosition() {
+        return head;
+    }
+
+    /**
+     * Returns the position following the last durable record.
+     * @return the synced position
+     */
+    public long syncedPosition() {
+        return synced;
+    }
+
+    /**
+     * Returns the position at which the next record will be appended.
+     * @return the tail position
+     */
+    public long tailPosition() {
+        return tail.get();
+    }
+
+    /**
+     * Creates a reader positioned at the head of the log.
+     * @return a new reader
+     */
+    public Reader reader() {
+        return new Reader(head);
+    }
+
+    /**
+     * Creates a reader positioned at {@code position}, which must be the position of a record
+     * or the synced position.
+     * @param position the position of the first record to read
+     * @return a new reader
+     * @throws IllegalArgumentException if {@code position} is outside of the log
+     */
+    public Reader reader(long position) {
+        if (position < head || position > synced) throw new IllegalArgumentException("Invalid reader position: " + position);
+        return new Reader(position);
+    }
+
+    /**
+     * Reads durable records in order, exposing each record's bytes as a read-only {@code ByteBuffer}
+     * view of the pool rather than a copy.  A reader is not thread-safe, and the view returned by
+     * {@link #payload()} must not be used after its record is truncated.
+     */
+    public class Reader {
+        private long next;
+        private long position = -1;
+        private int length;
+
+        private Reader(long position) {
+            this.next = position;
+        }
+
+        /**
+         * Advances to the next durable record.
+         * @return true if there is a next record
+         * @throws IllegalStateException if the reader's position has been truncated
+         */
+        public boolean next() {
+            if (next < head) throw new IllegalStateException("Reader position has been truncated");
+            long limit = synced;
+            while (next < limit) {
+                long segmentEnd = segmentEnd(next);
+                if (segmentEnd - next < RECORD_HEADER_SIZE) {
+                    next = segmentEnd;
+                    continue;
+                }
+                int len = pool.getInt(poolOffset(next) + LENGTH_OFFSET);
+                if (len == PAD) {
+                    next = segmentEnd;
+                    continue;
+                }
+                position = next;
+                length = len;
+                next += recordSize(len);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Returns the position of the current record.
+         * @return the current record's position
+         */
+        public long position() {
+            return position;
+        }
+
+        /**
+         * Returns the length, in bytes, of the current record.
+         * @return the current record's length
+         */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * Returns a read-only view of the current record's bytes.
+         * @return a view of the current record
+         * @throws IllegalStateException if there is no current record
+         */
+        public ByteBuffer payload() {
+            if (position < 0) throw new IllegalStateException("No current record");
+            return pool.asReadOnlyByteBuffer(poolOffset(position) + RECORD_HEADER_SIZE, length);
+        }
+    }
+
+    private long poolOffset(long position) {
+        return dataOffset + position % capacity;
+    }
+
+    private long segmentStart(long position) {
+        return position - position % segmentSize;
+    }
+
+    private long segmentEnd(long position) {
+        return segmentStart(position) + segmentSize;
+    }
+
+    private static long recordSize(int length) {
+        return (RECORD_HEADER_SIZE + (long)length + 7) & ~7L;
+    }
+
+    private int checksum(long position, int length, long recordEpoch, ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        ByteBuffer header = ByteBuffer.allocate(28);
+        header.putLong(logId).putLong(position).putLong(recordEpoch).putInt(length);
+        crc.update(header.array(), 0, header.capacity());
+        if (payload != null) crc.update(payload);
+        return (int)crc.getValue();
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl.util;
+
+import com.intel.pmem.llpl.MemoryPool;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free, multi-producer multi-consumer queue of byte records stored in a region of a
+ * {@link MemoryPool}.<br><br>
+ * All queue state is kept in the pool, so producers and consumers may be threads in different processes
+ * that share the pool.  Each slot carries a sequence number that tells producers and consumers whether the
+ * slot is free or full for a given position; positions are claimed with compare-and-set, and a slot is
+ * handed over by a release store of its sequence number.  Enqueue and dequeue never block: {@link #offer}
+ * returns false when the queue is full and {@link #poll()} returns null when it is empty.  Batch methods
+ * claim runs of slots with a single compare-and-set.<br><br>
+ * A queue created as durable flushes each record before publishing it and flushes each slot release, so
+ * after a crash {@link #recover()} restores every record whose enqueue completed.  A record whose dequeue
+ * was in progress at the time of a crash is delivered again.  Non-durable queues do not flush and survive
+ * process failures but not power failures.
+ *
+ * @since 1.3
+ */
+public class PersistentRingQueue {
+    private static final long MAGIC = 0x4c4c504c52494e47L;
+    private static final long MAGIC_OFFSET = 0;
+    private static final long CAPACITY_OFFSET = 8;
+    private static final long MAX_RECORD_OFFSET = 16;
+    private static final long DURABLE_OFFSET = 24;
+    // producer and consumer positions are kept on separate cache lines
+    private static final long ENQUEUE_OFFSET = 64;
+    private static final long DEQUEUE_OFFSET = 128;
+    private static final long HEADER_SIZE = 192;
+    private static final long SEQUENCE_OFFSET = 0;
+    private static final long LENGTH_OFFSET = 8;
+    private static final long PAYLOAD_OFFSET = 16;
+    private static final int TOMBSTONE = -1;
+
+    private final MemoryPool pool;
+    private final long baseOffset;
+    private final long slotsOffset;
+    private final long capacity;
+    private final long mask;
+    private final int maxRecordSize;
+    private final long slotSize;
+    private final boolean durable;
+
+    /**
+     * Creates a new, empty queue in a region of {@code pool} starting at {@code offset}.  The region occupies
+     * {@link #regionSize(long, int)} bytes.
+     * @param pool the pool in which to create the queue
+     * @param offset the 8-byte aligned offset of the queue region within the pool
+     * @param capacity the number of slots, a power of two
+     * @param maxRecordSize the maximum size, in bytes, of a record
+     * @param durable true if records should be flushed to persistent memory
+     * @return the new queue
+     * @throws IllegalArgumentException if {@code offset}, {@code capacity} or {@code maxRecordSize} is invalid
+     * @throws IndexOutOfBoundsException if the queue region would extend outside of pool bounds
+     */
+    public static PersistentRingQueue create(MemoryPool pool, long offset, long capacity, int maxRecordSize, boolean durable) {
+        if (offset % 8 != 0) throw new IllegalArgumentException("Offset must be 8-byte aligned: " + offset);
+        if (capacity < 2 || Long.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two greater than one: " + capacity);
+        if (maxRecordSize < 0) throw new IllegalArgumentException("Invalid maximum record size: " + maxRecordSize);
+        long size = regionSize(capacity, maxRecordSize);
+        if (offset < 0 || offset + size > pool.size()) throw new IndexOutOfBoundsException("Queue region does not fit in pool");
+        pool.setLong(offset + MAGIC_OFFSET, 0L);
+        pool.setLong(offset + CAPACITY_OFFSET, capacity);
+        pool.setLong(offset + MAX_RECORD_OFFSET, maxRecordSize);
+        pool.setLong(offset + DURABLE_OFFSET, durable ? 1 : 0);
+        pool.setLong(offset + ENQUEUE_OFFSET, 0L);
+        pool.setLong(offset + DEQUEUE_OFFSET, 0L);
+        long slotSize = slotSize(maxRecordSize);
+        for (long i = 0; i < capacity; i++) pool.setLong(offset + HEADER_SIZE + i * slotSize + SEQUENCE_OFFSET, i);
+        pool.flush(offset, size);
+        pool.setLong(offset + MAGIC_OFFSET, MAGIC);
+        pool.flush(offset + MAGIC_OFFSET, Long.BYTES);
+        return new PersistentRingQueue(pool, offset);
+    }
+
+    /**
+     * Opens a queue previously created in {@code pool} at {@code offset}.  After a crash, call {@link #recover()}
+     * before using the queue.
+     * @param pool the pool containing the queue
+     * @param offset the offset of the queue region within the pool
+     * @return the queue
+     * @throws IllegalArgumentException if there is no queue at {@code offset}
+     */
+    public static PersistentRingQueue open(MemoryPool pool, long offset) {
+        if (offset < 0 || offset + HEADER_SIZE > pool.size() || pool.getLong(offset + MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalArgumentException("No queue found at offset " + offset);
+        }
+        return new PersistentRingQueue(pool, offset);
+    }
+
+    /**
+     * Returns the number of pool bytes occupied by a queue with the given geometry.
+     * @param capacity the number of slots
+     * @param maxRecordSize the maximum size, in bytes, of a record
+     * @return the size of the queue region
+     */
+    public static long regionSize(long capacity, int maxRecordSize) {
+        return HEADER_SIZE + capacity * slotSize(maxRecordSize);
+    }
+
+    // slots are padded to whole cache lines so that neighboring producers and consumers do not share lines
+    private static long slotSize(int maxRecordSize) {
+        return (PAYLOAD_OFFSET + maxRecordSize + 63) & ~63L;
+    }
+
+    private PersistentRingQueue(MemoryPool pool, long offset) {
+        this.pool = pool;
+        this.baseOffset = offset;
+        this.slotsOffset = offset + HEADER_SIZE;
+        this.capacity = pool.getLong(offset + CAPACITY_OFFSET);
+        this.mask = capacity - 1;
+        this.maxRecordSize = (int)pool.getLong(offset + MAX_RECORD_OFFSET);
+        this.slotSize = slotSize(maxRecordSize);
+        this.durable = pool.getLong(offset + DURABLE_OFFSET) == 1;
+    }
+
+    /**
+     * Adds a record containing {@code length} bytes of {@code data} starting at {@code index}, if there is room.
+     * @param data the array containing the record's bytes
+     * @param index the starting index in {@code data}
+     * @param length the number of bytes in the record
+     * @return true if the record was added, false if the queue is full
+     * @throws IllegalArgumentException if {@code length} exceeds the maximum record size
+     * @throws IndexOutOfBoundsException if {@code index} and {@code length} are outside of array bounds
+     */
+    public boolean offer(byte[] data, int index, int length) {
+        checkRecord(data, index, length);
+        long enqueueOffset = baseOffset + ENQUEUE_OFFSET;
+        while (true) {
+            long position = pool.getLongVolatile(enqueueOffset);
+            long difference = sequence(position) - position;
+            if (difference < 0) return false;
+            if (difference == 0 && pool.compareAndSetLong(enqueueOffset, position, position + 1)) {
+                write(position, data, index, length);
+                long slot = slotOffset(position);
+                if (durable) pool.flush(slot + LENGTH_OFFSET, PAYLOAD_OFFSET - LENGTH_OFFSET + length);
+                pool.setLongRelease(slot + SEQUENCE_OFFSET, position + 1);
+                if (durable) pool.flush(slot + SEQUENCE_OFFSET, Long.BYTES);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Adds a record containing all of {@code data}, if there is room.
+     * @param data the record's bytes
+     * @return true if the record was added, false if the queue is full
+     * @throws IllegalArgumentException if the record exceeds the maximum record size
+     */
+    public boolean offer(byte[] data) {
+        return offer(data, 0, data.length);
+    }
+
+    /**
+     * Adds as many of {@code count} records from {@code records}, starting at {@code index}, as there is room
+     * for, claiming their slots together and, for a durable queue, flushing them together.
+     * @param records the records to add
+     * @param index the index of the first record to add
+     * @param count the number of records to add
+     * @return the number of records added, which may be less than {@code count} if the queue fills
+     * @throws IllegalArgumentException if a record exceeds the maximum record size
+     */
+    public int offerBatch(byte[][] records, int index, int count) {
+        for (int i = index; i < index + count; i++) checkRecord(records[i], 0, records[i].length);
+        long enqueueOffset = baseOffset + ENQUEUE_OFFSET;
+        while (true) {
+            long position = pool.getLongVolatile(enqueueOffset);
+            int n = 0;
+            while (n < count && sequence(position + n) == position + n) n++;
+            if (n == 0) {
+                if (sequence(position) - position < 0) return 0;
+                continue;
+            }
+            if (!pool.compareAndSetLong(enqueueOffset, position, position + n)) continue;
+            for (int i = 0; i < n; i++) write(position + i, records[index + i], 0, records[index + i].length);
+            if (durable) flushSlots(position, n);
+            for (int i = 0; i < n; i++) pool.setLongRelease(slotOffset(position + i) + SEQUENCE_OFFSET, position + i + 1);
+            if (durable) flushSequences(position, n);
+            return n;
+        }
+    }
+
+    /**
+     * Removes and returns the record at the head of the queue.
+     * @return a copy of the record's bytes, or null if the queue is empty
+     */
+    public byte[] poll() {
+        byte[][] result = new byte[1][];
+        return pollBatch(buf -> {
+            result[0] = new byte[buf.remaining()];
+            buf.get(result[0]);
+        }, 1) == 0 ? null : result[0];
+    }
+
+    /**
+     * Removes up to {@code max} records from the head of the queue, claiming their slots together, and passes
+     * each in order to {@code consumer} as a read-only view of the pool.  A view is valid only during the call
+     * to {@code consumer}.
+     * @param consumer the function to which records are passed
+     * @param max the maximum number of records to remove
+     * @return the number of records removed
+     */
+    public int pollBatch(Consumer<ByteBuffer> consumer, int max) {
+        long dequeueOffset = baseOffset + DEQUEUE_OFFSET;
+        int delivered = 0;
+        while (delivered < max) {
+            long position = pool.getLongVolatile(dequeueOffset);
+            int n = 0;
+            while (n < max - delivered && sequence(position + n) == position + n + 1) n++;
+            if (n == 0) {
+                if (sequence(position) - (position + 1) < 0) break;
+                continue;
+            }
+            if (!pool.compareAndSetLong(dequeueOffset, position, position + n)) continue;
+            try {
+                for (int i = 0; i < n; i++) {
+                    long slot = slotOffset(position + i);
+                    int length = pool.getInt(slot + LENGTH_OFFSET);
+                    if (length == TOMBSTONE) continue;
+                    consumer.accept(pool.asReadOnlyByteBuffer(slot + PAYLOAD_OFFSET, length));
+                    delivered++;
+                }
+            }
+            finally {
+                // claimed slots are released even if consumer throws, so the queue does not stall
+                for (int i = 0; i < n; i++) pool.setLongRelease(slotOffset(position + i) + SEQUENCE_OFFSET, position + i + capacity);
+                if (durable) flushSequences(position, n);
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Returns an estimate of the number of records in the queue.
+     * @return the approximate number of records
+     */
+    public long size() {
+        long size = pool.getLongVolatile(baseOffset + ENQUEUE_OFFSET) - pool.getLongVolatile(baseOffset + DEQUEUE_OFFSET);
+        return Math.max(0, Math.min(size, capacity));
+    }
+
+    /**
+     * Returns the number of slots in the queue.
+     * @return the queue capacity
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the maximum size, in bytes, of a record.
+     * @return the maximum record size
+     */
+    public int maxRecordSize() {
+        return maxRecordSize;
+    }
+
+    /**
+     * Returns true if this queue flushes records to persistent memory.
+     * @return true if the queue is durable
+     */
+    public boolean isDurable() {
+        return durable;
+    }
+
+    /**
+     * Restores a consistent state after a crash.  Records whose enqueue completed are kept in position order,
+     * positions claimed by producers that did not finish are skipped, and records whose dequeue did not finish
+     * are delivered again.  This method must not be called while the queue is in use by any thread or process.
+     */
+    public void recover() {
+        ArrayList<Long> full = new ArrayList<>();
+        long firstFree = Long.MAX_VALUE;
+        for (long i = 0; i < capacity; i++) {
+            long sequence = pool.getLong(slotsOffset + i * slotSize + SEQUENCE_OFFSET);
+            if ((sequence & mask) == ((i + 1) & mask)) full.add(sequence - 1);
+            else firstFree = Math.min(firstFree, sequence);
+        }
+        long head;
+        long tail;
+        if (full.isEmpty()) head = tail = firstFree;
+        else {
+            Collections.sort(full);
+            head = full.get(0);
+            tail = full.get(full.size() - 1) + 1;
+        }
+        // positions between head and tail that do not hold a record become tombstones
+        for (long position = head; position < tail; position++) {
+            long slot = slotOffset(position);
+            if (pool.getLong(slot + SEQUENCE_OFFSET) != position + 1) {
+                pool.setInt(slot + LENGTH_OFFSET, TOMBSTONE);
+                pool.setLong(slot + SEQUENCE_OFFSET, position + 1);
+            }
+        }
+        for (long position = tail; position < head + capacity; position++) pool.setLong(slotOffset(position) + SEQUENCE_OFFSET, position);
+        pool.setLong(baseOffset + ENQUEUE_OFFSET, tail);
+        pool.setLong(baseOffset + DEQUEUE_OFFSET, head);
+        pool.flush(baseOffset, regionSize(capacity, maxRecordSize));
+    }
+
+    private void checkRecord(byte[] data, int index, int length) {
+        if (index < 0 || length < 0 || index + length > data.length) throw new IndexOutOfBoundsException("Invalid array range");
+        if (length > maxRecordSize) throw new IllegalArgumentException("Record of " + length + " bytes exceeds maximum record size " + maxRecordSize);
+    }
+
+    private long slotOffset(long position) {
+        return slotsOffset + (position & mask) * slotSize;
+    }
+
+    private long sequence(long position) {
+        return pool.getLongVolatile(slotOffset(position) + SEQUENCE_OFFSET);
+    }
+
+    private void write(long position, byte[] data, int index, int length) {
+        long slot = slotOffset(position);
+        pool.setInt(slot + LENGTH_OFFSET, length);
+        pool.copyFromByteArray(data, index, slot + PAYLOAD_OFFSET, length);
+    }
+
+    // flushes whole slots for n consecutive positions, in at most two ranges
+    private void flushSlots(long position, long n) {
+        long first = position & mask;
+        long count = Math.min(n, capacity - first);
+        pool.flush(slotsOffset + first * slotSize, count * slotSize);
+        if (count < n) pool.flush(slotsOffset, (n - count) * slotSize);
+    }
+
+    private void flushSequences(long position, long n) {
+        if (n == 1) pool.flush(slotOffset(position) + SEQUENCE_OFFSET, Long.BYTES);
+        else flushSlots(position, n);
+    }
+}
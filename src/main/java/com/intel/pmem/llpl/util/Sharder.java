@@ -30,6 +30,28 @@ interface Sharder<K> {
 
     public Object shardAndGet(K key, Function<Shardable<K>, Object> f);
 
+    // applies a write, possibly batched with writes from other threads; f may be run by another thread.
+    // put is false for writes, such as removes, that cannot grow a shard
+    default Object shardAndCombine(K key, Function<Shardable<K>, Object> f, boolean put) {
+        return put ? shardAndPut(key, f) : shardAndGet(key, f);
+    }
+
+    // applies f to runs of consecutive keys that belong to the same shard, holding the shard lock once per run;
+    // f is called with the shard and the bounds [from, to) of the run within keys
+    default void shardRunsAndPut(K[] keys, ShardRunFunction<K> f) {
+        for (int i = 0; i < keys.length; i++) {
+            int from = i;
+            shardAndPut(keys[i], (Shardable<K> s) -> { f.apply(s, from, from + 1); return null; });
+        }
+    }
+
+    default void shardRunsAndGet(K[] keys, ShardRunFunction<K> f) {
+        for (int i = 0; i < keys.length; i++) {
+            int from = i;
+            shardAndGet(keys[i], (Shardable<K> s) -> { f.apply(s, from, from + 1); return null; });
+        }
+    }
+
     public <E> AutoCloseableIterator<E> shardsAndExecute(K fromKey, K toKey, Function<Shardable<K>, Iterator<E>> f, boolean reversed);
 
     public void forEach(Consumer<Shardable<K>> c);
@@ -38,6 +60,11 @@ interface Sharder<K> {
 
     public long totalEntries();
 
+    @FunctionalInterface
+    interface ShardRunFunction<K> {
+        void apply(Shardable<K> shard, int from, int to);
+    }
+
     @SuppressWarnings("unchecked")
     public static <K> Sharder<K> rebuild(AnyHeap heap, long handle, AbstractSharded<K> sharded) {
         AnyMemoryBlock block = heap.memoryBlockFromHandle(handle);
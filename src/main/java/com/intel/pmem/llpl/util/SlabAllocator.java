@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl.util;
+
+import com.intel.pmem.llpl.MemoryPool;
+import java.util.function.LongPredicate;
+
+/**
+ * A lock-free allocator of fixed-size slots in a region of a {@link MemoryPool}.<br><br>
+ * All allocator state is kept in the pool, so any number of threads, and any number of processes that
+ * share the pool, can allocate and free slots concurrently through their own {@code SlabAllocator}
+ * instances.  Free slots are kept on a list whose head is updated with a durable compare-and-set; the head
+ * carries a tag that is incremented on every update to prevent ABA races.  Slots that have never been
+ * allocated are handed out from a bump pointer, so creating an allocator does not touch the slots.<br><br>
+ * Allocator metadata is always consistent after a crash, and a slot returned by {@link #allocate()} is
+ * never handed out again unless freed.  A slot that was being allocated or freed when a crash occurred may
+ * be leaked; {@link #rebuild(LongPredicate)} reclaims leaked slots given the application's view of which
+ * slots are in use.
+ *
+ * @since 1.3
+ */
+public class SlabAllocator {
+    private static final long MAGIC = 0x4c4c504c534c4231L;
+    private static final long MAGIC_OFFSET = 0;
+    private static final long SLOT_SIZE_OFFSET = 8;
+    private static final long SLOT_COUNT_OFFSET = 16;
+    private static final long FREE_HEAD_OFFSET = 24;
+    private static final long BUMP_OFFSET = 32;
+    private static final long HEADER_SIZE = 64;
+    private static final long INDEX_MASK = 0xFFFFFFFFL;
+    private static final long MAX_SLOTS = INDEX_MASK - 1;
+
+    private final MemoryPool pool;
+    private final long baseOffset;
+    private final long slotsOffset;
+    private final long slotSize;
+    private final long slotCount;
+
+    /**
+     * Creates a new allocator in a region of {@code pool} starting at {@code offset}.  The region occupies
+     * {@link #regionSize(long, long)} bytes.
+     * @param pool the pool in which to create the allocator
+     * @param offset the 8-byte aligned offset of the allocator region within the pool
+     * @param slotSize the size, in bytes, of each slot; a multiple of 8
+     * @param slotCount the number of slots
+     * @return the new allocator
+     * @throws IllegalArgumentException if {@code offset}, {@code slotSize} or {@code slotCount} is invalid
+     * @throws IndexOutOfBoundsException if the allocator region would extend outside of pool bounds
+     */
+    public static SlabAllocator create(MemoryPool pool, long offset, long slotSize, long slotCount) {
+        if (offset % 8 != 0) throw new IllegalArgumentException("Offset must be 8-byte aligned: " + offset);
+        if (slotSize < 8 || slotSize % 8 != 0) throw new IllegalArgumentException("Invalid slot size: " + slotSize);
+        if (slotCount < 1 || slotCount > MAX_SLOTS) throw new IllegalArgumentException("Invalid slot count: " + slotCount);
+        if (offset < 0 || offset + regionSize(slotSize, slotCount) > pool.size()) throw new IndexOutOfBoundsException("Allocator region does not fit in pool");
+        pool.setLong(offset + MAGIC_OFFSET, 0L);
+        pool.setLong(offset + SLOT_SIZE_OFFSET, slotSize);
+        pool.setLong(offset + SLOT_COUNT_OFFSET, slotCount);
+        pool.setLong(offset + FREE_HEAD_OFFSET, 0L);
+        pool.setLong(offset + BUMP_OFFSET, 0L);
+        pool.flush(offset, HEADER_SIZE);
+        pool.setLong(offset + MAGIC_OFFSET, MAGIC);
+        pool.flush(offset + MAGIC_OFFSET, Long.BYTES);
+        return new SlabAllocator(pool, offset);
+    }
+
+    /**
+     * Opens an allocator previously created in {@code pool} at {@code offset}.
+     * @param pool the pool containing the allocator
+     * @param offset the offset of the allocator region within the pool
+     * @return the allocator
+     * @throws IllegalArgumentException if there is no allocator at {@code offset}
+     */
+    public static SlabAllocator open(MemoryPool pool, long offset) {
+        if (offset < 0 || offset + HEADER_SIZE > pool.size() || pool.getLong(offset + MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalArgumentException("No allocator found at offset " + offset);
+        }
+        return new SlabAllocator(pool, offset);
+    }
+
+    /**
+     * Returns the number of pool bytes occupied by an allocator with the given geometry.
+     * @param slotSize the size, in bytes, of each slot
+     * @param slotCount the number of slots
+     * @return the size of the allocator region
+     */
+    public static long regionSize(long slotSize, long slotCount) {
+        return HEADER_SIZE + slotSize * slotCount;
+    }
+
+    private SlabAllocator(MemoryPool pool, long offset) {
+        this.pool = pool;
+        this.baseOffset = offset;
+        this.slotsOffset = offset + HEADER_SIZE;
+        this.slotSize = pool.getLong(offset + SLOT_SIZE_OFFSET);
+        this.slotCount = pool.getLong(offset + SLOT_COUNT_OFFSET);
+    }
+
+    /**
+     * Allocates a slot.
+     * @return the pool offset of the allocated slot
+     * @throws IllegalStateException if all slots are allocated
+     */
+    public long allocate() {
+        long headOffset = baseOffset + FREE_HEAD_OFFSET;
+        while (true) {
+            long head = pool.getLongVolatile(headOffset);
+            long index = (head & INDEX_MASK) - 1;
+            if (index < 0) break;
+            long next = pool.getLongVolatile(slotOffset(index));
+            if (pool.compareAndSetLongDurable(headOffset, head, tagged(head, next))) return slotOffset(index);
+        }
+        long bumpOffset = baseOffset + BUMP_OFFSET;
+        while (true) {
+            long bump = pool.getLongVolatile(bumpOffset);
+            if (bump >= slotCount) throw new IllegalStateException("No free slots");
+            if (pool.compareAndSetLongDurable(bumpOffset, bump, bump + 1)) return slotOffset(bump);
+        }
+    }
+
+    /**
+     * Frees a slot previously returned by {@link #allocate()}.  Freeing a slot twice corrupts the free list.
+     * @param offset the pool offset of the slot
+     * @throws IllegalArgumentException if {@code offset} is not the offset of a slot
+     */
+    public void free(long offset) {
+        long index = slotIndex(offset);
+        long headOffset = baseOffset + FREE_HEAD_OFFSET;
+        while (true) {
+            long head = pool.getLongVolatile(headOffset);
+            pool.setLongVolatile(offset, head & INDEX_MASK);
+            pool.flush(offset, Long.BYTES);
+            if (pool.compareAndSetLongDurable(headOffset, head, tagged(head, index + 1))) return;
+        }
+    }
+
+    /**
+     * Returns a pool view of the slot at {@code offset}.
+     * @param offset the pool offset of the slot
+     * @return a slice of the pool covering the slot
+     * @throws IllegalArgumentException if {@code offset} is not the offset of a slot
+     */
+    public MemoryPool slot(long offset) {
+        slotIndex(offset);
+        return pool.slice(offset, slotSize);
+    }
+
+    /**
+     * Rebuilds the free list from all slots for which {@code isAllocated} returns false, reclaiming slots
+     * leaked by a crash.  This method must not be called while the allocator is in use by any thread or process.
+     * @param isAllocated tests whether the slot at a given pool offset is in use
+     */
+    public void rebuild(LongPredicate isAllocated) {
+        long bump = pool.getLong(baseOffset + BUMP_OFFSET);
+        long first = 0;
+        for (long index = bump - 1; index >= 0; index--) {
+            long offset = slotOffset(index);
+            if (isAllocated.test(offset)) continue;
+            pool.setLong(offset, first);
+            pool.flush(offset, Long.BYTES);
+            first = index + 1;
+        }
+        long head = pool.getLong(baseOffset + FREE_HEAD_OFFSET);
+        pool.setLong(baseOffset + FREE_HEAD_OFFSET, tagged(head, first));
+        pool.flush(baseOffset + FREE_HEAD_OFFSET, Long.BYTES);
+    }
+
+    /**
+     * Returns the size, in bytes, of each slot.
+     * @return the slot size
+     */
+    public long slotSize() {
+        return slotSize;
+    }
+
+    /**
+     * Returns the total number of slots.
+     * @return the slot count
+     */
+    public long slotCount() {
+        return slotCount;
+    }
+
+    private long slotOffset(long index) {
+        return slotsOffset + index * slotSize;
+    }
+
+    private long slotIndex(long offset) {
+        long relative = offset - slotsOffset;
+        if (relative < 0 || relative % slotSize != 0 || relative / slotSize >= slotCount) {
+            throw new IllegalArgumentException("Not a slot offset: " + offset);
+        }
+        return relative / slotSize;
+    }
+
+    // the low 32 bits of the free list head hold the first free index + 1, the high 32 bits an update count
+    private static long tagged(long head, long link) {
+        return ((head >>> 32) + 1) << 32 | link;
+    }
+}
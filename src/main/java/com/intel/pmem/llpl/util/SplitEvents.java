@@ -0,0 +1,63 @@
+/* 
+ * Copyright (C) 2019-2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ * 
+ */
+
+package com.intel.pmem.llpl.util;
+
+import com.intel.pmem.llpl.AnyHeap;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+
+// Flight Recorder instrumentation for shard splits; see com.intel.pmem.llpl.Events
+final class SplitEvents {
+    static final boolean AVAILABLE = isAvailable();
+    // AnyHeap.path() is package-private, so it is looked up reflectively rather than widening the heap API
+    private static final MethodHandle HEAP_PATH = AVAILABLE ? heapPathHandle() : null;
+
+    private SplitEvents() {
+        // no instances
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, SplitEvents.class.getClassLoader());
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static MethodHandle heapPathHandle() {
+        try {
+            Method path = AnyHeap.class.getDeclaredMethod("path");
+            path.setAccessible(true);
+            return MethodHandles.lookup().unreflect(path);
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String heapPath(AnyHeap heap) {
+        if (HEAP_PATH == null) return null;
+        try {
+            return (String)HEAP_PATH.invokeExact(heap);
+        }
+        catch (Throwable t) {
+            return null;
+        }
+    }
+
+    static Object beginSplit() {
+        return AVAILABLE ? JfrSplitEvent.beginSplit() : null;
+    }
+
+    static void endSplit(Object event, AnyHeap heap, long entries, int shards) {
+        if (event != null) JfrSplitEvent.endSplit(event, heapPath(heap), entries, shards);
+    }
+}
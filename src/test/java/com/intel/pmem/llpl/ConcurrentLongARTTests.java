@@ -17,6 +17,8 @@ import org.testng.annotations.Test;
 import org.testng.Assert;
 import java.util.NoSuchElementException;
 import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Iterator;
 import java.util.Random;
 import java.util.Map;
@@ -1324,4 +1326,130 @@ Integer cnt = 0;
             Assert.assertTrue(true); 
         }
     }
+    @Test
+    public void testPutAllAndGetAll() throws InterruptedException {
+        ConcurrentLongART cart = getCart(heap);
+        ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+        fill(cart, control);
+        int threads = 4;
+        byte[][][] batches = new byte[threads][][];
+        long[][] values = new long[threads][];
+        for (int t = 0; t < threads; t++) {
+            batches[t] = new byte[3000][];
+            values[t] = new long[3000];
+            for (int i = 0; i < batches[t].length; i++) {
+                // disjoint keys per thread
+                batches[t][i] = getKey(2 + rnd.nextInt(10));
+                batches[t][i][0] = (byte)t;
+                values[t][i] = t * 100000L + i + 1;
+                control.put(new KeyBytes(batches[t][i]), values[t][i]);
+            }
+        }
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                for (int from = 0; from < batches[id].length; from += 1000) {
+                    cart.putAll(Arrays.copyOfRange(batches[id], from, from + 1000), Arrays.copyOfRange(values[id], from, from + 1000));
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) w.join();
+        Assert.assertEquals(cart.size(), (long)control.size());
+        byte[][] keys = new byte[control.size()][];
+        long[] expected = new long[keys.length];
+        int i = 0;
+        for (Map.Entry<KeyBytes, Long> e : control.descendingMap().entrySet()) {
+            keys[i] = e.getKey().get();
+            expected[i++] = e.getValue();
+        }
+        long[] found = new long[keys.length];
+        cart.getAll(keys, found);
+        Assert.assertTrue(Arrays.equals(found, expected));
+        Iterator<LongART.Entry> it = cart.getEntryIterator();
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) Assert.assertTrue(Arrays.equals(it.next().getKey(), e.getKey().get()));
+        Assert.assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testBulkLoad() {
+        ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+        List<Iterator<LongART.Entry>> ranges = new ArrayList<>();
+        for (int t = 0; t < 5; t++) {
+            ConcurrentSkipListMap<KeyBytes, Long> range = new ConcurrentSkipListMap<>();
+            // range 2 is empty
+            for (int i = 0; t != 2 && i < 2000; i++) {
+                byte[] key = getKey(2 + rnd.nextInt(10));
+                key[0] = (byte)(t * 50);
+                range.put(new KeyBytes(key), t * 100000L + i + 1);
+            }
+            control.putAll(range);
+            ArrayList<LongART.Entry> entries = new ArrayList<>();
+            for (Map.Entry<KeyBytes, Long> e : range.entrySet()) entries.add(new LongART.Entry(e.getKey().get(), e.getValue()));
+            ranges.add(entries.iterator());
+        }
+        ConcurrentLongART cart = ConcurrentLongART.bulkLoad(heap, 4, ranges);
+        Assert.assertEquals(cart.size(), (long)control.size());
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) Assert.assertEquals(cart.get(e.getKey().get()), (long)e.getValue());
+        for (int i = 0; i < 3000; i++) {
+            byte[] key = getKey(2 + rnd.nextInt(10));
+            control.put(new KeyBytes(key), (long)i + 1);
+            cart.put(key, i + 1);
+        }
+        ConcurrentLongART reopened = ConcurrentLongART.fromHandle(heap, cart.handle());
+        Iterator<LongART.Entry> it = reopened.getEntryIterator();
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) {
+            LongART.Entry entry = it.next();
+            Assert.assertTrue(Arrays.equals(entry.getKey(), e.getKey().get()));
+            Assert.assertEquals(entry.getValue(), (long)e.getValue());
+        }
+        Assert.assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testBulkLoadOverlappingRanges() {
+        List<Iterator<LongART.Entry>> ranges = new ArrayList<>();
+        ranges.add(Arrays.asList(new LongART.Entry(firstKey, firstValue), new LongART.Entry(lastKey, lastValue)).iterator());
+        ranges.add(Arrays.asList(new LongART.Entry(prefixKey, prefixValue)).iterator());
+        try {
+            ConcurrentLongART.bulkLoad(heap, 4, ranges);
+            Assert.fail("IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+        ConcurrentLongART cart = ConcurrentLongART.bulkLoad(heap, 4, new ArrayList<Iterator<LongART.Entry>>());
+        Assert.assertEquals(cart.size(), 0L);
+        cart.put(firstKey, firstValue);
+        Assert.assertEquals(cart.get(firstKey), firstValue);
+    }
+
+    @Test
+    public void testSplitInsideTransaction() throws InterruptedException {
+        ConcurrentLongART cart = new ConcurrentLongART(heap, 4);
+        ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+        byte[] other = new byte[] {(byte)0x80, 1, 2, 3};
+        Thread writer = new Thread(() -> cart.put(other, 99L));
+        Transaction.create(heap, () -> {
+            // enough entries to split the only shard while the enclosing transaction is active
+            for (int i = 0; i < 3000; i++) {
+                byte[] key = new byte[8];
+                rnd.nextBytes(key);
+                control.put(new KeyBytes(key), (long)i + 1);
+                cart.put(key, i + 1);
+            }
+            // the shard is split after commit, so no shard stays locked and other writers proceed
+            writer.start();
+            try {
+                writer.join();
+            }
+            catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            Assert.assertEquals(cart.get(other), 99L);
+        });
+        control.put(new KeyBytes(other), 99L);
+        Assert.assertEquals(cart.size(), (long)control.size());
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) Assert.assertEquals(cart.get(e.getKey().get()), (long)e.getValue());
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2018-2019 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+import org.testng.SkipException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import com.intel.pmem.llpl.util.ConcurrentLongART;
+import com.intel.pmem.llpl.util.LongART;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@Test(singleThreaded = true)
+public class FlightRecorderEventTests {
+	PersistentHeap heap = null;
+
+	@BeforeMethod
+	public void intialize() {
+		if (!Events.AVAILABLE) throw new SkipException("Flight Recorder is not available");
+		heap = TestVars.createPersistentHeap();
+	}
+
+	@SuppressWarnings("deprecation")
+	@AfterMethod
+	public void testCleanup() {
+		if (heap != null)
+			heap.close();
+
+		if (TestVars.ISDAX) {
+			TestVars.daxCleanUp();
+		}
+		else TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+	}
+
+	static List<RecordedEvent> record(String eventName, Runnable work) throws IOException {
+		Path file = Files.createTempFile("llpl", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(eventName);
+			recording.start();
+			work.run();
+			recording.stop();
+			recording.dump(file);
+			return RecordingFile.readAllEvents(file);
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testDisabledByDefault() {
+		Assert.assertNull(Events.beginAllocation());
+		Assert.assertNull(Events.beginFree());
+		Assert.assertNull(Events.beginTransaction());
+		Assert.assertNull(Events.beginFlush(Events.LARGE_FLUSH_SIZE));
+	}
+
+	@Test
+	public void testAllocationAndFreeEvents() throws IOException {
+		List<RecordedEvent> events = record("com.intel.pmem.llpl.Allocation", () -> {
+			heap.allocateMemoryBlock(1024).freeMemory();
+		});
+		Assert.assertEquals(events.size(), 1);
+		Assert.assertTrue(events.get(0).getLong("size") >= 1024);
+		events = record("com.intel.pmem.llpl.Free", () -> {
+			heap.allocateMemoryBlock(1024).freeMemory();
+		});
+		Assert.assertEquals(events.size(), 1);
+		Assert.assertTrue(events.get(0).getLong("size") >= 1024);
+		Assert.assertEquals(events.get(0).getString("heap"), heap.path());
+	}
+
+	@Test
+	public void testTransactionEvents() throws IOException {
+		PersistentMemoryBlock mb = heap.allocateMemoryBlock(64);
+		List<RecordedEvent> events = record("com.intel.pmem.llpl.Transaction", () -> {
+			Transaction.create(heap, () -> mb.transactionalSetLong(0, 1L));
+			try {
+				Transaction.create(heap, () -> {
+					mb.transactionalSetLong(0, 2L);
+					throw new IllegalStateException();
+				});
+			}
+			catch (IllegalStateException e) {}
+		});
+		Assert.assertEquals(events.size(), 2);
+		Assert.assertTrue(events.get(0).getBoolean("committed") != events.get(1).getBoolean("committed"));
+	}
+
+	@Test
+	public void testLargeFlushEvent() throws IOException {
+		long size = Events.LARGE_FLUSH_SIZE;
+		PersistentMemoryBlock mb = heap.allocateMemoryBlock(size);
+		List<RecordedEvent> events = record("com.intel.pmem.llpl.Flush", () -> {
+			mb.setMemory((byte)1, 0, size);
+			mb.setMemory((byte)1, 0, 64);
+		});
+		Assert.assertEquals(events.size(), 1);
+		Assert.assertEquals(events.get(0).getLong("size"), size);
+	}
+
+	@Test
+	public void testCombinedRemoveDoesNotSplit() throws IOException {
+		// a bulk-loaded shard can exceed the split threshold
+		ArrayList<LongART.Entry> entries = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) entries.add(new LongART.Entry(new byte[] {(byte)(i >> 8), (byte)i}, i + 1));
+		ConcurrentLongART cart = ConcurrentLongART.bulkLoad(heap, 4, Collections.singletonList(entries.iterator()));
+		cart.setWriteCombining(true);
+		List<RecordedEvent> events = record("com.intel.pmem.llpl.ShardSplit", () -> {
+			for (int i = 0; i < 10; i++) Assert.assertEquals(cart.remove(new byte[] {0, (byte)i}, (Long value) -> {}), i + 1L);
+		});
+		Assert.assertEquals(events.size(), 0);
+		events = record("com.intel.pmem.llpl.ShardSplit", () -> cart.put(new byte[] {0, 0}, 1L));
+		Assert.assertEquals(events.size(), 1);
+		Assert.assertEquals(events.get(0).getString("heap"), heap.path());
+		Assert.assertEquals(cart.size(), 2991L);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2018-2019 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+
+@Test(singleThreaded = true)
+public class LayoutTests {
+	TransactionalHeap heap = null;
+
+	@BeforeMethod
+	public void initialize() {
+		heap = null;
+	}
+
+	@SuppressWarnings("deprecation")
+	@AfterMethod
+	public void testCleanup() {
+		if (heap != null)
+			heap.close();
+
+		if (TestVars.ISDAX) {
+			TestVars.daxCleanUp();
+		}
+		else TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+	}
+
+	@Test
+	public void testFieldPlacement() {
+		Layout.Builder builder = Layout.builder();
+		Layout.ByteField type = builder.addByte("type");
+		Layout.LongField key = builder.addLong("key");
+		Layout.ShortField count = builder.addShort("count");
+		Layout.BytesField name = builder.addBytes("name", 5);
+		Layout layout = builder.build();
+		Assert.assertEquals(type.offset(), 0);
+		Assert.assertEquals(key.offset(), 8);
+		Assert.assertEquals(count.offset(), 16);
+		Assert.assertEquals(name.offset(), 18);
+		Assert.assertEquals(layout.size(), 24);
+		Assert.assertTrue(layout.field("key") == key);
+		Assert.assertEquals(layout.fields().size(), 4);
+	}
+
+	@Test
+	public void testCacheLineStraddle() {
+		Layout.Builder builder = Layout.builder().avoidCacheLineStraddle(true);
+		builder.addBytes("head", 60);
+		Layout.LongField tail = builder.addLong("tail");
+		Layout.IntField next = builder.alignTo(128).addInt("next");
+		Layout layout = builder.build(64);
+		Assert.assertEquals(tail.offset(), 64);
+		Assert.assertEquals(next.offset(), 128);
+		Assert.assertEquals(layout.size(), 192);
+	}
+
+	@Test
+	public void testDuplicateField() {
+		Layout.Builder builder = Layout.builder();
+		builder.addInt("a");
+		try {
+			builder.addLong("a");
+			Assert.fail("IllegalArgumentException not thrown");
+		}
+		catch (IllegalArgumentException e) {
+			Assert.assertTrue(true);
+		}
+	}
+
+	@Test
+	public void testFusedUpdate() {
+		heap = TestVars.createTransactionalHeap();
+		Layout.Builder builder = Layout.builder();
+		Layout.LongField key = builder.addLong("key");
+		Layout.IntField count = builder.addInt("count");
+		Layout.BytesField name = builder.addBytes("name", 4);
+		Layout layout = builder.build();
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(layout.size() * 2);
+		heap.resetStats();
+		layout.update(mb, layout.size(), (Layout.Writer w) -> {
+			w.setLong(key, 42L);
+			w.setInt(count, 7);
+			w.setBytes(name, new byte[] {1, 2, 3, 4}, 0);
+		});
+		Assert.assertEquals(heap.getStats().snapshots(), 1);
+		Assert.assertEquals(key.get(mb, layout.size()), 42L);
+		Assert.assertEquals(count.get(mb, layout.size()), 7);
+		byte[] bytes = new byte[4];
+		name.get(mb, layout.size(), bytes, 0);
+		Assert.assertEquals(bytes[3], (byte)4);
+		count.set(mb, 0, 3);
+		Assert.assertEquals(mb.getInt(count.offset()), 3);
+	}
+
+	@Test
+	public void testUpdateFieldSpan() {
+		heap = TestVars.createTransactionalHeap();
+		Layout.Builder builder = Layout.builder();
+		Layout.LongField a = builder.addLong("a");
+		Layout.LongField b = builder.addLong("b");
+		Layout.LongField c = builder.addLong("c");
+		Layout layout = builder.build();
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(layout.size());
+		heap.resetStats();
+		layout.update(mb, 0, b, c, (Layout.Writer w) -> {
+			w.setLong(b, 2L);
+			w.setLong(c, 3L);
+		});
+		Assert.assertEquals(heap.getStats().snapshotBytes(), 16);
+		try {
+			layout.update(mb, 0, b, c, (Layout.Writer w) -> w.setLong(a, 1L));
+			Assert.fail("IndexOutOfBoundsException not thrown");
+		}
+		catch (IndexOutOfBoundsException e) {
+			Assert.assertEquals(mb.getLong(a.offset()), 0L);
+		}
+	}
+}
@@ -18,6 +18,8 @@ import java.util.NoSuchElementException;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -1928,4 +1930,291 @@ public class LongARTTests {
         LongART art = new LongART(heap);
         Assert.assertNull(art.split());
     }
+
+    public void testSplitOddSizeCounts() {
+        LongART art = new LongART(heap);
+        for (int i = 0; i < 1001; i++) art.put(getKey(4 + rnd.nextInt(8)), i);
+        long size = art.size();
+        LongART right = art.split();
+        Assert.assertEquals(art.size() + right.size(), size);
+        long leftEntries = 0;
+        Iterator<LongART.Entry> it = art.getEntryIterator();
+        while (it.hasNext()) { it.next(); leftEntries++; }
+        Assert.assertEquals(art.size(), leftEntries);
+        long rightEntries = 0;
+        it = right.getEntryIterator();
+        while (it.hasNext()) { it.next(); rightEntries++; }
+        Assert.assertEquals(right.size(), rightEntries);
+    }
+
+    // Batch tests
+    static byte[][] getBatchKeys(int count, int alphabet) {
+        byte[][] keys = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            // short keys over a small alphabet share prefixes and are prefixes of one another
+            keys[i] = new byte[1 + rnd.nextInt(12)];
+            for (int j = 0; j < keys[i].length; j++) keys[i][j] = (byte)(rnd.nextInt(alphabet) * 7);
+        }
+        return keys;
+    }
+
+    static void checkEntries(LongART art, Map<KeyBytes, Long> control) {
+        Assert.assertEquals(art.size(), (long)control.size());
+        Iterator<LongART.Entry> it = art.getEntryIterator();
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) {
+            LongART.Entry entry = it.next();
+            Assert.assertTrue(Arrays.equals(entry.getKey(), e.getKey().get()));
+            Assert.assertEquals(entry.getValue(), (long)e.getValue());
+        }
+        Assert.assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testPutAll() {
+        LongART art = new LongART(heap);
+        ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+        fill(art, control);
+        rnd.setSeed(SEED);
+        for (int round = 0; round < 3; round++) {
+            byte[][] keys = getBatchKeys(2000, round == 2 ? 256 : 5 + round * 40);
+            long[] values = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                values[i] = round * 10000L + i + 1;
+                control.put(new KeyBytes(keys[i]), values[i]);
+            }
+            art.putAll(keys, values);
+            checkEntries(art, control);
+        }
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) Assert.assertEquals(art.get(e.getKey().get()), (long)e.getValue());
+        LongART reopened = LongART.fromHandle(heap, art.handle());
+        checkEntries(reopened, control);
+    }
+
+    @Test
+    public void testGetAll() {
+        LongART art = new LongART(heap);
+        ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+        rnd.setSeed(SEED);
+        byte[][] keys = getBatchKeys(1000, 20);
+        for (int i = 0; i < keys.length; i++) {
+            art.put(keys[i], i + 1);
+            control.put(new KeyBytes(keys[i]), (long)i + 1);
+        }
+        byte[][] lookups = getBatchKeys(3000, 20);
+        long[] values = new long[lookups.length];
+        art.getAll(lookups, values);
+        for (int i = 0; i < lookups.length; i++) {
+            Long expected = control.get(new KeyBytes(lookups[i]));
+            Assert.assertEquals(values[i], expected == null ? 0L : (long)expected);
+        }
+        art.getAll(new byte[0][], new long[0]);
+    }
+
+    @Test
+    public void testPutAllInvalidArguments() {
+        LongART art = new LongART(heap);
+        try {
+            art.putAll(new byte[][] {firstKey, new byte[0]}, new long[2]);
+            Assert.fail("IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(art.size(), 0L);
+        }
+        try {
+            art.getAll(new byte[][] {firstKey}, new long[2]);
+            Assert.fail("IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    // Bulk load tests
+    static Iterator<LongART.Entry> entryIterator(Map<KeyBytes, Long> control) {
+        ArrayList<LongART.Entry> entries = new ArrayList<>();
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) entries.add(new LongART.Entry(e.getKey().get(), e.getValue()));
+        return entries.iterator();
+    }
+
+    @Test
+    public void testBulkLoad() {
+        rnd.setSeed(SEED);
+        for (int round = 0; round < 4; round++) {
+            ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+            // small and large alphabets give every node type; the last round adds keys longer than
+            // the maximum prefix length that share long runs
+            byte[][] keys = getBatchKeys(3000, round == 2 ? 256 : 3 + round * 30);
+            for (int i = 0; i < keys.length; i++) {
+                byte[] key = keys[i];
+                if (round == 3) {
+                    key = new byte[keys[i].length + 30];
+                    System.arraycopy(keys[i], 0, key, 0, keys[i].length);
+                    key[key.length - 1] = (byte)(i % 3);
+                }
+                control.put(new KeyBytes(key), (long)i + 1);
+            }
+            LongART art = LongART.bulkLoad(heap, entryIterator(control));
+            checkEntries(art, control);
+            for (Map.Entry<KeyBytes, Long> e : control.entrySet()) Assert.assertEquals(art.get(e.getKey().get()), (long)e.getValue());
+            Assert.assertTrue(Arrays.equals(art.firstKey(), control.firstKey().get()));
+            Assert.assertTrue(Arrays.equals(art.lastKey(), control.lastKey().get()));
+            LongART reopened = LongART.fromHandle(heap, art.handle());
+            checkEntries(reopened, control);
+            LongART copy = LongART.bulkLoad(heap, art.getEntryIterator());
+            checkEntries(copy, control);
+            copy.free();
+            art.free();
+        }
+    }
+
+    @Test
+    public void testBulkLoadThenUpdate() {
+        ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+        rnd.setSeed(SEED);
+        byte[][] keys = getBatchKeys(2000, 20);
+        for (int i = 0; i < keys.length; i++) control.put(new KeyBytes(keys[i]), (long)i + 1);
+        LongART art = LongART.bulkLoad(heap, entryIterator(control));
+        // new keys grow the loaded nodes and split their prefixes
+        byte[][] updates = getBatchKeys(2000, 24);
+        for (int i = 0; i < updates.length; i++) {
+            Long old = control.put(new KeyBytes(updates[i]), 10000L + i);
+            Assert.assertEquals(art.put(updates[i], 10000L + i), old == null ? 0L : (long)old);
+        }
+        checkEntries(art, control);
+        art.clear((Long v) -> {});
+        Assert.assertEquals(art.size(), 0L);
+    }
+
+    @Test
+    public void testBulkLoadEmptyAndInvalid() {
+        LongART art = LongART.bulkLoad(heap, new ArrayList<LongART.Entry>().iterator());
+        Assert.assertEquals(art.size(), 0L);
+        art.put(firstKey, firstValue);
+        Assert.assertEquals(art.get(firstKey), firstValue);
+        ArrayList<LongART.Entry> unsorted = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) unsorted.add(new LongART.Entry(new byte[] {(byte)(i >> 8), (byte)i}, i + 1));
+        unsorted.add(new LongART.Entry(firstKey, firstValue));
+        try {
+            LongART.bulkLoad(heap, unsorted.iterator());
+            Assert.fail("IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+        ArrayList<LongART.Entry> duplicate = new ArrayList<>();
+        duplicate.add(new LongART.Entry(firstKey, firstValue));
+        duplicate.add(new LongART.Entry(firstKey, lastValue));
+        try {
+            LongART.bulkLoad(heap, duplicate.iterator());
+            Assert.fail("IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            LongART.bulkLoad(heap, Arrays.asList(new LongART.Entry(new byte[0], 1L)).iterator());
+            Assert.fail("IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    // Long prefix tests
+    static byte[][] getCompositeKeys(int count) {
+        byte[][] keys = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            // 24 to 64 byte keys: a long shared tenant prefix, a short table id and a long random suffix
+            keys[i] = new byte[24 + rnd.nextInt(41)];
+            Arrays.fill(keys[i], 0, 12, (byte)(1 + rnd.nextInt(3)));
+            keys[i][12] = (byte)rnd.nextInt(4);
+            for (int j = 13; j < keys[i].length; j++) keys[i][j] = (byte)rnd.nextInt(j < 20 ? 2 : 256);
+        }
+        return keys;
+    }
+
+    @Test
+    public void testLongKeys() {
+        LongART art = new LongART(heap);
+        ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+        rnd.setSeed(SEED);
+        byte[][] keys = getCompositeKeys(3000);
+        for (int i = 0; i < keys.length; i++) {
+            Long old = control.put(new KeyBytes(keys[i]), (long)i + 1);
+            Assert.assertEquals(art.put(keys[i], i + 1), old == null ? 0L : (long)old);
+            // prefixes of existing keys split long leaf and node prefixes
+            byte[] prefix = Arrays.copyOf(keys[i], 1 + rnd.nextInt(keys[i].length - 1));
+            control.put(new KeyBytes(prefix), 100000L + i);
+            art.put(prefix, 100000L + i);
+        }
+        checkEntries(art, control);
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) Assert.assertEquals(art.get(e.getKey().get()), (long)e.getValue());
+        int removed = 0;
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) {
+            if (removed++ % 2 == 0) continue;
+            Assert.assertEquals(art.remove(e.getKey().get(), (Long v) -> {}), (long)e.getValue());
+            control.remove(e.getKey());
+        }
+        checkEntries(LongART.fromHandle(heap, art.handle()), control);
+        art.free();
+    }
+
+    @Test
+    public void testNode16Children() {
+        rnd.setSeed(SEED);
+        for (int round = 0; round < 200; round++) {
+            LongART art = new LongART(heap);
+            ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+            // 5 to 16 children under one inner node, in random order and spanning signed byte values
+            List<Integer> radices = new ArrayList<>();
+            for (int i = 0; i < 256; i++) radices.add(i);
+            Collections.shuffle(radices, rnd);
+            int count = 5 + rnd.nextInt(12);
+            boolean blank = rnd.nextBoolean();
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[] {7, 9, (byte)(int)radices.get(i)};
+                control.put(new KeyBytes(key), (long)i + 1);
+                art.put(key, i + 1);
+                if (blank && i == count / 2) {
+                    control.put(new KeyBytes(new byte[] {7, 9}), 1000L);
+                    art.put(new byte[] {7, 9}, 1000L);
+                }
+            }
+            checkEntries(art, control);
+            for (int i = 0; i < 256; i++) {
+                Long expected = control.get(new KeyBytes(new byte[] {7, 9, (byte)i}));
+                Assert.assertEquals(art.get(new byte[] {7, 9, (byte)i}), expected == null ? 0L : (long)expected);
+            }
+            for (int i = 0; i < count; i += 2) {
+                byte[] key = new byte[] {7, 9, (byte)(int)radices.get(i)};
+                Assert.assertEquals(art.remove(key, (Long v) -> {}), (long)control.remove(new KeyBytes(key)));
+            }
+            if (blank && rnd.nextBoolean()) {
+                Assert.assertEquals(art.remove(new byte[] {7, 9}, (Long v) -> {}), 1000L);
+                control.remove(new KeyBytes(new byte[] {7, 9}));
+            }
+            checkEntries(art, control);
+            for (int i = count; i < count + 6; i++) {
+                byte[] key = new byte[] {7, 9, (byte)(int)radices.get(i)};
+                control.put(new KeyBytes(key), (long)i + 1);
+                art.put(key, i + 1);
+            }
+            checkEntries(art, control);
+            art.free();
+        }
+    }
+
+    @Test
+    public void testVersion100Compatibility() {
+        LongART art = new LongART(heap);
+        // mark the tree as created by a release without long prefixes
+        heap.compactMemoryBlockFromHandle(art.handle()).setShort(2, (short)100);
+        LongART old = LongART.fromHandle(heap, art.handle());
+        ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+        rnd.setSeed(SEED);
+        byte[][] keys = getCompositeKeys(1000);
+        for (int i = 0; i < keys.length; i++) {
+            control.put(new KeyBytes(keys[i]), (long)i + 1);
+            old.put(keys[i], i + 1);
+        }
+        checkEntries(old, control);
+        LongART migrated = LongART.bulkLoad(heap, old.getEntryIterator());
+        checkEntries(migrated, control);
+        for (int i = 0; i < keys.length; i += 3) Assert.assertEquals(migrated.get(keys[i]), (long)control.get(new KeyBytes(keys[i])));
+    }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import com.intel.pmem.llpl.util.LongBytesART;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+@Test(singleThreaded = true)
+public class LongBytesARTTests {
+    Heap heap = null;
+    static final int MAX_INLINE = 40;
+    static Random rnd = new Random(987654321L);
+
+    @BeforeMethod
+    public void initialize() {
+        heap = TestVars.createHeap();
+    }
+
+    @AfterMethod
+    public void testCleanup() {
+        if (heap != null)
+            heap.close();
+
+        if (TestVars.ISDAX) {
+            TestVars.daxCleanUp();
+        }
+        else TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+    }
+
+    static byte[] getBytes(int size) {
+        byte[] ret = new byte[size];
+        rnd.nextBytes(ret);
+        return ret;
+    }
+
+    static void checkValue(LongBytesART art, byte[] key, byte[] expected) {
+        ByteBuffer dst = ByteBuffer.allocate(expected.length + 4);
+        Assert.assertEquals(art.get(key, dst), expected.length);
+        Assert.assertEquals(dst.position(), expected.length);
+        Assert.assertTrue(Arrays.equals(Arrays.copyOf(dst.array(), expected.length), expected));
+        ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+        Assert.assertEquals(art.get(key, direct), expected.length);
+        direct.flip();
+        Assert.assertTrue(direct.equals(ByteBuffer.wrap(expected)));
+        ByteBuffer view = art.getBuffer(key);
+        Assert.assertTrue(view.isReadOnly());
+        Assert.assertTrue(view.equals(ByteBuffer.wrap(expected)));
+    }
+
+    @Test
+    public void testPutAndGet() {
+        LongBytesART art = new LongBytesART(heap, MAX_INLINE);
+        Assert.assertEquals(art.maxInlineLength(), MAX_INLINE);
+        TreeMap<String, byte[]> control = new TreeMap<>();
+        for (int i = 0; i < 2000; i++) {
+            // keys over a small alphabet include prefixes of one another and keys longer than 8 bytes
+            byte[] key = new byte[1 + rnd.nextInt(14)];
+            for (int j = 0; j < key.length; j++) key[j] = (byte)('a' + rnd.nextInt(4));
+            byte[] value = getBytes(rnd.nextInt(3 * MAX_INLINE));
+            Assert.assertEquals(art.put(key, value), control.put(new String(key), value) != null);
+        }
+        Assert.assertEquals(art.size(), (long)control.size());
+        for (Map.Entry<String, byte[]> e : control.entrySet()) checkValue(art, e.getKey().getBytes(), e.getValue());
+        Assert.assertEquals(art.get("zz".getBytes(), ByteBuffer.allocate(8)), -1);
+        Assert.assertNull(art.getBuffer("zz".getBytes()));
+        LongBytesART reopened = LongBytesART.fromHandle(heap, art.handle());
+        Assert.assertEquals(reopened.maxInlineLength(), MAX_INLINE);
+        Assert.assertEquals(reopened.size(), (long)control.size());
+        for (Map.Entry<String, byte[]> e : control.entrySet()) checkValue(reopened, e.getKey().getBytes(), e.getValue());
+    }
+
+    @Test
+    public void testReplace() {
+        LongBytesART art = new LongBytesART(heap, MAX_INLINE);
+        byte[] root = "root".getBytes();
+        byte[] prefix = "ro".getBytes();
+        byte[] other = "rope".getBytes();
+        // lengths move each value between inline storage, a larger inline leaf and a spill block
+        int[] lengths = {0, 5, 3, 8, 30, MAX_INLINE, MAX_INLINE + 1, 200, 100, 7, 300};
+        for (int length : lengths) {
+            for (byte[] key : new byte[][] {root, prefix, other}) {
+                byte[] value = getBytes(length);
+                art.put(key, value);
+                checkValue(art, key, value);
+            }
+            Assert.assertEquals(art.size(), 3L);
+        }
+        // a single entry is the tree's only leaf
+        LongBytesART single = new LongBytesART(heap, MAX_INLINE);
+        for (int length : lengths) {
+            byte[] value = getBytes(length);
+            single.put(root, value);
+            checkValue(single, root, value);
+        }
+        Assert.assertEquals(single.size(), 1L);
+    }
+
+    @Test
+    public void testRemove() {
+        LongBytesART art = new LongBytesART(heap, MAX_INLINE);
+        TreeMap<String, byte[]> control = new TreeMap<>();
+        for (int i = 0; i < 500; i++) {
+            byte[] key = ("key" + i).getBytes();
+            byte[] value = getBytes(rnd.nextInt(2 * MAX_INLINE));
+            art.put(key, value);
+            control.put(new String(key), value);
+        }
+        for (int i = 0; i < 500; i += 2) {
+            Assert.assertTrue(art.remove(("key" + i).getBytes()));
+            control.remove("key" + i);
+        }
+        Assert.assertFalse(art.remove("key0".getBytes()));
+        Assert.assertEquals(art.size(), (long)control.size());
+        for (Map.Entry<String, byte[]> e : control.entrySet()) checkValue(art, e.getKey().getBytes(), e.getValue());
+        art.clear();
+        Assert.assertEquals(art.size(), 0L);
+        Assert.assertNull(art.getBuffer("key1".getBytes()));
+        Assert.assertFalse(art.remove("key1".getBytes()));
+        // a single entry is held directly by the root
+        art.put("key1".getBytes(), getBytes(8));
+        Assert.assertFalse(art.remove("key2".getBytes()));
+        Assert.assertTrue(art.remove("key1".getBytes()));
+        Assert.assertEquals(art.size(), 0L);
+        art.free();
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        LongBytesART art = new LongBytesART(heap, 0);
+        byte[] key = "key".getBytes();
+        art.put(key, getBytes(16));
+        try {
+            art.get(key, ByteBuffer.allocate(8));
+            Assert.fail("BufferOverflowException was not thrown");
+        } catch (BufferOverflowException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            art.put(new byte[0], new byte[1]);
+            Assert.fail("IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            art.put(key, null);
+            Assert.fail("IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            new LongBytesART(heap, -1);
+            Assert.fail("IllegalArgumentException was not thrown");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+    }
+}
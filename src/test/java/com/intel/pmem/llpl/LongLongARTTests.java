@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import com.intel.pmem.llpl.util.LongLongART;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeMap;
+
+@Test(singleThreaded = true)
+public class LongLongARTTests {
+    Heap heap = null;
+    static Random rnd = new Random(123456789L);
+
+    @BeforeMethod
+    public void initialize() {
+        heap = TestVars.createHeap();
+    }
+
+    @AfterMethod
+    public void testCleanup() {
+        if (heap != null)
+            heap.close();
+
+        if (TestVars.ISDAX) {
+            TestVars.daxCleanUp();
+        }
+        else TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+    }
+
+    // a mix of dense runs, which fill wide nodes, and sparse keys of both signs
+    static TreeMap<Long, Long> populate(LongLongART art, int count) {
+        TreeMap<Long, Long> control = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            long key;
+            switch (i % 4) {
+                case 0: key = i; break;
+                case 1: key = -i; break;
+                case 2: key = 0x1234_5600_0000L + rnd.nextInt(300); break;
+                default: key = rnd.nextLong();
+            }
+            long value = rnd.nextLong();
+            Long old = control.put(key, value);
+            Assert.assertEquals(art.put(key, value), old == null ? 0L : old.longValue());
+        }
+        for (long key : new long[] {Long.MIN_VALUE, Long.MAX_VALUE, -1L}) {
+            art.put(key, key + 1);
+            control.put(key, key + 1);
+        }
+        return control;
+    }
+
+    static void checkEntries(LongLongART art, NavigableMap<Long, Long> expected, LongLongART.Cursor cursor) {
+        for (Map.Entry<Long, Long> e : expected.entrySet()) {
+            Assert.assertTrue(cursor.next());
+            Assert.assertEquals(cursor.key(), e.getKey().longValue());
+            Assert.assertEquals(cursor.value(), e.getValue().longValue());
+        }
+        Assert.assertFalse(cursor.next());
+        Assert.assertFalse(cursor.next());
+    }
+
+    @Test
+    public void testPutAndGet() {
+        LongLongART art = new LongLongART(heap);
+        TreeMap<Long, Long> control = populate(art, 5000);
+        Assert.assertEquals(art.size(), (long)control.size());
+        for (Map.Entry<Long, Long> e : control.entrySet()) {
+            Assert.assertEquals(art.get(e.getKey()), e.getValue().longValue());
+            Assert.assertTrue(art.containsKey(e.getKey()));
+        }
+        Assert.assertEquals(art.get(0x1234_5700_0000L), 0L);
+        Assert.assertFalse(art.containsKey(0x1234_5700_0000L));
+        checkEntries(art, control, art.cursor());
+        LongLongART reopened = LongLongART.fromHandle(heap, art.handle());
+        Assert.assertEquals(reopened.size(), (long)control.size());
+        checkEntries(reopened, control, reopened.cursor());
+    }
+
+    @Test
+    public void testRemove() {
+        LongLongART art = new LongLongART(heap);
+        TreeMap<Long, Long> control = populate(art, 3000);
+        List<Long> keys = new ArrayList<>(control.keySet());
+        Collections.shuffle(keys, rnd);
+        for (int i = 0; i < keys.size(); i++) {
+            long key = keys.get(i);
+            Assert.assertEquals(art.remove(key), control.remove(key).longValue());
+            Assert.assertEquals(art.remove(key), 0L);
+            if (i % 500 == 0) checkEntries(art, control, art.cursor());
+        }
+        Assert.assertEquals(art.size(), 0L);
+        Assert.assertFalse(art.cursor().next());
+        control = populate(art, 1000);
+        checkEntries(art, control, art.cursor());
+        art.clear();
+        Assert.assertEquals(art.size(), 0L);
+        Assert.assertFalse(art.keyIterator().hasNext());
+        art.put(7L, 8L);
+        Assert.assertEquals(art.get(7L), 8L);
+        art.free();
+    }
+
+    @Test
+    public void testConcurrentReaders() throws InterruptedException {
+        LongLongART art = new LongLongART(heap);
+        TreeMap<Long, Long> control = populate(art, 3000);
+        boolean[] ok = new boolean[4];
+        Thread[] threads = new Thread[ok.length];
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5; i++) {
+                    for (Map.Entry<Long, Long> e : control.entrySet()) {
+                        if (art.get(e.getKey()) != e.getValue()) return;
+                    }
+                }
+                ok[id] = true;
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        for (boolean b : ok) Assert.assertTrue(b);
+    }
+
+    @Test
+    public void testRangeScans() {
+        LongLongART art = new LongLongART(heap);
+        TreeMap<Long, Long> control = populate(art, 4000);
+        long[][] ranges = {{-100, 100}, {0x1234_5600_0000L + 50, 0x1234_5600_0000L + 250}, {Long.MIN_VALUE, -1}, {1, Long.MAX_VALUE},
+                           {Long.MIN_VALUE, Long.MAX_VALUE}, {5, 5}, {6, 6}, {0x1234_5700_0000L, 0x1234_5800_0000L}};
+        for (long[] range : ranges) {
+            NavigableMap<Long, Long> expected = control.subMap(range[0], true, range[1], true);
+            checkEntries(art, expected, art.cursor(range[0], range[1]));
+            PrimitiveIterator.OfLong keys = art.keyIterator(range[0], range[1]);
+            PrimitiveIterator.OfLong values = art.valueIterator(range[0], range[1]);
+            for (Map.Entry<Long, Long> e : expected.entrySet()) {
+                Assert.assertEquals(keys.nextLong(), e.getKey().longValue());
+                Assert.assertEquals(values.nextLong(), e.getValue().longValue());
+            }
+            Assert.assertFalse(keys.hasNext());
+            Assert.assertFalse(values.hasNext());
+        }
+        for (int i = 0; i < 200; i++) {
+            long from = rnd.nextLong();
+            long to = rnd.nextBoolean() ? rnd.nextLong() : from + rnd.nextInt(1 << 20);
+            if (from > to) {
+                Assert.assertFalse(art.cursor(from, to).next());
+                continue;
+            }
+            checkEntries(art, control.subMap(from, true, to, true), art.cursor(from, to));
+        }
+        try {
+            art.cursor().key();
+            Assert.fail("IllegalStateException was not thrown");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(true);
+        }
+        PrimitiveIterator.OfLong empty = art.keyIterator(6, 6);
+        try {
+            empty.nextLong();
+            Assert.fail("NoSuchElementException was not thrown");
+        } catch (NoSuchElementException e) {
+            Assert.assertTrue(true);
+        }
+    }
+}
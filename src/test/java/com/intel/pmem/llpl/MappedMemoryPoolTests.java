@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+import org.testng.SkipException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+@Test(singleThreaded = true)
+public class MappedMemoryPoolTests {
+    MemoryPool pool = null;
+
+    @BeforeMethod
+    public void initialize() {
+        if (TestVars.ISDAX) throw new SkipException("Mapped pools do not support Device DAX");
+        pool = MemoryPool.createPool(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME, TestVars.HEAP_SIZE, MemoryPool.Backend.MAPPED);
+        Assert.assertEquals(pool.size(), TestVars.HEAP_SIZE);
+    }
+
+    @AfterMethod
+    public void testCleanup() {
+        if (pool != null) ((MemoryPoolImpl)pool).close();
+        pool = null;
+        TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+    }
+
+    @Test
+    public void testSetAndGet() {
+        pool.setLong(0, 12345L);
+        pool.setInt(8, 234);
+        pool.setShort(12, (short)7);
+        pool.setByte(14, (byte)1);
+        pool.flush(0, 15);
+        Assert.assertEquals(pool.getLong(0), 12345L);
+        Assert.assertEquals(pool.getInt(8), 234);
+        Assert.assertEquals(pool.getShort(12), (short)7);
+        Assert.assertEquals(pool.getByte(14), (byte)1);
+    }
+
+    @Test
+    public void testReopenWithEitherBackend() {
+        pool.setLong(64, 42L);
+        pool.flush(64, 8);
+        ((MemoryPoolImpl)pool).close();
+        pool = MemoryPool.openPool(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME, MemoryPool.Backend.MAPPED);
+        Assert.assertEquals(pool.getLong(64), 42L);
+        Assert.assertEquals(pool.size(), TestVars.HEAP_SIZE);
+        pool.setLong(72, 43L);
+        pool.flush(72, 8);
+        ((MemoryPoolImpl)pool).close();
+        pool = MemoryPool.openPool(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME, MemoryPool.Backend.NATIVE);
+        Assert.assertTrue(pool instanceof MemoryPoolImpl && !(pool instanceof MappedMemoryPool));
+        Assert.assertEquals(pool.getLong(64), 42L);
+        Assert.assertEquals(pool.getLong(72), 43L);
+        Assert.assertEquals(pool.size(), TestVars.HEAP_SIZE);
+    }
+
+    @Test
+    public void testCopiesAndViews() {
+        byte[] arr = new byte[4096];
+        new Random().nextBytes(arr);
+        pool.copyFromByteArrayNT(arr, 0, 100, arr.length);
+        ByteBuffer view = pool.asReadOnlyByteBuffer(100, arr.length);
+        byte[] copy = new byte[arr.length];
+        view.get(copy);
+        Assert.assertTrue(Arrays.equals(arr, copy));
+        ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        direct.putLong(0, 7L);
+        pool.copyFromByteBuffer(direct, 8192);
+        Assert.assertEquals(pool.asByteBuffer(8192, 16).order(java.nio.ByteOrder.BIG_ENDIAN).getLong(0), 7L);
+        pool.setMemoryNT((byte)3, 9000, 100);
+        Assert.assertEquals(pool.getByte(9099), (byte)3);
+    }
+
+    @Test
+    public void testAtomics() {
+        Assert.assertTrue(pool.compareAndSetLongDurable(0, 0L, 5L));
+        Assert.assertEquals(pool.getAndAddLongDurable(0, 2L), 5L);
+        Assert.assertEquals(pool.getLongVolatile(0), 7L);
+    }
+
+    @Test
+    public void testOutOfBounds() {
+        try {
+            pool.setLong(pool.size() - 4, 1L);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+}
@@ -12,7 +12,11 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.testng.Assert;
 import org.testng.SkipException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.ReadOnlyBufferException;
 import java.util.Arrays;
 import java.util.Random;
@@ -796,4 +800,356 @@ public class MemoryPoolTests {
             Assert.assertTrue(true);
         }
     }
+
+    @Test
+    public void testCopyLongArray() {
+        long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) values[i] = -i;
+        pool.copyFromLongArray(values, 0, 64, values.length);
+        pool.flush(64, 8L * values.length);
+        Assert.assertEquals(pool.getLong(64 + 8 * 999), -999L);
+        long[] copy = new long[values.length];
+        pool.copyToLongArray(64, copy, 0, copy.length);
+        Assert.assertTrue(Arrays.equals(values, copy));
+    }
+
+    @Test
+    public void testCopyIntArrayOutOfBounds() {
+        try {
+            pool.copyToIntArray(pool.size() - 8, new int[4], 0, 4);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            pool.copyFromIntArray(new int[4], -1, 0, 2);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testByteBufferViews() {
+        pool.setLong(128, 1234L);
+        ByteBuffer view = pool.asReadOnlyByteBuffer(128, 64);
+        Assert.assertTrue(view.isReadOnly());
+        Assert.assertTrue(view.isDirect());
+        Assert.assertEquals(view.getLong(0), 1234L);
+        ByteBuffer writable = pool.asByteBuffer(128, 64);
+        writable.putLong(8, 5678L);
+        pool.flush(128, 64);
+        Assert.assertEquals(pool.getLong(136), 5678L);
+        Assert.assertEquals(view.getLong(8), 5678L);
+        try {
+            pool.asByteBuffer(pool.size() - 8, 16);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testChannelTransfer() throws IOException {
+        byte[] arr = new byte[2 * 1024 * 1024 + 5];
+        new Random().nextBytes(arr);
+        long read = pool.transferFrom(Channels.newChannel(new ByteArrayInputStream(arr)), 1024, arr.length);
+        Assert.assertEquals(read, arr.length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertEquals(pool.transferTo(Channels.newChannel(out), 1024, arr.length), arr.length);
+        Assert.assertTrue(Arrays.equals(out.toByteArray(), arr));
+    }
+
+    @Test
+    public void testAtomicCounter() throws InterruptedException {
+        pool.setLong(0, 0);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) pool.getAndAddLongDurable(0, 1);
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+        Assert.assertEquals(pool.getLongVolatile(0), 40_000L);
+        Assert.assertTrue(pool.compareAndSetLongDurable(0, 40_000L, 7L));
+        Assert.assertFalse(pool.compareAndSetLong(0, 40_000L, 8L));
+        Assert.assertEquals(pool.getAndSetLong(0, 9L), 7L);
+        pool.setIntRelease(8, 3);
+        Assert.assertTrue(pool.compareAndSetInt(8, 3, 4));
+        Assert.assertEquals(pool.getIntAcquire(8), 4);
+        try {
+            pool.compareAndSetLong(4, 0, 1);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testSlice() {
+        MemoryPool slice = pool.slice(4096, 1024);
+        Assert.assertEquals(slice.size(), 1024L);
+        slice.setLong(0, 11L);
+        slice.setLong(1016, 22L);
+        slice.flush(0, 1024);
+        Assert.assertEquals(pool.getLong(4096), 11L);
+        Assert.assertEquals(pool.getLong(4096 + 1016), 22L);
+        Assert.assertEquals(slice.asReadOnlyByteBuffer(0, 8).getLong(0), 11L);
+        Assert.assertEquals(slice.slice(1016, 8).getLong(0), 22L);
+        Assert.assertFalse(slice.equals(pool));
+        Assert.assertEquals(slice, pool.slice(4096, 1024));
+        try {
+            slice.setLong(1020, 1L);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            pool.slice(pool.size() - 8, 16);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testParallelCopyFillAndFlush() {
+        long length = 4L << 20;
+        pool.parallelSetMemory((byte)7, 0, length);
+        Assert.assertEquals(pool.getByte(0), (byte)7);
+        Assert.assertEquals(pool.getByte(length / 2 + 3), (byte)7);
+        Assert.assertEquals(pool.getByte(length - 1), (byte)7);
+        Assert.assertEquals(pool.getByte(length), (byte)0);
+        pool.setLong(1 << 20, 42L);
+        pool.parallelFlush(0, length);
+        pool.parallelCopyFromPool(0, length + 64, length);
+        Assert.assertEquals(pool.getByte(length + 64), (byte)7);
+        Assert.assertEquals(pool.getLong(length + 64 + (1 << 20)), 42L);
+        Assert.assertEquals(pool.getByte(2 * length + 63), (byte)7);
+        Assert.assertEquals(pool.getByte(2 * length + 64), (byte)0);
+        // overlapping ranges fall back to a single copy
+        pool.parallelCopyFromPool(8, 0, length);
+        Assert.assertEquals(pool.getLong((1 << 20) - 8), 42L);
+        try {
+            pool.parallelSetMemory((byte)1, pool.size() - 8, 16);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testDefaultArrayCopies() {
+        MemoryPool external = new ExternalPool(pool);
+        long[] longs = {1L, -2L, Long.MAX_VALUE};
+        external.copyFromLongArray(longs, 0, 64, longs.length);
+        Assert.assertEquals(pool.getLong(72), -2L);
+        long[] longCopy = new long[4];
+        external.copyToLongArray(64, longCopy, 1, longs.length);
+        Assert.assertEquals(Arrays.copyOfRange(longCopy, 1, 4), longs);
+        double[] doubles = {1.5, -0.25};
+        external.copyFromDoubleArray(doubles, 0, 128, doubles.length);
+        Assert.assertEquals(pool.getLong(136), Double.doubleToRawLongBits(-0.25));
+        double[] doubleCopy = new double[2];
+        external.copyToDoubleArray(128, doubleCopy, 0, doubleCopy.length);
+        Assert.assertEquals(doubleCopy, doubles);
+        float[] floats = {3.5f};
+        external.copyFromFloatArray(floats, 0, 160, 1);
+        Assert.assertEquals(pool.getInt(160), Float.floatToRawIntBits(3.5f));
+        short[] shorts = new short[2];
+        external.copyFromShortArray(new short[] {7, 8}, 0, 192, 2);
+        external.copyToShortArray(192, shorts, 0, 2);
+        Assert.assertEquals(shorts[1], (short)8);
+        try {
+            external.copyFromIntArray(new int[2], 1, 0, 2);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            external.copyToShortArray(pool.size() - 2, shorts, 0, 2);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testDefaultByteBufferViews() {
+        MemoryPool external = new ExternalPool(pool);
+        try {
+            external.asByteBuffer(0, 64);
+            Assert.fail("UnsupportedOperationException not thrown");
+        }
+        catch (UnsupportedOperationException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            external.asReadOnlyByteBuffer(0, 64);
+            Assert.fail("UnsupportedOperationException not thrown");
+        }
+        catch (UnsupportedOperationException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testDefaultChannelTransfer() throws IOException {
+        MemoryPool external = new ExternalPool(pool);
+        byte[] arr = new byte[2 * 1024 * 1024 + 5];
+        new Random().nextBytes(arr);
+        Assert.assertEquals(external.transferFrom(Channels.newChannel(new ByteArrayInputStream(arr)), 1024, arr.length + 10), arr.length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Assert.assertEquals(external.transferTo(Channels.newChannel(out), 1024, arr.length), arr.length);
+        Assert.assertTrue(Arrays.equals(out.toByteArray(), arr));
+        try {
+            external.transferTo(Channels.newChannel(out), pool.size() - 8, 16);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testDefaultAtomics() {
+        MemoryPool external = new ExternalPool(pool);
+        try {
+            external.compareAndSetLong(0, 0L, 1L);
+            Assert.fail("UnsupportedOperationException not thrown");
+        }
+        catch (UnsupportedOperationException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            external.getAndAddLongDurable(0, 1L);
+            Assert.fail("UnsupportedOperationException not thrown");
+        }
+        catch (UnsupportedOperationException e) {
+            Assert.assertTrue(true);
+        }
+        // the durable variants use the pool's own atomic methods
+        MemoryPool atomic = new ExternalPool(pool) {
+            @Override
+            public boolean compareAndSetLong(long offset, long expected, long value) { return pool.compareAndSetLong(offset, expected, value); }
+        };
+        Assert.assertTrue(atomic.compareAndSetLongDurable(64, 0L, 5L));
+        Assert.assertFalse(atomic.compareAndSetLongDurable(64, 0L, 6L));
+        Assert.assertEquals(pool.getLong(64), 5L);
+    }
+
+    @Test
+    public void testDefaultSlice() {
+        MemoryPool external = new ExternalPool(pool);
+        try {
+            external.slice(0, 64);
+            Assert.fail("UnsupportedOperationException not thrown");
+        }
+        catch (UnsupportedOperationException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testDefaultParallelCopyFillAndFlush() {
+        MemoryPool external = new ExternalPool(pool);
+        external.parallelSetMemory((byte)7, 0, 4096);
+        Assert.assertEquals(pool.getByte(4095), (byte)7);
+        Assert.assertEquals(pool.getByte(4096), (byte)0);
+        external.parallelFlush(0, 4096);
+        external.parallelCopyFromPool(0, 8192, 4096);
+        Assert.assertEquals(pool.getByte(8192 + 4095), (byte)7);
+        try {
+            external.parallelSetMemory((byte)1, pool.size() - 8, 16);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    // a pool implemented outside of LLPL, which relies on the interface's default methods
+    static class ExternalPool implements MemoryPool {
+        private final MemoryPool pool;
+
+        ExternalPool(MemoryPool pool) {
+            this.pool = pool;
+        }
+
+        private static MemoryPool unwrap(MemoryPool pool) {
+            return pool instanceof ExternalPool ? ((ExternalPool)pool).pool : pool;
+        }
+
+        @Override
+        public byte getByte(long offset) { return pool.getByte(offset); }
+
+        @Override
+        public short getShort(long offset) { return pool.getShort(offset); }
+
+        @Override
+        public int getInt(long offset) { return pool.getInt(offset); }
+
+        @Override
+        public long getLong(long offset) { return pool.getLong(offset); }
+
+        @Override
+        public void setByte(long offset, byte value) { pool.setByte(offset, value); }
+
+        @Override
+        public void setShort(long offset, short value) { pool.setShort(offset, value); }
+
+        @Override
+        public void setInt(long offset, int value) { pool.setInt(offset, value); }
+
+        @Override
+        public void setLong(long offset, long value) { pool.setLong(offset, value); }
+
+        @Override
+        public void copyFromPool(long srcOffset, long dstOffset, long byteCount) { pool.copyFromPool(srcOffset, dstOffset, byteCount); }
+
+        @Override
+        public void copyFromPool(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount) { pool.copyFromPool(unwrap(srcPool), srcOffset, dstOffset, byteCount); }
+
+        @Override
+        public void copyFromByteArray(byte[] srcArray, int srcIndex, long dstOffset, int byteCount) { pool.copyFromByteArray(srcArray, srcIndex, dstOffset, byteCount); }
+
+        @Override
+        public void copyFromByteBuffer(ByteBuffer srcBuf, long dstOffset) { pool.copyFromByteBuffer(srcBuf, dstOffset); }
+
+        @Override
+        public void copyFromByteBufferNT(ByteBuffer srcBuf, long dstOffset) { pool.copyFromByteBufferNT(srcBuf, dstOffset); }
+
+        @Override
+        public void copyToByteArray(long srcOffset, byte[] dstArray, int dstIndex, int byteCount) { pool.copyToByteArray(srcOffset, dstArray, dstIndex, byteCount); }
+
+        @Override
+        public void copyToByteBuffer(long srcOffset, ByteBuffer dstBuf, int byteCount) { pool.copyToByteBuffer(srcOffset, dstBuf, byteCount); }
+
+        @Override
+        public void setMemory(byte value, long offset, long byteCount) { pool.setMemory(value, offset, byteCount); }
+
+        @Override
+        public void copyFromPoolNT(long srcOffset, long dstOffset, long byteCount) { pool.copyFromPoolNT(srcOffset, dstOffset, byteCount); }
+
+        @Override
+        public void copyFromPoolNT(MemoryPool srcPool, long srcOffset, long dstOffset, long byteCount) { pool.copyFromPoolNT(unwrap(srcPool), srcOffset, dstOffset, byteCount); }
+
+        @Override
+        public void copyFromByteArrayNT(byte[] srcArray, int srcIndex, long dstOffset, int byteCount) { pool.copyFromByteArrayNT(srcArray, srcIndex, dstOffset, byteCount); }
+
+        @Override
+        public void setMemoryNT(byte value, long offset, long byteCount) { pool.setMemoryNT(value, offset, byteCount); }
+
+        @Override
+        public long size() { return pool.size(); }
+
+        @Override
+        public void flush(long offset, long byteCount) { pool.flush(offset, byteCount); }
+    }
 }
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import com.intel.pmem.llpl.util.PersistentLog;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+@Test(singleThreaded = true)
+public class PersistentLogTests {
+    MemoryPool pool = null;
+    static final long SEGMENT_SIZE = 4096;
+    static final int SEGMENT_COUNT = 4;
+    static final long LOG_OFFSET = 128;
+
+    @BeforeMethod
+    public void initialize() {
+        if (TestVars.ISDAX) pool = MemoryPool.mapDevice(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+        else pool = MemoryPool.createPool(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME, TestVars.HEAP_SIZE);
+    }
+
+    @SuppressWarnings("deprecation")
+    @AfterMethod
+    public void testCleanup() {
+        if (TestVars.ISDAX) {
+            TestVars.daxCleanUp();
+        }
+        else TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+    }
+
+    static byte[] record(int i) {
+        byte[] bytes = new byte[8 + i % 50];
+        ByteBuffer.wrap(bytes).putLong(i);
+        return bytes;
+    }
+
+    static int recordId(ByteBuffer payload) {
+        return (int)payload.order(java.nio.ByteOrder.BIG_ENDIAN).getLong(0);
+    }
+
+    @Test
+    public void testAppendAndRead() {
+        PersistentLog log = PersistentLog.create(pool, LOG_OFFSET, SEGMENT_SIZE, SEGMENT_COUNT);
+        ArrayList<Long> positions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) positions.add(log.append(record(i)));
+        log.sync();
+        Assert.assertEquals(log.syncedPosition(), log.tailPosition());
+        PersistentLog.Reader reader = log.reader();
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(reader.next());
+            Assert.assertEquals((long)positions.get(i), reader.position());
+            Assert.assertEquals(reader.length(), record(i).length);
+            Assert.assertEquals(recordId(reader.payload()), i);
+            Assert.assertTrue(reader.payload().isReadOnly());
+        }
+        Assert.assertFalse(reader.next());
+    }
+
+    @Test
+    public void testUnsyncedRecordsNotVisible() {
+        PersistentLog log = PersistentLog.create(pool, LOG_OFFSET, SEGMENT_SIZE, SEGMENT_COUNT);
+        log.appendDurable(record(1), 0, record(1).length);
+        log.append(record(2));
+        PersistentLog.Reader reader = log.reader();
+        Assert.assertTrue(reader.next());
+        Assert.assertFalse(reader.next());
+        log.sync();
+        Assert.assertTrue(reader.next());
+        Assert.assertEquals(recordId(reader.payload()), 2);
+    }
+
+    @Test
+    public void testRecovery() {
+        PersistentLog log = PersistentLog.create(pool, LOG_OFFSET, SEGMENT_SIZE, SEGMENT_COUNT);
+        for (int i = 0; i < 200; i++) log.append(record(i));
+        log.sync();
+        long synced = log.syncedPosition();
+        PersistentLog reopened = PersistentLog.open(pool, LOG_OFFSET);
+        Assert.assertEquals(reopened.syncedPosition(), synced);
+        Assert.assertEquals(reopened.tailPosition(), synced);
+        PersistentLog.Reader reader = reopened.reader();
+        int count = 0;
+        while (reader.next()) Assert.assertEquals(recordId(reader.payload()), count++);
+        Assert.assertEquals(count, 200);
+    }
+
+    @Test
+    public void testRecoveryStopsAtCorruptRecord() {
+        PersistentLog log = PersistentLog.create(pool, LOG_OFFSET, SEGMENT_SIZE, SEGMENT_COUNT);
+        long[] positions = new long[10];
+        for (int i = 0; i < 10; i++) positions[i] = log.append(record(i));
+        log.sync();
+        // corrupt a payload byte of record 6 as a torn write would
+        long payloadOffset = LOG_OFFSET + 64 + positions[6] + 24;
+        pool.setByte(payloadOffset + 2, (byte)(pool.getByte(payloadOffset + 2) + 1));
+        pool.flush(payloadOffset + 2, 1);
+        PersistentLog reopened = PersistentLog.open(pool, LOG_OFFSET);
+        Assert.assertEquals(reopened.tailPosition(), positions[6]);
+        long next = reopened.append(record(42));
+        Assert.assertEquals(next, positions[6]);
+    }
+
+    @Test
+    public void testRecoveryIgnoresRecordsFromEarlierEpochs() {
+        PersistentLog log = PersistentLog.create(pool, LOG_OFFSET, SEGMENT_SIZE, SEGMENT_COUNT);
+        long[] positions = new long[10];
+        for (int i = 0; i < 10; i++) positions[i] = log.append(record(i));
+        log.sync();
+        long payloadOffset = LOG_OFFSET + 64 + positions[6] + 24;
+        pool.setByte(payloadOffset + 2, (byte)(pool.getByte(payloadOffset + 2) + 1));
+        pool.flush(payloadOffset + 2, 1);
+        PersistentLog reopened = PersistentLog.open(pool, LOG_OFFSET);
+        // record 56 is the same size as record 6, so it ends where the intact, older record 7 begins
+        Assert.assertEquals(reopened.append(record(56)), positions[6]);
+        reopened.sync();
+        Assert.assertEquals(reopened.syncedPosition(), positions[7]);
+        PersistentLog again = PersistentLog.open(pool, LOG_OFFSET);
+        Assert.assertEquals(again.tailPosition(), positions[7]);
+        PersistentLog.Reader reader = again.reader();
+        for (int i = 0; i < 6; i++) {
+            Assert.assertTrue(reader.next());
+            Assert.assertEquals(recordId(reader.payload()), i);
+        }
+        Assert.assertTrue(reader.next());
+        Assert.assertEquals(recordId(reader.payload()), 56);
+        Assert.assertFalse(reader.next());
+        // records 0 to 5, from the first epoch, are still recovered after a third open
+        reader = PersistentLog.open(pool, LOG_OFFSET).reader();
+        int count = 0;
+        while (reader.next()) count++;
+        Assert.assertEquals(count, 7);
+    }
+
+    @Test
+    public void testSegmentRotationAndTruncate() {
+        PersistentLog log = PersistentLog.create(pool, LOG_OFFSET, SEGMENT_SIZE, SEGMENT_COUNT);
+        byte[] big = new byte[1000];
+        int appended = 0;
+        try {
+            while (true) {
+                log.append(big);
+                appended++;
+            }
+        }
+        catch (IllegalStateException e) {
+            // log is full
+        }
+        // records never straddle segments, so each 4096-byte segment holds four 1024-byte records
+        Assert.assertEquals(appended, SEGMENT_COUNT * 4);
+        log.sync();
+        PersistentLog.Reader reader = log.reader();
+        for (int i = 0; i < 4; i++) reader.next();
+        reader.next();
+        log.truncate(reader.position());
+        for (int i = 0; i < 4; i++) log.append(big);
+        log.sync();
+        Assert.assertTrue(log.tailPosition() > SEGMENT_SIZE * SEGMENT_COUNT);
+        PersistentLog reopened = PersistentLog.open(pool, LOG_OFFSET);
+        Assert.assertEquals(reopened.headPosition(), SEGMENT_SIZE);
+        Assert.assertEquals(reopened.tailPosition(), log.tailPosition());
+        int count = 0;
+        PersistentLog.Reader r = reopened.reader();
+        while (r.next()) count++;
+        Assert.assertEquals(count, SEGMENT_COUNT * 4);
+    }
+
+    @Test
+    public void testTruncateRequiresRecordBoundary() {
+        PersistentLog log = PersistentLog.create(pool, LOG_OFFSET, SEGMENT_SIZE, SEGMENT_COUNT);
+        long[] positions = new long[5];
+        for (int i = 0; i < 5; i++) positions[i] = log.append(record(i));
+        log.append(record(5));
+        log.sync();
+        long[] invalid = {positions[2] + 8, -8, log.syncedPosition() + 8};
+        for (long position : invalid) {
+            try {
+                log.truncate(position);
+                Assert.fail("IllegalArgumentException not thrown");
+            }
+            catch (IllegalArgumentException e) {
+                Assert.assertTrue(true);
+            }
+        }
+        log.truncate(positions[2]);
+        Assert.assertEquals(log.headPosition(), positions[2]);
+        try {
+            log.truncate(positions[1]);
+            Assert.fail("IllegalArgumentException not thrown");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+        log.truncate(log.syncedPosition());
+        Assert.assertFalse(log.reader().next());
+    }
+
+    @Test
+    public void testRecordTooLarge() {
+        PersistentLog log = PersistentLog.create(pool, LOG_OFFSET, SEGMENT_SIZE, SEGMENT_COUNT);
+        try {
+            log.append(new byte[(int)SEGMENT_SIZE]);
+            Assert.fail("IllegalArgumentException not thrown");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testConcurrentAppends() throws InterruptedException {
+        PersistentLog log = PersistentLog.create(pool, LOG_OFFSET, 64 * 1024, 16);
+        int threads = 8;
+        int perThread = 500;
+        ArrayList<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    byte[] data = record(base + i);
+                    if (i % 10 == 0) log.appendDurable(data, 0, data.length);
+                    else log.append(data);
+                }
+            }));
+        }
+        for (Thread w : workers) w.start();
+        for (Thread w : workers) w.join();
+        log.sync();
+        Set<Integer> seen = new HashSet<>();
+        PersistentLog.Reader reader = PersistentLog.open(pool, LOG_OFFSET).reader();
+        while (reader.next()) Assert.assertTrue(seen.add(recordId(reader.payload())));
+        Assert.assertEquals(seen.size(), threads * perThread);
+    }
+}
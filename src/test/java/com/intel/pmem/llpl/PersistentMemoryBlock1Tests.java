@@ -12,6 +12,12 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.testng.Assert;
 import org.testng.SkipException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
 
 @Test(singleThreaded = true)
 public class PersistentMemoryBlock1Tests {
@@ -220,4 +226,171 @@ public class PersistentMemoryBlock1Tests {
         Assert.assertFalse(mb.isValid());
     }
 
+    @Test
+    public void testCopyFromArrayNT() {
+        heap = TestVars.createPersistentHeap();
+        PersistentMemoryBlock mb = heap.allocateMemoryBlock(4096);
+        byte[] bytes = new byte[4000];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = (byte)i;
+        mb.copyFromArrayNT(bytes, 0, 64, bytes.length);
+        Assert.assertEquals(mb.getByte(64 + 1000), (byte)1000);
+        mb.setMemoryNoDrain((byte)7, 0, 64);
+        heap.drain();
+        Assert.assertEquals(mb.getByte(63), (byte)7);
+        PersistentMemoryBlock copy = heap.allocateMemoryBlock(4096);
+        copy.copyFromNT(mb, 0, 0, 4096);
+        byte[] result = new byte[bytes.length];
+        copy.copyToArray(64, result, 0, result.length);
+        Assert.assertEquals(result, bytes);
+    }
+
+    @Test
+    public void testRangeNT() {
+        heap = TestVars.createPersistentHeap();
+        PersistentMemoryBlock mb = heap.allocateMemoryBlock(1024);
+        byte[] bytes = new byte[512];
+        Arrays.fill(bytes, (byte)3);
+        mb.withRange(0, 1024, (Range range) -> {
+            range.copyFromArrayNT(bytes, 0, 0, bytes.length);
+            range.setMemoryNT((byte)4, 512, 512);
+        });
+        Assert.assertEquals(mb.getByte(511), (byte)3);
+        Assert.assertEquals(mb.getByte(1023), (byte)4);
+        try {
+            mb.copyFromArrayNT(bytes, 0, 768, bytes.length);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            mb.copyFromArrayNT(bytes, 8, 0, -4);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            mb.withRange(0, 1024, (Range range) -> {
+                range.copyFromArrayNT(bytes, 1, 0, Integer.MAX_VALUE);
+            });
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testCopyFromByteBufferNT() {
+        heap = TestVars.createPersistentHeap();
+        PersistentMemoryBlock mb = heap.allocateMemoryBlock(256);
+        ByteBuffer buf = ByteBuffer.allocateDirect(128);
+        while (buf.hasRemaining()) buf.put((byte)9);
+        buf.flip();
+        mb.copyFromByteBufferNT(buf, 128);
+        Assert.assertEquals(mb.getByte(255), (byte)9);
+    }
+
+    @Test
+    public void testByteBufferViews() {
+        heap = TestVars.createPersistentHeap();
+        PersistentMemoryBlock mb = heap.allocateMemoryBlock(256);
+        mb.setLong(16, 42L);
+        ByteBuffer view = mb.asReadOnlyByteBuffer(16, 64);
+        Assert.assertTrue(view.isReadOnly());
+        Assert.assertEquals(view.getLong(0), 42L);
+        int written = mb.withByteBuffer(64, 128, (ByteBuffer buf) -> {
+            while (buf.hasRemaining()) buf.put((byte)5);
+            return buf.position();
+        });
+        Assert.assertEquals(written, 128);
+        Assert.assertEquals(mb.getByte(191), (byte)5);
+        Assert.assertEquals(view.get(48), (byte)5);
+        try {
+            mb.asReadOnlyByteBuffer(200, 64);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testChannelTransfer() throws IOException {
+        heap = TestVars.createPersistentHeap();
+        int size = 3 * 1024 * 1024 + 17;
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) bytes[i] = (byte)(i % 251);
+        PersistentMemoryBlock mb = heap.allocateMemoryBlock(size + 100);
+        long read = mb.transferFrom(Channels.newChannel(new ByteArrayInputStream(bytes)), 100, size);
+        Assert.assertEquals(read, size);
+        Assert.assertEquals(mb.getByte(100 + 1000), bytes[1000]);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = mb.transferTo(Channels.newChannel(out), 100, size);
+        Assert.assertEquals(written, size);
+        Assert.assertEquals(out.toByteArray(), bytes);
+    }
+
+    @Test
+    public void testChannelTransferShortRead() throws IOException {
+        heap = TestVars.createPersistentHeap();
+        PersistentMemoryBlock mb = heap.allocateMemoryBlock(1024);
+        long read = mb.transferFrom(Channels.newChannel(new ByteArrayInputStream(new byte[] {1, 2, 3})), 0, 1024);
+        Assert.assertEquals(read, 3);
+        Assert.assertEquals(mb.getByte(2), (byte)3);
+    }
+
+    @Test
+    public void testAtomicOperations() throws InterruptedException {
+        heap = TestVars.createPersistentHeap();
+        PersistentMemoryBlock mb = heap.allocateMemoryBlock(64);
+        mb.setLong(0, 0);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    long current;
+                    do {
+                        current = mb.getLongVolatile(0);
+                    } while (!mb.compareAndSetLong(0, current, current + 1));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+        Assert.assertEquals(mb.getLong(0), 4000L);
+        Assert.assertEquals(mb.getAndAddLong(0, 5), 4000L);
+        Assert.assertEquals(mb.getAndSetLong(0, 1), 4005L);
+        mb.setLongRelease(8, 11L);
+        Assert.assertEquals(mb.getLongAcquire(8), 11L);
+        try {
+            mb.getAndAddLong(3, 1);
+            Assert.fail("IllegalArgumentException not thrown");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testParallelCopyAndSet() {
+        heap = TestVars.createPersistentHeap();
+        long length = 4L << 20;
+        PersistentMemoryBlock src = heap.allocateMemoryBlock(length);
+        PersistentMemoryBlock dst = heap.allocateMemoryBlock(length);
+        src.parallelSetMemory((byte)3, 0, length);
+        src.setLong(length - 8, 99L);
+        dst.parallelCopyFrom(src, 0, 0, length);
+        Assert.assertEquals(dst.getByte(0), (byte)3);
+        Assert.assertEquals(dst.getByte(length / 2), (byte)3);
+        Assert.assertEquals(dst.getLong(length - 8), 99L);
+        try {
+            dst.parallelCopyFrom(src, 8, 0, length);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
 }
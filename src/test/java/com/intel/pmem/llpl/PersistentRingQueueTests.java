@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import com.intel.pmem.llpl.util.PersistentRingQueue;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Test(singleThreaded = true)
+public class PersistentRingQueueTests {
+    MemoryPool pool = null;
+    static final long QUEUE_OFFSET = 64;
+
+    @BeforeMethod
+    public void initialize() {
+        if (TestVars.ISDAX) pool = MemoryPool.mapDevice(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+        else pool = MemoryPool.createPool(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME, TestVars.HEAP_SIZE);
+    }
+
+    @SuppressWarnings("deprecation")
+    @AfterMethod
+    public void testCleanup() {
+        if (TestVars.ISDAX) {
+            TestVars.daxCleanUp();
+        }
+        else TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+    }
+
+    static byte[] record(int i) {
+        return ByteBuffer.allocate(4 + i % 13).putInt(i).array();
+    }
+
+    static int recordId(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+
+    @Test
+    public void testOfferAndPoll() {
+        PersistentRingQueue queue = PersistentRingQueue.create(pool, QUEUE_OFFSET, 8, 32, true);
+        Assert.assertNull(queue.poll());
+        for (int i = 0; i < 8; i++) Assert.assertTrue(queue.offer(record(i)));
+        Assert.assertFalse(queue.offer(record(8)));
+        Assert.assertEquals(queue.size(), 8L);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 8; i++) {
+                byte[] r = queue.poll();
+                Assert.assertEquals(recordId(r), round * 8 + i);
+                Assert.assertEquals(r.length, record(round * 8 + i).length);
+                Assert.assertTrue(queue.offer(record((round + 1) * 8 + i)));
+            }
+        }
+        try {
+            queue.offer(new byte[33]);
+            Assert.fail("IllegalArgumentException not thrown");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testBatches() {
+        PersistentRingQueue queue = PersistentRingQueue.create(pool, QUEUE_OFFSET, 16, 32, true);
+        byte[][] records = new byte[20][];
+        for (int i = 0; i < records.length; i++) records[i] = record(i);
+        Assert.assertEquals(queue.offerBatch(records, 0, 20), 16);
+        ArrayList<Integer> ids = new ArrayList<>();
+        Assert.assertEquals(queue.pollBatch(buf -> ids.add(readId(buf)), 10), 10);
+        Assert.assertEquals(queue.offerBatch(records, 16, 4), 4);
+        Assert.assertEquals(queue.pollBatch(buf -> ids.add(readId(buf)), 100), 10);
+        for (int i = 0; i < 20; i++) Assert.assertEquals((int)ids.get(i), i);
+    }
+
+    static int readId(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.remaining()];
+        buf.get(bytes);
+        return recordId(bytes);
+    }
+
+    @Test
+    public void testRecoverSkipsUnfinishedEnqueue() {
+        PersistentRingQueue queue = PersistentRingQueue.create(pool, QUEUE_OFFSET, 8, 16, true);
+        for (int i = 0; i < 5; i++) queue.offer(record(i));
+        queue.poll();
+        // simulate a producer that claimed position 5 and crashed before publishing it
+        pool.setLong(QUEUE_OFFSET + 64, 6L);
+        long slot = QUEUE_OFFSET + 192 + 6 * 64;
+        pool.setInt(slot + 8, 4);
+        pool.copyFromByteArray(record(6), 0, slot + 16, 4);
+        pool.setLong(slot, 7L);
+        pool.setLong(QUEUE_OFFSET + 64, 7L);
+        PersistentRingQueue reopened = PersistentRingQueue.open(pool, QUEUE_OFFSET);
+        reopened.recover();
+        ArrayList<Integer> ids = new ArrayList<>();
+        byte[] r;
+        while ((r = reopened.poll()) != null) ids.add(recordId(r));
+        Assert.assertEquals(ids.toString(), "[1, 2, 3, 4, 6]");
+        for (int i = 0; i < 8; i++) Assert.assertTrue(reopened.offer(record(i)));
+        Assert.assertFalse(reopened.offer(record(8)));
+    }
+
+    @Test
+    public void testRecoverRedeliversUnfinishedDequeue() {
+        PersistentRingQueue queue = PersistentRingQueue.create(pool, QUEUE_OFFSET, 4, 16, false);
+        for (int i = 0; i < 3; i++) queue.offer(record(i));
+        // simulate a consumer that claimed position 0 and crashed before releasing it
+        pool.setLong(QUEUE_OFFSET + 128, 1L);
+        queue.recover();
+        Assert.assertEquals(recordId(queue.poll()), 0);
+        Assert.assertEquals(recordId(queue.poll()), 1);
+        Assert.assertEquals(recordId(queue.poll()), 2);
+        Assert.assertNull(queue.poll());
+    }
+
+    @Test
+    public void testConcurrentProducersAndConsumers() throws InterruptedException {
+        PersistentRingQueue queue = PersistentRingQueue.create(pool, QUEUE_OFFSET, 64, 32, false);
+        int producers = 4;
+        int perProducer = 5000;
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger consumed = new AtomicInteger();
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            // each producer uses its own queue instance, as separate processes would
+            PersistentRingQueue local = PersistentRingQueue.open(pool, QUEUE_OFFSET);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!local.offer(record(base + i))) Thread.yield();
+                }
+            }));
+        }
+        for (int c = 0; c < 3; c++) {
+            PersistentRingQueue local = PersistentRingQueue.open(pool, QUEUE_OFFSET);
+            threads.add(new Thread(() -> {
+                while (consumed.get() < producers * perProducer) {
+                    int n = local.pollBatch(buf -> Assert.assertTrue(seen.add(readId(buf))), 8);
+                    consumed.addAndGet(n);
+                    if (n == 0) Thread.yield();
+                }
+            }));
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        Assert.assertEquals(seen.size(), producers * perProducer);
+        Assert.assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+import org.testng.SkipException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+@Test(singleThreaded = true)
+public class SegmentedMemoryPoolTests {
+    static MemoryPool.Backend BACKEND = MemoryPool.Backend.NATIVE;
+    static final long SEGMENT_SIZE = 64 * 1024;
+    String directory;
+    SegmentedMemoryPool pool = null;
+
+    @BeforeMethod
+    public void initialize() {
+        if (TestVars.ISDAX) throw new SkipException("Segmented pools are stored as files");
+        directory = TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME;
+        pool = SegmentedMemoryPool.create(directory, SEGMENT_SIZE, 2, BACKEND);
+        Assert.assertEquals(pool.size(), 2 * SEGMENT_SIZE);
+    }
+
+    @AfterMethod
+    public void testCleanup() {
+        if (pool != null) pool.close();
+        pool = null;
+        TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+    }
+
+    @Test
+    public void testAccessAcrossSegmentBoundary() {
+        pool.setLong(SEGMENT_SIZE - 8, 1L);
+        pool.setLong(SEGMENT_SIZE, 2L);
+        pool.setLong(SEGMENT_SIZE - 4, 0x1122334455667788L);
+        Assert.assertEquals(pool.getLong(SEGMENT_SIZE - 4), 0x1122334455667788L);
+        pool.setInt(SEGMENT_SIZE - 2, 77);
+        Assert.assertEquals(pool.getInt(SEGMENT_SIZE - 2), 77);
+        long[] longs = {1, 2, 3, 4, 5};
+        pool.copyFromLongArray(longs, 0, SEGMENT_SIZE - 12, longs.length);
+        long[] out = new long[5];
+        pool.copyToLongArray(SEGMENT_SIZE - 12, out, 0, out.length);
+        Assert.assertTrue(Arrays.equals(out, longs));
+        try {
+            pool.getLong(pool.size() - 4);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testCopyAcrossSegments() {
+        byte[] data = new byte[(int)SEGMENT_SIZE];
+        new Random(7).nextBytes(data);
+        pool.copyFromByteArray(data, 0, SEGMENT_SIZE / 2, data.length);
+        byte[] copy = new byte[data.length];
+        pool.copyToByteArray(SEGMENT_SIZE / 2, copy, 0, copy.length);
+        Assert.assertTrue(Arrays.equals(copy, data));
+        // overlapping move toward higher offsets
+        pool.copyFromPool(SEGMENT_SIZE / 2, SEGMENT_SIZE / 2 + 100, SEGMENT_SIZE);
+        pool.copyToByteArray(SEGMENT_SIZE / 2 + 100, copy, 0, copy.length);
+        Assert.assertTrue(Arrays.equals(copy, data));
+        pool.setMemoryNT((byte)5, SEGMENT_SIZE - 10, 20);
+        Assert.assertEquals(pool.getByte(SEGMENT_SIZE - 10), (byte)5);
+        Assert.assertEquals(pool.getByte(SEGMENT_SIZE + 9), (byte)5);
+        pool.flush(0, pool.size());
+    }
+
+    @Test
+    public void testCopyBetweenPools() {
+        MemoryPool flat = MemoryPool.createPool(directory + "/flat", SEGMENT_SIZE * 2, BACKEND);
+        try {
+            flat.setLong(SEGMENT_SIZE - 8, 42L);
+            flat.setLong(SEGMENT_SIZE, 43L);
+            pool.copyFromPool(flat, SEGMENT_SIZE - 8, SEGMENT_SIZE - 8, 16);
+            Assert.assertEquals(pool.getLong(SEGMENT_SIZE - 8), 42L);
+            Assert.assertEquals(pool.getLong(SEGMENT_SIZE), 43L);
+            flat.setMemory((byte)0, 0, flat.size());
+            flat.copyFromPoolNT(pool, SEGMENT_SIZE - 8, 0, 16);
+            Assert.assertEquals(flat.getLong(0), 42L);
+            Assert.assertEquals(flat.getLong(8), 43L);
+        }
+        finally {
+            ((MemoryPoolImpl)flat).close();
+        }
+    }
+
+    @Test
+    public void testGrowAndReopen() {
+        pool.setLong(0, 11L);
+        Assert.assertEquals(pool.grow(1), 3 * SEGMENT_SIZE);
+        pool.setLong(2 * SEGMENT_SIZE + 8, 12L);
+        Assert.assertEquals(pool.ensureCapacity(4 * SEGMENT_SIZE + 1), 5 * SEGMENT_SIZE);
+        Assert.assertEquals(pool.ensureCapacity(SEGMENT_SIZE), 5 * SEGMENT_SIZE);
+        pool.flush(0, pool.size());
+        pool.close();
+        pool = SegmentedMemoryPool.open(directory, BACKEND);
+        Assert.assertEquals(pool.segmentCount(), 5);
+        Assert.assertEquals(pool.segmentSize(), SEGMENT_SIZE);
+        Assert.assertEquals(pool.getLong(0), 11L);
+        Assert.assertEquals(pool.getLong(2 * SEGMENT_SIZE + 8), 12L);
+    }
+
+    @Test
+    public void testInvalidOffsetsAndCounts() {
+        pool.setLong(0, 5L);
+        // the segment index of this offset truncates to 0 when narrowed to an int
+        long wrapped = SEGMENT_SIZE << 32;
+        try {
+            pool.getLong(wrapped);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            pool.grow(-1);
+            Assert.fail("IllegalArgumentException not thrown");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+        Assert.assertEquals(pool.segmentCount(), 2);
+        MemoryPool flat = MemoryPool.createPool(directory + "/flat", SEGMENT_SIZE, BACKEND);
+        try {
+            Assert.assertFalse(flat.equals(pool));
+            Assert.assertTrue(flat.equals(flat));
+        }
+        finally {
+            ((MemoryPoolImpl)flat).close();
+        }
+    }
+
+    @Test
+    public void testLargeTypedCopyAcrossSegments() {
+        // larger than one staging chunk
+        long[] longs = new long[300_000];
+        for (int i = 0; i < longs.length; i++) longs[i] = i * 31L;
+        pool.ensureCapacity(SEGMENT_SIZE + (long)longs.length * Long.BYTES);
+        pool.copyFromLongArray(longs, 0, SEGMENT_SIZE - 4, longs.length);
+        Assert.assertEquals(pool.getLong(SEGMENT_SIZE - 4 + 1000L * Long.BYTES), 31000L);
+        long[] out = new long[longs.length];
+        pool.copyToLongArray(SEGMENT_SIZE - 4, out, 0, out.length);
+        Assert.assertTrue(Arrays.equals(out, longs));
+    }
+
+    @Test
+    public void testViewsAndAtomics() {
+        ByteBuffer buf = pool.asByteBuffer(SEGMENT_SIZE + 64, 16);
+        buf.putLong(0, 9L);
+        Assert.assertEquals(pool.getLong(SEGMENT_SIZE + 64), 9L);
+        Assert.assertTrue(pool.compareAndSetLongDurable(SEGMENT_SIZE + 64, 9L, 10L));
+        Assert.assertEquals(pool.slice(SEGMENT_SIZE + 64, 8).getLong(0), 10L);
+        try {
+            pool.asByteBuffer(SEGMENT_SIZE - 8, 16);
+            Assert.fail("IllegalArgumentException not thrown");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            pool.compareAndSetLong(SEGMENT_SIZE - 4, 0L, 1L);
+            Assert.fail("IllegalArgumentException not thrown");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+    }
+}
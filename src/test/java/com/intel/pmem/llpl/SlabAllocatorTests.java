@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2021 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import com.intel.pmem.llpl.util.SlabAllocator;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Test(singleThreaded = true)
+public class SlabAllocatorTests {
+    MemoryPool pool = null;
+    static final long ALLOCATOR_OFFSET = 64;
+
+    @BeforeMethod
+    public void initialize() {
+        if (TestVars.ISDAX) pool = MemoryPool.mapDevice(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+        else pool = MemoryPool.createPool(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME, TestVars.HEAP_SIZE);
+    }
+
+    @SuppressWarnings("deprecation")
+    @AfterMethod
+    public void testCleanup() {
+        if (TestVars.ISDAX) {
+            TestVars.daxCleanUp();
+        }
+        else TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+    }
+
+    @Test
+    public void testAllocateAndFree() {
+        SlabAllocator allocator = SlabAllocator.create(pool, ALLOCATOR_OFFSET, 64, 10);
+        Set<Long> slots = new HashSet<>();
+        for (int i = 0; i < 10; i++) Assert.assertTrue(slots.add(allocator.allocate()));
+        try {
+            allocator.allocate();
+            Assert.fail("IllegalStateException not thrown");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertTrue(true);
+        }
+        long slot = slots.iterator().next();
+        allocator.free(slot);
+        Assert.assertEquals(allocator.allocate(), slot);
+    }
+
+    @Test
+    public void testSlotView() {
+        SlabAllocator allocator = SlabAllocator.create(pool, ALLOCATOR_OFFSET, 64, 10);
+        long slot = allocator.allocate();
+        MemoryPool view = allocator.slot(slot);
+        Assert.assertEquals(view.size(), 64L);
+        view.setLong(56, 99L);
+        Assert.assertEquals(pool.getLong(slot + 56), 99L);
+        try {
+            allocator.free(slot + 8);
+            Assert.fail("IllegalArgumentException not thrown");
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testReopen() {
+        SlabAllocator allocator = SlabAllocator.create(pool, ALLOCATOR_OFFSET, 32, 100);
+        long a = allocator.allocate();
+        long b = allocator.allocate();
+        allocator.free(a);
+        SlabAllocator reopened = SlabAllocator.open(pool, ALLOCATOR_OFFSET);
+        Assert.assertEquals(reopened.slotSize(), 32L);
+        Assert.assertEquals(reopened.slotCount(), 100L);
+        Assert.assertEquals(reopened.allocate(), a);
+        long c = reopened.allocate();
+        Assert.assertTrue(c != a && c != b);
+    }
+
+    @Test
+    public void testRebuild() {
+        SlabAllocator allocator = SlabAllocator.create(pool, ALLOCATOR_OFFSET, 16, 8);
+        ArrayList<Long> slots = new ArrayList<>();
+        for (int i = 0; i < 8; i++) slots.add(allocator.allocate());
+        // simulate slots leaked by a crash: only the first three are reachable
+        Set<Long> live = new HashSet<>(slots.subList(0, 3));
+        allocator.rebuild(live::contains);
+        Set<Long> reclaimed = new HashSet<>();
+        for (int i = 0; i < 5; i++) reclaimed.add(allocator.allocate());
+        Assert.assertEquals(reclaimed, new HashSet<>(slots.subList(3, 8)));
+    }
+
+    @Test
+    public void testConcurrentAllocateAndFree() throws InterruptedException {
+        SlabAllocator allocator = SlabAllocator.create(pool, ALLOCATOR_OFFSET, 64, 1000);
+        Set<Long> owned = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            // each thread uses its own allocator instance, as separate processes would
+            SlabAllocator local = SlabAllocator.open(pool, ALLOCATOR_OFFSET);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    long slot = local.allocate();
+                    Assert.assertTrue(owned.add(slot));
+                    Assert.assertTrue(owned.remove(slot));
+                    local.free(slot);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        Set<Long> all = new HashSet<>();
+        for (int i = 0; i < 1000; i++) Assert.assertTrue(all.add(allocator.allocate()));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2018-2019 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+
+@Test(singleThreaded = true)
+public class TransactionLogTests {
+	TransactionalHeap heap = null;
+	static final long LARGE_RANGE = 64 * 1024;
+
+	@BeforeMethod
+	public void intialize() {
+		heap = null;
+	}
+
+	@SuppressWarnings("deprecation")
+	@AfterMethod
+	public void testCleanup() {
+		if (heap != null)
+			heap.close();
+
+		if (TestVars.ISDAX) {
+			TestVars.daxCleanUp();
+		}
+		else TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+	}
+
+	@Test
+	public void testOverflowCountedWithoutReservation() {
+		heap = TestVars.createTransactionalHeap();
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(LARGE_RANGE);
+		long before = heap.getTransactionLogOverflowCount();
+		Transaction.create(heap, () -> {
+			mb.setMemory((byte)1, 0, LARGE_RANGE);
+		});
+		Assert.assertEquals(mb.getByte(LARGE_RANGE - 1), (byte)1);
+		Assert.assertEquals(heap.getTransactionLogOverflowCount(), before + 1);
+	}
+
+	@Test
+	public void testSmallTransactionDoesNotOverflow() {
+		heap = TestVars.createTransactionalHeap();
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(64);
+		long before = heap.getTransactionLogOverflowCount();
+		Transaction.create(heap, () -> {
+			mb.setLong(0, 12345L);
+		});
+		Assert.assertEquals(heap.getTransactionLogOverflowCount(), before);
+	}
+
+	@Test
+	public void testAppendLogBuffer() {
+		heap = TestVars.createTransactionalHeap();
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(LARGE_RANGE);
+		TransactionalMemoryBlock log = heap.allocateMemoryBlock(Transaction.logBufferSize(LARGE_RANGE));
+		long before = heap.getTransactionLogOverflowCount();
+		Transaction tx = Transaction.create(heap);
+		tx.appendLogBuffer(log);
+		tx.run(() -> {
+			mb.setMemory((byte)2, 0, LARGE_RANGE);
+		});
+		Assert.assertEquals(mb.getByte(0), (byte)2);
+		Assert.assertEquals(heap.getTransactionLogOverflowCount(), before);
+	}
+
+	@Test
+	public void testAppendLogBufferToActiveTransaction() {
+		heap = TestVars.createTransactionalHeap();
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(LARGE_RANGE);
+		TransactionalMemoryBlock log = heap.allocateMemoryBlock(Transaction.logBufferSize(LARGE_RANGE));
+		Transaction tx = Transaction.create(heap);
+		tx.run(() -> {
+			tx.appendLogBuffer(log);
+			mb.setMemory((byte)3, 0, LARGE_RANGE);
+		});
+		Assert.assertEquals(mb.getByte(LARGE_RANGE / 2), (byte)3);
+		try {
+			tx.appendLogBuffer(log);
+			Assert.fail("TransactionException not thrown");
+		}
+		catch (TransactionException e) {
+			Assert.assertTrue(true);
+		}
+	}
+
+	@Test
+	public void testAbortWithLogBuffer() {
+		heap = TestVars.createTransactionalHeap();
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(LARGE_RANGE);
+		TransactionalMemoryBlock log = heap.allocateMemoryBlock(Transaction.logBufferSize(LARGE_RANGE));
+		mb.setMemory((byte)4, 0, LARGE_RANGE);
+		Transaction tx = Transaction.create(heap);
+		tx.appendLogBuffer(log);
+		try {
+			tx.run(() -> {
+				mb.setMemory((byte)5, 0, LARGE_RANGE);
+				throw new RuntimeException("abort");
+			});
+			Assert.fail("RuntimeException not thrown");
+		}
+		catch (RuntimeException e) {
+			Assert.assertEquals(mb.getByte(0), (byte)4);
+			Assert.assertEquals(mb.getByte(LARGE_RANGE - 1), (byte)4);
+		}
+	}
+
+	@Test
+	public void testLogBufferTooSmall() {
+		heap = TestVars.createTransactionalHeap();
+		Transaction tx = Transaction.create(heap);
+		try {
+			tx.appendLogBuffer(heap.allocateMemoryBlock(Transaction.MINIMUM_LOG_BUFFER_SIZE - 1));
+			Assert.fail("IllegalArgumentException not thrown");
+		}
+		catch (IllegalArgumentException e) {
+			Assert.assertTrue(true);
+		}
+	}
+
+	@Test
+	public void testReservedLogs() {
+		heap = TestVars.createTransactionalHeap();
+		heap.reserveTransactionLogs(4, Transaction.logBufferSize(LARGE_RANGE));
+		Assert.assertEquals(heap.reservedTransactionLogCount(), 4);
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(LARGE_RANGE);
+		long before = heap.getTransactionLogOverflowCount();
+		for (int i = 0; i < 10; i++) {
+			byte value = (byte)i;
+			Transaction.create(heap, () -> {
+				mb.setMemory(value, 0, LARGE_RANGE);
+			});
+			Assert.assertEquals(mb.getByte(LARGE_RANGE - 1), value);
+		}
+		Assert.assertEquals(heap.getTransactionLogOverflowCount(), before);
+	}
+
+	@Test
+	public void testReservedLogsPersist() {
+		heap = TestVars.createTransactionalHeap();
+		long size = Transaction.logBufferSize(LARGE_RANGE);
+		heap.reserveTransactionLogs(2, size);
+		heap.close();
+		heap = TransactionalHeap.openHeap(TestVars.ISDAX ? TestVars.HEAP_USER_PATH : TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+		Assert.assertEquals(heap.reservedTransactionLogCount(), 2);
+		Assert.assertEquals(heap.reservedTransactionLogSize(), Transaction.alignLog(size));
+		heap.reserveTransactionLogs(0, 0);
+		Assert.assertEquals(heap.reservedTransactionLogCount(), 0);
+		Assert.assertEquals(heap.reservedTransactionLogSize(), 0);
+	}
+
+	@Test
+	public void testReserveWhileInUse() {
+		heap = TestVars.createTransactionalHeap();
+		heap.reserveTransactionLogs(1, Transaction.MINIMUM_LOG_BUFFER_SIZE);
+		Transaction.create(heap, () -> {
+			try {
+				heap.reserveTransactionLogs(2, Transaction.MINIMUM_LOG_BUFFER_SIZE);
+				Assert.fail("IllegalStateException not thrown");
+			}
+			catch (IllegalStateException e) {
+				Assert.assertTrue(true);
+			}
+		});
+		Assert.assertEquals(heap.reservedTransactionLogCount(), 1);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2018-2019 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+
+@Test(singleThreaded = true)
+public class TransactionStatsTests {
+	TransactionalHeap heap = null;
+
+	@BeforeMethod
+	public void intialize() {
+		heap = TestVars.createTransactionalHeap();
+	}
+
+	@SuppressWarnings("deprecation")
+	@AfterMethod
+	public void testCleanup() {
+		if (heap != null)
+			heap.close();
+
+		if (TestVars.ISDAX) {
+			TestVars.daxCleanUp();
+		}
+		else TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+	}
+
+	@Test
+	public void testCommitCounts() {
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(64);
+		heap.resetStats();
+		Transaction.create(heap, () -> {
+			mb.setLong(0, 1L);
+			mb.setLong(8, 2L);
+		});
+		TransactionStats stats = heap.getStats();
+		Assert.assertEquals(stats.begins(), 1);
+		Assert.assertEquals(stats.commits(), 1);
+		Assert.assertEquals(stats.aborts(), 0);
+		Assert.assertEquals(stats.snapshots(), 2);
+		Assert.assertEquals(stats.snapshotBytes(), 16);
+		Assert.assertEquals(stats.maxNestingDepth(), 1);
+	}
+
+	@Test
+	public void testAbortCounts() {
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(64);
+		heap.resetStats();
+		try {
+			Transaction.create(heap, () -> {
+				mb.setLong(0, 1L);
+				throw new IllegalStateException("abort");
+			});
+			Assert.fail("IllegalStateException not thrown");
+		}
+		catch (IllegalStateException e) {
+			TransactionStats stats = heap.getStats();
+			Assert.assertEquals(stats.begins(), 1);
+			Assert.assertEquals(stats.commits(), 0);
+			Assert.assertEquals(stats.aborts(), 1);
+		}
+	}
+
+	@Test
+	public void testNestedCounts() {
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(64);
+		heap.resetStats();
+		Transaction.create(heap, () -> {
+			Transaction.create(heap, () -> {
+				Transaction.create(heap, () -> {
+					mb.setLong(0, 1L);
+				});
+			});
+			Transaction.create(heap, () -> {
+				mb.setLong(8, 1L);
+			});
+		});
+		TransactionStats stats = heap.getStats();
+		Assert.assertEquals(stats.begins(), 1);
+		Assert.assertEquals(stats.commits(), 1);
+		Assert.assertEquals(stats.nestedBegins(), 3);
+		Assert.assertEquals(stats.maxNestingDepth(), 3);
+	}
+
+	@Test
+	public void testAllocationCounts() {
+		heap.resetStats();
+		Transaction.create(heap, () -> {
+			heap.allocateMemoryBlock(64);
+			heap.allocateCompactMemoryBlock(64);
+		});
+		TransactionStats stats = heap.getStats();
+		Assert.assertEquals(stats.allocations(), 2);
+		Assert.assertEquals(stats.begins(), 1);
+	}
+
+	@Test
+	public void testImplicitTransactions() {
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(64);
+		heap.resetStats();
+		for (int i = 0; i < 10; i++) mb.setLong(0, i);
+		TransactionStats stats = heap.getStats();
+		Assert.assertEquals(stats.begins(), 10);
+		Assert.assertEquals(stats.commits(), 10);
+		Assert.assertTrue(stats.snapshotBytes() >= 80);
+	}
+
+	@Test
+	public void testReset() {
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(64);
+		mb.setLong(0, 1L);
+		heap.resetStats();
+		TransactionStats stats = heap.getStats();
+		Assert.assertEquals(stats.begins(), 0);
+		Assert.assertEquals(stats.snapshots(), 0);
+		Assert.assertEquals(stats.snapshotBytesPerTransaction(), 0.0);
+	}
+}
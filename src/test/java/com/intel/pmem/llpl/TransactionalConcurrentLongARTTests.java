@@ -1324,4 +1324,186 @@ Integer cnt = 0;
             Assert.assertTrue(true); 
         }
     }
+
+    static void runThreads(int count, Runnable task) {
+        Thread[] threads = new Thread[count];
+        for (int i = 0; i < count; i++) {
+            threads[i] = new Thread(task);
+            threads[i].start();
+        }
+        try {
+            for (Thread t : threads) t.join();
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static byte[] intKey(int i) {
+        return new byte[] {(byte)(i >> 24), (byte)(i >> 16), (byte)(i >> 8), (byte)i};
+    }
+
+    public void testWriteCombiningPuts() {
+        ConcurrentLongART cart = getCart(heap);
+        cart.setWriteCombining(true);
+        Assert.assertTrue(cart.isWriteCombining());
+        java.util.concurrent.atomic.AtomicInteger next = new java.util.concurrent.atomic.AtomicInteger();
+        runThreads(8, () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < TREESIZE) cart.put(intKey(i), i);
+        });
+        Assert.assertEquals(cart.size(), TREESIZE);
+        for (int i = 0; i < TREESIZE; i++) Assert.assertEquals(cart.get(intKey(i)), (long)i);
+        for (int i = 0; i < TREESIZE; i += 2) cart.remove(intKey(i), c -> {});
+        Assert.assertEquals(cart.size(), TREESIZE / 2);
+    }
+
+    public void testWriteCombiningSkewedMerge() {
+        ConcurrentLongART cart = getCart(heap);
+        cart.setWriteCombining(true);
+        int threads = 8;
+        int increments = 500;
+        runThreads(threads, () -> {
+            for (int i = 0; i < increments; i++) {
+                cart.put(intKey(i % 4), 1L, (Object v, Long old) -> old + (Long)v);
+            }
+        });
+        for (int k = 0; k < 4; k++) Assert.assertEquals(cart.get(intKey(k)), (long)threads * increments / 4);
+    }
+
+    public void testWriteCombiningFailureIsolated() {
+        ConcurrentLongART cart = getCart(heap);
+        cart.setWriteCombining(true);
+        java.util.concurrent.atomic.AtomicInteger failures = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.atomic.AtomicInteger next = new java.util.concurrent.atomic.AtomicInteger();
+        runThreads(8, () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < 1000) {
+                try {
+                    cart.put(intKey(i), (long)i, (Object v, Long old) -> {
+                        if ((Long)v % 10 == 0) throw new IllegalArgumentException("bad value");
+                        return (Long)v;
+                    });
+                }
+                catch (IllegalArgumentException e) {
+                    failures.incrementAndGet();
+                }
+            }
+        });
+        Assert.assertEquals(failures.get(), 100);
+        Assert.assertEquals(cart.size(), 900);
+        for (int i = 0; i < 1000; i++) Assert.assertEquals(cart.get(intKey(i)), (i % 10 == 0) ? 0L : (long)i);
+    }
+
+    public void testWriteCombiningFailureInsideBatch() {
+        ConcurrentLongART cart = getCart(heap);
+        cart.setWriteCombining(true);
+        java.util.concurrent.atomic.AtomicInteger failures = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.atomic.AtomicInteger inserted = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.atomic.AtomicInteger next = new java.util.concurrent.atomic.AtomicInteger();
+        int threads = 8;
+        int operations = 4000;
+        // contended merges on a few keys are batched together with inserts of new keys; every seventh merge
+        // throws, rolling back the inserts and merges that precede it in its batch
+        runThreads(threads, () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < operations) {
+                boolean fail = i % 7 == 0;
+                try {
+                    cart.put(intKey(i % 4), 1L, (Object v, Long old) -> {
+                        if (fail) throw new IllegalStateException("failed merge");
+                        return old + (Long)v;
+                    });
+                }
+                catch (IllegalStateException e) {
+                    failures.incrementAndGet();
+                }
+                cart.put(intKey(1000 + i), (long)i);
+                inserted.incrementAndGet();
+            }
+        });
+        long total = 0;
+        for (int k = 0; k < 4; k++) total += cart.get(intKey(k));
+        Assert.assertEquals(total, (long)(operations - failures.get()));
+        Assert.assertEquals(cart.size(), 4L + inserted.get());
+        long iterated = 0;
+        Iterator<LongART.Entry> it = cart.getEntryIterator();
+        while (it.hasNext()) {
+            it.next();
+            iterated++;
+        }
+        Assert.assertEquals(iterated, cart.size());
+        for (int i = 0; i < operations; i++) Assert.assertEquals(cart.get(intKey(1000 + i)), (long)i);
+    }
+
+    @Test
+    public void testSplitsUndoneOnAbort() throws InterruptedException {
+        ConcurrentLongART cart = new ConcurrentLongART(heap, 8);
+        ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+        for (int i = 0; i < 500; i++) {
+            byte[] key = new byte[8];
+            rnd.nextBytes(key);
+            control.put(new KeyBytes(key), (long)i + 1);
+            cart.put(key, i + 1);
+        }
+        try {
+            Transaction.create(heap, () -> {
+                // enough entries to split shards several times, including shards created by earlier splits
+                for (int i = 0; i < 5000; i++) {
+                    byte[] key = new byte[8];
+                    rnd.nextBytes(key);
+                    cart.put(key, -1L);
+                }
+                throw new IllegalStateException("abort");
+            });
+            Assert.fail("IllegalStateException not thrown");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertTrue(true);
+        }
+        Assert.assertEquals(cart.size(), (long)control.size());
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) Assert.assertEquals(cart.get(e.getKey().get()), (long)e.getValue());
+        // no shard is left locked by the aborted transaction
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 3000; i++) {
+                byte[] key = new byte[8];
+                rnd.nextBytes(key);
+                control.put(new KeyBytes(key), (long)i);
+                cart.put(key, i);
+            }
+        });
+        writer.start();
+        writer.join();
+        Assert.assertEquals(cart.size(), (long)control.size());
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) Assert.assertEquals(cart.get(e.getKey().get()), (long)e.getValue());
+    }
+
+    @Test
+    public void testConcurrentTransactionsThatSplit() throws InterruptedException {
+        ConcurrentLongART cart = new ConcurrentLongART(heap, 8);
+        ConcurrentSkipListMap<KeyBytes, Long> control = new ConcurrentSkipListMap<>();
+        Thread[] writers = new Thread[2];
+        for (int t = 0; t < writers.length; t++) {
+            long seed = t;
+            writers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                Transaction.create(heap, () -> {
+                    // enough entries to split shards; no shard stays locked until this transaction ends
+                    for (int i = 0; i < 3000; i++) {
+                        byte[] key = new byte[8];
+                        random.nextBytes(key);
+                        control.put(new KeyBytes(key), seed);
+                        cart.put(key, seed);
+                    }
+                });
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join(60_000);
+            Assert.assertFalse(writer.isAlive());
+        }
+        Assert.assertEquals(cart.size(), (long)control.size());
+        for (Map.Entry<KeyBytes, Long> e : control.entrySet()) Assert.assertEquals(cart.get(e.getKey().get()), (long)e.getValue());
+    }
 }
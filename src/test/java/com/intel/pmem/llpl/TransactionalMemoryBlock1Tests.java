@@ -11,6 +11,9 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.testng.Assert;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 
 @SuppressWarnings("deprecation")
 @Test(singleThreaded = true)
@@ -169,4 +172,161 @@ public class TransactionalMemoryBlock1Tests {
         Assert.assertFalse(mb.isValid());
     }
 
+    @Test
+    public void testCopyLongArray() {
+        heap = TestVars.createTransactionalHeap();
+        long[] values = new long[512];
+        for (int i = 0; i < values.length; i++) values[i] = i * 31L;
+        TransactionalMemoryBlock mb = heap.allocateMemoryBlock(8L * values.length);
+        heap.resetStats();
+        mb.copyFromLongArray(values, 0, 0, values.length);
+        TransactionStats stats = heap.getStats();
+        Assert.assertEquals(stats.snapshots(), 1);
+        Assert.assertEquals(stats.snapshotBytes(), 8L * values.length);
+        Assert.assertEquals(mb.getLong(8L * 100), 3100L);
+        long[] copy = new long[values.length + 2];
+        mb.copyToLongArray(0, copy, 2, values.length);
+        for (int i = 0; i < values.length; i++) Assert.assertEquals(copy[i + 2], values[i]);
+    }
+
+    @Test
+    public void testCopyPrimitiveArraysInRange() {
+        heap = TestVars.createTransactionalHeap();
+        TransactionalMemoryBlock mb = heap.allocateMemoryBlock(64);
+        int[] ints = {1, 2, 3, 4};
+        double[] doubles = {1.5, -2.5};
+        mb.withRange(0, 64, (Range range) -> {
+            range.copyFromIntArray(ints, 0, 0, ints.length);
+            range.copyFromDoubleArray(doubles, 0, 16, doubles.length);
+            range.copyFromShortArray(new short[] {7, 8}, 0, 32, 2);
+            range.copyFromFloatArray(new float[] {0.25f}, 0, 36, 1);
+        });
+        Assert.assertEquals(mb.getInt(12), 4);
+        int[] intCopy = new int[4];
+        mb.copyToIntArray(0, intCopy, 0, 4);
+        Assert.assertEquals(intCopy, ints);
+        double[] doubleCopy = new double[2];
+        mb.copyToDoubleArray(16, doubleCopy, 0, 2);
+        Assert.assertEquals(doubleCopy, doubles);
+        short[] shortCopy = new short[2];
+        mb.copyToShortArray(32, shortCopy, 0, 2);
+        Assert.assertEquals(shortCopy[1], (short)8);
+        float[] floatCopy = new float[1];
+        mb.copyToFloatArray(36, floatCopy, 0, 1);
+        Assert.assertEquals(floatCopy[0], 0.25f);
+    }
+
+    @Test
+    public void testCopyLongArrayOutOfBounds() {
+        heap = TestVars.createTransactionalHeap();
+        TransactionalMemoryBlock mb = heap.allocateMemoryBlock(64);
+        try {
+            mb.copyFromLongArray(new long[9], 0, 0, 9);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+        try {
+            mb.copyFromLongArray(new long[4], 2, 0, 4);
+            Assert.fail("IndexOutOfBoundsException not thrown");
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testCompareAndSetRolledBack() {
+        heap = TestVars.createTransactionalHeap();
+        TransactionalMemoryBlock mb = heap.allocateMemoryBlock(64);
+        mb.setLong(0, 1L);
+        Assert.assertTrue(mb.compareAndSetLong(0, 1L, 2L));
+        try {
+            Transaction.create(heap, () -> {
+                Assert.assertTrue(mb.compareAndSetLong(0, 2L, 3L));
+                mb.getAndAddLong(0, 10);
+                throw new IllegalStateException("abort");
+            });
+            Assert.fail("IllegalStateException not thrown");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals(mb.getLong(0), 2L);
+        }
+    }
+
+    @Test
+    public void testFailedCompareAndSetNotRolledBack() throws InterruptedException {
+        heap = TestVars.createTransactionalHeap();
+        TransactionalMemoryBlock mb = heap.allocateMemoryBlock(64);
+        mb.setLong(0, 1L);
+        mb.setInt(8, 1);
+        try {
+            Transaction.create(heap, () -> {
+                Assert.assertFalse(mb.compareAndSetLong(0, 5L, 6L));
+                Assert.assertFalse(mb.compareAndSetInt(8, 5, 6));
+                Thread other = new Thread(() -> {
+                    mb.setLong(0, 2L);
+                    mb.setInt(8, 2);
+                });
+                other.start();
+                try {
+                    other.join();
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                throw new IllegalStateException("abort");
+            });
+            Assert.fail("IllegalStateException not thrown");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals(mb.getLong(0), 2L);
+            Assert.assertEquals(mb.getInt(8), 2);
+        }
+    }
+
+    @Test
+    public void testParallelSetMemoryRolledBack() {
+        heap = TestVars.createTransactionalHeap();
+        long length = 4L << 20;
+        TransactionalMemoryBlock mb = heap.allocateMemoryBlock(length);
+        mb.parallelSetMemory((byte)1, 0, length);
+        try {
+            Transaction.create(heap, () -> {
+                mb.parallelSetMemory((byte)2, 0, length);
+                Assert.assertEquals(mb.getByte(length - 1), (byte)2);
+                throw new IllegalStateException("abort");
+            });
+            Assert.fail("IllegalStateException not thrown");
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals(mb.getByte(0), (byte)1);
+            Assert.assertEquals(mb.getByte(length - 1), (byte)1);
+        }
+    }
+
+    @Test
+    public void testChannelTransferFromReadsOutsideTransaction() throws IOException {
+        heap = TestVars.createTransactionalHeap();
+        int size = 2 * 1024 * 1024 + 17;
+        TransactionalMemoryBlock mb = heap.allocateMemoryBlock(size + 200);
+        int[] position = new int[1];
+        ReadableByteChannel channel = new ReadableByteChannel() {
+            public int read(ByteBuffer dst) {
+                Assert.assertFalse(Transaction.inTransaction());
+                if (position[0] == size) return -1;
+                int n = Math.min(dst.remaining(), Math.min(4096, size - position[0]));
+                for (int i = 0; i < n; i++) dst.put((byte)((position[0] + i) % 251));
+                position[0] += n;
+                return n;
+            }
+            public boolean isOpen() { return true; }
+            public void close() {}
+        };
+        long read = mb.transferFrom(channel, 100, size + 100);
+        Assert.assertEquals(read, size);
+        for (int i = 0; i < size; i += 4099) Assert.assertEquals(mb.getByte(100 + i), (byte)(i % 251));
+        Assert.assertEquals(mb.getByte(100 + size - 1), (byte)((size - 1) % 251));
+    }
 }
@@ -1035,4 +1035,97 @@ public class Transactions2Tests {
 		    assert(!t1.isValid());
 		}
 	}
+
+	@Test
+	public void testOnCommit() {
+		heap = TestVars.createTransactionalHeap();
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(24);
+		StringBuilder log = new StringBuilder();
+		Transaction t1 = Transaction.create(heap);
+		t1.onCommit(() -> log.append("a"));
+		t1.onAbort(() -> log.append("x"));
+		t1.run(() -> {
+			mb.setLong(0, 12345L);
+			t1.onCommit(() -> {
+				Assert.assertFalse(Transaction.isTransactionActive());
+				log.append("b");
+			});
+			Assert.assertEquals(log.length(), 0);
+		});
+		Assert.assertEquals(log.toString(), "ab");
+		try {
+			t1.onCommit(() -> log.append("c"));
+			Assert.fail("TransactionException not thrown");
+		}
+		catch (TransactionException e) {
+			Assert.assertEquals(log.toString(), "ab");
+		}
+	}
+
+	@Test
+	public void testOnCommitNested() {
+		heap = TestVars.createTransactionalHeap();
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(24);
+		StringBuilder log = new StringBuilder();
+		Transaction.create(heap, () -> {
+			mb.setLong(0, 12345L);
+			Transaction t2 = Transaction.create(heap);
+			t2.onCommit(() -> log.append("b"));
+			t2.run(() -> {
+				mb.setLong(8, 555);
+				t2.onCommit(() -> log.append("c"));
+			});
+			Assert.assertEquals(log.length(), 0);
+			log.append("a");
+		});
+		Assert.assertEquals(log.toString(), "abc");
+	}
+
+	@Test
+	public void testOnAbortNested() {
+		heap = TestVars.createTransactionalHeap();
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(24);
+		StringBuilder log = new StringBuilder();
+		try {
+			Transaction.create(heap, () -> {
+				mb.setLong(0, 12345L);
+				Transaction t2 = Transaction.create(heap);
+				t2.run(() -> {
+					t2.onCommit(() -> log.append("c"));
+					t2.onAbort(() -> {
+						Assert.assertEquals(mb.getLong(0), 0L);
+						log.append("a");
+					});
+				});
+				throw new RuntimeException("abort");
+			});
+			Assert.fail("RuntimeException not thrown");
+		}
+		catch (RuntimeException e) {
+			Assert.assertEquals(e.getMessage(), "abort");
+		}
+		Assert.assertEquals(log.toString(), "a");
+		Assert.assertEquals(mb.getLong(0), 0L);
+	}
+
+	@Test
+	public void testOnCommitActionThrows() {
+		heap = TestVars.createTransactionalHeap();
+		TransactionalMemoryBlock mb = heap.allocateMemoryBlock(24);
+		StringBuilder log = new StringBuilder();
+		Transaction t1 = Transaction.create(heap);
+		t1.onCommit(() -> {throw new IllegalStateException("first");});
+		t1.onCommit(() -> log.append("b"));
+		try {
+			t1.run(() -> {
+				mb.setLong(0, 12345L);
+			});
+			Assert.fail("IllegalStateException not thrown");
+		}
+		catch (IllegalStateException e) {
+			Assert.assertEquals(e.getMessage(), "first");
+		}
+		Assert.assertEquals(log.toString(), "b");
+		Assert.assertEquals(mb.getLong(0), 12345L);
+	}
 }
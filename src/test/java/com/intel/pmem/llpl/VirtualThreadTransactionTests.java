@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2020 Intel Corporation
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ *
+ */
+
+package com.intel.pmem.llpl;
+
+import com.intel.pmem.llpl.util.ConcurrentLongART;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.Assert;
+import org.testng.SkipException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Test(singleThreaded = true)
+public class VirtualThreadTransactionTests {
+    TransactionalHeap heap = null;
+    static final int THREADS = 5000;
+
+    @BeforeMethod
+    public void initialize() {
+        heap = TestVars.createTransactionalHeap();
+    }
+
+    @SuppressWarnings("deprecation")
+    @AfterMethod
+    public void testCleanup() {
+        if (heap != null)
+            heap.close();
+
+        if (TestVars.ISDAX) {
+            TestVars.daxCleanUp();
+        }
+        else TestVars.cleanUp(TestVars.HEAP_USER_PATH + TestVars.HEAP_NAME);
+    }
+
+    // virtual threads are created reflectively so these tests compile for Java 8
+    static Thread startVirtualThread(Runnable task) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method start = Class.forName("java.lang.Thread$Builder").getMethod("start", Runnable.class);
+            return (Thread)start.invoke(builder, task);
+        }
+        catch (NoSuchMethodException | ClassNotFoundException e) {
+            throw new SkipException("Virtual threads are not supported by this JVM");
+        }
+        catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static void runVirtualThreads(int count, Runnable task) {
+        ArrayList<Thread> threads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) threads.add(startVirtualThread(task));
+        try {
+            for (Thread t : threads) t.join();
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static byte[] key(int i) {
+        return ByteBuffer.allocate(8).putLong(i).array();
+    }
+
+    @Test
+    public void testVirtualThreadDetected() {
+        AtomicReference<Boolean> virtual = new AtomicReference<>();
+        runVirtualThreads(1, () -> virtual.set(Util.isVirtualThread()));
+        Assert.assertTrue(virtual.get());
+        Assert.assertFalse(Util.isVirtualThread());
+    }
+
+    @Test
+    public void testBlockingTransactionBody() {
+        TransactionalMemoryBlock mb = heap.allocateMemoryBlock(8L * 64);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        runVirtualThreads(64, () -> {
+            int i = next.getAndIncrement();
+            try {
+                Transaction.create(heap, () -> {
+                    mb.setLong(i * 8L, i);
+                    try {
+                        Thread.sleep(1);
+                    }
+                    catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    if (!Transaction.isTransactionActive()) throw new IllegalStateException("Transaction lost");
+                    mb.setLong(i * 8L, i + 1);
+                });
+            }
+            catch (RuntimeException e) {
+                errors.incrementAndGet();
+            }
+        });
+        Assert.assertEquals(errors.get(), 0);
+        for (int i = 0; i < 64; i++) Assert.assertEquals(mb.getLong(i * 8L), i + 1L);
+    }
+
+    @Test
+    public void testConcurrentLongARTPuts() {
+        ConcurrentLongART cart = new ConcurrentLongART(heap, 8);
+        AtomicInteger next = new AtomicInteger();
+        runVirtualThreads(THREADS, () -> {
+            int i = next.getAndIncrement();
+            cart.put(key(i), i);
+            Thread.yield();
+            cart.put(key(i), i + 1L);
+        });
+        Assert.assertEquals(cart.size(), THREADS);
+        for (int i = 0; i < THREADS; i++) Assert.assertEquals(cart.get(key(i)), i + 1L);
+    }
+
+    @Test
+    public void testAbortOnVirtualThread() {
+        TransactionalMemoryBlock mb = heap.allocateMemoryBlock(8);
+        mb.setLong(0, 5L);
+        AtomicReference<String> message = new AtomicReference<>();
+        runVirtualThreads(1, () -> {
+            try {
+                Transaction.create(heap, () -> {
+                    mb.setLong(0, 6L);
+                    throw new IllegalStateException("abort");
+                });
+            }
+            catch (IllegalStateException e) {
+                message.set(e.getMessage());
+            }
+        });
+        Assert.assertEquals(message.get(), "abort");
+        Assert.assertEquals(mb.getLong(0), 5L);
+    }
+}